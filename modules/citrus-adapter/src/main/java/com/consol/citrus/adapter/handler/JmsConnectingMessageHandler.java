@@ -16,6 +16,9 @@
 
 package com.consol.citrus.adapter.handler;
 
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.jms.*;
 
 import org.slf4j.Logger;
@@ -40,6 +43,11 @@ import com.consol.citrus.message.MessageHandler;
  * Message handler implementation forwarding incoming request to a JMS destination. The handler is
  * waiting for a reply message either on a static response destination or temporary queue destination.
  * 
+ * Concurrent requests use pooled sessions with cached producers. Each pooled session owns a temporary reply queue
+ * with consumer that is reused by all requests forwarded with this session. The consumer exists before the request
+ * is sent, so fast replies are not missed, and as a session serves one request at a time replies do not need a
+ * correlation id. Sessions of timed out requests are closed, so late replies never reach another request.
+ * 
  * The forwarding destination as well as the reply destination can be declared either as injected instance 
  * or by destination name.
  * 
@@ -70,8 +78,21 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
     /** JMS connection */
     private Connection connection = null;
     
-    /** JMS Session */
-    private Session session = null;
+    /** Idle pooled sessions */
+    private final BlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<PooledSession>();
+    
+    /** Maximum number of idle sessions kept in pool */
+    private int maxIdleSessions = 10;
+    
+    /** Limits number of concurrently forwarded requests, null for no limit */
+    private Semaphore requestPermits;
+    
+    /** Number of requests waiting for reply on temporary reply destination */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    
+    /** Session pool statistics */
+    private final AtomicInteger createdSessions = new AtomicInteger();
+    private final AtomicInteger activeSessions = new AtomicInteger();
     
     /** Time to wait for reply message */
     private long replyTimeout = 5000L;
@@ -88,6 +109,9 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
     /** Jms message converter */
     private MessageConverter messageConverter = new SimpleMessageConverter();
     
+    /** Converter combining message converter and header mapper */
+    private volatile JmsMessageConverter jmsMessageConverter;
+    
     /**
      * Logger
      */
@@ -112,54 +136,74 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
             log.debug("Message is: " + request.getPayload());
         }
         
-        MessageProducer messageProducer = null;
+        acquirePermit();
+        
+        PooledSession pooledSession = null;
         MessageConsumer messageConsumer = null;
-        Destination replyToDestination = null;
+        boolean sessionValid = false;
         
         Message<?> replyMessage = null;
         try {
-            if (connection == null) { 
-                connection = createConnection();
-            }
-            
-            if (session == null) {
-                session = createSession(connection);
-            }
+            createConnection();
+            pooledSession = borrowSession();
+            Session session = pooledSession.session;
             
-            JmsMessageConverter jmsMessageConverter = new JmsMessageConverter(messageConverter, headerMapper);
-            javax.jms.Message jmsRequest = jmsMessageConverter.toMessage(request, session);
+            javax.jms.Message jmsRequest = getJmsMessageConverter().toMessage(request, session);
             
-            messageProducer = session.createProducer(getDestination(session));
+            MessageProducer messageProducer = pooledSession.getProducer();
 
-            replyToDestination = getReplyDestination(session, request);
-            jmsRequest.setJMSReplyTo(replyToDestination);
+            Destination replyToDestination = getReplyDestination(session, request);
+            javax.jms.Message jmsReplyMessage;
             
-            if (messageCallback != null) {
-                messageCallback.doWithMessage(jmsRequest, request);
-            }
-            
-            messageProducer.send(jmsRequest);
-            if (replyToDestination instanceof TemporaryQueue || replyToDestination instanceof TemporaryTopic) {
-                messageConsumer = session.createConsumer(replyToDestination);
-            } else {
+            if (replyToDestination != null) {
+                jmsRequest.setJMSReplyTo(replyToDestination);
+                
+                if (messageCallback != null) {
+                    messageCallback.doWithMessage(jmsRequest, request);
+                }
+                
+                messageProducer.send(jmsRequest);
+                
                 String messageId = jmsRequest.getJMSMessageID().replaceAll("'", "''");
                 String messageSelector = "JMSCorrelationID = '" + messageId + "'";
                 messageConsumer = session.createConsumer(replyToDestination, messageSelector);
+                
+                jmsReplyMessage = (this.replyTimeout >= 0) ? messageConsumer.receive(replyTimeout) : messageConsumer.receive();
+            } else {
+                replyToDestination = pooledSession.getTemporaryReplyDestination();
+                jmsRequest.setJMSReplyTo(replyToDestination);
+                
+                if (messageCallback != null) {
+                    messageCallback.doWithMessage(jmsRequest, request);
+                }
+                
+                inFlightRequests.incrementAndGet();
+                try {
+                    messageProducer.send(jmsRequest);
+                    jmsReplyMessage = pooledSession.receiveReply(replyTimeout);
+                } finally {
+                    inFlightRequests.decrementAndGet();
+                }
+                
+                if (jmsReplyMessage == null) {
+                    //close session on timeout, so late reply is not received by next request
+                    pooledSession.replyTimedOut = true;
+                }
             }
             
-            javax.jms.Message jmsReplyMessage = (this.replyTimeout >= 0) ? messageConsumer.receive(replyTimeout) : messageConsumer.receive();
+            sessionValid = !pooledSession.replyTimedOut;
             
             if (jmsReplyMessage != null) {
-                replyMessage = (Message<?>)jmsMessageConverter.fromMessage(jmsReplyMessage);
+                replyMessage = (Message<?>)getJmsMessageConverter().fromMessage(jmsReplyMessage);
             } else if (fallbackMessageHandlerDelegate != null) {
                 log.info("Did not receive reply message from destination '"
-                        + getReplyDestination(session, request)
+                        + replyToDestination
                         + "' - delegating to fallback message handler for response generation");
                 
                 replyMessage = fallbackMessageHandlerDelegate.handleMessage(request);
             } else {
                 log.info("Did not receive reply message from destination '"
-                        + getReplyDestination(session, request)
+                        + replyToDestination
                         + "' - no response is simulated");
                 
                 replyMessage = null;
@@ -167,37 +211,92 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
         } catch (JMSException e) {
             throw new CitrusRuntimeException(e);
         } finally {
-            JmsUtils.closeMessageProducer(messageProducer);
             JmsUtils.closeMessageConsumer(messageConsumer);
-            deleteTemporaryDestination(replyToDestination);
+            
+            if (pooledSession != null) {
+                returnSession(pooledSession, sessionValid);
+            }
+            
+            releasePermit();
         }
         
         return replyMessage;
     }
     
     /**
-     * Deletes a temporary destination if present.
-     * @param destination
+     * Waits for a free request slot in case number of concurrent requests is limited.
      */
-    private void deleteTemporaryDestination(Destination destination) {
-        try {
-            if (destination instanceof TemporaryQueue) { 
-                ((TemporaryQueue) destination).delete();
-            } else if (destination instanceof TemporaryTopic) {
-                ((TemporaryTopic) destination).delete();
+    private void acquirePermit() {
+        if (requestPermits != null) {
+            try {
+                requestPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CitrusRuntimeException("Interrupted while waiting for free request slot", e);
             }
-        } catch (JMSException e) {
-            log.error("Error while deleting temporary destination", e);
         }
     }
-
+    
+    /**
+     * Releases request slot.
+     */
+    private void releasePermit() {
+        if (requestPermits != null) {
+            requestPermits.release();
+        }
+    }
+    
+    /**
+     * Gets idle session from pool or creates a new session.
+     * @return the pooled session.
+     * @throws JMSException
+     */
+    private PooledSession borrowSession() throws JMSException {
+        PooledSession pooledSession = idleSessions.poll();
+        
+        if (pooledSession == null) {
+            pooledSession = new PooledSession(createSession(connection));
+            createdSessions.incrementAndGet();
+        }
+        
+        activeSessions.incrementAndGet();
+        
+        return pooledSession;
+    }
+    
+    /**
+     * Puts session back to pool. Sessions that caused errors or exceed the
+     * maximum number of idle sessions get closed.
+     * @param pooledSession the session.
+     * @param valid whether the session is still usable.
+     */
+    private void returnSession(PooledSession pooledSession, boolean valid) {
+        activeSessions.decrementAndGet();
+        
+        if (!valid || idleSessions.size() >= maxIdleSessions || !idleSessions.offer(pooledSession)) {
+            pooledSession.close();
+        }
+    }
+    
+    /**
+     * Gets the JMS message converter, creates converter on first access.
+     * @return
+     */
+    private JmsMessageConverter getJmsMessageConverter() {
+        if (jmsMessageConverter == null) {
+            jmsMessageConverter = new JmsMessageConverter(messageConverter, headerMapper);
+        }
+        
+        return jmsMessageConverter;
+    }
+    
     /**
      * Get the reply destination either as injected instance or from destination name
-     * resolver or as temporary reply queue.
+     * resolver. Returns null in case shared temporary reply queue should be used.
      * 
      * @param session
      * @param message
-     * @return
+     * @return the reply destination or null.
      * @throws JMSException
      */
     private Destination getReplyDestination(Session session, Message<?> message) throws JMSException {
@@ -215,7 +314,7 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
             return new DynamicDestinationResolver().resolveDestinationName(session, this.replyDestinationName, false);
         }
         
-        return session.createTemporaryQueue();
+        return null;
     }
 
     /**
@@ -260,7 +359,7 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
      * @return
      * @throws JMSException
      */
-    protected Connection createConnection() throws JMSException {
+    protected synchronized Connection createConnection() throws JMSException {
         if (connection == null) {
             if (connectionFactory instanceof QueueConnectionFactory) {
                 this.connection = ((QueueConnectionFactory) connectionFactory).createQueueConnection();
@@ -283,28 +382,28 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
      * @throws JMSException
      */
     protected Session createSession(Connection connection) throws JMSException {
-        if (session == null) {
-            if (connection instanceof QueueConnection) {
-                session = ((QueueConnection) connection).createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
-            } else {
-                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            }
-            
-            if (log.isDebugEnabled()) {
-                log.debug("Created new JMS session [" + session + "]");
-            }
-            
-            return session;
+        Session session;
+        if (connection instanceof QueueConnection) {
+            session = ((QueueConnection) connection).createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+        } else {
+            session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Created new JMS session [" + session + "]");
         }
         
         return session;
     }
     
     /**
-     * Destroy method closing JMS session and connection
+     * Destroy method closing pooled JMS sessions and connection
      */
     public void destroy() throws Exception {
-        JmsUtils.closeSession(session);
+        PooledSession pooledSession;
+        while ((pooledSession = idleSessions.poll()) != null) {
+            pooledSession.close();
+        }
         
         if (connection != null) {
             ConnectionFactoryUtils.releaseConnection(connection, this.connectionFactory, true);
@@ -317,7 +416,6 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
      */
     public void afterPropertiesSet() throws Exception {
         createConnection();
-        createSession(connection);
         
         connection.start();
     }
@@ -393,4 +491,126 @@ public class JmsConnectingMessageHandler implements MessageHandler, Initializing
     public void setFallbackMessageHandlerDelegate(MessageHandler fallbackMessageHandlerDelegate) {
         this.fallbackMessageHandlerDelegate = fallbackMessageHandlerDelegate;
     }
+
+    /**
+     * Sets the maximum number of idle sessions kept in pool.
+     * @param maxIdleSessions the maxIdleSessions to set
+     */
+    public void setMaxIdleSessions(int maxIdleSessions) {
+        this.maxIdleSessions = maxIdleSessions;
+    }
+
+    /**
+     * Limits the number of concurrently forwarded requests. Zero or less means no limit.
+     * @param maxConcurrentRequests the maxConcurrentRequests to set
+     */
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.requestPermits = maxConcurrentRequests > 0 ? new Semaphore(maxConcurrentRequests, true) : null;
+    }
+    
+    /**
+     * Gets the number of sessions created so far.
+     * @return the createdSessions
+     */
+    public int getCreatedSessions() {
+        return createdSessions.get();
+    }
+    
+    /**
+     * Gets the number of sessions currently in use.
+     * @return the activeSessions
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+    
+    /**
+     * Gets the number of requests waiting for a reply on temporary reply destinations.
+     * @return
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+    
+    /**
+     * Pooled session holding the message producer for the forwarding destination and
+     * the temporary reply queue with its consumer.
+     */
+    private final class PooledSession {
+        /** The JMS session */
+        private final Session session;
+        
+        /** Cached producer */
+        private MessageProducer producer;
+        
+        /** Temporary reply queue and consumer, created on first access */
+        private TemporaryQueue temporaryReplyQueue;
+        private MessageConsumer replyConsumer;
+        
+        /** Last request did not receive a reply in time */
+        private boolean replyTimedOut = false;
+        
+        /**
+         * Default constructor using session.
+         * @param session
+         */
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+        
+        /**
+         * Gets the message producer for the forwarding destination, creates producer on first access.
+         * @return
+         * @throws JMSException
+         */
+        private MessageProducer getProducer() throws JMSException {
+            if (producer == null) {
+                producer = session.createProducer(getDestination(session));
+            }
+            
+            return producer;
+        }
+        
+        /**
+         * Gets the temporary reply queue, creates queue and reply consumer on first access.
+         * @return
+         * @throws JMSException
+         */
+        private Destination getTemporaryReplyDestination() throws JMSException {
+            if (temporaryReplyQueue == null) {
+                temporaryReplyQueue = session.createTemporaryQueue();
+                replyConsumer = session.createConsumer(temporaryReplyQueue);
+            }
+            
+            return temporaryReplyQueue;
+        }
+        
+        /**
+         * Receives reply on temporary reply queue.
+         * @param timeout time to wait, negative value waits forever.
+         * @return the reply or null on timeout.
+         * @throws JMSException
+         */
+        private javax.jms.Message receiveReply(long timeout) throws JMSException {
+            return (timeout >= 0) ? replyConsumer.receive(timeout) : replyConsumer.receive();
+        }
+        
+        /**
+         * Closes reply consumer, temporary reply queue, producer and session.
+         */
+        private void close() {
+            JmsUtils.closeMessageConsumer(replyConsumer);
+            
+            try {
+                if (temporaryReplyQueue != null) {
+                    temporaryReplyQueue.delete();
+                }
+            } catch (JMSException e) {
+                log.error("Error while deleting temporary destination", e);
+            }
+            
+            JmsUtils.closeMessageProducer(producer);
+            JmsUtils.closeSession(session);
+        }
+    }
 }
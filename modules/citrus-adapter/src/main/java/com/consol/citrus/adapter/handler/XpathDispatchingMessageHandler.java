@@ -17,21 +17,28 @@
 package com.consol.citrus.adapter.handler;
 
 import java.io.IOException;
-import java.io.Reader;
 import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
 
-import org.apache.xerces.parsers.DOMParser;
-import org.apache.xerces.util.DOMUtil;
-import org.springframework.context.ApplicationContext;
+import javax.xml.stream.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.integration.Message;
 import org.springframework.util.*;
 import org.springframework.xml.namespace.SimpleNamespaceContext;
+import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.MessageHandler;
@@ -41,73 +48,262 @@ import com.consol.citrus.xml.xpath.XPathUtils;
 /**
  * This message handler implementation dispatches incoming request to other message handlers
  * according to a XPath expression evaluated on the message payload of the incoming request.
- * 
+ *
  * The XPath expression's result value will determine the message handler delegate. You can think of
  * having a message handler for each root element name, meaning the message type.
- * 
+ *
  * All available message handlers are hosted in a separate Spring application context. The message handler
- * will search for a appropriate bean instance in this context according to the mapping expression.
- * 
+ * will search for a appropriate bean instance in this context according to the mapping expression. The context
+ * is loaded only once and resolved message handler beans are cached per dispatch key. Optionally the context
+ * gets reloaded as soon as the context resource is modified. A replaced context is closed once all requests
+ * still being handled by its message handlers have finished.
+ *
+ * Root element names and simple element paths (e.g. /ns:Root/ns:Element or //ns:Element) are read with a
+ * streaming StAX parser, other XPath expressions are evaluated on a DOM document.
+ *
  * @author Christoph Deppisch
  */
-public class XpathDispatchingMessageHandler implements MessageHandler {
+public class XpathDispatchingMessageHandler implements MessageHandler, DisposableBean {
     /** Dispatching XPath expression */
     private String xpathMappingExpression;
 
     /** Application context holding available message handlers */
     private String messageHandlerContext;
-    
+
     /** Map holding namespace bindings for XPath expression */
     private Map<String, String> namespaceBindings = new HashMap<String, String>();
-    
+
+    /** Reload message handler context when resource was modified */
+    private boolean reloadOnChange = false;
+
+    /** Currently loaded message handler context */
+    private volatile HandlerContext handlerContext;
+
+    /** Shared StAX input factory */
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    /** Simple element path expressions supported by streaming dispatch key lookup */
+    private static final Pattern CHILD_PATH_PATTERN = Pattern.compile("(/[\\w\\.\\-]+(:[\\w\\.\\-]+)?)+");
+    private static final Pattern DESCENDANT_PATTERN = Pattern.compile("//[\\w\\.\\-]+(:[\\w\\.\\-]+)?");
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(XpathDispatchingMessageHandler.class);
+
     /**
      * @see com.consol.citrus.message.MessageHandler#handleMessage(org.springframework.integration.Message)
      * @throws CitrusRuntimeException
      */
     public Message<?> handleMessage(Message<?> request) {
         Assert.notNull(messageHandlerContext, "MessageHandler application context must not be empty or null");
-        
+
+        String dispatchKey = getDispatchKey(request.getPayload().toString());
+
+        if (dispatchKey == null) {
+            throw new CitrusRuntimeException("Could not find matching element '" + xpathMappingExpression + "' in message");
+        }
+
+        HandlerContext context = acquireHandlerContext();
         try {
-            final Reader reader = new StringReader(request.getPayload().toString());
-            DOMParser parser = new DOMParser();
-            parser.setFeature("http://xml.org/sax/features/validation", false);
-
-            parser.parse(new InputSource(reader));
-
-            Node matchingElement;
-            if (xpathMappingExpression != null) {
-                SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
-                if (!CollectionUtils.isEmpty(namespaceBindings)) {
-                    nsContext.setBindings(namespaceBindings);
-                } else {
-                    nsContext.setBindings(XMLUtils.lookupNamespaces(request.getPayload().toString()));
+            return context.getMessageHandler(dispatchKey).handleMessage(request);
+        } finally {
+            context.release();
+        }
+    }
+
+    /**
+     * Gets the dispatch key, which is the qualified name of root element or
+     * element matching XPath mapping expression.
+     * @param payload the message payload.
+     * @return the dispatch key or null if no element matches.
+     */
+    private String getDispatchKey(String payload) {
+        if (xpathMappingExpression == null) {
+            return readElementName(payload, null, false);
+        } else if (CHILD_PATH_PATTERN.matcher(xpathMappingExpression).matches()) {
+            return readElementName(payload, xpathMappingExpression.substring(1).split("/"), false);
+        } else if (DESCENDANT_PATTERN.matcher(xpathMappingExpression).matches()) {
+            return readElementName(payload, new String[] { xpathMappingExpression.substring(2) }, true);
+        }
+
+        Document doc = XMLUtils.parseMessagePayload(payload);
+
+        SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
+        if (!CollectionUtils.isEmpty(namespaceBindings)) {
+            nsContext.setBindings(namespaceBindings);
+        } else {
+            nsContext.setBindings(XMLUtils.lookupNamespaces(payload));
+        }
+
+        Node matchingElement = XPathUtils.evaluateAsNode(doc.getDocumentElement(), xpathMappingExpression, nsContext);
+
+        return matchingElement != null ? matchingElement.getNodeName() : null;
+    }
+
+    /**
+     * Reads element name with streaming StAX parser. Without path steps the root element name is returned.
+     * Path steps are either matched as child path from root element or, in descendant mode,
+     * a single step matches first element anywhere in the document.
+     *
+     * @param payload the XML payload.
+     * @param steps element path steps, may be null.
+     * @param descendant match first step on any level.
+     * @return the qualified element name as written in the document or null.
+     */
+    private String readElementName(String payload, String[] steps, boolean descendant) {
+        XMLStreamReader reader = null;
+
+        try {
+            reader = INPUT_FACTORY.createXMLStreamReader(new StringReader(payload));
+
+            int depth = 0;
+            int matched = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+
+                    if (steps == null) {
+                        return getQualifiedName(reader);
+                    } else if (descendant) {
+                        if (matchesStep(reader, steps[0])) {
+                            return getQualifiedName(reader);
+                        }
+                    } else if (depth == matched + 1 && matchesStep(reader, steps[matched])) {
+                        matched++;
+
+                        if (matched == steps.length) {
+                            return getQualifiedName(reader);
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (depth == matched) {
+                        matched--;
+                    }
+
+                    depth--;
                 }
-                
-                matchingElement = XPathUtils.evaluateAsNode(DOMUtil.getFirstChildElement(parser.getDocument()), xpathMappingExpression, nsContext);
-            } else {
-                matchingElement = DOMUtil.getFirstChildElement(parser.getDocument());
             }
 
-            if (matchingElement == null) {
-                throw new CitrusRuntimeException("Could not find matching element '" + xpathMappingExpression + "' in message");
+            return null;
+        } catch (XMLStreamException e) {
+            throw new CitrusRuntimeException("Failed to read dispatch key from message payload", e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException e) {
+                    log.warn("Failed to close XML stream reader", e);
+                }
             }
+        }
+    }
 
-            //TODO support FileSystemContext
-            ApplicationContext ctx = new ClassPathXmlApplicationContext(messageHandlerContext);
-            MessageHandler handler = (MessageHandler)ctx.getBean(matchingElement.getNodeName(), MessageHandler.class);
+    /**
+     * Checks current element against path step. Prefixes are resolved with namespace bindings or
+     * namespace declarations in message payload.
+     * @param reader the reader positioned on start element.
+     * @param step the path step.
+     * @return
+     */
+    private boolean matchesStep(XMLStreamReader reader, String step) {
+        String prefix = null;
+        String localName = step;
+
+        if (step.indexOf(':') > 0) {
+            prefix = step.substring(0, step.indexOf(':'));
+            localName = step.substring(step.indexOf(':') + 1);
+        }
 
-            if (handler != null) {
-                return handler.handleMessage(request);
-            } else {
-                throw new CitrusRuntimeException("Could not find message handler with name '" + matchingElement.getNodeName() + "' in '" + messageHandlerContext + "'");
+        if (!localName.equals(reader.getLocalName())) {
+            return false;
+        }
+
+        String elementNamespace = reader.getNamespaceURI();
+        if (prefix == null) {
+            return !StringUtils.hasText(elementNamespace);
+        }
+
+        String namespace;
+        if (!CollectionUtils.isEmpty(namespaceBindings)) {
+            namespace = namespaceBindings.get(prefix);
+        } else {
+            namespace = reader.getNamespaceContext().getNamespaceURI(prefix);
+        }
+
+        return namespace != null && namespace.equals(elementNamespace);
+    }
+
+    /**
+     * Gets qualified name of current element including prefix as written in document.
+     * @param reader
+     * @return
+     */
+    private String getQualifiedName(XMLStreamReader reader) {
+        if (StringUtils.hasText(reader.getPrefix())) {
+            return reader.getPrefix() + ":" + reader.getLocalName();
+        }
+
+        return reader.getLocalName();
+    }
+
+    /**
+     * Gets the current message handler context and marks it in use by the calling thread. Retries when the
+     * context was replaced in the meantime.
+     * @return
+     */
+    private HandlerContext acquireHandlerContext() {
+        HandlerContext context = getHandlerContext();
+
+        while (!context.acquire()) {
+            context = getHandlerContext();
+        }
+
+        return context;
+    }
+
+    /**
+     * Gets the message handler context, loads the context on first access and
+     * reloads context when resource was modified.
+     * @return
+     */
+    private HandlerContext getHandlerContext() {
+        HandlerContext current = handlerContext;
+
+        if (current == null || (reloadOnChange && current.isModified())) {
+            synchronized (this) {
+                current = handlerContext;
+
+                if (current == null || (reloadOnChange && current.isModified())) {
+                    HandlerContext previous = current;
+                    current = new HandlerContext(messageHandlerContext);
+                    handlerContext = current;
+
+                    if (previous != null) {
+                        log.info("Reloaded modified message handler context '" + messageHandlerContext + "'");
+                        previous.retire();
+                    }
+                }
             }
-        } catch (SAXException e) {
-            throw new CitrusRuntimeException(e);
-        } catch (IOException e) {
-            throw new CitrusRuntimeException(e);
         }
+
+        return current;
     }
-    
+
+    /**
+     * Closes message handler context as soon as requests in progress have finished.
+     */
+    public void destroy() throws Exception {
+        synchronized (this) {
+            if (handlerContext != null) {
+                handlerContext.retire();
+                handlerContext = null;
+            }
+        }
+    }
+
     /**
      * Set the XPath mapping expression.
      * @param mappingExpression
@@ -131,4 +327,133 @@ public class XpathDispatchingMessageHandler implements MessageHandler {
     public void setNamespaceBindings(Map<String, String> namespaceBindings) {
         this.namespaceBindings = namespaceBindings;
     }
+
+    /**
+     * Enable reloading of message handler context when context resource is modified.
+     * @param reloadOnChange the reloadOnChange to set
+     */
+    public void setReloadOnChange(boolean reloadOnChange) {
+        this.reloadOnChange = reloadOnChange;
+    }
+
+    /**
+     * Loaded message handler application context with cached message handler beans. Counts requests
+     * in progress, so a retired context is closed only after the last request has finished.
+     */
+    private static final class HandlerContext {
+        /** The application context */
+        private final ConfigurableApplicationContext applicationContext;
+
+        /** The context resource */
+        private final Resource resource;
+
+        /** Resource modification time on load */
+        private final long lastModified;
+
+        /** Cached message handlers by dispatch key */
+        private final ConcurrentMap<String, MessageHandler> handlers = new ConcurrentHashMap<String, MessageHandler>();
+
+        /** Requests in progress, retired and closed state, guarded by this */
+        private int activeRequests = 0;
+        private boolean retired = false;
+        private boolean closed = false;
+
+        /**
+         * Loads application context from classpath location.
+         * @param location
+         */
+        private HandlerContext(String location) {
+            //TODO support FileSystemContext
+            resource = new DefaultResourceLoader().getResource(location);
+            lastModified = getLastModified();
+            applicationContext = new ClassPathXmlApplicationContext(location);
+        }
+
+        /**
+         * Gets message handler bean for dispatch key.
+         * @param dispatchKey
+         * @return
+         */
+        private MessageHandler getMessageHandler(String dispatchKey) {
+            MessageHandler handler = handlers.get(dispatchKey);
+
+            if (handler == null) {
+                try {
+                    handler = (MessageHandler)applicationContext.getBean(dispatchKey, MessageHandler.class);
+                } catch (BeansException e) {
+                    throw new CitrusRuntimeException("Could not find message handler with name '" + dispatchKey +
+                            "' in '" + resource.getDescription() + "'", e);
+                }
+
+                handlers.put(dispatchKey, handler);
+            }
+
+            return handler;
+        }
+
+        /**
+         * Checks if context resource was modified since loading.
+         * @return
+         */
+        private boolean isModified() {
+            return getLastModified() > lastModified;
+        }
+
+        /**
+         * Gets the resource modification time, zero if not available.
+         * @return
+         */
+        private long getLastModified() {
+            try {
+                return resource.lastModified();
+            } catch (IOException e) {
+                return 0L;
+            }
+        }
+
+        /**
+         * Marks context in use by a request.
+         * @return false if context has been retired and must not be used anymore.
+         */
+        private synchronized boolean acquire() {
+            if (retired) {
+                return false;
+            }
+
+            activeRequests++;
+            return true;
+        }
+
+        /**
+         * Marks request as finished, closes retired context after last request.
+         */
+        private synchronized void release() {
+            activeRequests--;
+
+            if (retired && activeRequests == 0) {
+                close();
+            }
+        }
+
+        /**
+         * Retires context, closes it right away when no request is in progress.
+         */
+        private synchronized void retire() {
+            retired = true;
+
+            if (activeRequests == 0) {
+                close();
+            }
+        }
+
+        /**
+         * Closes the application context.
+         */
+        private void close() {
+            if (!closed) {
+                closed = true;
+                applicationContext.close();
+            }
+        }
+    }
 }
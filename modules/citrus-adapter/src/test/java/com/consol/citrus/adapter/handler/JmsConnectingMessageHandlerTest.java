@@ -19,11 +19,13 @@ package com.consol.citrus.adapter.handler;
 import static org.easymock.EasyMock.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.*;
 import javax.jms.Queue;
 
-import org.easymock.EasyMock;
+import org.easymock.*;
 import org.springframework.integration.Message;
 import org.springframework.integration.support.MessageBuilder;
 import org.testng.Assert;
@@ -140,26 +142,129 @@ public class JmsConnectingMessageHandlerTest {
         
         expect(session.createTemporaryQueue()).andReturn(tempReplyQueue).once();
         expect(session.createConsumer(tempReplyQueue)).andReturn(messageConsumer).once();
-        expect(messageConsumer.receive(anyLong())).andReturn(jmsResponse).once();
+        expect(messageConsumer.receive(anyLong())).andReturn(jmsResponse).times(2);
         
         expect(session.createProducer(sendDestination)).andReturn(messageProducer).once();
         messageProducer.send(jmsRequest);
-        expectLastCall().once();
-        expect(session.createTextMessage("<TestRequest>Hello World!</TestRequest>")).andReturn(jmsRequest).once();
-        
-        tempReplyQueue.delete();
-        expectLastCall().once();
+        expectLastCall().times(2);
+        expect(session.createTextMessage("<TestRequest>Hello World!</TestRequest>")).andReturn(jmsRequest).times(2);
         
         replay(connectionFactory, connection, session, messageConsumer, messageProducer, tempReplyQueue);
         
-        Message<?> responseMessage = messageHandler.handleMessage(
-                MessageBuilder.withPayload("<TestRequest>Hello World!</TestRequest>").build());
+        for (int i = 0; i < 2; i++) {
+            Message<?> responseMessage = messageHandler.handleMessage(
+                    MessageBuilder.withPayload("<TestRequest>Hello World!</TestRequest>").build());
+            
+            Assert.assertEquals(responseMessage.getPayload(), "<TestResponse>Hello World!</TestResponse>");
+        }
         
-        Assert.assertEquals(responseMessage.getPayload(), "<TestResponse>Hello World!</TestResponse>");
+        Assert.assertEquals(messageHandler.getCreatedSessions(), 1);
+        Assert.assertEquals(messageHandler.getActiveSessions(), 0);
+        Assert.assertEquals(messageHandler.getInFlightRequests(), 0);
         
         verify(connectionFactory, connection, session, messageConsumer, messageProducer, tempReplyQueue);
     }
     
+    @Test
+    public void testConcurrentRequestThroughput() throws Exception {
+        final JmsConnectingMessageHandler messageHandler = new JmsConnectingMessageHandler();
+        messageHandler.setConnectionFactory(connectionFactory);
+        messageHandler.setDestination(sendDestination);
+        messageHandler.setMaxConcurrentRequests(8);
+        
+        final Map<Destination, BlockingQueue<javax.jms.Message>> replyQueues = 
+            new ConcurrentHashMap<Destination, BlockingQueue<javax.jms.Message>>();
+        final AtomicInteger requestCount = new AtomicInteger();
+        
+        reset(connectionFactory, connection);
+        
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        expect(connection.createSession(anyBoolean(), anyInt())).andAnswer(new IAnswer<Session>() {
+            public Session answer() throws Throwable {
+                return createReplyPartnerSession(replyQueues, requestCount);
+            }
+        }).atLeastOnce();
+        
+        replay(connectionFactory, connection);
+        
+        final int threads = 16;
+        final int requests = 50;
+        final AtomicInteger failures = new AtomicInteger();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            executor.execute(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < requests; i++) {
+                        String id = thread + "_" + i;
+                        Message<?> responseMessage = messageHandler.handleMessage(
+                                MessageBuilder.withPayload("<TestRequest>" + id + "</TestRequest>").build());
+                        
+                        if (!responseMessage.getPayload().equals("<TestResponse>" + id + "</TestResponse>")) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+        
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        
+        Assert.assertEquals(failures.get(), 0);
+        Assert.assertEquals(requestCount.get(), threads * requests);
+        Assert.assertTrue(messageHandler.getCreatedSessions() <= 8);
+        Assert.assertEquals(replyQueues.size(), messageHandler.getCreatedSessions());
+        Assert.assertEquals(messageHandler.getInFlightRequests(), 0);
+    }
+    
+    /**
+     * Creates session mock with temporary reply queue. Reply partner answers each request
+     * on its temporary reply queue without setting a correlation id.
+     */
+    private Session createReplyPartnerSession(final Map<Destination, BlockingQueue<javax.jms.Message>> replyQueues,
+            final AtomicInteger requestCount) throws JMSException {
+        Session replyPartnerSession = EasyMock.createMock(Session.class);
+        TemporaryQueue replyQueue = EasyMock.createMock(TemporaryQueue.class);
+        MessageConsumer replyConsumer = EasyMock.createMock(MessageConsumer.class);
+        MessageProducer producer = EasyMock.createMock(MessageProducer.class);
+        
+        final BlockingQueue<javax.jms.Message> replies = new LinkedBlockingQueue<javax.jms.Message>();
+        replyQueues.put(replyQueue, replies);
+        
+        expect(replyPartnerSession.createTextMessage((String)anyObject())).andAnswer(new IAnswer<TextMessage>() {
+            public TextMessage answer() throws Throwable {
+                return new TextMessageImpl((String)getCurrentArguments()[0], new HashMap<String, String>());
+            }
+        }).anyTimes();
+        expect(replyPartnerSession.createTemporaryQueue()).andReturn(replyQueue).once();
+        expect(replyPartnerSession.createConsumer(replyQueue)).andReturn(replyConsumer).once();
+        expect(replyPartnerSession.createProducer(sendDestination)).andReturn(producer).once();
+        
+        producer.send((javax.jms.Message)anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            public Object answer() throws Throwable {
+                TextMessage request = (TextMessage) getCurrentArguments()[0];
+                requestCount.incrementAndGet();
+                
+                replyQueues.get(request.getJMSReplyTo()).add(new TextMessageImpl(
+                        request.getText().replace("Request", "Response"), new HashMap<String, String>()));
+                return null;
+            }
+        }).anyTimes();
+        
+        expect(replyConsumer.receive(anyLong())).andAnswer(new IAnswer<javax.jms.Message>() {
+            public javax.jms.Message answer() throws Throwable {
+                return replies.poll((Long)getCurrentArguments()[0], TimeUnit.MILLISECONDS);
+            }
+        }).anyTimes();
+        
+        replay(replyPartnerSession, replyQueue, replyConsumer, producer);
+        
+        return replyPartnerSession;
+    }
+    
     @Test
     public void testMessageHandlerJmsMessageCallback() throws JMSException {
         JmsConnectingMessageHandler messageHandler = new JmsConnectingMessageHandler();
@@ -279,6 +384,12 @@ public class JmsConnectingMessageHandlerTest {
         
         private Map<String, String> headers = new HashMap<String, String>();
         
+        private String messageId = "123456789";
+        
+        private String correlationId;
+        
+        private Destination replyTo;
+        
         public TextMessageImpl(String payload, Map<String, String> headers) {
             this.payload = payload;
             this.headers = headers;
@@ -290,15 +401,15 @@ public class JmsConnectingMessageHandlerTest {
         public void setLongProperty(String name, long value) throws JMSException {}
         public void setJMSType(String type) throws JMSException {}
         public void setJMSTimestamp(long timestamp) throws JMSException {}
-        public void setJMSReplyTo(Destination replyTo) throws JMSException {}
+        public void setJMSReplyTo(Destination replyTo) throws JMSException {this.replyTo = replyTo;}
         public void setJMSRedelivered(boolean redelivered) throws JMSException {}
         public void setJMSPriority(int priority) throws JMSException {}
-        public void setJMSMessageID(String id) throws JMSException {}
+        public void setJMSMessageID(String id) throws JMSException {this.messageId = id;}
         public void setJMSExpiration(long expiration) throws JMSException {}
         public void setJMSDestination(Destination destination) throws JMSException {}
         public void setJMSDeliveryMode(int deliveryMode) throws JMSException {}
         public void setJMSCorrelationIDAsBytes(byte[] correlationID) throws JMSException {}
-        public void setJMSCorrelationID(String correlationID) throws JMSException {}
+        public void setJMSCorrelationID(String correlationID) throws JMSException {this.correlationId = correlationID;}
         public void setIntProperty(String name, int value) throws JMSException {}
         public void setFloatProperty(String name, float value) throws JMSException {}
         public void setDoubleProperty(String name, double value) throws JMSException {}
@@ -313,15 +424,15 @@ public class JmsConnectingMessageHandlerTest {
         public long getLongProperty(String name) throws JMSException {return 0;}
         public String getJMSType() throws JMSException {return null;}
         public long getJMSTimestamp() throws JMSException {return 0;}
-        public Destination getJMSReplyTo() throws JMSException {return null;}
+        public Destination getJMSReplyTo() throws JMSException {return replyTo;}
         public boolean getJMSRedelivered() throws JMSException {return false;}
         public int getJMSPriority() throws JMSException {return 0;}
-        public String getJMSMessageID() throws JMSException {return "123456789";}
+        public String getJMSMessageID() throws JMSException {return messageId;}
         public long getJMSExpiration() throws JMSException {return 0;}
         public Destination getJMSDestination() throws JMSException {return null;}
         public int getJMSDeliveryMode() throws JMSException {return 0;}
         public byte[] getJMSCorrelationIDAsBytes() throws JMSException {return null;}
-        public String getJMSCorrelationID() throws JMSException {return null;}
+        public String getJMSCorrelationID() throws JMSException {return correlationId;}
         public int getIntProperty(String name) throws JMSException {return 0;}
         public float getFloatProperty(String name) throws JMSException {return 0;}
         public double getDoubleProperty(String name) throws JMSException {return 0;}
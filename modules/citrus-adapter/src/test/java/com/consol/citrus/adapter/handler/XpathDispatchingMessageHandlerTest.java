@@ -0,0 +1,200 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.adapter.handler;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.concurrent.*;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.message.MessageHandler;
+import com.consol.citrus.util.FileUtils;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class XpathDispatchingMessageHandlerTest {
+    
+    private static final String HANDLER_CONTEXT = "com/consol/citrus/adapter/handler/XpathDispatchingMessageHandlerTest-context.xml";
+
+    @Test
+    public void testRootElementDispatching() {
+        XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext(HANDLER_CONTEXT);
+        
+        Message<?> response = messageHandler.handleMessage(
+                MessageBuilder.withPayload("<TestRequest><Operation>Hello</Operation></TestRequest>").build());
+        Assert.assertEquals(response.getPayload(), "<TestResponse>TestRequest</TestResponse>");
+        
+        response = messageHandler.handleMessage(
+                MessageBuilder.withPayload("<?xml version=\"1.0\"?><!-- comment --><ns0:Operation xmlns:ns0=\"http://www.consol.de/test\">Hello</ns0:Operation>").build());
+        Assert.assertEquals(response.getPayload(), "<TestResponse>ns0:Operation</TestResponse>");
+    }
+    
+    @Test
+    public void testElementPathDispatching() {
+        XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext(HANDLER_CONTEXT);
+        messageHandler.setXpathMappingExpression("/TestRequest/Body/Operation");
+        
+        Message<?> response = messageHandler.handleMessage(
+                MessageBuilder.withPayload("<TestRequest><Header><Operation>Wrong</Operation></Header>" +
+                		"<Body><Operation>Hello</Operation></Body></TestRequest>").build());
+        Assert.assertEquals(response.getPayload(), "<TestResponse>Operation</TestResponse>");
+        
+        messageHandler.setXpathMappingExpression("//ns:Operation");
+        messageHandler.setNamespaceBindings(Collections.singletonMap("ns", "http://www.consol.de/test"));
+        
+        response = messageHandler.handleMessage(
+                MessageBuilder.withPayload("<TestRequest xmlns:ns0=\"http://www.consol.de/test\">" +
+                        "<Operation>Wrong</Operation><ns0:Operation>Hello</ns0:Operation></TestRequest>").build());
+        Assert.assertEquals(response.getPayload(), "<TestResponse>ns0:Operation</TestResponse>");
+    }
+    
+    @Test
+    public void testXPathExpressionDispatching() {
+        XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext(HANDLER_CONTEXT);
+        messageHandler.setXpathMappingExpression("//*[local-name() = 'Operation' and text() = 'Hello']");
+        
+        Message<?> response = messageHandler.handleMessage(
+                MessageBuilder.withPayload("<TestRequest><Operation>Wrong</Operation>" +
+                        "<ns0:Operation xmlns:ns0=\"http://www.consol.de/test\">Hello</ns0:Operation></TestRequest>").build());
+        Assert.assertEquals(response.getPayload(), "<TestResponse>ns0:Operation</TestResponse>");
+    }
+    
+    @Test
+    public void testNoMatchingElement() {
+        XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext(HANDLER_CONTEXT);
+        messageHandler.setXpathMappingExpression("/TestRequest/Operation");
+        
+        try {
+            messageHandler.handleMessage(MessageBuilder.withPayload("<TestRequest><Body><Operation>Hello</Operation></Body></TestRequest>").build());
+            Assert.fail("Missing exception due to no matching element");
+        } catch (CitrusRuntimeException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Could not find matching element"));
+        }
+    }
+    
+    @Test(expectedExceptions = CitrusRuntimeException.class)
+    public void testUnknownMessageHandler() {
+        XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext(HANDLER_CONTEXT);
+        
+        messageHandler.handleMessage(MessageBuilder.withPayload("<UnknownRequest/>").build());
+    }
+    
+    @Test
+    public void testReloadWithRequestInProgress() throws Exception {
+        File contextFile = new File(new ClassPathResource(HANDLER_CONTEXT).getFile().getParentFile(), 
+                "XpathDispatchingMessageHandlerTest-reload-context.xml");
+        
+        String context = FileUtils.readToString(new ClassPathResource(HANDLER_CONTEXT)).replace("</beans>", 
+                "<bean id=\"BlockingRequest\" class=\"" + BlockingMessageHandler.class.getName() + "\"/></beans>");
+        writeContext(contextFile, context);
+        
+        final XpathDispatchingMessageHandler messageHandler = new XpathDispatchingMessageHandler();
+        messageHandler.setMessageHandlerContext("com/consol/citrus/adapter/handler/XpathDispatchingMessageHandlerTest-reload-context.xml");
+        messageHandler.setReloadOnChange(true);
+        
+        BlockingMessageHandler.reset();
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Message<?>> blockingResponse = executor.submit(new Callable<Message<?>>() {
+                public Message<?> call() throws Exception {
+                    return messageHandler.handleMessage(MessageBuilder.withPayload("<BlockingRequest/>").build());
+                }
+            });
+            
+            Assert.assertTrue(BlockingMessageHandler.entered.await(10, TimeUnit.SECONDS));
+            
+            writeContext(contextFile, context);
+            Assert.assertTrue(contextFile.setLastModified(contextFile.lastModified() + 10000L));
+            
+            Message<?> response = messageHandler.handleMessage(MessageBuilder.withPayload("<TestRequest/>").build());
+            Assert.assertEquals(response.getPayload(), "<TestResponse>TestRequest</TestResponse>");
+            Assert.assertEquals(BlockingMessageHandler.destroyed.getCount(), 1L);
+            
+            BlockingMessageHandler.proceed.countDown();
+            Assert.assertEquals(blockingResponse.get(10, TimeUnit.SECONDS).getPayload(), "<TestResponse>Blocking</TestResponse>");
+            Assert.assertTrue(BlockingMessageHandler.destroyed.await(10, TimeUnit.SECONDS));
+        } finally {
+            BlockingMessageHandler.proceed.countDown();
+            executor.shutdown();
+            messageHandler.destroy();
+            contextFile.delete();
+        }
+    }
+    
+    /**
+     * Writes message handler context file.
+     * @param contextFile
+     * @param context
+     * @throws IOException
+     */
+    private void writeContext(File contextFile, String context) throws IOException {
+        Writer writer = new FileWriter(contextFile);
+        try {
+            writer.write(context);
+        } finally {
+            writer.close();
+        }
+    }
+    
+    /**
+     * Message handler blocking until test allows to proceed, records context shutdown.
+     */
+    public static class BlockingMessageHandler implements MessageHandler, DisposableBean {
+        private static CountDownLatch entered;
+        private static CountDownLatch proceed;
+        private static CountDownLatch destroyed;
+        
+        /**
+         * Resets latches.
+         */
+        private static void reset() {
+            entered = new CountDownLatch(1);
+            proceed = new CountDownLatch(1);
+            destroyed = new CountDownLatch(1);
+        }
+        
+        public Message<?> handleMessage(Message<?> message) {
+            entered.countDown();
+            
+            try {
+                proceed.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
+            return MessageBuilder.withPayload("<TestResponse>Blocking</TestResponse>").build();
+        }
+        
+        public void destroy() {
+            destroyed.countDown();
+        }
+    }
+}
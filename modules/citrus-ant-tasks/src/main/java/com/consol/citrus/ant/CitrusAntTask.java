@@ -31,6 +31,8 @@ public class CitrusAntTask extends Java {
     
     private String testngXml;
     
+    private String threads;
+    
     @Override
     public void execute() throws BuildException {
         if (suitename != null && suitename.length() > 0) {
@@ -57,6 +59,11 @@ public class CitrusAntTask extends Java {
             }
         }
         
+        if (threads != null && threads.length() > 0) {
+            this.createArg().setValue("-threads");
+            this.createArg().setValue(threads);
+        }
+        
         if (testngXml != null && testngXml.length() > 0) {
             String[] testNgSuites = testngXml.split(" ");
             for (String testNgSuite : testNgSuites) {
@@ -134,4 +141,18 @@ public class CitrusAntTask extends Java {
     public void setTestngXml(String testngXml) {
         this.testngXml = testngXml;
     }
+
+    /**
+     * @return the threads
+     */
+    public String getThreads() {
+        return threads;
+    }
+
+    /**
+     * @param threads the threads to set
+     */
+    public void setThreads(String threads) {
+        this.threads = threads;
+    }
 }
@@ -97,15 +97,25 @@ public final class Citrus {
         XmlSuite suite = new XmlSuite();
         suite.setName(cmdArgs.getOptionValue("suitename", "citrus-test-suite"));
         
-        if (cmdArgs.hasOption("test")) {
-            for (String testName : cmdArgs.getOptionValues("test")) {
-                addTest(testName, testDirectory, suite);
+        int threads = getThreadCount();
+        if (threads > 1) {
+            log.info("Running tests in parallel using " + threads + " worker threads");
+            
+            suite.setParallel(XmlSuite.PARALLEL_CLASSES);
+            suite.setThreadCount(threads);
+            
+            addParallelTests(testDirectory, suite);
+        } else {
+            if (cmdArgs.hasOption("test")) {
+                for (String testName : cmdArgs.getOptionValues("test")) {
+                    addTest(testName, testDirectory, suite);
+                }
             }
-        }
-        
-        if (cmdArgs.hasOption("package")) {
-            for (String packageName : cmdArgs.getOptionValues("package")) {
-                addTest(packageName, suite);
+            
+            if (cmdArgs.hasOption("package")) {
+                for (String packageName : cmdArgs.getOptionValues("package")) {
+                    addTest(packageName, suite);
+                }
             }
         }
 
@@ -123,6 +133,55 @@ public final class Citrus {
         }
     }
     
+    /**
+     * Gets the number of worker threads from command line arguments.
+     * @return
+     */
+    private int getThreadCount() {
+        try {
+            return Integer.valueOf(cmdArgs.getOptionValue("threads", "1"));
+        } catch (NumberFormatException e) {
+            throw new CitrusRuntimeException("Invalid number of worker threads '" + cmdArgs.getOptionValue("threads") + "'", e);
+        }
+    }
+    
+    /**
+     * Adds all tests and packages to a single XML test, so TestNG is able to 
+     * distribute the test classes among the worker threads.
+     * @param testDirectory the test directory.
+     * @param suite the XML suite.
+     */
+    private void addParallelTests(String testDirectory, XmlSuite suite) {
+        if (!cmdArgs.hasOption("test") && !cmdArgs.hasOption("package")) {
+            return;
+        }
+        
+        XmlTest test = new XmlTest(suite);
+        test.setName(suite.getName());
+        
+        if (cmdArgs.hasOption("test")) {
+            List<XmlClass> classes = new ArrayList<XmlClass>();
+            for (String testName : cmdArgs.getOptionValues("test")) {
+                try {
+                    classes.add(new XmlClass(getClassNameForTest(testDirectory, testName.trim())));
+                } catch (FileNotFoundException e) {
+                    throw new TestEngineFailedException("TestSuite failed with error", e);
+                }
+            }
+            test.setXmlClasses(classes);
+        }
+        
+        if (cmdArgs.hasOption("package")) {
+            List<XmlPackage> packages = new ArrayList<XmlPackage>();
+            for (String packageName : cmdArgs.getOptionValues("package")) {
+                XmlPackage xmlPackage = new XmlPackage();
+                xmlPackage.setName(packageName);
+                packages.add(xmlPackage);
+            }
+            test.setXmlPackages(packages);
+        }
+    }
+    
     /**
      * Get suites defined in external testng files.
      * @param testNgXmlArgs
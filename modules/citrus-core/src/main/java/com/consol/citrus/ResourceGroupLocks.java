@@ -0,0 +1,96 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Serializes test cases sharing resource groups when tests run in parallel. Resource groups
+ * are plain names such as endpoint or queue names declared on the test case. Tests holding
+ * a common resource group never run at the same time.
+ *
+ * Locks are always acquired in natural order of resource group names to prevent deadlocks.
+ *
+ * @author Christoph Deppisch
+ */
+public final class ResourceGroupLocks {
+    /** Locks by resource group name */
+    private static final ConcurrentMap<String, Lock> LOCKS = new ConcurrentHashMap<String, Lock>();
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(ResourceGroupLocks.class);
+
+    /**
+     * Prevent instantiation.
+     */
+    private ResourceGroupLocks() {
+    }
+
+    /**
+     * Acquires locks for all resource groups of the test case. Blocks until all
+     * resource groups are available.
+     * @param testCase the test case.
+     * @return the acquired locks, to be released after test execution.
+     */
+    public static List<Lock> acquire(TestCase testCase) {
+        if (CollectionUtils.isEmpty(testCase.getResourceGroups())) {
+            return Collections.emptyList();
+        }
+
+        List<Lock> locks = new ArrayList<Lock>();
+        for (String resourceGroup : new TreeSet<String>(testCase.getResourceGroups())) {
+            Lock lock = LOCKS.get(resourceGroup);
+
+            if (lock == null) {
+                lock = new ReentrantLock();
+                Lock existing = LOCKS.putIfAbsent(resourceGroup, lock);
+                if (existing != null) {
+                    lock = existing;
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Test " + testCase.getName() + " acquiring resource group '" + resourceGroup + "'");
+            }
+
+            lock.lock();
+            locks.add(lock);
+        }
+
+        return locks;
+    }
+
+    /**
+     * Releases previously acquired resource group locks in reverse order.
+     * @param locks the locks to release.
+     */
+    public static void release(List<Lock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+}
@@ -55,6 +55,9 @@ public class TestCase extends AbstractActionContainer implements BeanNameAware {
     /** In case test was called with parameters from outside */
     private String[] parameters = new String[] {};
     
+    /** Resource groups this test has to acquire exclusively when running in parallel */
+    private List<String> resourceGroups = new ArrayList<String>();
+    
     /**
      * Logger
      */
@@ -88,7 +91,7 @@ public class TestCase extends AbstractActionContainer implements BeanNameAware {
         /* Debug print all variables */
         if (context.hasVariables() && log.isDebugEnabled()) {
             log.debug("TestCase using the following global variables:");
-            for (Entry<String, Object> entry : context.getVariables().entrySet()) {
+            for (Entry<String, Object> entry : context.copyVariables().entrySet()) {
                 log.debug(entry.getKey() + " = " + entry.getValue());
             }
         }
@@ -248,4 +251,20 @@ public class TestCase extends AbstractActionContainer implements BeanNameAware {
     public String[] getParameters() {
         return Arrays.copyOf(parameters, parameters.length);
     }
+
+    /**
+     * Sets the resource groups.
+     * @param resourceGroups the resourceGroups to set
+     */
+    public void setResourceGroups(List<String> resourceGroups) {
+        this.resourceGroups = resourceGroups;
+    }
+
+    /**
+     * Gets the resource groups.
+     * @return the resourceGroups
+     */
+    public List<String> getResourceGroups() {
+        return resourceGroups;
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus;
+
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.*;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.support.*;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Caches parsed test case bean definitions per test class. Test XML files and the internal helper
+ * context are parsed only once. Each test execution gets a fresh child application context built
+ * from deep copies of the cached bean definitions, so test actions never share state between executions
+ * and bean factory post processors of one execution do not modify the cached definitions.
+ *
+ * Callers are responsible for closing the application context after test execution.
+ *
+ * @author Christoph Deppisch
+ */
+public class TestCaseDefinitionCache {
+    /** Internal helper context loaded with each test case */
+    private static final String INTERNAL_HELPER_CONTEXT = "com/consol/citrus/spring/internal-helper-ctx.xml";
+
+    /** Parsed bean definitions by test class name */
+    private final ConcurrentMap<String, DefaultListableBeanFactory> definitions = new ConcurrentHashMap<String, DefaultListableBeanFactory>();
+
+    /** Statistics on definition parsing and application context creation */
+    private final AtomicLong parsedDefinitions = new AtomicLong();
+    private final AtomicLong parseTime = new AtomicLong();
+    private final AtomicLong createdContexts = new AtomicLong();
+    private final AtomicLong contextCreationTime = new AtomicLong();
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(TestCaseDefinitionCache.class);
+
+    /**
+     * Creates and refreshes a new application context holding the test case for the given test class.
+     * @param testClass the test class.
+     * @param parentContext the parent application context.
+     * @return the refreshed test application context.
+     */
+    public ConfigurableApplicationContext createApplicationContext(Class<?> testClass, ApplicationContext parentContext) {
+        DefaultListableBeanFactory beanDefinitions = getBeanDefinitions(testClass);
+
+        long start = System.currentTimeMillis();
+
+        GenericApplicationContext ctx = new GenericApplicationContext(parentContext);
+        for (String beanName : beanDefinitions.getBeanDefinitionNames()) {
+            ctx.registerBeanDefinition(beanName, copyBeanDefinition(beanDefinitions.getBeanDefinition(beanName)));
+
+            for (String alias : beanDefinitions.getAliases(beanName)) {
+                ctx.registerAlias(beanName, alias);
+            }
+        }
+
+        try {
+            ctx.refresh();
+        } catch (RuntimeException e) {
+            ctx.close();
+            throw e;
+        }
+
+        long duration = System.currentTimeMillis() - start;
+        createdContexts.incrementAndGet();
+        contextCreationTime.addAndGet(duration);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Created application context for test " + testClass.getSimpleName() + " in " + duration + " ms");
+        }
+
+        return ctx;
+    }
+
+    /**
+     * Creates deep copy of bean definition. Inner bean definitions, managed collections and typed string
+     * values are copied too, as bean factory post processors may modify them in place.
+     * @param definition
+     * @return
+     */
+    private AbstractBeanDefinition copyBeanDefinition(BeanDefinition definition) {
+        AbstractBeanDefinition copy = ((AbstractBeanDefinition) definition).cloneBeanDefinition();
+
+        MutablePropertyValues propertyValues = copy.getPropertyValues();
+        PropertyValue[] values = propertyValues.getPropertyValues();
+        for (int i = 0; i < values.length; i++) {
+            propertyValues.setPropertyValueAt(new PropertyValue(values[i], copyValue(values[i].getValue())), i);
+        }
+
+        ConstructorArgumentValues constructorArgs = copy.getConstructorArgumentValues();
+        for (ValueHolder valueHolder : constructorArgs.getIndexedArgumentValues().values()) {
+            valueHolder.setValue(copyValue(valueHolder.getValue()));
+        }
+
+        for (ValueHolder valueHolder : constructorArgs.getGenericArgumentValues()) {
+            valueHolder.setValue(copyValue(valueHolder.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Creates deep copy of bean definition metadata value.
+     * @param value
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object copyValue(Object value) {
+        if (value instanceof BeanDefinitionHolder) {
+            BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+            return new BeanDefinitionHolder(copyBeanDefinition(holder.getBeanDefinition()), holder.getBeanName(), holder.getAliases());
+        } else if (value instanceof BeanDefinition) {
+            return copyBeanDefinition((BeanDefinition) value);
+        } else if (value instanceof TypedStringValue) {
+            TypedStringValue typedValue = (TypedStringValue) value;
+            TypedStringValue copy = typedValue.hasTargetType() ? new TypedStringValue(typedValue.getValue(), typedValue.getTargetType())
+                    : new TypedStringValue(typedValue.getValue(), typedValue.getTargetTypeName());
+            copy.setSource(typedValue.getSource());
+            copy.setSpecifiedTypeName(typedValue.getSpecifiedTypeName());
+            if (typedValue.isDynamic()) {
+                copy.setDynamic();
+            }
+            return copy;
+        } else if (value instanceof ManagedArray) {
+            ManagedArray array = (ManagedArray) value;
+            ManagedArray copy = new ManagedArray(array.getElementTypeName(), array.size());
+            copy.setSource(array.getSource());
+            copy.setMergeEnabled(array.isMergeEnabled());
+            for (Object element : array) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        } else if (value instanceof ManagedList) {
+            ManagedList list = (ManagedList) value;
+            ManagedList copy = new ManagedList(list.size());
+            copy.setSource(list.getSource());
+            copy.setElementTypeName(list.getElementTypeName());
+            copy.setMergeEnabled(list.isMergeEnabled());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        } else if (value instanceof ManagedSet) {
+            ManagedSet set = (ManagedSet) value;
+            ManagedSet copy = new ManagedSet(set.size());
+            copy.setSource(set.getSource());
+            copy.setElementTypeName(set.getElementTypeName());
+            copy.setMergeEnabled(set.isMergeEnabled());
+            for (Object element : set) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        } else if (value instanceof ManagedMap) {
+            ManagedMap<?, ?> map = (ManagedMap) value;
+            ManagedMap copy = new ManagedMap(map.size());
+            copy.setSource(map.getSource());
+            copy.setKeyTypeName(map.getKeyTypeName());
+            copy.setValueTypeName(map.getValueTypeName());
+            copy.setMergeEnabled(map.isMergeEnabled());
+            for (Entry<?, ?> entry : map.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+            return copy;
+        } else if (value instanceof ManagedProperties) {
+            ManagedProperties properties = (ManagedProperties) value;
+            ManagedProperties copy = new ManagedProperties();
+            copy.setSource(properties.getSource());
+            copy.setMergeEnabled(properties.isMergeEnabled());
+            for (Entry<Object, Object> entry : properties.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+            return copy;
+        }
+
+        return value;
+    }
+
+    /**
+     * Gets bean definitions for test class, parses test XML file in case definitions are not cached yet.
+     * @param testClass
+     * @return
+     */
+    private DefaultListableBeanFactory getBeanDefinitions(Class<?> testClass) {
+        DefaultListableBeanFactory beanDefinitions = definitions.get(testClass.getName());
+
+        if (beanDefinitions == null) {
+            long start = System.currentTimeMillis();
+
+            beanDefinitions = new DefaultListableBeanFactory();
+            XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanDefinitions);
+            reader.setBeanClassLoader(testClass.getClassLoader());
+            reader.loadBeanDefinitions(new ClassPathResource(testClass.getPackage().getName().replace('.', '/')
+                    + "/" + testClass.getSimpleName() + ".xml", testClass.getClassLoader()));
+            reader.loadBeanDefinitions(new ClassPathResource(INTERNAL_HELPER_CONTEXT, testClass.getClassLoader()));
+
+            long duration = System.currentTimeMillis() - start;
+            parsedDefinitions.incrementAndGet();
+            parseTime.addAndGet(duration);
+
+            if (log.isDebugEnabled()) {
+                log.debug("Parsed test definition " + testClass.getSimpleName() + " in " + duration + " ms");
+            }
+
+            DefaultListableBeanFactory cached = definitions.putIfAbsent(testClass.getName(), beanDefinitions);
+            if (cached != null) {
+                beanDefinitions = cached;
+            }
+        }
+
+        return beanDefinitions;
+    }
+
+    /**
+     * Removes all cached test definitions.
+     */
+    public void clear() {
+        definitions.clear();
+    }
+
+    /**
+     * Gets the number of parsed test definitions.
+     * @return the parsedDefinitions
+     */
+    public long getParsedDefinitions() {
+        return parsedDefinitions.get();
+    }
+
+    /**
+     * Gets the overall time in milliseconds spent on parsing test definitions.
+     * @return the parseTime
+     */
+    public long getParseTime() {
+        return parseTime.get();
+    }
+
+    /**
+     * Gets the number of created test application contexts.
+     * @return the createdContexts
+     */
+    public long getCreatedContexts() {
+        return createdContexts.get();
+    }
+
+    /**
+     * Gets the overall time in milliseconds spent on creating test application contexts.
+     * @return the contextCreationTime
+     */
+    public long getContextCreationTime() {
+        return contextCreationTime.get();
+    }
+}
@@ -28,6 +28,7 @@ import org.springframework.jdbc.core.support.JdbcDaoSupport;
 import com.consol.citrus.TestAction;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.util.FileUtils;
 import com.consol.citrus.util.TestActionExecutionLogger;
 
 /**
@@ -87,14 +88,12 @@ public abstract class AbstractDatabaseConnectingTestAction extends JdbcDaoSuppor
         try {
             log.info("Executing SQL file: " + sqlResource.getFilename());
             
-            reader = new BufferedReader(new InputStreamReader(sqlResource.getInputStream()));
+            reader = new BufferedReader(new StringReader(FileUtils.readTemplateToString(sqlResource)));
             buffer = new StringBuffer();
             
             String line;
-            while (reader.ready()) {
-                line = reader.readLine();
-    
-                if (line != null && line.trim() != null && !line.trim().startsWith(SQL_COMMENT) && line.trim().length() > 0) {
+            while ((line = reader.readLine()) != null) {
+                if (line.trim() != null && !line.trim().startsWith(SQL_COMMENT) && line.trim().length() > 0) {
                     if (line.trim().endsWith(getStatemendEndingCharacter())) {
                         buffer.append(decorateLastScriptLine(line));
                         String stmt = buffer.toString();
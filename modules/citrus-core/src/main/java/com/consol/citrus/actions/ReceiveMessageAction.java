@@ -33,6 +33,7 @@ import com.consol.citrus.message.MessageSelectorBuilder;
 import com.consol.citrus.validation.MessageValidator;
 import com.consol.citrus.validation.context.ValidationContext;
 import com.consol.citrus.variable.VariableExtractor;
+import com.consol.citrus.xml.ParsedXmlMessage;
 
 /**
  * This action receives messages from a service destination. Action uses a {@link MessageReceiver} 
@@ -116,6 +117,9 @@ public class ReceiveMessageAction extends AbstractTestAction {
             validateMessage(receivedMessage, context);
         } catch (IOException e) {
             throw new CitrusRuntimeException(e);
+        } finally {
+            //release parsed message representation shared by extractors and validators
+            ParsedXmlMessage.clear();
         }
     }
 
@@ -50,7 +50,7 @@ public class TraceVariablesAction extends AbstractTestAction {
         } else {
             log.info("Validating all variables in context:");
             
-            it = context.getVariables().keySet().iterator();
+            it = context.copyVariables().keySet().iterator();
         }
 
         while (it.hasNext()) {
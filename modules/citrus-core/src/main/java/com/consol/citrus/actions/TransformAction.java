@@ -29,6 +29,7 @@ import org.springframework.xml.transform.StringSource;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.util.FileUtils;
+import com.consol.citrus.xml.TransformerCache;
 
 
 /**
@@ -78,21 +79,20 @@ public class TransformAction extends AbstractTestAction {
         				"Cannot transform XML document.");
 			}
 			
-			//parse XSLT document and define  XSLT source for transformation
-			Source xsltSource = null;
+			//read XSLT document for transformation
+			String xslt = null;
 			if (xsltResource != null) {
-				xsltSource = new StringSource(context.replaceDynamicContentInString(FileUtils.readToString(xsltResource)));
+				xslt = context.replaceDynamicContentInString(FileUtils.readToString(xsltResource));
 			} else if (xsltData != null) {
-				xsltSource = new StringSource(context.replaceDynamicContentInString(xsltData));
+				xslt = context.replaceDynamicContentInString(xsltData);
 			} else {
 				throw new CitrusRuntimeException("Neither inline XSLT nor " +
                 		"external file resource is defined for bean. " +
         				"Cannot transform XSLT document.");
 			}
 			
-			//create transformer
-			TransformerFactory transformerFactory = TransformerFactory.newInstance();
-			Transformer transformer = transformerFactory.newTransformer(xsltSource);
+			//create transformer from precompiled stylesheet
+			Transformer transformer = TransformerCache.getInstance().newTransformer(xslt);
 			
 			//transform
 			StringResult result = new StringResult();
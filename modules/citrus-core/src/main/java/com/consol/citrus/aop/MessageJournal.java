@@ -0,0 +1,505 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.aop;
+
+import java.io.*;
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.Message;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+
+/**
+ * Asynchronous message journal. Messages are put into a bounded queue and written by a single
+ * background thread, so callers never wait for disk I/O unless the blocking overflow policy applies.
+ *
+ * Each batch of queued messages is written as one GZIP member to the current journal file. Journal files
+ * roll over when exceeding the maximum file size. An index file holds one line per message with test name,
+ * test run, sequence number, journal file, member offset, record offset and record length, see {@link MessageJournalReader}.
+ *
+ * @author Christoph Deppisch
+ */
+public class MessageJournal {
+    /** Index file name */
+    public static final String INDEX_FILE_NAME = "messages.index";
+
+    /** Journal file name prefix and suffix */
+    public static final String JOURNAL_FILE_PREFIX = "messages-";
+    public static final String JOURNAL_FILE_SUFFIX = ".journal.gz";
+
+    /** Record encoding */
+    public static final String ENCODING = "UTF-8";
+
+    /** Default queue capacity */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /** Default maximum journal file size in bytes */
+    public static final long DEFAULT_MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+    /** Default time to wait for free queue space with blocking overflow policy */
+    public static final long DEFAULT_BLOCK_TIMEOUT = 1000L;
+
+    /** Maximum number of messages written in one batch */
+    private static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * Policy applied when the queue is full.
+     */
+    public static enum OverflowPolicy {
+        /** Caller waits for free queue space up to the block timeout, then message is dropped */
+        BLOCK,
+        /** New message is dropped */
+        DROP_NEWEST,
+        /** Oldest queued message is dropped in favour of the new message */
+        DROP_OLDEST
+    }
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(MessageJournal.class);
+
+    /** Target directory */
+    private final File directory;
+
+    /** Queued messages */
+    private final BlockingQueue<JournalEntry> queue;
+
+    /** Overflow policy */
+    private final OverflowPolicy overflowPolicy;
+
+    /** Time to wait for free queue space in milliseconds */
+    private final long blockTimeout;
+
+    /** Maximum journal file size */
+    private final long maxFileSize;
+
+    /** Writer thread */
+    private final Thread writerThread;
+
+    /** Closed flag */
+    private volatile boolean closed = false;
+
+    /** Current journal file number, journal output and index writer, only used by writer thread */
+    private int fileNumber = 0;
+    private File journalFile;
+    private FileOutputStream journalOutput;
+    private Writer indexWriter;
+
+    /** Number of messages queued but not yet written or dropped, guarded by itself */
+    private final Object pendingLock = new Object();
+    private long pending = 0L;
+
+    /** Statistics */
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructor using default settings.
+     * @param directory
+     */
+    public MessageJournal(File directory) {
+        this(directory, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.BLOCK, DEFAULT_BLOCK_TIMEOUT, DEFAULT_MAX_FILE_SIZE);
+    }
+
+    /**
+     * Default constructor. Removes journal files of previous runs in target directory and
+     * starts the writer thread.
+     * @param directory the target directory.
+     * @param queueCapacity maximum number of queued messages.
+     * @param overflowPolicy policy applied on full queue.
+     * @param blockTimeout time to wait for free queue space with blocking policy.
+     * @param maxFileSize maximum journal file size before rolling over to next file.
+     */
+    public MessageJournal(File directory, int queueCapacity, OverflowPolicy overflowPolicy, long blockTimeout, long maxFileSize) {
+        this.directory = directory;
+        this.queue = new ArrayBlockingQueue<JournalEntry>(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.maxFileSize = maxFileSize;
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new CitrusRuntimeException("Unable to create message journal directory " + directory);
+        }
+
+        File[] journalFiles = directory.listFiles();
+        for (int i = 0; journalFiles != null && i < journalFiles.length; i++) {
+            if (journalFiles[i].getName().startsWith(JOURNAL_FILE_PREFIX) && journalFiles[i].getName().endsWith(JOURNAL_FILE_SUFFIX)) {
+                if (!journalFiles[i].delete()) {
+                    log.warn("Unable to delete old message journal file " + journalFiles[i]);
+                }
+            }
+        }
+
+        try {
+            indexWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(directory, INDEX_FILE_NAME)), ENCODING));
+            rollJournalFile();
+        } catch (IOException e) {
+            throw new CitrusRuntimeException("Failed to open message journal in " + directory, e);
+        }
+
+        writerThread = new Thread(new Runnable() {
+            public void run() {
+                writeEntries();
+            }
+        }, "citrus-message-journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Adds message to the journal queue. Applies overflow policy in case queue is full.
+     * @param testName the test name.
+     * @param run the test run number distinguishing repeated executions of the same test.
+     * @param sequence the message sequence number within the test run.
+     * @param message the message.
+     * @return false if the message was dropped.
+     */
+    public boolean append(String testName, int run, int sequence, Message<?> message) {
+        if (closed) {
+            dropped.incrementAndGet();
+            return false;
+        }
+
+        JournalEntry entry = new JournalEntry(testName, run, sequence, message);
+
+        synchronized (pendingLock) {
+            pending++;
+        }
+
+        boolean queued;
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queued = queue.offer(entry, blockTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queued = false;
+                }
+                break;
+            case DROP_OLDEST:
+                while (!(queued = queue.offer(entry))) {
+                    if (queue.poll() != null) {
+                        entryDone(false);
+                    }
+                }
+                break;
+            default:
+                queued = queue.offer(entry);
+        }
+
+        if (!queued) {
+            entryDone(false);
+        }
+
+        return queued;
+    }
+
+    /**
+     * Writer thread loop writing queued messages in batches until journal is closed and queue is empty.
+     */
+    private void writeEntries() {
+        List<JournalEntry> batch = new ArrayList<JournalEntry>(MAX_BATCH_SIZE);
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    JournalEntry entry = queue.poll(100L, TimeUnit.MILLISECONDS);
+                    if (entry == null) {
+                        continue;
+                    }
+
+                    batch.add(entry);
+                    queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                } catch (InterruptedException e) {
+                    if (queue.isEmpty()) {
+                        break;
+                    }
+
+                    queue.drainTo(batch, MAX_BATCH_SIZE);
+                }
+
+                List<byte[]> records = renderRecords(batch);
+
+                boolean success = false;
+                try {
+                    writeBatch(batch, records);
+                    success = true;
+                } catch (IOException e) {
+                    log.error("Failed to write message journal", e);
+                } catch (RuntimeException e) {
+                    log.error("Failed to write message journal", e);
+                } finally {
+                    for (int i = 0; i < batch.size(); i++) {
+                        entryDone(success);
+                    }
+
+                    batch.clear();
+                }
+            }
+        } finally {
+            try {
+                journalOutput.close();
+            } catch (IOException e) {
+                log.error("Error while closing message journal", e);
+            }
+
+            try {
+                indexWriter.close();
+            } catch (IOException e) {
+                log.error("Error while closing message journal index", e);
+            }
+        }
+    }
+
+    /**
+     * Renders journal records for batch of messages. Messages that fail to render are
+     * removed from the batch and counted as dropped, so a single broken message does not
+     * stop the writer thread.
+     * @param batch
+     * @return records in batch order.
+     */
+    private List<byte[]> renderRecords(List<JournalEntry> batch) {
+        List<byte[]> records = new ArrayList<byte[]>(batch.size());
+
+        for (Iterator<JournalEntry> it = batch.iterator(); it.hasNext();) {
+            JournalEntry entry = it.next();
+
+            try {
+                records.add(entry.toRecord());
+            } catch (IOException e) {
+                log.error("Failed to render message " + entry.sequence + " of test '" + entry.testName + "' for message journal", e);
+                it.remove();
+                entryDone(false);
+            } catch (RuntimeException e) {
+                log.error("Failed to render message " + entry.sequence + " of test '" + entry.testName + "' for message journal", e);
+                it.remove();
+                entryDone(false);
+            }
+        }
+
+        return records;
+    }
+
+    /**
+     * Writes batch of messages as single GZIP member and adds index entries.
+     * @param batch
+     * @param records the rendered records of the batch messages.
+     * @throws IOException
+     */
+    private void writeBatch(List<JournalEntry> batch, List<byte[]> records) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        long memberOffset = journalOutput.getChannel().position();
+
+        GZIPOutputStream gzipOutput = new GZIPOutputStream(new FilterOutputStream(journalOutput) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                //do not close underlying journal file
+                flush();
+            }
+        }, 8192);
+
+        long recordOffset = 0L;
+        for (int i = 0; i < batch.size(); i++) {
+            JournalEntry entry = batch.get(i);
+            byte[] record = records.get(i);
+            gzipOutput.write(record);
+
+            indexWriter.write(entry.testName + "\t" + entry.run + "\t" + entry.sequence + "\t" + journalFile.getName() + "\t" +
+                    memberOffset + "\t" + recordOffset + "\t" + record.length + "\n");
+
+            recordOffset += record.length;
+        }
+
+        gzipOutput.close();
+        journalOutput.flush();
+        indexWriter.flush();
+
+        if (journalOutput.getChannel().position() > maxFileSize) {
+            rollJournalFile();
+        }
+    }
+
+    /**
+     * Closes current journal file and opens the next one.
+     * @throws IOException
+     */
+    private void rollJournalFile() throws IOException {
+        if (journalOutput != null) {
+            journalOutput.close();
+        }
+
+        fileNumber++;
+        journalFile = new File(directory, JOURNAL_FILE_PREFIX + fileNumber + JOURNAL_FILE_SUFFIX);
+        journalOutput = new FileOutputStream(journalFile);
+    }
+
+    /**
+     * Marks queued message as written or dropped.
+     * @param success
+     */
+    private void entryDone(boolean success) {
+        if (success) {
+            written.incrementAndGet();
+        } else {
+            dropped.incrementAndGet();
+        }
+
+        synchronized (pendingLock) {
+            pending--;
+
+            if (pending == 0) {
+                pendingLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all queued messages are written to the journal.
+     * @param timeout maximum time to wait in milliseconds.
+     * @return false if messages are still pending after timeout.
+     */
+    public boolean flush(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                try {
+                    pendingLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    /**
+     * Writes all remaining queued messages and closes the journal files.
+     * @param timeout maximum time to wait for writer thread in milliseconds.
+     */
+    public void close(long timeout) {
+        closed = true;
+
+        try {
+            writerThread.join(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writerThread.isAlive()) {
+            log.warn("Message journal writer did not finish in time, " + queue.size() + " messages not written");
+            writerThread.interrupt();
+        }
+    }
+
+    /**
+     * Gets the journal directory.
+     * @return
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the number of written messages.
+     * @return
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Gets the number of dropped messages.
+     * @return
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Gets the number of currently queued messages.
+     * @return
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Queued message. Messages are immutable, so record rendering is done by the writer thread.
+     */
+    private static final class JournalEntry {
+        private final String testName;
+        private final int run;
+        private final int sequence;
+        private final Message<?> message;
+
+        /**
+         * Default constructor.
+         * @param testName
+         * @param run
+         * @param sequence
+         * @param message
+         */
+        private JournalEntry(String testName, int run, int sequence, Message<?> message) {
+            this.testName = testName;
+            this.run = run;
+            this.sequence = sequence;
+            this.message = message;
+        }
+
+        /**
+         * Renders journal record with message headers, an empty line and the message payload.
+         * @return
+         * @throws UnsupportedEncodingException
+         */
+        private byte[] toRecord() throws UnsupportedEncodingException {
+            StringBuilder record = new StringBuilder();
+
+            for (Entry<String, Object> header : message.getHeaders().entrySet()) {
+                record.append(header.getKey() + "=" + header.getValue() + "\n");
+            }
+
+            record.append("\n");
+            record.append(message.getPayload().toString());
+            record.append("\n");
+
+            return record.toString().getBytes(ENCODING);
+        }
+    }
+}
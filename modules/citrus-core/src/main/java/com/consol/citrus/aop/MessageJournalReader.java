@@ -0,0 +1,170 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.aop;
+
+import java.io.*;
+import java.util.zip.GZIPInputStream;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+
+/**
+ * Extracts single messages from a {@link MessageJournal} by test name, test run and sequence number. Uses the
+ * journal index to seek directly to the compressed batch holding the message. When no test run is given
+ * the latest run of the test is used.
+ *
+ * Can be used from command line with journal directory, test name, sequence number and optional
+ * test run as arguments.
+ *
+ * @author Christoph Deppisch
+ */
+public class MessageJournalReader {
+    /** Run number selecting the latest run of a test */
+    private static final int LATEST_RUN = 0;
+
+    /** Journal directory */
+    private final File directory;
+
+    /**
+     * Default constructor.
+     * @param directory the journal directory.
+     */
+    public MessageJournalReader(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Reads journal record of message with headers and payload from latest test run.
+     * @param testName the test name.
+     * @param sequence the message sequence number within the test run.
+     * @return the record or null if message is not present in journal.
+     */
+    public String readMessage(String testName, int sequence) {
+        return readMessage(testName, LATEST_RUN, sequence);
+    }
+
+    /**
+     * Reads journal record of message with headers and payload.
+     * @param testName the test name.
+     * @param run the test run number.
+     * @param sequence the message sequence number within the test run.
+     * @return the record or null if message is not present in journal.
+     */
+    public String readMessage(String testName, int run, int sequence) {
+        try {
+            String[] indexEntry = findIndexEntry(testName, run, sequence);
+
+            if (indexEntry == null) {
+                return null;
+            }
+
+            long memberOffset = Long.valueOf(indexEntry[4]);
+            long recordOffset = Long.valueOf(indexEntry[5]);
+            int recordLength = Integer.valueOf(indexEntry[6]);
+
+            FileInputStream fileInput = new FileInputStream(new File(directory, indexEntry[3]));
+            try {
+                fileInput.getChannel().position(memberOffset);
+
+                DataInputStream input = new DataInputStream(new GZIPInputStream(new BufferedInputStream(fileInput)));
+
+                long skipped = 0L;
+                while (skipped < recordOffset) {
+                    long count = input.skip(recordOffset - skipped);
+                    if (count <= 0) {
+                        throw new EOFException("Unexpected end of message journal " + indexEntry[3]);
+                    }
+                    skipped += count;
+                }
+
+                byte[] record = new byte[recordLength];
+                input.readFully(record);
+
+                return new String(record, MessageJournal.ENCODING);
+            } finally {
+                fileInput.close();
+            }
+        } catch (IOException e) {
+            throw new CitrusRuntimeException("Failed to read message journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Finds index entry for test name, test run and sequence number. Picks the entry with
+     * the highest run number in case of latest run.
+     * @param testName
+     * @param run
+     * @param sequence
+     * @return the index entry columns or null if not found.
+     * @throws IOException
+     */
+    private String[] findIndexEntry(String testName, int run, int sequence) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(new File(directory, MessageJournal.INDEX_FILE_NAME)), MessageJournal.ENCODING));
+
+        try {
+            String[] result = null;
+            int resultRun = 0;
+
+            String prefix = testName + "\t";
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.startsWith(prefix)) {
+                    continue;
+                }
+
+                String[] columns = line.split("\t");
+                int entryRun = Integer.parseInt(columns[1]);
+
+                if (Integer.parseInt(columns[2]) != sequence) {
+                    continue;
+                }
+
+                if (run == entryRun) {
+                    return columns;
+                } else if (run == LATEST_RUN && entryRun > resultRun) {
+                    result = columns;
+                    resultRun = entryRun;
+                }
+            }
+
+            return result;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Prints single message from journal to standard out.
+     * @param args journal directory, test name, sequence number and optional test run.
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Usage: MessageJournalReader <journal directory> <test name> <sequence number> [<test run>]");
+            System.exit(1);
+        }
+
+        int run = args.length == 4 ? Integer.parseInt(args[3]) : LATEST_RUN;
+        String record = new MessageJournalReader(new File(args[0])).readMessage(args[1], run, Integer.parseInt(args[2]));
+
+        if (record == null) {
+            System.err.println("No message " + args[2] + " for test '" + args[1] + "' in message journal");
+            System.exit(1);
+        }
+
+        System.out.print(record);
+    }
+}
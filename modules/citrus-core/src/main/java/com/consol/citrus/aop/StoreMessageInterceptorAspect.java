@@ -16,38 +16,71 @@
 
 package com.consol.citrus.aop;
 
-import java.io.*;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aspectj.lang.annotation.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.integration.Message;
 
+import com.consol.citrus.TestCase;
+import com.consol.citrus.aop.MessageJournal.OverflowPolicy;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.report.AbstractTestListener;
 
 /**
  * Aspect can store received messages to the file system in order to track 
  * the message flow.
  * 
+ * Messages are handed over to an asynchronous {@link MessageJournal}, so receiving test
+ * threads do not wait for disk I/O. Journal entries are identified by test name, test run and message
+ * sequence number within the test run, use {@link MessageJournalReader} to extract single messages.
+ * 
+ * Messages received in threads other than the test thread are assigned to the running test as long
+ * as only one test is active, otherwise they are stored as unknown.
+ * 
  * @author Christoph Deppisch
  */
 @Aspect
-public class StoreMessageInterceptorAspect {
+public class StoreMessageInterceptorAspect extends AbstractTestListener implements DisposableBean {
     /**
      * Logger
      */
     private static Logger log = LoggerFactory.getLogger(StoreMessageInterceptorAspect.class);
     
+    /** Test name used for messages received outside of a test */
+    private static final String UNKNOWN_TEST = "unknown";
+    
     /** Target directory */
     private Resource debugDirectory = new FileSystemResource("logs/debug/messages/");
     
-    /** Count messages */
-    private static final AtomicInteger FILE_COUNTER = new AtomicInteger(1);
+    /** Journal settings */
+    private int queueCapacity = MessageJournal.DEFAULT_QUEUE_CAPACITY;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private long blockTimeout = MessageJournal.DEFAULT_BLOCK_TIMEOUT;
+    private long maxFileSize = MessageJournal.DEFAULT_MAX_FILE_SIZE;
+    
+    /** Message journal, created on first received message */
+    private volatile MessageJournal journal;
+    
+    /** Test run in current thread */
+    private final ThreadLocal<TestRun> currentTest = new ThreadLocal<TestRun>();
+    
+    /** Active test runs */
+    private final ConcurrentMap<TestCase, TestRun> activeRuns = new ConcurrentHashMap<TestCase, TestRun>();
+    
+    /** Run counters per test name */
+    private final ConcurrentMap<String, AtomicInteger> runCounters = new ConcurrentHashMap<String, AtomicInteger>();
+    
+    /** Run for messages received outside of a test */
+    private final TestRun unknownRun = new TestRun(UNKNOWN_TEST, 1);
     
     @Pointcut("execution(org.springframework.integration.Message com.consol.citrus.message.MessageReceiver.receive*(..))")
     public void inReceivingMessage() {}
@@ -62,68 +95,87 @@ public class StoreMessageInterceptorAspect {
     }
     
     /**
-     * Save message to the file system.
+     * Add message to the message journal.
      * @param receivedMessage
      * @throws CitrusRuntimeException
      */
     private void storeMessage(Message<?> receivedMessage) {
-        Writer headerOutput = null;
-        Writer bodyOutput = null;
+        TestRun testRun = getTestRun();
         
-        try {
-            if (!debugDirectory.exists()) {
-                boolean success = debugDirectory.getFile().mkdirs();
-                
-                if (!success) {
-                    log.warn("Unable to create folder structure for message interceptor");
-                }
-            }
-            
-            int counter = StoreMessageInterceptorAspect.FILE_COUNTER.getAndIncrement();
-            
-            Resource fileBody = debugDirectory.createRelative("message" + counter + ".body");
-            Resource fileHeader = debugDirectory.createRelative("message" + counter + ".header");
-            
-            //write body message
-            bodyOutput = new BufferedWriter(new FileWriter(fileBody.getFile()));
-            bodyOutput.write(receivedMessage.getPayload().toString());
-            bodyOutput.flush();
-
-            //write header message
-            headerOutput = new BufferedWriter(new FileWriter(fileHeader.getFile()));
-            Map<String, Object> header = receivedMessage.getHeaders();
-
-            for (Entry<String, Object> entry : header.entrySet()) {
-                headerOutput.write(entry.getKey() + "=" + entry.getValue() + "\n");
-            }
-            
-            headerOutput.flush();
-        } catch (IOException e) {
-            throw new CitrusRuntimeException("Error while trying to save incoming message to filesystem", e);
-        } finally {
-            if (headerOutput != null) {
-                try {
-                    headerOutput.close();
-                } catch (IOException e) {
-                    log.error("Error while closing header writer", e);
-                }
+        int sequenceNumber = testRun.sequence.incrementAndGet();
+        if (!getJournal().append(testRun.testName, testRun.run, sequenceNumber, receivedMessage) && log.isDebugEnabled()) {
+            log.debug("Message journal queue is full, dropped message " + sequenceNumber + " of test '" + testRun.testName + "'");
+        }
+    }
+    
+    /**
+     * Gets the test run of the current thread. Falls back to the only active
+     * test run or the unknown run.
+     * @return
+     */
+    private TestRun getTestRun() {
+        TestRun testRun = currentTest.get();
+        
+        if (testRun == null && activeRuns.size() == 1) {
+            Iterator<TestRun> it = activeRuns.values().iterator();
+            if (it.hasNext()) {
+                testRun = it.next();
             }
-            
-            if (bodyOutput != null) {
-                try {
-                    bodyOutput.close();
-                } catch (IOException e) {
-                    log.error("Error while closing body writer", e);
+        }
+        
+        return testRun != null ? testRun : unknownRun;
+    }
+    
+    /**
+     * Gets the message journal, opens the journal on first access.
+     * @return
+     */
+    public MessageJournal getJournal() {
+        if (journal == null) {
+            synchronized (this) {
+                if (journal == null) {
+                    try {
+                        journal = new MessageJournal(debugDirectory.getFile(), queueCapacity, overflowPolicy, blockTimeout, maxFileSize);
+                    } catch (IOException e) {
+                        throw new CitrusRuntimeException("Unable to open message journal in " + debugDirectory, e);
+                    }
                 }
             }
         }
+        
+        return journal;
+    }
+    
+    @Override
+    public void onTestStart(TestCase test) {
+        AtomicInteger runCounter = runCounters.get(test.getName());
+        if (runCounter == null) {
+            runCounters.putIfAbsent(test.getName(), new AtomicInteger());
+            runCounter = runCounters.get(test.getName());
+        }
+        
+        TestRun testRun = new TestRun(test.getName(), runCounter.incrementAndGet());
+        activeRuns.put(test, testRun);
+        currentTest.set(testRun);
+    }
+    
+    @Override
+    public void onTestFinish(TestCase test) {
+        activeRuns.remove(test);
+        currentTest.remove();
     }
     
     /**
-     * Resets the file counter.
+     * Writes all pending messages and closes the message journal.
      */
-    public static final void resetFileCounter() {
-        FILE_COUNTER.set(1);
+    public void destroy() {
+        if (journal != null) {
+            journal.close(10000L);
+            
+            if (journal.getDropped() > 0) {
+                log.warn("Message journal dropped " + journal.getDropped() + " messages");
+            }
+        }
     }
 
     /**
@@ -133,4 +185,55 @@ public class StoreMessageInterceptorAspect {
     public void setDebugDirectory(Resource debugDirectory) {
         this.debugDirectory = debugDirectory;
     }
+
+    /**
+     * Sets the maximum number of messages waiting to be written.
+     * @param queueCapacity the queueCapacity to set
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Sets the policy applied when the journal queue is full.
+     * @param overflowPolicy the overflowPolicy to set
+     */
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    /**
+     * Sets the time in milliseconds to wait for free queue space with blocking overflow policy.
+     * @param blockTimeout the blockTimeout to set
+     */
+    public void setBlockTimeout(long blockTimeout) {
+        this.blockTimeout = blockTimeout;
+    }
+
+    /**
+     * Sets the maximum journal file size in bytes before rolling over to the next file.
+     * @param maxFileSize the maxFileSize to set
+     */
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+    
+    /**
+     * Single execution of a test with its own message sequence.
+     */
+    private static final class TestRun {
+        private final String testName;
+        private final int run;
+        private final AtomicInteger sequence = new AtomicInteger();
+        
+        /**
+         * Default constructor.
+         * @param testName
+         * @param run
+         */
+        private TestRun(String testName, int run) {
+            this.testName = testName;
+            this.run = run;
+        }
+    }
 }
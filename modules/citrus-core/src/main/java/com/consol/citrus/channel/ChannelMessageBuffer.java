@@ -0,0 +1,321 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.channel;
+
+import java.util.*;
+import java.util.Map.Entry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.integration.Message;
+import org.springframework.integration.core.PollableChannel;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+
+/**
+ * Local buffer for messages drained from a pollable channel while waiting for a message matching
+ * some header criteria. Buffered messages are indexed by header name and value, so selective receivers find
+ * matching messages without scanning all buffered messages.
+ *
+ * Messages not matching are kept for later receivers on the same channel in arrival order. Buffered messages
+ * are discarded after a time to live. Buffers are shared per channel instance, only one receiver drains the
+ * channel at a time while other receivers wait for new buffered messages.
+ *
+ * @author Christoph Deppisch
+ */
+public class ChannelMessageBuffer {
+    /** Default time to live for buffered messages in milliseconds */
+    public static final long DEFAULT_TIME_TO_LIVE = 300000L;
+
+    /** Buffers by channel */
+    private static final Map<PollableChannel, ChannelMessageBuffer> BUFFERS =
+        Collections.synchronizedMap(new WeakHashMap<PollableChannel, ChannelMessageBuffer>());
+
+    /** Buffered messages in arrival order, guarded by buffer lock */
+    private final Set<BufferedMessage> messages = new LinkedHashSet<BufferedMessage>();
+
+    /** Buffered messages indexed by header name and value, guarded by buffer lock */
+    private final Map<String, Set<BufferedMessage>> index = new HashMap<String, Set<BufferedMessage>>();
+
+    /** Some receiver currently drains the channel */
+    private boolean draining = false;
+
+    /** Time to live for buffered messages */
+    private volatile long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(ChannelMessageBuffer.class);
+
+    /**
+     * Gets the buffer for a channel, creates a new buffer if not present yet.
+     * @param channel
+     * @return
+     */
+    public static ChannelMessageBuffer getBuffer(PollableChannel channel) {
+        synchronized (BUFFERS) {
+            ChannelMessageBuffer buffer = BUFFERS.get(channel);
+
+            if (buffer == null) {
+                buffer = new ChannelMessageBuffer();
+                BUFFERS.put(channel, buffer);
+            }
+
+            return buffer;
+        }
+    }
+
+    /**
+     * Gets the buffer for a channel if present.
+     * @param channel
+     * @return the buffer or null.
+     */
+    public static ChannelMessageBuffer findBuffer(PollableChannel channel) {
+        return BUFFERS.get(channel);
+    }
+
+    /**
+     * Receives first message matching all header criteria. Buffered messages are searched first, then
+     * the channel is drained until a matching message arrives or timeout is reached.
+     *
+     * @param channel the channel to drain.
+     * @param criteria header names and expected values, empty criteria match any message.
+     * @param timeout time to wait in milliseconds.
+     * @return the matching message or null on timeout.
+     */
+    public Message<?> receive(PollableChannel channel, Map<String, String> criteria, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while (true) {
+            long remaining;
+
+            synchronized (this) {
+                while (true) {
+                    Message<?> message = poll(criteria);
+                    if (message != null) {
+                        return message;
+                    }
+
+                    remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+
+                    if (!draining) {
+                        draining = true;
+                        break;
+                    }
+
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new CitrusRuntimeException("Interrupted while waiting for message on channel", e);
+                    }
+                }
+            }
+
+            Message<?> received = null;
+            boolean matching = false;
+            try {
+                received = channel.receive(remaining);
+                matching = received != null && matches(received, criteria);
+            } finally {
+                synchronized (this) {
+                    draining = false;
+
+                    if (received != null && !matching) {
+                        add(received);
+                    }
+
+                    notifyAll();
+                }
+            }
+
+            if (matching) {
+                return received;
+            }
+        }
+    }
+
+    /**
+     * Removes and returns first buffered message matching all header criteria. Does not block.
+     * @param criteria header names and expected values, empty criteria match any message.
+     * @return the message or null if no buffered message matches.
+     */
+    public synchronized Message<?> poll(Map<String, String> criteria) {
+        discardExpired();
+
+        if (messages.isEmpty()) {
+            return null;
+        }
+
+        Collection<BufferedMessage> candidates;
+        if (criteria.isEmpty()) {
+            candidates = messages;
+        } else {
+            Entry<String, String> first = criteria.entrySet().iterator().next();
+            candidates = index.get(getIndexKey(first.getKey(), first.getValue()));
+
+            if (candidates == null) {
+                return null;
+            }
+        }
+
+        for (BufferedMessage candidate : candidates) {
+            if (matches(candidate.message, criteria)) {
+                remove(candidate);
+                return candidate.message;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Adds message to buffer and index.
+     * @param message
+     */
+    private void add(Message<?> message) {
+        BufferedMessage buffered = new BufferedMessage(message, System.currentTimeMillis());
+        messages.add(buffered);
+
+        for (Entry<String, Object> header : message.getHeaders().entrySet()) {
+            String key = getIndexKey(header.getKey(), header.getValue());
+
+            Set<BufferedMessage> indexed = index.get(key);
+            if (indexed == null) {
+                indexed = new LinkedHashSet<BufferedMessage>();
+                index.put(key, indexed);
+            }
+
+            indexed.add(buffered);
+        }
+    }
+
+    /**
+     * Removes message from buffer and index.
+     * @param buffered
+     */
+    private void remove(BufferedMessage buffered) {
+        messages.remove(buffered);
+
+        for (Entry<String, Object> header : buffered.message.getHeaders().entrySet()) {
+            String key = getIndexKey(header.getKey(), header.getValue());
+
+            Set<BufferedMessage> indexed = index.get(key);
+            if (indexed != null) {
+                indexed.remove(buffered);
+
+                if (indexed.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards buffered messages older than time to live.
+     */
+    private void discardExpired() {
+        long now = System.currentTimeMillis();
+
+        Iterator<BufferedMessage> it = messages.iterator();
+        while (it.hasNext()) {
+            BufferedMessage buffered = it.next();
+
+            if (now - buffered.timestamp <= timeToLive) {
+                break;
+            }
+
+            log.warn("Discarding expired message " + buffered.message.getHeaders().getId() + " from channel buffer");
+            remove(buffered);
+            it = messages.iterator();
+        }
+    }
+
+    /**
+     * Checks message headers against criteria.
+     * @param message
+     * @param criteria
+     * @return
+     */
+    private boolean matches(Message<?> message, Map<String, String> criteria) {
+        for (Entry<String, String> criterion : criteria.entrySet()) {
+            Object value = message.getHeaders().get(criterion.getKey());
+
+            if (value == null || !value.toString().equals(criterion.getValue())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Builds index key for header.
+     * @param name
+     * @param value
+     * @return
+     */
+    private String getIndexKey(String name, Object value) {
+        return name + "=" + value;
+    }
+
+    /**
+     * Gets the number of buffered messages.
+     * @return
+     */
+    public synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Sets the time to live for buffered messages.
+     * @param timeToLive the timeToLive to set
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Gets the time to live for buffered messages.
+     * @return the timeToLive
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Buffered message with arrival time.
+     */
+    private static final class BufferedMessage {
+        private final Message<?> message;
+        private final long timestamp;
+
+        /**
+         * Default constructor.
+         * @param message
+         * @param timestamp
+         */
+        private BufferedMessage(Message<?> message, long timestamp) {
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+    }
+}
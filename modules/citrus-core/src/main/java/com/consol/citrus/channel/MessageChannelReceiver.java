@@ -16,6 +16,9 @@
 
 package com.consol.citrus.channel;
 
+import java.util.Collections;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -32,9 +35,15 @@ import org.springframework.util.StringUtils;
 import com.consol.citrus.exceptions.ActionTimeoutException;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.AbstractMessageReceiver;
+import com.consol.citrus.message.MessageSelectorBuilder;
 
 /**
  * Receive messages from {@link com.consol.citrus.message.MessageChannel} instance.
+ * 
+ * Selective receive drains the channel into a {@link ChannelMessageBuffer} until a message with matching
+ * header values arrives. Supported selectors are key value expressions combined with AND as built
+ * by {@link MessageSelectorBuilder}. Buffered messages stay available for later receivers.
+ * 
  * @author Christoph Christoph
  */
 public class MessageChannelReceiver extends AbstractMessageReceiver implements BeanFactoryAware {
@@ -59,6 +68,9 @@ public class MessageChannelReceiver extends AbstractMessageReceiver implements B
     /** Channel resolver instance */
     private ChannelResolver channelResolver;
     
+    /** Time to live for messages buffered during selective receive */
+    private long bufferTimeToLive = ChannelMessageBuffer.DEFAULT_TIME_TO_LIVE;
+    
     /**
      * @see MessageReceiver#receive(long)
      * @throws ActionTimeoutException
@@ -69,8 +81,18 @@ public class MessageChannelReceiver extends AbstractMessageReceiver implements B
         
         log.info("Receiving message from: " + destinationChannelName);
         
-        messagingTemplate.setReceiveTimeout(timeout);
-        Message<?> received = messagingTemplate.receive(getDestinationChannel());
+        PollableChannel destinationChannel = getDestinationChannel();
+        
+        Message<?> received = null;
+        ChannelMessageBuffer buffer = ChannelMessageBuffer.findBuffer(destinationChannel);
+        if (buffer != null) {
+            received = buffer.poll(Collections.<String, String>emptyMap());
+        }
+        
+        if (received == null) {
+            messagingTemplate.setReceiveTimeout(timeout);
+            received = messagingTemplate.receive(destinationChannel);
+        }
         
         if (received == null) {
             throw new ActionTimeoutException("Action timeout while receiving message from channel '"
@@ -85,8 +107,27 @@ public class MessageChannelReceiver extends AbstractMessageReceiver implements B
      */
     @Override
     public Message<?> receiveSelected(String selector, long timeout) {
-        throw new UnsupportedOperationException("MessagingTemplate " +
-        		"does not support selected receiving.");
+        if (!StringUtils.hasText(selector)) {
+            return receive(timeout);
+        }
+        
+        String destinationChannelName = getDestinationChannelName();
+        
+        log.info("Receiving message from: " + destinationChannelName + "(" + selector + ")");
+        
+        Map<String, String> criteria = MessageSelectorBuilder.withString(selector).toKeyValueMap();
+        
+        ChannelMessageBuffer buffer = ChannelMessageBuffer.getBuffer(getDestinationChannel());
+        buffer.setTimeToLive(bufferTimeToLive);
+        
+        Message<?> received = buffer.receive(getDestinationChannel(), criteria, timeout);
+        
+        if (received == null) {
+            throw new ActionTimeoutException("Action timeout while receiving message from channel '"
+                    + destinationChannelName + "' with selector '" + selector + "'");
+        }
+        
+        return received;
     }
     
     /**
@@ -183,6 +224,22 @@ public class MessageChannelReceiver extends AbstractMessageReceiver implements B
         this.channelResolver = channelResolver;
     }
 
+    /**
+     * Sets the time to live for messages buffered during selective receive.
+     * @param bufferTimeToLive the bufferTimeToLive to set
+     */
+    public void setBufferTimeToLive(long bufferTimeToLive) {
+        this.bufferTimeToLive = bufferTimeToLive;
+    }
+
+    /**
+     * Gets the time to live for buffered messages.
+     * @return the bufferTimeToLive
+     */
+    public long getBufferTimeToLive() {
+        return bufferTimeToLive;
+    }
+
     /**
      * Gets the channel.
      * @return the channel
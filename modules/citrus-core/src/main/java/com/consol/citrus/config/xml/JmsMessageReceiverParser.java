@@ -40,6 +40,12 @@ public class JmsMessageReceiverParser extends AbstractJmsTemplateAwareParser {
         BeanDefinitionParserUtils.setPropertyValue(builder, 
                 element.getAttribute("receive-timeout"), "receiveTimeout");
         
+        BeanDefinitionParserUtils.setPropertyValue(builder, 
+                element.getAttribute("cache-consumers"), "cacheConsumers");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, 
+                element.getAttribute("max-cached-consumers"), "maxCachedConsumers");
+        
         return builder;
     }
 
@@ -22,6 +22,7 @@ import org.springframework.beans.factory.xml.BeanDefinitionParser;
 import org.springframework.beans.factory.xml.ParserContext;
 import org.w3c.dom.Element;
 
+import com.consol.citrus.config.util.BeanDefinitionParserUtils;
 import com.consol.citrus.container.Parallel;
 
 /**
@@ -40,6 +41,10 @@ public class ParallelParser implements BeanDefinitionParser {
         DescriptionElementParser.doParse(element, builder);
         builder.addPropertyValue("name", element.getLocalName());
         
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("pool-size"), "poolSize");
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("fail-fast"), "failFast");
+        BeanDefinitionParserUtils.setPropertyReference(builder, element.getAttribute("executor"), "executor");
+        
         ActionContainerParser.doParse(element, parserContext, builder);
 
         return builder.getBeanDefinition();
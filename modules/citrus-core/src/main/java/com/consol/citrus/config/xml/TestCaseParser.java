@@ -57,6 +57,11 @@ public class TestCaseParser implements BeanDefinitionParser {
         }
         
         testcase.addPropertyValue("name", testName);
+        
+        String resources = element.getAttribute("resources");
+        if (StringUtils.hasText(resources)) {
+            testcase.addPropertyValue("resourceGroups", Arrays.asList(StringUtils.tokenizeToStringArray(resources, ", ")));
+        }
 
         parseMetaInfo(testcase, element);
         parseVariableDefinitions(testcase, element);
@@ -19,6 +19,7 @@ package com.consol.citrus.container;
 import com.consol.citrus.TestAction;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.util.BooleanExpressionParser;
+import com.consol.citrus.util.BooleanExpressionParser.CompiledExpression;
 
 /**
  * 
@@ -34,9 +35,13 @@ public abstract class AbstractIteratingTestAction extends AbstractActionContaine
     /** Looping index */
     protected int index = 1;
     
+    /** Condition compiled with index variable slot */
+    private CompiledExpression compiledCondition;
+    
     @Override
     public void doExecute(TestContext context) {
         condition = context.replaceDynamicContentInString(condition);
+        compiledCondition = BooleanExpressionParser.compile(condition, indexName);
         
         executeIteration(context);
     }
@@ -65,13 +70,11 @@ public abstract class AbstractIteratingTestAction extends AbstractActionContaine
      * @return
      */
     protected boolean checkCondition() {
-        String conditionString = condition;
-
-        if (conditionString.indexOf(indexName) != -1) {
-            conditionString = conditionString.replaceAll(indexName, Integer.valueOf(index).toString());
+        if (compiledCondition == null || !compiledCondition.getExpression().equals(condition)) {
+            compiledCondition = BooleanExpressionParser.compile(condition, indexName);
         }
 
-        return BooleanExpressionParser.evaluate(conditionString);
+        return compiledCondition.evaluate(index);
     }
     
     /**
@@ -80,6 +83,7 @@ public abstract class AbstractIteratingTestAction extends AbstractActionContaine
      */
     public void setCondition(String condition) {
         this.condition = condition;
+        this.compiledCondition = null;
     }
 
     /**
@@ -88,6 +92,7 @@ public abstract class AbstractIteratingTestAction extends AbstractActionContaine
      */
     public void setIndexName(String indexName) {
         this.indexName = indexName;
+        this.compiledCondition = null;
     }
     
     /**
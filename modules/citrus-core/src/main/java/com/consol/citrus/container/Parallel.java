@@ -17,6 +17,7 @@
 package com.consol.citrus.container;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,18 +28,28 @@ import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.ParallelContainerException;
 
 /**
- * Test action will execute nested actions in parallel. Each action is executed in a
- * separate thread. Container joins all threads and waiting for them to end successfully.
+ * Test action will execute nested actions in parallel. Each action is executed as separate
+ * task on an executor. Container waits for all tasks to end successfully.
+ * 
+ * By default a new thread is used for each nested action. A pool size limits the number of
+ * concurrently running actions, alternatively an executor service can be set (e.g. a shared pool or
+ * a virtual thread executor on newer JDKs). Please note that nested parallel containers sharing
+ * a bounded executor may block each other.
+ * 
+ * In fail fast mode the container cancels all remaining actions as soon as the first action fails.
  * 
  * @author Christoph Deppisch
  */
 public class Parallel extends AbstractActionContainer {
 
-    /** Store created threads in stack */
-    private Stack<Thread> threads = new Stack<Thread>();
-
-    /** Collect exceptions in list */
-    private List<CitrusRuntimeException> exceptions = new ArrayList<CitrusRuntimeException>();
+    /** Maximum number of concurrently running actions, zero or less for no limit */
+    private int poolSize = 0;
+    
+    /** Optional executor service running the actions */
+    private ExecutorService executor;
+    
+    /** Cancel remaining actions on first failure */
+    private boolean failFast = false;
     
     /**
      * Logger
@@ -47,27 +58,44 @@ public class Parallel extends AbstractActionContainer {
 
     @Override
     public void doExecute(TestContext context) {
-        for (final TestAction action : actions) {
-            Thread t = new Thread(new ActionRunner(action, context) {
-                @Override
-                public void exceptionCallback(CitrusRuntimeException e) {
+        List<CitrusRuntimeException> exceptions = new CopyOnWriteArrayList<CitrusRuntimeException>();
+        
+        ExecutorService executorService = executor != null ? executor : createExecutorService();
+        CompletionService<TestAction> completionService = new ExecutorCompletionService<TestAction>(executorService);
+        Map<Future<TestAction>, TestAction> tasks = new HashMap<Future<TestAction>, TestAction>();
+        
+        try {
+            for (TestAction action : actions) {
+                tasks.put(completionService.submit(new ActionRunner(action, context)), action);
+            }
+            
+            for (int i = 0; i < tasks.size(); i++) {
+                Future<TestAction> future = completionService.take();
+                
+                try {
+                    future.get();
+                } catch (CancellationException e) {
+                    continue;
+                } catch (ExecutionException e) {
                     if (exceptions.isEmpty()) {
-                        setLastExecutedAction(action);
+                        setLastExecutedAction(tasks.get(future));
                     }
                     
-                    exceptions.add(e);
+                    exceptions.add(getCitrusRuntimeException(e.getCause()));
+                    
+                    if (failFast) {
+                        cancel(tasks.keySet());
+                    }
                 }
-            });
-
-            threads.push(t);
-            t.start();
-        }
-
-        while (!threads.isEmpty()) {
-            try {
-                threads.pop().join();
-            } catch (InterruptedException e) {
-                log.error("Unable to join thread", e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(tasks.keySet());
+            
+            exceptions.add(new CitrusRuntimeException("Interrupted while waiting for parallel test actions", e));
+        } finally {
+            if (executor == null) {
+                executorService.shutdownNow();
             }
         }
         
@@ -79,11 +107,96 @@ public class Parallel extends AbstractActionContainer {
             }
         }
     }
+    
+    /**
+     * Creates executor service for a single container execution.
+     * @return
+     */
+    private ExecutorService createExecutorService() {
+        int threads = actions.size();
+        
+        if (poolSize > 0 && poolSize < threads) {
+            threads = poolSize;
+        }
+        
+        return Executors.newFixedThreadPool(Math.max(threads, 1));
+    }
+    
+    /**
+     * Cancels all tasks not completed yet.
+     * @param futures
+     */
+    private void cancel(Collection<Future<TestAction>> futures) {
+        for (Future<TestAction> future : futures) {
+            future.cancel(true);
+        }
+    }
+    
+    /**
+     * Converts action error to Citrus runtime exception.
+     * @param cause
+     * @return
+     */
+    private CitrusRuntimeException getCitrusRuntimeException(Throwable cause) {
+        if (cause instanceof CitrusRuntimeException) {
+            return (CitrusRuntimeException) cause;
+        }
+        
+        return new CitrusRuntimeException(cause);
+    }
+
+    /**
+     * Sets the maximum number of concurrently running actions.
+     * @param poolSize the poolSize to set
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Gets the maximum number of concurrently running actions.
+     * @return the poolSize
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Sets the executor service running the actions.
+     * @param executor the executor to set
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the executor service.
+     * @return the executor
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Enables cancellation of remaining actions on first failure.
+     * @param failFast the failFast to set
+     */
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
 
     /**
-     * Runnable wrapper for executing an action in separate Thread.
+     * Is fail fast mode enabled.
+     * @return the failFast
      */
-    private abstract static class ActionRunner implements Runnable {
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * Callable wrapper for executing an action in separate Thread.
+     */
+    private static class ActionRunner implements Callable<TestAction> {
         /** Test action to execute */
         private TestAction action;
         
@@ -98,25 +211,18 @@ public class Parallel extends AbstractActionContainer {
         /**
          * Run the test action
          */
-        public void run() {
+        public TestAction call() {
             try {
                 action.execute(context);
             } catch (CitrusRuntimeException e) {
                 log.error("Parallel test action raised error", e);
-                exceptionCallback(e);
+                throw e;
             } catch (RuntimeException e) {
                 log.error("Parallel test action raised error", e);
-                exceptionCallback(new CitrusRuntimeException(e));
-            } catch (Exception e) {
-                log.error("Parallel test action raised error", e);
-                exceptionCallback(new CitrusRuntimeException(e));
+                throw new CitrusRuntimeException(e);
             }
+            
+            return action;
         }
-        
-        /**
-         * Callback for exception tracking.
-         * @param exception
-         */
-        public abstract void exceptionCallback(CitrusRuntimeException e);
     }
-}
\ No newline at end of file
+}
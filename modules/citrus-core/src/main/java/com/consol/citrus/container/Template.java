@@ -77,7 +77,7 @@ public class Template extends AbstractTestAction {
             GlobalVariables globalVariables = new GlobalVariables();
             globalVariables.getVariables().putAll(context.getGlobalVariables());
             innerContext.setGlobalVariables(globalVariables);
-            innerContext.getVariables().putAll(context.getVariables());
+            innerContext.getVariables().putAll(context.copyVariables());
         }
         
         for (Entry<String, String> entry : parameter.entrySet()) {
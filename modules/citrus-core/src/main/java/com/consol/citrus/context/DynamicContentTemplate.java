@@ -0,0 +1,496 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.context;
+
+import java.util.*;
+
+import com.consol.citrus.CitrusConstants;
+import com.consol.citrus.exceptions.NoSuchFunctionException;
+import com.consol.citrus.functions.*;
+import com.consol.citrus.variable.VariableUtils;
+
+/**
+ * Compiled representation of a string holding dynamic content such as variable place holders
+ * and function expressions. Template string is parsed once into a sequence of literal segments,
+ * variable references and function calls. Rendering is a single pass over these nodes.
+ *
+ * Parsing follows the rules of {@link VariableUtils#replaceVariablesInString(String, TestContext, boolean)}
+ * and {@link FunctionUtils#replaceFunctionsInString(String, TestContext, boolean)}. In case a variable value
+ * holds dynamic content itself (variable place holder or function prefix) rendering falls back to
+ * these utilities, so resulting strings stay the same.
+ *
+ * Templates are immutable and may be shared among threads and test contexts.
+ *
+ * @author Christoph Deppisch
+ */
+public final class DynamicContentTemplate {
+    /** Marks variable positions in template string while parsing functions */
+    private static final char VARIABLE_PLACEHOLDER = '\uFFFF';
+
+    /** Original template string */
+    private final String template;
+
+    /** Function library prefixes this template was compiled with */
+    private final String[] functionPrefixes;
+
+    /** Compiled template nodes, null if template can not be compiled */
+    private final Node[] nodes;
+
+    /**
+     * Private constructor.
+     * @param template
+     * @param functionPrefixes
+     * @param nodes
+     */
+    private DynamicContentTemplate(String template, String[] functionPrefixes, Node[] nodes) {
+        this.template = template;
+        this.functionPrefixes = functionPrefixes;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Compiles template string with function prefixes of given libraries.
+     * @param template the template string.
+     * @param functionLibraries the function libraries known to the test context.
+     * @return the compiled template.
+     */
+    public static DynamicContentTemplate compile(String template, List<FunctionLibrary> functionLibraries) {
+        String[] functionPrefixes = getPrefixes(functionLibraries);
+
+        if (template.indexOf(VARIABLE_PLACEHOLDER) != -1) {
+            return new DynamicContentTemplate(template, functionPrefixes, null);
+        }
+
+        List<String> variableNames = new ArrayList<String>();
+        String functionTemplate = parseVariables(template, variableNames);
+
+        List<Node> nodes = parseFunctions(functionTemplate, functionPrefixes, variableNames.iterator());
+        return new DynamicContentTemplate(template, functionPrefixes, nodes.toArray(new Node[nodes.size()]));
+    }
+
+    /**
+     * Checks whether string holds variable place holders or function expressions at all.
+     * @param str the string to check.
+     * @param functionLibraries the function libraries known to the test context.
+     * @return
+     */
+    public static boolean isDynamic(String str, List<FunctionLibrary> functionLibraries) {
+        if (str.indexOf(CitrusConstants.VARIABLE_PREFIX) != -1) {
+            return true;
+        }
+
+        for (FunctionLibrary library : functionLibraries) {
+            if (str.indexOf(library.getPrefix()) != -1) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Renders this template replacing all variables and functions with their respective values.
+     * @param context the test context.
+     * @param enableQuoting surround variable values and function results with single quotes.
+     * @return the resulting string.
+     */
+    public String render(TestContext context, boolean enableQuoting) {
+        if (nodes != null) {
+            if (nodes.length == 1 && nodes[0] instanceof LiteralNode) {
+                return template;
+            }
+
+            StringBuilder result = new StringBuilder(template.length() + 16);
+            if (render(nodes, result, context, enableQuoting, enableQuoting)) {
+                return result.toString();
+            }
+        }
+
+        String result = VariableUtils.replaceVariablesInString(template, context, enableQuoting);
+        return FunctionUtils.replaceFunctionsInString(result, context, enableQuoting);
+    }
+
+    /**
+     * Checks whether this template was compiled with the prefixes of given function libraries.
+     * @param functionLibraries
+     * @return
+     */
+    public boolean isCompiledFor(List<FunctionLibrary> functionLibraries) {
+        if (functionLibraries.size() != functionPrefixes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < functionPrefixes.length; i++) {
+            if (!functionPrefixes[i].equals(functionLibraries.get(i).getPrefix())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the template string.
+     * @return the template
+     */
+    public String getTemplate() {
+        return template;
+    }
+
+    /**
+     * Renders nodes to result string builder.
+     * @return false in case rendering has to fall back to string based replacement.
+     */
+    private boolean render(Node[] nodes, StringBuilder result, TestContext context,
+            boolean quoteVariables, boolean quoteFunctions) {
+        for (Node node : nodes) {
+            if (!node.render(this, result, context, quoteVariables, quoteFunctions)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether value holds variable place holders or function prefixes.
+     * @param value
+     * @return
+     */
+    private boolean holdsDynamicContent(String value) {
+        if (value.indexOf(CitrusConstants.VARIABLE_PREFIX) != -1) {
+            return true;
+        }
+
+        for (String prefix : functionPrefixes) {
+            if (value.indexOf(prefix) != -1) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Replaces all variable expressions in template string with a placeholder character and
+     * collects the variable names in order of appearance.
+     * @param str
+     * @param variableNames
+     * @return
+     */
+    private static String parseVariables(String str, List<String> variableNames) {
+        StringBuilder result = new StringBuilder(str.length());
+
+        int startIndex = 0;
+        int curIndex;
+        int searchIndex;
+
+        while ((searchIndex = str.indexOf(CitrusConstants.VARIABLE_PREFIX, startIndex)) != -1) {
+            int control = 0;
+            boolean isVarComplete = false;
+
+            curIndex = searchIndex + CitrusConstants.VARIABLE_PREFIX.length();
+            int nameIndex = curIndex;
+
+            while (curIndex < str.length() && !isVarComplete) {
+                if (str.startsWith(CitrusConstants.VARIABLE_PREFIX, curIndex)) {
+                    control++;
+                }
+
+                if (str.charAt(curIndex) == CitrusConstants.VARIABLE_SUFFIX || (curIndex + 1 == str.length())) {
+                    if (control == 0) {
+                        isVarComplete = true;
+                    } else {
+                        control--;
+                    }
+                }
+
+                ++curIndex;
+            }
+
+            variableNames.add(str.substring(nameIndex, isVarComplete ? curIndex - 1 : curIndex));
+            result.append(str, startIndex, searchIndex).append(VARIABLE_PLACEHOLDER);
+
+            startIndex = curIndex;
+        }
+
+        result.append(str, startIndex, str.length());
+
+        return result.toString();
+    }
+
+    /**
+     * Parses function expressions in string. Variables are marked with placeholder characters and
+     * consumed from variable names iterator in order of appearance.
+     * @param str
+     * @param functionPrefixes
+     * @param variableNames
+     * @return
+     */
+    private static List<Node> parseFunctions(String str, String[] functionPrefixes, Iterator<String> variableNames) {
+        List<Node> nodes = new ArrayList<Node>();
+
+        int startIndex = 0;
+        int curIndex;
+        int searchIndex;
+
+        while ((searchIndex = indexOfFunction(str, functionPrefixes, startIndex)) != -1) {
+            int control = -1;
+            boolean isFunctionComplete = false;
+
+            curIndex = searchIndex;
+
+            while (curIndex < str.length() && !isFunctionComplete) {
+                if (str.charAt(curIndex) == '(') {
+                    control++;
+                }
+
+                if (str.charAt(curIndex) == ')' || (curIndex + 1 == str.length())) {
+                    if (control == 0) {
+                        isFunctionComplete = true;
+                    } else {
+                        control--;
+                    }
+                }
+
+                ++curIndex;
+            }
+
+            addLiteral(nodes, str.substring(startIndex, searchIndex), variableNames);
+            nodes.add(createFunctionNode(str.substring(searchIndex, curIndex), functionPrefixes, variableNames));
+
+            startIndex = curIndex;
+        }
+
+        addLiteral(nodes, str.substring(startIndex), variableNames);
+
+        return nodes;
+    }
+
+    /**
+     * Creates function node for function expression. Malformed expressions or function names
+     * built from variables are resolved at render time via {@link FunctionUtils#resolveFunction(String, TestContext)}.
+     * @param expression
+     * @param functionPrefixes
+     * @param variableNames
+     * @return
+     */
+    private static Node createFunctionNode(String expression, String[] functionPrefixes, Iterator<String> variableNames) {
+        int prefixEnd = expression.indexOf(':') + 1;
+        int parameterStart = expression.indexOf('(') + 1;
+
+        if (parameterStart == 0 || parameterStart < prefixEnd || parameterStart > expression.length() - 1
+                || expression.substring(0, parameterStart).indexOf(VARIABLE_PLACEHOLDER) != -1
+                || expression.charAt(expression.length() - 1) == VARIABLE_PLACEHOLDER) {
+            List<Node> expressionNodes = new ArrayList<Node>();
+            addLiteral(expressionNodes, expression, variableNames);
+            return new FunctionExpressionNode(expressionNodes.toArray(new Node[expressionNodes.size()]));
+        }
+
+        List<Node> parameterNodes = parseFunctions(expression.substring(parameterStart, expression.length() - 1), functionPrefixes, variableNames);
+
+        return new FunctionNode(expression.substring(0, prefixEnd),
+                expression.substring(prefixEnd, parameterStart - 1),
+                parameterNodes.toArray(new Node[parameterNodes.size()]));
+    }
+
+    /**
+     * Adds literal and variable nodes for string segment.
+     * @param nodes
+     * @param str
+     * @param variableNames
+     */
+    private static void addLiteral(List<Node> nodes, String str, Iterator<String> variableNames) {
+        int startIndex = 0;
+        int searchIndex;
+
+        while ((searchIndex = str.indexOf(VARIABLE_PLACEHOLDER, startIndex)) != -1) {
+            if (searchIndex > startIndex) {
+                nodes.add(new LiteralNode(str.substring(startIndex, searchIndex)));
+            }
+
+            nodes.add(new VariableNode(variableNames.next()));
+            startIndex = searchIndex + 1;
+        }
+
+        if (startIndex < str.length() || nodes.isEmpty()) {
+            nodes.add(new LiteralNode(str.substring(startIndex)));
+        }
+    }
+
+    /**
+     * Finds next function expression starting with one of the library prefixes.
+     * @param str
+     * @param functionPrefixes
+     * @param fromIndex
+     * @return
+     */
+    private static int indexOfFunction(String str, String[] functionPrefixes, int fromIndex) {
+        int index = -1;
+
+        for (String prefix : functionPrefixes) {
+            int prefixIndex = str.indexOf(prefix, fromIndex);
+            if (prefixIndex != -1 && (index == -1 || prefixIndex < index)) {
+                index = prefixIndex;
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Gets prefixes of function libraries.
+     * @param functionLibraries
+     * @return
+     */
+    private static String[] getPrefixes(List<FunctionLibrary> functionLibraries) {
+        String[] prefixes = new String[functionLibraries.size()];
+
+        for (int i = 0; i < prefixes.length; i++) {
+            prefixes[i] = functionLibraries.get(i).getPrefix();
+        }
+
+        return prefixes;
+    }
+
+    /**
+     * Appends value to result string optionally surrounded with single quotes.
+     * @param result
+     * @param value
+     * @param quote
+     */
+    private static void append(StringBuilder result, String value, boolean quote) {
+        if (quote) {
+            result.append('\'').append(value).append('\'');
+        } else {
+            result.append(value);
+        }
+    }
+
+    /**
+     * Single compiled template node.
+     */
+    private interface Node {
+        /**
+         * Renders node to result.
+         * @return false in case rendering has to fall back to string based replacement.
+         */
+        boolean render(DynamicContentTemplate template, StringBuilder result, TestContext context,
+                boolean quoteVariables, boolean quoteFunctions);
+    }
+
+    /**
+     * Static text segment.
+     */
+    private static final class LiteralNode implements Node {
+        private final String text;
+
+        private LiteralNode(String text) {
+            this.text = text;
+        }
+
+        public boolean render(DynamicContentTemplate template, StringBuilder result, TestContext context,
+                boolean quoteVariables, boolean quoteFunctions) {
+            result.append(text);
+            return true;
+        }
+    }
+
+    /**
+     * Variable reference.
+     */
+    private static final class VariableNode implements Node {
+        private final String variableName;
+
+        private VariableNode(String variableName) {
+            this.variableName = variableName;
+        }
+
+        public boolean render(DynamicContentTemplate template, StringBuilder result, TestContext context,
+                boolean quoteVariables, boolean quoteFunctions) {
+            String value = context.getVariable(variableName);
+
+            if (template.holdsDynamicContent(value)) {
+                return false;
+            }
+
+            append(result, value, quoteVariables);
+            return true;
+        }
+    }
+
+    /**
+     * Function call with compiled parameter nodes.
+     */
+    private static final class FunctionNode implements Node {
+        private final String prefix;
+        private final String functionName;
+        private final Node[] parameterNodes;
+
+        private FunctionNode(String prefix, String functionName, Node[] parameterNodes) {
+            this.prefix = prefix;
+            this.functionName = functionName;
+            this.parameterNodes = parameterNodes;
+        }
+
+        public boolean render(DynamicContentTemplate template, StringBuilder result, TestContext context,
+                boolean quoteVariables, boolean quoteFunctions) {
+            StringBuilder parameters = new StringBuilder();
+            if (!template.render(parameterNodes, parameters, context, quoteVariables, false)) {
+                return false;
+            }
+
+            Function function = context.getFunctionRegistry().getLibraryForPrefix(prefix).getFunction(functionName);
+            String value = function.execute(FunctionParameterHelper.getParameterList(parameters.toString()));
+
+            if (value == null) {
+                throw new NoSuchFunctionException("Function: " + prefix + functionName + "(" + parameters + ") could not be found");
+            }
+
+            append(result, value, quoteFunctions);
+            return true;
+        }
+    }
+
+    /**
+     * Function expression that is resolved via {@link FunctionUtils} at render time.
+     */
+    private static final class FunctionExpressionNode implements Node {
+        private final Node[] expressionNodes;
+
+        private FunctionExpressionNode(Node[] expressionNodes) {
+            this.expressionNodes = expressionNodes;
+        }
+
+        public boolean render(DynamicContentTemplate template, StringBuilder result, TestContext context,
+                boolean quoteVariables, boolean quoteFunctions) {
+            StringBuilder expression = new StringBuilder();
+            if (!template.render(expressionNodes, expression, context, quoteVariables, false)) {
+                return false;
+            }
+
+            String value = FunctionUtils.resolveFunction(expression.toString(), context);
+
+            if (value == null) {
+                throw new NoSuchFunctionException("Function: " + expression + " could not be found");
+            }
+
+            append(result, value, quoteFunctions);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.context;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.consol.citrus.functions.FunctionLibrary;
+
+/**
+ * Bounded cache of compiled dynamic content templates keyed by template string. Compiled templates are
+ * immutable, so one cache instance is shared among all test contexts created by {@link TestContextFactoryBean}.
+ *
+ * Strings without any variable place holder or function prefix are not cached at all. Cache size is limited by
+ * the total number of template characters, least recently used templates are evicted first. Templates exceeding
+ * the maximum size on their own are compiled but not cached.
+ *
+ * @author Christoph Deppisch
+ */
+public class DynamicContentTemplateCache {
+    /** Default maximum number of cached template characters */
+    public static final long DEFAULT_MAX_SIZE = 1024 * 1024;
+
+    /** Maximum number of cached template characters */
+    private final long maxSize;
+
+    /** Least recently used template map */
+    private final Map<String, DynamicContentTemplate> templates = new LinkedHashMap<String, DynamicContentTemplate>(16, 0.75f, true);
+
+    /** Number of currently cached template characters, guarded by templates lock */
+    private long cachedCharacters = 0L;
+
+    /** Cache statistics */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Default constructor using default maximum size.
+     */
+    public DynamicContentTemplateCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor using maximum cache size.
+     * @param maxSize maximum number of cached template characters.
+     */
+    public DynamicContentTemplateCache(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the compiled template from cache or compiles the template in case it is not present yet.
+     * Cached templates compiled with different function library prefixes are recompiled.
+     *
+     * @param template the template string.
+     * @param functionLibraries the function libraries known to the test context.
+     * @return the compiled template.
+     */
+    public DynamicContentTemplate getTemplate(String template, List<FunctionLibrary> functionLibraries) {
+        if (!DynamicContentTemplate.isDynamic(template, functionLibraries)) {
+            return DynamicContentTemplate.compile(template, functionLibraries);
+        }
+
+        DynamicContentTemplate compiled;
+        synchronized (templates) {
+            compiled = templates.get(template);
+        }
+
+        if (compiled != null && compiled.isCompiledFor(functionLibraries)) {
+            hits.incrementAndGet();
+            return compiled;
+        }
+
+        misses.incrementAndGet();
+        compiled = DynamicContentTemplate.compile(template, functionLibraries);
+
+        if (template.length() <= maxSize) {
+            put(template, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Adds compiled template to cache and evicts least recently used templates exceeding maximum size.
+     * @param template
+     * @param compiled
+     */
+    private void put(String template, DynamicContentTemplate compiled) {
+        synchronized (templates) {
+            if (templates.put(template, compiled) == null) {
+                cachedCharacters += template.length();
+            }
+
+            Iterator<String> it = templates.keySet().iterator();
+            while (cachedCharacters > maxSize && it.hasNext()) {
+                cachedCharacters -= it.next().length();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+            cachedCharacters = 0L;
+        }
+    }
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Gets the number of cached templates.
+     * @return
+     */
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    /**
+     * Gets the number of cached template characters.
+     * @return
+     */
+    public long getCachedCharacters() {
+        synchronized (templates) {
+            return cachedCharacters;
+        }
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the maximum number of cached template characters.
+     * @return the maxSize
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
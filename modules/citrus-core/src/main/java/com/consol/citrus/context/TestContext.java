@@ -26,6 +26,7 @@ import org.springframework.util.StringUtils;
 
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.VariableNullValueException;
+import com.consol.citrus.functions.FunctionLibrary;
 import com.consol.citrus.functions.FunctionRegistry;
 import com.consol.citrus.functions.FunctionUtils;
 import com.consol.citrus.validation.MessageValidatorRegistry;
@@ -37,6 +38,9 @@ import com.consol.citrus.variable.VariableUtils;
  * Class holding and managing test variables. The test context also provides utility methods
  * for replacing dynamic content(variables and functions) in message payloads and headers.
  * 
+ * Variables are held in a synchronized map as actions in parallel containers share the same test context.
+ * Iterating over the variables requires synchronizing on the map, use {@link #copyVariables()} for a snapshot.
+ * 
  * @author Christoph Deppisch
  */
 public class TestContext {
@@ -60,11 +64,14 @@ public class TestContext {
     /** Registered validation matchers */
     private ValidationMatcherRegistry validationMatcherRegistry = new ValidationMatcherRegistry();
     
+    /** Compiled dynamic content templates */
+    private DynamicContentTemplateCache templateCache = new DynamicContentTemplateCache();
+    
     /**
      * Default constructor
      */
     public TestContext() {
-        variables = new LinkedHashMap<String, Object>();
+        variables = Collections.synchronizedMap(new LinkedHashMap<String, Object>());
     }
     
     /**
@@ -218,26 +225,41 @@ public class TestContext {
 
     /**
      * Method replacing variable declarations and functions in a string, optionally 
-     * the variable values get surrounded with single quotes.
+     * the variable values get surrounded with single quotes. String is compiled to a
+     * {@link DynamicContentTemplate} once and cached for subsequent calls, strings without
+     * any variable or function are returned as is.
      * 
      * @param str the string to parse for variable place holders.
      * @param enableQuoting flag marking surrounding quotes should be added or not.
      * @return resulting string without any variable place holders.
      */
     public String replaceDynamicContentInString(final String str, boolean enableQuoting) {
-        String result;
-        result = VariableUtils.replaceVariablesInString(str, this, enableQuoting);
-        result = FunctionUtils.replaceFunctionsInString(result, this, enableQuoting);
+        List<FunctionLibrary> functionLibraries = functionRegistry.getFunctionLibraries();
         
-        return result;
+        if (!DynamicContentTemplate.isDynamic(str, functionLibraries)) {
+            return str;
+        }
+        
+        return templateCache.getTemplate(str, functionLibraries).render(this, enableQuoting);
     }
     
     /**
-     * Setter for test variables in this context.
+     * Setter for test variables in this context. Map is wrapped as synchronized map.
      * @param variables
      */
     public void setVariables(Map<String, Object> variables) {
-        this.variables = variables;
+        this.variables = Collections.synchronizedMap(variables);
+    }
+    
+    /**
+     * Creates snapshot copy of test variables in this context. Copy is created
+     * while holding the variables lock, so parallel actions may modify variables meanwhile.
+     * @return copy of test variables.
+     */
+    public Map<String, Object> copyVariables() {
+        synchronized (variables) {
+            return new LinkedHashMap<String, Object>(variables);
+        }
     }
 
     /**
@@ -298,6 +320,22 @@ public class TestContext {
         return messageValidatorRegistry;
     }
 
+    /**
+     * Set the compiled dynamic content template cache.
+     * @param templateCache the templateCache to set
+     */
+    public void setTemplateCache(DynamicContentTemplateCache templateCache) {
+        this.templateCache = templateCache;
+    }
+
+    /**
+     * Get the compiled dynamic content template cache.
+     * @return the templateCache
+     */
+    public DynamicContentTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+
     /**
      * Get the current validation matcher registry
      * @return
@@ -45,6 +45,9 @@ public class TestContextFactoryBean implements FactoryBean<TestContext> {
     @Autowired
     private MessageValidatorRegistry messageValidatorRegistry;
     
+    /** Compiled templates shared among all test contexts */
+    private DynamicContentTemplateCache templateCache = new DynamicContentTemplateCache();
+    
     /**
      * Logger
      */
@@ -59,6 +62,7 @@ public class TestContextFactoryBean implements FactoryBean<TestContext> {
         context.setValidationMatcherRegistry(validationMatcherRegistry);
         context.setGlobalVariables(globalVariables);
         context.setMessageValidatorRegistry(messageValidatorRegistry);
+        context.setTemplateCache(templateCache);
         
         if (log.isDebugEnabled()) {
             log.debug("TestContextFactory created test context '" + context
@@ -113,6 +117,20 @@ public class TestContextFactoryBean implements FactoryBean<TestContext> {
         return validationMatcherRegistry;
     }
 
+    /**
+     * @param templateCache the templateCache to set
+     */
+    public void setTemplateCache(DynamicContentTemplateCache templateCache) {
+        this.templateCache = templateCache;
+    }
+
+    /**
+     * @return the templateCache
+     */
+    public DynamicContentTemplateCache getTemplateCache() {
+        return templateCache;
+    }
+    
     /**
      * @param globalVariables the globalVariables to set
      */
@@ -0,0 +1,384 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.jms;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.jms.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.destination.DestinationResolver;
+
+/**
+ * Long-lived message consumers on a single shared connection. Each message selector gets its own
+ * session and consumer, which is reused for all subsequent receive calls with this selector, so the provider's
+ * consumer prefetch keeps messages close to the receiver. Receive timeout is given per call.
+ *
+ * Consumers prefetch messages from the queue, so an idle consumer holds back messages other consumers on the same
+ * queue can not see. Therefore receiving with a selector closes all idle consumers with other selectors first, which
+ * returns their prefetched messages to the queue. Only consumers in use by concurrent receive calls stay open
+ * side by side. The cache assumes the receiver is the only consumer of the queue in test scope.
+ *
+ * Topics are not supported, as idle topic consumers would buffer messages published between tests.
+ *
+ * Number of cached consumers is limited, least recently used consumers not in use are closed first.
+ *
+ * @author Christoph Deppisch
+ */
+public class JmsConsumerCache {
+    /** Default maximum number of cached consumers */
+    public static final int DEFAULT_MAX_CONSUMERS = 20;
+
+    /** Connection factory */
+    private final ConnectionFactory connectionFactory;
+
+    /** Maximum number of cached consumers */
+    private int maxConsumers = DEFAULT_MAX_CONSUMERS;
+
+    /** Shared connection, guarded by consumers lock */
+    private Connection connection;
+
+    /** Least recently used consumers by selector */
+    private final Map<String, CachedConsumer> consumers = new LinkedHashMap<String, CachedConsumer>(16, 0.75f, true);
+
+    /** Reuse statistics */
+    private final AtomicLong createdConnections = new AtomicLong();
+    private final AtomicLong createdSessions = new AtomicLong();
+    private final AtomicLong createdConsumers = new AtomicLong();
+    private final AtomicLong reusedConsumers = new AtomicLong();
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(JmsConsumerCache.class);
+
+    /**
+     * Default constructor.
+     * @param connectionFactory
+     */
+    public JmsConsumerCache(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Receives message with cached consumer for destination and selector.
+     * @param destination the destination object, may be null when destination name is given.
+     * @param destinationName the destination name resolved with destination resolver.
+     * @param destinationResolver the destination resolver.
+     * @param selector the message selector, may be null.
+     * @param timeout time to wait in milliseconds.
+     * @return the message or null on timeout.
+     * @throws JMSException
+     */
+    public javax.jms.Message receive(Destination destination, String destinationName, DestinationResolver destinationResolver,
+            String selector, long timeout) throws JMSException {
+        long deadline = System.currentTimeMillis() + timeout;
+        CachedConsumer consumer = getConsumer(destination, destinationName, destinationResolver, selector);
+
+        try {
+            if (!consumer.lock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        try {
+            if (consumer.closed) {
+                return receive(destination, destinationName, destinationResolver, selector,
+                        Math.max(deadline - System.currentTimeMillis(), 1L));
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            return remaining > 0 ? consumer.messageConsumer.receive(remaining) : consumer.messageConsumer.receiveNoWait();
+        } catch (JMSException e) {
+            close(selectorKey(selector), consumer);
+            throw e;
+        } finally {
+            consumer.lock.unlock();
+        }
+    }
+
+    /**
+     * Gets cached consumer or creates new session and consumer.
+     * @return
+     * @throws JMSException
+     */
+    private CachedConsumer getConsumer(Destination destination, String destinationName, DestinationResolver destinationResolver,
+            String selector) throws JMSException {
+        String key = selectorKey(selector);
+
+        synchronized (consumers) {
+            CachedConsumer consumer = consumers.get(key);
+
+            closeIdleConsumers(key);
+
+            if (consumer != null) {
+                reusedConsumers.incrementAndGet();
+                return consumer;
+            }
+
+            if (connection == null) {
+                Connection newConnection = connectionFactory.createConnection();
+                createdConnections.incrementAndGet();
+
+                try {
+                    newConnection.start();
+                } catch (JMSException e) {
+                    JmsUtils.closeConnection(newConnection);
+                    throw e;
+                }
+
+                connection = newConnection;
+            }
+
+            Session session;
+            try {
+                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            } catch (JMSException e) {
+                //shared connection is broken e.g. after broker failure, so next receive reconnects
+                resetConnection();
+                throw e;
+            }
+            createdSessions.incrementAndGet();
+
+            try {
+                Destination consumerDestination = destination;
+                if (consumerDestination == null) {
+                    consumerDestination = destinationResolver.resolveDestinationName(session, destinationName, false);
+                }
+
+                consumer = new CachedConsumer(session, session.createConsumer(consumerDestination, selector));
+                createdConsumers.incrementAndGet();
+            } catch (JMSException e) {
+                JmsUtils.closeSession(session);
+                throw e;
+            }
+
+            consumers.put(key, consumer);
+            evictIdleConsumers();
+
+            return consumer;
+        }
+    }
+
+    /**
+     * Discards all cached consumers and closes the shared connection after connection failure. Consumers in use
+     * are closed by their receive calls failing on the closed connection. Callers must hold the consumers lock.
+     */
+    private void resetConnection() {
+        log.warn("Failed to create session on shared JMS connection - closing connection and cached consumers");
+
+        Iterator<CachedConsumer> it = consumers.values().iterator();
+        while (it.hasNext()) {
+            CachedConsumer consumer = it.next();
+            it.remove();
+
+            if (consumer.lock.tryLock()) {
+                try {
+                    consumer.close();
+                } finally {
+                    consumer.lock.unlock();
+                }
+            }
+        }
+
+        JmsUtils.closeConnection(connection);
+        connection = null;
+    }
+
+    /**
+     * Closes all consumers not in use with a selector other than the given one, so their prefetched
+     * messages are returned to the queue. Callers must hold the consumers lock.
+     * @param key the selector key about to be used.
+     */
+    private void closeIdleConsumers(String key) {
+        Iterator<Entry<String, CachedConsumer>> it = consumers.entrySet().iterator();
+
+        while (it.hasNext()) {
+            Entry<String, CachedConsumer> entry = it.next();
+
+            if (!entry.getKey().equals(key) && entry.getValue().lock.tryLock()) {
+                try {
+                    it.remove();
+                    entry.getValue().close();
+                } finally {
+                    entry.getValue().lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes least recently used consumers not in use while maximum number of consumers is exceeded.
+     * Callers must hold the consumers lock.
+     */
+    private void evictIdleConsumers() {
+        Iterator<CachedConsumer> it = consumers.values().iterator();
+
+        while (consumers.size() > maxConsumers && it.hasNext()) {
+            CachedConsumer consumer = it.next();
+
+            if (consumer.lock.tryLock()) {
+                try {
+                    it.remove();
+                    consumer.close();
+                } finally {
+                    consumer.lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes and closes consumer after error.
+     * @param key
+     * @param consumer
+     */
+    private void close(String key, CachedConsumer consumer) {
+        synchronized (consumers) {
+            if (consumers.get(key) == consumer) {
+                consumers.remove(key);
+            }
+        }
+
+        consumer.close();
+    }
+
+    /**
+     * Closes all consumers, sessions and the shared connection.
+     */
+    public void close() {
+        synchronized (consumers) {
+            for (CachedConsumer consumer : consumers.values()) {
+                consumer.lock.lock();
+                try {
+                    consumer.close();
+                } finally {
+                    consumer.lock.unlock();
+                }
+            }
+
+            consumers.clear();
+
+            JmsUtils.closeConnection(connection, true);
+            connection = null;
+        }
+    }
+
+    /**
+     * Gets cache key for selector.
+     * @param selector
+     * @return
+     */
+    private String selectorKey(String selector) {
+        return selector != null ? selector : "";
+    }
+
+    /**
+     * Gets the number of created connections.
+     * @return
+     */
+    public long getCreatedConnections() {
+        return createdConnections.get();
+    }
+
+    /**
+     * Gets the number of created sessions.
+     * @return
+     */
+    public long getCreatedSessions() {
+        return createdSessions.get();
+    }
+
+    /**
+     * Gets the number of created consumers.
+     * @return
+     */
+    public long getCreatedConsumers() {
+        return createdConsumers.get();
+    }
+
+    /**
+     * Gets the number of receive calls reusing a cached consumer.
+     * @return
+     */
+    public long getReusedConsumers() {
+        return reusedConsumers.get();
+    }
+
+    /**
+     * Gets the number of currently cached consumers.
+     * @return
+     */
+    public int size() {
+        synchronized (consumers) {
+            return consumers.size();
+        }
+    }
+
+    /**
+     * Sets the maximum number of cached consumers.
+     * @param maxConsumers the maxConsumers to set
+     */
+    public void setMaxConsumers(int maxConsumers) {
+        this.maxConsumers = maxConsumers;
+    }
+
+    /**
+     * Cached session and consumer. Sessions are not thread safe, so consumer is used by one thread at a time.
+     */
+    private static final class CachedConsumer {
+        private final Session session;
+        private final MessageConsumer messageConsumer;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean closed = false;
+
+        /**
+         * Default constructor.
+         * @param session
+         * @param messageConsumer
+         */
+        private CachedConsumer(Session session, MessageConsumer messageConsumer) {
+            this.session = session;
+            this.messageConsumer = messageConsumer;
+        }
+
+        /**
+         * Closes consumer and session.
+         */
+        private void close() {
+            if (!closed) {
+                closed = true;
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Closing cached JMS consumer");
+                }
+
+                JmsUtils.closeMessageConsumer(messageConsumer);
+                JmsUtils.closeSession(session);
+            }
+        }
+    }
+}
@@ -16,24 +16,43 @@
 
 package com.consol.citrus.jms;
 
+import javax.jms.JMSException;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.message.GenericMessage;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
 
 import com.consol.citrus.exceptions.ActionTimeoutException;
+import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.MessageReceiver;
 
 /**
  * {@link MessageReceiver} implementation consumes messages from aJMS destination. Destination
  * is given by injected instance or destination name.
+ * 
+ * By default messages are received with the JMS template. With cached consumers enabled the receiver keeps
+ * a long-lived consumer on a shared connection and passes the receive timeout per call, see {@link JmsConsumerCache}.
+ * Cached consumers are supported on queues only.
  *  
  * @author Christoph Deppisch
  */
-public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageReceiver {
+public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageReceiver, DisposableBean {
     /** Receive timeout */
     private long receiveTimeout = 5000L;
     
+    /** Use long-lived cached consumers */
+    private boolean cacheConsumers = false;
+    
+    /** Maximum number of cached consumers */
+    private int maxCachedConsumers = JmsConsumerCache.DEFAULT_MAX_CONSUMERS;
+    
+    /** Cached consumers, created on first receive */
+    private JmsConsumerCache consumerCache;
+    
     /**
      * Logger
      */
@@ -46,8 +65,13 @@ public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageRec
     public Message<?> receive(long timeout) {
         log.info("Waiting for JMS message on destination: '" + getDefaultDestinationName() + "'");
         
-        getJmsTemplate().setReceiveTimeout(timeout);
-        Object receivedObject = getJmsTemplate().receiveAndConvert();
+        Object receivedObject;
+        if (cacheConsumers) {
+            receivedObject = receiveWithCachedConsumer(null, timeout);
+        } else {
+            getJmsTemplate().setReceiveTimeout(timeout);
+            receivedObject = getJmsTemplate().receiveAndConvert();
+        }
         
         if (receivedObject == null) {
             throw new ActionTimeoutException("Action timed out while receiving JMS message on '" + getDefaultDestinationName() + "'");
@@ -76,8 +100,13 @@ public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageRec
     public Message<?> receiveSelected(String selector, long timeout) {
         log.info("Waiting for JMS message on destination: '" + getDefaultDestinationName() + "(" + selector + ")'");
         
-        getJmsTemplate().setReceiveTimeout(timeout);
-        Object receivedObject = getJmsTemplate().receiveSelectedAndConvert(selector);
+        Object receivedObject;
+        if (cacheConsumers) {
+            receivedObject = receiveWithCachedConsumer(selector, timeout);
+        } else {
+            getJmsTemplate().setReceiveTimeout(timeout);
+            receivedObject = getJmsTemplate().receiveSelectedAndConvert(selector);
+        }
         
         if (receivedObject == null) {
             throw new ActionTimeoutException("Action timed out while receiving JMS message on '" + getDefaultDestinationName()  + "(" + selector + ")'");
@@ -99,6 +128,59 @@ public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageRec
         return receivedMessage;
     }
 
+    /**
+     * Receives message with cached consumer and converts it with the template's message converter.
+     * @param selector the message selector, may be null.
+     * @param timeout the receive timeout.
+     * @return the converted message or null on timeout.
+     */
+    private Object receiveWithCachedConsumer(String selector, long timeout) {
+        JmsTemplate jmsTemplate = getJmsTemplate();
+        
+        try {
+            javax.jms.Message jmsMessage = getConsumerCache().receive(jmsTemplate.getDefaultDestination(), 
+                    jmsTemplate.getDefaultDestinationName(), jmsTemplate.getDestinationResolver(), selector, timeout);
+            
+            return jmsMessage != null ? jmsTemplate.getMessageConverter().fromMessage(jmsMessage) : null;
+        } catch (JMSException e) {
+            throw JmsUtils.convertJmsAccessException(e);
+        }
+    }
+    
+    /**
+     * Gets the consumer cache, creates the cache on first access.
+     * @return
+     */
+    private synchronized JmsConsumerCache getConsumerCache() {
+        if (consumerCache == null) {
+            if (getJmsTemplate().isPubSubDomain()) {
+                throw new CitrusRuntimeException("Cached consumers are not supported on topics - " +
+                		"disable cache-consumers on receiver for '" + getDefaultDestinationName() + "'");
+            }
+            
+            consumerCache = new JmsConsumerCache(getJmsTemplate().getConnectionFactory());
+            consumerCache.setMaxConsumers(maxCachedConsumers);
+        }
+        
+        return consumerCache;
+    }
+    
+    /**
+     * Closes cached consumers and connection.
+     */
+    public void destroy() throws Exception {
+        synchronized (this) {
+            if (consumerCache != null) {
+                log.info("Closing cached JMS consumers - created connections: " + consumerCache.getCreatedConnections() + 
+                        ", sessions: " + consumerCache.getCreatedSessions() + ", consumers: " + consumerCache.getCreatedConsumers() + 
+                        ", reused consumers: " + consumerCache.getReusedConsumers());
+                
+                consumerCache.close();
+                consumerCache = null;
+            }
+        }
+    }
+
     /**
      * @see com.consol.citrus.message.MessageReceiver#receive()
      */
@@ -128,4 +210,36 @@ public class JmsMessageReceiver extends AbstractJmsAdapter implements MessageRec
     public long getReceiveTimeout() {
         return receiveTimeout;
     }
+
+    /**
+     * Enables long-lived cached consumers instead of JMS template receive calls.
+     * @param cacheConsumers the cacheConsumers to set
+     */
+    public void setCacheConsumers(boolean cacheConsumers) {
+        this.cacheConsumers = cacheConsumers;
+    }
+
+    /**
+     * Are cached consumers enabled.
+     * @return the cacheConsumers
+     */
+    public boolean isCacheConsumers() {
+        return cacheConsumers;
+    }
+
+    /**
+     * Sets the maximum number of cached consumers.
+     * @param maxCachedConsumers the maxCachedConsumers to set
+     */
+    public void setMaxCachedConsumers(int maxCachedConsumers) {
+        this.maxCachedConsumers = maxCachedConsumers;
+    }
+
+    /**
+     * Gets the consumer cache with reuse statistics, null if cached consumers are not in use.
+     * @return the consumerCache
+     */
+    public synchronized JmsConsumerCache getCachedConsumers() {
+        return consumerCache;
+    }
 }
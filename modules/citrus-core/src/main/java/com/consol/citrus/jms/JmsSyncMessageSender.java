@@ -16,6 +16,10 @@
 
 package com.consol.citrus.jms;
 
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.jms.*;
 
 import org.slf4j.Logger;
@@ -41,7 +45,12 @@ import com.consol.citrus.message.*;
  * sets the reply destination in the request message. Sender consumes the reply destination right away and
  * invokes a reply message handler implementation with this reply message.
  * 
- * Class can either define a static reply destination or a temporary reply destination.
+ * Class can either define a static reply destination or a temporary reply destination. Sessions and message
+ * producers are pooled, so the sender can safely be used by parallel test actions. Each pooled session owns a
+ * temporary reply destination with consumer that is reused by all requests sent with this session. As a session
+ * serves one request at a time any reply on its temporary destination belongs to the current request, so reply
+ * partners do not need to set a JMSCorrelationID. Sessions of timed out requests are closed, so late replies
+ * never reach another request.
  * 
  * @author Christoph Deppisch
  */
@@ -52,8 +61,18 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
     /** JMS connection */
     private Connection connection = null;
     
-    /** JMS session */
-    private Session session = null;
+    /** Idle pooled sessions */
+    private final BlockingQueue<PooledSession> idleSessions = new LinkedBlockingQueue<PooledSession>();
+    
+    /** Maximum number of idle sessions kept in pool */
+    private int maxIdleSessions = 10;
+    
+    /** Number of requests waiting for reply on temporary reply destination */
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    
+    /** Session pool statistics */
+    private final AtomicInteger createdSessions = new AtomicInteger();
+    private final AtomicInteger activeSessions = new AtomicInteger();
     
     /** Destination instance */
     private Destination destination;
@@ -108,29 +127,54 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
             log.debug("Message to send is:\n" + message.toString());
         }
 
-        MessageProducer messageProducer = null;
+        PooledSession pooledSession = null;
         MessageConsumer messageConsumer = null;
-        Destination replyToDestination = null;
+        boolean sessionValid = false;
         
         try {
             createConnection();
-            createSession(connection);
+            pooledSession = borrowSession();
+            Session session = pooledSession.session;
             
             JmsMessageConverter jmsMessageConverter = new JmsMessageConverter(messageConverter, headerMapper);
             javax.jms.Message jmsRequest = jmsMessageConverter.toMessage(message, session);
             
-            messageProducer = session.createProducer(getDefaultDestination(session));
+            MessageProducer messageProducer = pooledSession.getProducer();
             
-            replyToDestination = getReplyDestination(session, message);
-            jmsRequest.setJMSReplyTo(replyToDestination);
+            Destination replyToDestination = getReplyDestination(session, message);
+            javax.jms.Message jmsReplyMessage;
             
-            messageConsumer = createMessageConsumer(replyToDestination, jmsRequest.getJMSMessageID());
-            
-            messageProducer.send(jmsRequest);
-            
-            log.info("Message was successfully sent to destination: '" + defaultDestinationName + "'");
+            if (replyToDestination != null) {
+                jmsRequest.setJMSReplyTo(replyToDestination);
+                messageConsumer = createMessageConsumer(session, replyToDestination, jmsRequest.getJMSMessageID());
+                
+                messageProducer.send(jmsRequest);
+                
+                log.info("Message was successfully sent to destination: '" + defaultDestinationName + "'");
+                
+                jmsReplyMessage = (replyTimeout >= 0) ? messageConsumer.receive(replyTimeout) : messageConsumer.receive();
+            } else {
+                replyToDestination = pooledSession.getTemporaryReplyDestination();
+                jmsRequest.setJMSReplyTo(replyToDestination);
+                
+                inFlightRequests.incrementAndGet();
+                try {
+                    messageProducer.send(jmsRequest);
+                    
+                    log.info("Message was successfully sent to destination: '" + defaultDestinationName + "'");
+                    
+                    jmsReplyMessage = pooledSession.receiveReply(replyTimeout);
+                } finally {
+                    inFlightRequests.decrementAndGet();
+                }
+                
+                if (jmsReplyMessage == null) {
+                    //close session on timeout, so late reply is not received by next request
+                    pooledSession.replyTimedOut = true;
+                }
+            }
             
-            javax.jms.Message jmsReplyMessage = (replyTimeout >= 0) ? messageConsumer.receive(replyTimeout) : messageConsumer.receive();
+            sessionValid = !pooledSession.replyTimedOut;
             
             log.info("Received reply message from destination: '" + replyToDestination + "'");
             
@@ -138,9 +182,48 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
         } catch (JMSException e) {
             throw new CitrusRuntimeException(e);
         } finally {
-            JmsUtils.closeMessageProducer(messageProducer);
             JmsUtils.closeMessageConsumer(messageConsumer);
-            deleteTemporaryDestination(replyToDestination);
+            
+            if (pooledSession != null) {
+                returnSession(pooledSession, sessionValid);
+            }
+        }
+    }
+    
+    /**
+     * Gets idle session from pool or creates a new session.
+     * @return the pooled session.
+     * @throws JMSException
+     */
+    private PooledSession borrowSession() throws JMSException {
+        PooledSession pooledSession = idleSessions.poll();
+        
+        if (pooledSession == null) {
+            pooledSession = new PooledSession(createSession(connection));
+            createdSessions.incrementAndGet();
+        }
+        
+        activeSessions.incrementAndGet();
+        
+        if (log.isDebugEnabled()) {
+            log.debug("JMS session pool: " + activeSessions.get() + " active, " + idleSessions.size() + 
+                    " idle, " + createdSessions.get() + " created, " + getInFlightRequests() + " requests in flight");
+        }
+        
+        return pooledSession;
+    }
+    
+    /**
+     * Puts session back to pool. Sessions that caused errors or exceed the
+     * maximum number of idle sessions get closed.
+     * @param pooledSession the session.
+     * @param valid whether the session is still usable.
+     */
+    private void returnSession(PooledSession pooledSession, boolean valid) {
+        activeSessions.decrementAndGet();
+        
+        if (!valid || idleSessions.size() >= maxIdleSessions || !idleSessions.offer(pooledSession)) {
+            pooledSession.close();
         }
     }
     
@@ -166,12 +249,13 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
      * Creates a message consumer on temporary/durable queue or topic. Durable queue/topic destinations
      * require a message selector to be set.
      * 
+     * @param session the session.
      * @param replyToDestination the reply destination.
      * @param messageId the messageId used for optional message selector.
      * @return
      * @throws JMSException 
      */
-    private MessageConsumer createMessageConsumer(Destination replyToDestination, String messageId) throws JMSException {
+    private MessageConsumer createMessageConsumer(Session session, Destination replyToDestination, String messageId) throws JMSException {
         MessageConsumer messageConsumer;
 
         if (replyToDestination instanceof TemporaryQueue || replyToDestination instanceof TemporaryTopic) {
@@ -188,28 +272,12 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
     }
 
     /**
-     * Delete temporary destinations.
-     * @param destination
-     */
-    private void deleteTemporaryDestination(Destination destination) {
-        try {
-            if (destination instanceof TemporaryQueue) { 
-                ((TemporaryQueue) destination).delete();
-            } else if (destination instanceof TemporaryTopic) {
-                ((TemporaryTopic) destination).delete();
-            }
-        } catch (JMSException e) {
-            log.error("Error while deleting temporary destination", e);
-        }
-    }
-
-    /**
-     * Retrieve the reply destination either by injected instance, destination name or
-     * by creating a new temporary destination.
+     * Retrieve the reply destination either by injected instance or destination name. Returns
+     * null in case shared temporary reply destination should be used.
      * 
      * @param session current JMS session
      * @param message holding possible reply destination in header.
-     * @return the reply destination.
+     * @return the reply destination or null.
      * @throws JMSException
      */
     private Destination getReplyDestination(Session session, Message<?> message) throws JMSException {
@@ -225,11 +293,7 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
             return resolveDestinationName(this.replyDestinationName, session);
         }
         
-        if (pubSubDomain && session instanceof TopicSession){
-            return session.createTemporaryTopic();
-        } else {
-            return session.createTemporaryQueue();
-        }
+        return null;
     }
 
     /**
@@ -285,7 +349,7 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
      * @return connection
      * @throws JMSException
      */
-    protected void createConnection() throws JMSException {
+    protected synchronized void createConnection() throws JMSException {
         if (connection == null) {
             if (!pubSubDomain && connectionFactory instanceof QueueConnectionFactory) {
                 connection = ((QueueConnectionFactory) connectionFactory).createQueueConnection();
@@ -309,26 +373,27 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
      * @return session.
      * @throws JMSException
      */
-    protected void createSession(Connection connection) throws JMSException {
-        if (session == null) {
-            if (!pubSubDomain && connection instanceof QueueConnection) {
-                session = ((QueueConnection) connection).createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
-            } else if (pubSubDomain && connectionFactory instanceof TopicConnectionFactory) {
-                session = ((TopicConnection) connection).createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
-            } else {
-                log.warn("Not able to create a session with connection factory '" + connectionFactory + "'" +
-                        " when using setting 'publish-subscribe-domain' (=" + pubSubDomain + ")");
-                
-                session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
-            }
+    protected Session createSession(Connection connection) throws JMSException {
+        if (!pubSubDomain && connection instanceof QueueConnection) {
+            return ((QueueConnection) connection).createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+        } else if (pubSubDomain && connectionFactory instanceof TopicConnectionFactory) {
+            return ((TopicConnection) connection).createTopicSession(false, Session.AUTO_ACKNOWLEDGE);
+        } else {
+            log.warn("Not able to create a session with connection factory '" + connectionFactory + "'" +
+                    " when using setting 'publish-subscribe-domain' (=" + pubSubDomain + ")");
+            
+            return connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
         }
     }
     
     /**
-     * Destroy method closing JMS session and connection
+     * Destroy method closing pooled JMS sessions and connection
      */
     public void destroy() throws Exception {
-        JmsUtils.closeSession(session);
+        PooledSession pooledSession;
+        while ((pooledSession = idleSessions.poll()) != null) {
+            pooledSession.close();
+        }
         
         if (connection != null) {
             ConnectionFactoryUtils.releaseConnection(connection, this.connectionFactory, true);
@@ -485,4 +550,141 @@ public class JmsSyncMessageSender implements MessageSender, BeanNameAware, Dispo
     public ReplyMessageCorrelator getCorrelator() {
         return correlator;
     }
+
+    /**
+     * Sets the maximum number of idle sessions kept in pool.
+     * @param maxIdleSessions the maxIdleSessions to set
+     */
+    public void setMaxIdleSessions(int maxIdleSessions) {
+        this.maxIdleSessions = maxIdleSessions;
+    }
+
+    /**
+     * Gets the maximum number of idle sessions kept in pool.
+     * @return the maxIdleSessions
+     */
+    public int getMaxIdleSessions() {
+        return maxIdleSessions;
+    }
+    
+    /**
+     * Gets the number of sessions created so far.
+     * @return the createdSessions
+     */
+    public int getCreatedSessions() {
+        return createdSessions.get();
+    }
+    
+    /**
+     * Gets the number of sessions currently in use.
+     * @return the activeSessions
+     */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+    
+    /**
+     * Gets the number of idle sessions in pool.
+     * @return
+     */
+    public int getIdleSessions() {
+        return idleSessions.size();
+    }
+    
+    /**
+     * Gets the number of requests waiting for a reply on temporary reply destinations.
+     * @return
+     */
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+    
+    /**
+     * Pooled session holding the message producer for the default destination and
+     * the temporary reply destination with its consumer.
+     */
+    private final class PooledSession {
+        /** The JMS session */
+        private final Session session;
+        
+        /** Cached producer */
+        private MessageProducer producer;
+        
+        /** Temporary reply destination and consumer, created on first access */
+        private Destination temporaryReplyDestination;
+        private MessageConsumer replyConsumer;
+        
+        /** Last request did not receive a reply in time */
+        private boolean replyTimedOut = false;
+        
+        /**
+         * Default constructor using session.
+         * @param session
+         */
+        private PooledSession(Session session) {
+            this.session = session;
+        }
+        
+        /**
+         * Gets the message producer for the default destination, creates producer on first access.
+         * @return
+         * @throws JMSException
+         */
+        private MessageProducer getProducer() throws JMSException {
+            if (producer == null) {
+                producer = session.createProducer(getDefaultDestination(session));
+            }
+            
+            return producer;
+        }
+        
+        /**
+         * Gets the temporary reply destination, creates destination and reply consumer on first access.
+         * @return
+         * @throws JMSException
+         */
+        private Destination getTemporaryReplyDestination() throws JMSException {
+            if (temporaryReplyDestination == null) {
+                if (pubSubDomain && session instanceof TopicSession) {
+                    temporaryReplyDestination = session.createTemporaryTopic();
+                } else {
+                    temporaryReplyDestination = session.createTemporaryQueue();
+                }
+                
+                replyConsumer = session.createConsumer(temporaryReplyDestination);
+            }
+            
+            return temporaryReplyDestination;
+        }
+        
+        /**
+         * Receives reply on temporary reply destination.
+         * @param timeout time to wait, negative value waits forever.
+         * @return the reply or null on timeout.
+         * @throws JMSException
+         */
+        private javax.jms.Message receiveReply(long timeout) throws JMSException {
+            return (timeout >= 0) ? replyConsumer.receive(timeout) : replyConsumer.receive();
+        }
+        
+        /**
+         * Closes reply consumer, temporary reply destination, producer and session.
+         */
+        private void close() {
+            JmsUtils.closeMessageConsumer(replyConsumer);
+            
+            try {
+                if (temporaryReplyDestination instanceof TemporaryQueue) {
+                    ((TemporaryQueue) temporaryReplyDestination).delete();
+                } else if (temporaryReplyDestination instanceof TemporaryTopic) {
+                    ((TemporaryTopic) temporaryReplyDestination).delete();
+                }
+            } catch (JMSException e) {
+                log.error("Error while deleting temporary destination", e);
+            }
+            
+            JmsUtils.closeMessageProducer(producer);
+            JmsUtils.closeSession(session);
+        }
+    }
 }
@@ -23,6 +23,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit38.AbstractJUnit38SpringContextTests;
 
+import com.consol.citrus.TestCaseDefinitionCache;
 import com.consol.citrus.container.SequenceBeforeTest;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.context.TestContextFactoryBean;
@@ -56,6 +57,9 @@ public abstract class AbstractJUnit38CitrusTest extends AbstractJUnit38SpringCon
     @Autowired(required = false)
     private SequenceBeforeTest beforeTest;
     
+    @Autowired(required = false)
+    private TestCaseDefinitionCache testCaseDefinitionCache = new TestCaseDefinitionCache();
+    
     /** Delegate test execution to this executor */
     private JUnitTestExecutor testExecutor;
     
@@ -63,7 +67,7 @@ public abstract class AbstractJUnit38CitrusTest extends AbstractJUnit38SpringCon
      * Run tasks before each test case.
      */
     protected void setUp() {
-        testExecutor  = new JUnitTestExecutor(applicationContext, testListener);
+        testExecutor  = new JUnitTestExecutor(applicationContext, testListener, testCaseDefinitionCache, getClass());
         testExecutor.beforeTest(beforeTest, createTestContext());
     }
     
@@ -24,6 +24,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.TestExecutionListeners;
 import org.springframework.test.context.junit4.AbstractJUnit4SpringContextTests;
 
+import com.consol.citrus.TestCaseDefinitionCache;
 import com.consol.citrus.container.SequenceBeforeTest;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.context.TestContextFactoryBean;
@@ -57,6 +58,9 @@ public abstract class AbstractJUnit4CitrusTest extends AbstractJUnit4SpringConte
     @Autowired(required = false)
     private SequenceBeforeTest beforeTest;
     
+    @Autowired(required = false)
+    private TestCaseDefinitionCache testCaseDefinitionCache = new TestCaseDefinitionCache();
+    
     /** Delegate test execution to this executor */
     private JUnitTestExecutor testExecutor;
     
@@ -65,7 +69,7 @@ public abstract class AbstractJUnit4CitrusTest extends AbstractJUnit4SpringConte
      */
     @Before
     public void beforeTest() {
-        testExecutor  = new JUnitTestExecutor(applicationContext, testListener);
+        testExecutor  = new JUnitTestExecutor(applicationContext, testListener, testCaseDefinitionCache, getClass());
         testExecutor.beforeTest(beforeTest, createTestContext());
     }
     
@@ -16,11 +16,17 @@
 
 package com.consol.citrus.junit;
 
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import com.consol.citrus.ResourceGroupLocks;
 import com.consol.citrus.TestCase;
+import com.consol.citrus.TestCaseDefinitionCache;
 import com.consol.citrus.TestCaseMetaInfo.Status;
 import com.consol.citrus.container.SequenceBeforeTest;
 import com.consol.citrus.context.TestContext;
@@ -38,13 +44,32 @@ public class JUnitTestExecutor {
     
     /** Test listeners */
     private TestListeners testListeners;
+    
+    /** Cached test definitions */
+    private TestCaseDefinitionCache testCaseDefinitionCache;
+    
+    /** The test class to execute */
+    private Class<?> testClass;
 
     /**
      * Default constructor using fields.
      */
-    public JUnitTestExecutor(ApplicationContext applicationContext, TestListeners testListeners) {
+    public JUnitTestExecutor(ApplicationContext applicationContext, TestListeners testListeners,
+            TestCaseDefinitionCache testCaseDefinitionCache, Class<?> testClass) {
         this.applicationContext = applicationContext;
         this.testListeners = testListeners;
+        this.testCaseDefinitionCache = testCaseDefinitionCache;
+        this.testClass = testClass;
+    }
+    
+    /**
+     * Constructor executing the test named after this executor class.
+     * @deprecated use {@link #JUnitTestExecutor(ApplicationContext, TestListeners, TestCaseDefinitionCache, Class)} instead.
+     */
+    @Deprecated
+    public JUnitTestExecutor(ApplicationContext applicationContext, TestListeners testListeners) {
+        this(applicationContext, testListeners, new TestCaseDefinitionCache(), null);
+        this.testClass = getClass();
     }
     
     /**
@@ -65,55 +90,91 @@ public class JUnitTestExecutor {
      * @param testListener
      */
     public void executeTest(TestContext context) {
-        TestCase testCase = getTestCase();
+        ConfigurableApplicationContext ctx = createTestApplicationContext();
         
-        if (!testCase.getMetaInfo().getStatus().equals(Status.DISABLED)) {
-            testListeners.onTestStart(testCase);
+        try {
+            TestCase testCase = getTestCase(ctx);
             
-            try {
-                testCase.execute(context);
-                testListeners.onTestSuccess(testCase);
-            } catch (Exception e) {
-                testListeners.onTestFailure(testCase, e);
+            if (!testCase.getMetaInfo().getStatus().equals(Status.DISABLED)) {
+                List<Lock> locks = ResourceGroupLocks.acquire(testCase);
+                
+                try {
+                    testListeners.onTestStart(testCase);
                 
-                throw new TestCaseFailedException(e);
-            } finally {
-                testListeners.onTestFinish(testCase);
-                testCase.finish();
+                    try {
+                        testCase.execute(context);
+                        testListeners.onTestSuccess(testCase);
+                    } catch (Exception e) {
+                        testListeners.onTestFailure(testCase, e);
+                    
+                        throw new TestCaseFailedException(e);
+                    } finally {
+                        testListeners.onTestFinish(testCase);
+                        testCase.finish();
+                    }
+                } finally {
+                    ResourceGroupLocks.release(locks);
+                }
+            } else {
+                testListeners.onTestSkipped(testCase);
             }
-        } else {
-            testListeners.onTestSkipped(testCase);
+        } finally {
+            ctx.close();
         }
     }
     
     /**
-     * Gets the test case from application context.
+     * Gets the test case from given test application context.
+     * @param ctx the test application context.
      * @return the new test case.
      */
-    protected TestCase getTestCase() {
-        ClassPathXmlApplicationContext ctx = createApplicationContext();
+    protected TestCase getTestCase(ConfigurableApplicationContext ctx) {
         TestCase testCase = null;
         try {
-            testCase = (TestCase) ctx.getBean(this.getClass().getSimpleName(), TestCase.class);
-            testCase.setPackageName(this.getClass().getPackage().getName());
+            testCase = (TestCase) ctx.getBean(testClass.getSimpleName(), TestCase.class);
+            testCase.setPackageName(testClass.getPackage().getName());
         } catch (NoSuchBeanDefinitionException e) {
-            throw handleError("Could not find test with name '" + this.getClass().getSimpleName() + "'", e);
+            throw handleError("Could not find test with name '" + testClass.getSimpleName() + "'", e);
         }
         return testCase;
     }
     
+    /**
+     * Gets the test case from a new test application context.
+     * @return the new test case.
+     * @deprecated test application context is never closed, use {@link #getTestCase(ConfigurableApplicationContext)} 
+     * with {@link #createTestApplicationContext()} instead.
+     */
+    @Deprecated
+    protected TestCase getTestCase() {
+        return getTestCase(createTestApplicationContext());
+    }
     
+    /**
+     * Creates the Spring application context holding the test case. Test definitions
+     * are parsed once and cached for subsequent test executions.
+     * @return
+     */
+    protected ConfigurableApplicationContext createTestApplicationContext() {
+        try {
+            return testCaseDefinitionCache.createApplicationContext(testClass, applicationContext);
+        } catch (Exception e) {
+            throw handleError("Failed to load test case", e);
+        }
+    }
     
     /**
-     * Creates the Spring application context.
+     * Creates the Spring application context parsing the test XML file.
      * @return
+     * @deprecated test definitions are parsed on each call, use {@link #createTestApplicationContext()} instead.
      */
+    @Deprecated
     protected ClassPathXmlApplicationContext createApplicationContext() {
         try {
             return new ClassPathXmlApplicationContext(
                     new String[] {
-                            this.getClass().getPackage().getName().replace('.', '/')
-                                    + "/" + getClass().getSimpleName() + ".xml",
+                            testClass.getPackage().getName().replace('.', '/')
+                                    + "/" + testClass.getSimpleName() + ".xml",
                                     "com/consol/citrus/spring/internal-helper-ctx.xml"},
                     true, applicationContext);
         } catch (Exception e) {
@@ -132,8 +193,8 @@ public class JUnitTestExecutor {
     private CitrusRuntimeException handleError(String message, Exception cause) {
         // Create empty backup test case for logging
         TestCase backupTest = new TestCase();
-        backupTest.setName(getClass().getSimpleName());
-        backupTest.setPackageName(getClass().getPackage().getName());
+        backupTest.setName(testClass.getSimpleName());
+        backupTest.setPackageName(testClass.getPackage().getName());
         
         CitrusRuntimeException exception = new CitrusRuntimeException(message, cause);
         
@@ -16,11 +16,6 @@
 
 package com.consol.citrus.message;
 
-import java.util.HashMap;
-import java.util.Map;
-
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.integration.Message;
 
 /**
@@ -31,20 +26,15 @@ import org.springframework.integration.Message;
  *  has arrived. Once invoked with a reply message the class saves the reply message to a local storage.
  *  When invoked by a receiving action inside a test the store reply message is returned.
  *  
+ *  Receiving actions waiting for a reply are woken up as soon as the reply message arrives. Reply
+ *  messages nobody asks for are discarded after a time to live.
+ *  
  * @author Christoph Deppisch
  */
 public abstract class AbstractReplyMessageReceiver implements MessageReceiver, ReplyMessageHandler {
 
     /** Store of reply messages */
-    private Map<String, Message<?>> replyMessages = new HashMap<String, Message<?>>();
-    
-    /** Maximum number of retries when waiting for synchronous reply message to arrive */
-    private int maxRetries = 5;
-    
-    /**
-     * Logger
-     */
-    private final Logger log = LoggerFactory.getLogger(this.getClass());
+    private CorrelationStore<Message<?>> replyMessages = new CorrelationStore<Message<?>>();
     
     /**
      * @see com.consol.citrus.message.MessageReceiver#receive()
@@ -71,29 +61,7 @@ public abstract class AbstractReplyMessageReceiver implements MessageReceiver, R
      * @see com.consol.citrus.message.MessageReceiver#receiveSelected(java.lang.String, long)
      */
     public Message<?> receiveSelected(String selector, long timeout) {
-        Message<?> message = null;
-        
-        long timeoutInterval = timeout / maxRetries;
-        int retryIndex = 1;
-        while ((message = receiveSelected(selector)) == null) {
-            if (retryIndex == maxRetries) {
-                break;
-            }
-            
-            if (log.isDebugEnabled()) {
-                log.debug("Reply message did not arrive yet - waiting " + timeoutInterval + " ms before next try");
-            }
-            
-            try {
-                Thread.sleep(timeoutInterval);
-            } catch (InterruptedException e) {
-                log.warn("Thread interrupted while waiting for synchronous reply", e);
-            }
-            
-            retryIndex++;
-        }
-        
-        return message;
+        return replyMessages.poll(selector, timeout);
     }
 
     /**
@@ -117,14 +85,23 @@ public abstract class AbstractReplyMessageReceiver implements MessageReceiver, R
      * @return the reply message.
      */
     public Message<?> getReplyMessage(String correlationKey) {
-        return replyMessages.remove(correlationKey);
+        return replyMessages.poll(correlationKey);
     }
 
     /**
      * Sets the maximum number of retries while asking for the response message.
      * @param maxRetries the maxRetries to set
+     * @deprecated receivers are notified as soon as reply message arrives, retries are not used anymore.
      */
+    @Deprecated
     public void setMaxRetries(int maxRetries) {
-        this.maxRetries = maxRetries;
+    }
+    
+    /**
+     * Sets the time to live for reply messages nobody asks for.
+     * @param replyTimeToLive the time to live in milliseconds.
+     */
+    public void setReplyTimeToLive(long replyTimeToLive) {
+        replyMessages.setTimeToLive(replyTimeToLive);
     }
 }
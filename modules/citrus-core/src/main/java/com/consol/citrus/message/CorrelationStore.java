@@ -0,0 +1,244 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.message;
+
+import java.util.Map.Entry;
+import java.util.concurrent.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Thread safe store for objects correlated by a key. Consumers may block on a key until some
+ * producer stores an object for this key and are woken up immediately.
+ *
+ * Stored objects nobody asks for are discarded after a time to live. Expired entries are swept
+ * on store operations, so no additional thread is needed.
+ *
+ * @author Christoph Deppisch
+ */
+public class CorrelationStore<T> {
+    /** Default time to live for stored objects in milliseconds */
+    public static final long DEFAULT_TIME_TO_LIVE = 300000L;
+
+    /** Slots by correlation key */
+    private final ConcurrentMap<String, Slot<T>> slots = new ConcurrentHashMap<String, Slot<T>>();
+
+    /** Time to live for stored objects */
+    private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+    /** Time of last sweep */
+    private volatile long lastSweep = System.currentTimeMillis();
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(CorrelationStore.class);
+
+    /**
+     * Stores object with correlation key and wakes up consumers waiting for this key.
+     * An object already stored with the same key is replaced.
+     * @param correlationKey
+     * @param object
+     */
+    public void put(String correlationKey, T object) {
+        sweepExpired();
+
+        while (true) {
+            Slot<T> slot = getSlot(correlationKey);
+
+            synchronized (slot) {
+                if (!slot.removed) {
+                    slot.object = object;
+                    slot.timestamp = System.currentTimeMillis();
+                    slot.latch.countDown();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes and returns object stored with correlation key. Does not block.
+     * @param correlationKey
+     * @return the object or null if not present.
+     */
+    public T poll(String correlationKey) {
+        Slot<T> slot = slots.get(correlationKey);
+
+        if (slot == null) {
+            return null;
+        }
+
+        synchronized (slot) {
+            return slot.removed ? null : take(correlationKey, slot);
+        }
+    }
+
+    /**
+     * Removes and returns object stored with correlation key. Waits for the object
+     * to arrive in case it is not present yet.
+     * @param correlationKey
+     * @param timeout time to wait in milliseconds.
+     * @return the object or null if not present after timeout.
+     */
+    public T poll(String correlationKey, long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+
+        while (true) {
+            Slot<T> slot = getSlot(correlationKey);
+
+            synchronized (slot) {
+                if (slot.removed) {
+                    continue;
+                }
+
+                slot.waiters++;
+            }
+
+            try {
+                slot.latch.await(Math.max(deadline - System.currentTimeMillis(), 0L), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Thread interrupted while waiting for correlated object", e);
+            }
+
+            synchronized (slot) {
+                slot.waiters--;
+
+                if (!slot.removed) {
+                    T object = take(correlationKey, slot);
+
+                    if (object != null || slot.waiters == 0 || System.currentTimeMillis() >= deadline) {
+                        return object;
+                    }
+                }
+            }
+
+            if (System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Takes object from slot and removes slot unless other consumers still wait on it.
+     * Callers must hold the slot lock.
+     * @param correlationKey
+     * @param slot
+     * @return the object or null.
+     */
+    private T take(String correlationKey, Slot<T> slot) {
+        T object = slot.object;
+
+        if (object != null || slot.waiters == 0) {
+            slot.removed = true;
+            slots.remove(correlationKey, slot);
+        }
+
+        return object;
+    }
+
+    /**
+     * Gets existing slot for correlation key or creates a new one.
+     * @param correlationKey
+     * @return
+     */
+    private Slot<T> getSlot(String correlationKey) {
+        Slot<T> slot = slots.get(correlationKey);
+
+        if (slot == null) {
+            slot = new Slot<T>();
+            Slot<T> existing = slots.putIfAbsent(correlationKey, slot);
+            if (existing != null) {
+                slot = existing;
+            }
+        }
+
+        return slot;
+    }
+
+    /**
+     * Removes stored objects older than time to live. Runs at most once per half time to live period.
+     */
+    private void sweepExpired() {
+        long now = System.currentTimeMillis();
+
+        if (now - lastSweep < timeToLive / 2) {
+            return;
+        }
+
+        lastSweep = now;
+
+        for (Entry<String, Slot<T>> entry : slots.entrySet()) {
+            Slot<T> slot = entry.getValue();
+
+            synchronized (slot) {
+                if (!slot.removed && slot.object != null && slot.waiters == 0 && now - slot.timestamp > timeToLive) {
+                    log.warn("Discarding expired object with correlation key '" + entry.getKey() + "'");
+
+                    slot.removed = true;
+                    slots.remove(entry.getKey(), slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stored objects and pending consumers.
+     * @return
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Sets the time to live for stored objects.
+     * @param timeToLive the timeToLive to set
+     */
+    public void setTimeToLive(long timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+
+    /**
+     * Gets the time to live for stored objects.
+     * @return the timeToLive
+     */
+    public long getTimeToLive() {
+        return timeToLive;
+    }
+
+    /**
+     * Slot holding stored object and consumer latch. Guarded by slot lock.
+     */
+    private static final class Slot<T> {
+        /** Released as soon as object is stored */
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        /** Stored object */
+        private T object;
+
+        /** Store time */
+        private long timestamp;
+
+        /** Number of waiting consumers */
+        private int waiters;
+
+        /** Slot was removed from store */
+        private boolean removed;
+    }
+}
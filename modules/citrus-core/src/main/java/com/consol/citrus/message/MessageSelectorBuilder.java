@@ -17,8 +17,15 @@
 package com.consol.citrus.message;
 
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.util.StringUtils;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
 
 /**
  * Constructs message selectors either from string value or from key value maps.
@@ -27,6 +34,12 @@ import java.util.Map.Entry;
  */
 public class MessageSelectorBuilder {
     
+    /** Pattern splitting selector expressions */
+    private static final Pattern AND_PATTERN = Pattern.compile("\\s+AND\\s+", Pattern.CASE_INSENSITIVE);
+    
+    /** Pattern for single key value expression */
+    private static final Pattern EXPRESSION_PATTERN = Pattern.compile("\\s*([^\\s=]+)\\s*=\\s*'([^']*)'\\s*");
+    
     /** Selector string */
     private String selectorString = "";
     
@@ -76,6 +89,32 @@ public class MessageSelectorBuilder {
         return new MessageSelectorBuilder(buf.toString());
     }
     
+    /**
+     * Parses selector string of form "key = 'value' AND key2 = 'value2'" to key value map.
+     * @return
+     * @throws CitrusRuntimeException in case selector uses unsupported expressions.
+     */
+    public Map<String, String> toKeyValueMap() {
+        Map<String, String> valueMap = new LinkedHashMap<String, String>();
+        
+        if (!StringUtils.hasText(selectorString)) {
+            return valueMap;
+        }
+        
+        for (String expression : AND_PATTERN.split(selectorString.trim())) {
+            Matcher matcher = EXPRESSION_PATTERN.matcher(expression);
+            
+            if (!matcher.matches()) {
+                throw new CitrusRuntimeException("Unsupported message selector expression '" + expression + 
+                        "' - only key = 'value' expressions combined with AND are supported");
+            }
+            
+            valueMap.put(matcher.group(1), matcher.group(2));
+        }
+        
+        return valueMap;
+    }
+    
     /**
      * Builds the message selector.
      * @return
@@ -18,7 +18,7 @@ package com.consol.citrus.report;
 
 import java.io.*;
 import java.text.*;
-import java.util.*;
+import java.util.Properties;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +27,6 @@ import org.springframework.core.io.Resource;
 import org.springframework.util.StringUtils;
 
 import com.consol.citrus.TestCase;
-import com.consol.citrus.TestCaseMetaInfo;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.report.TestResult.RESULT;
 import com.consol.citrus.util.FileUtils;
@@ -36,6 +35,10 @@ import com.consol.citrus.util.PropertyUtils;
 /**
  * Basic logging reporter generating a HTML report with detailed test results.
  * 
+ * Test detail rows are rendered as soon as a test finishes and are appended to a temporary
+ * details file. The final report streams the template and this details file to disk, so
+ * report generation does not hold the whole report in memory.
+ * 
  * @author Philipp Komninos, Christoph Deppisch
  */
 public class HtmlReporter extends AbstractTestListener implements TestReporter {
@@ -48,15 +51,15 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
     /** Collect test results for test report */
     private TestResults testResults = new TestResults();
     
-    /** Map holding additional information of test cases */
-    private Map<String, ResultDetail> details = new HashMap<String, ResultDetail>();
-    
     /** Static resource for the HTML test report template */
     private static final Resource REPORT_TEMPLATE = new ClassPathResource("test-report.html", HtmlReporter.class);
     
     /** Test detail template */
     private static final Resource TEST_DETAIL_TEMPLATE = new ClassPathResource("test-detail.html", HtmlReporter.class);
     
+    /** Placeholder in report template where test details are inserted */
+    private static final String TEST_DETAILS_PLACEHOLDER = "@test.details@";
+    
     /** Output directory */
     private static final String OUTPUT_DIRECTORY = "test-output/citrus-reports";
     
@@ -66,12 +69,27 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
     /** Resulting HTML test report file name */    
     private static final String REPORT_FILE_NAME = "citrus-test-results.html";
     
-    /** Format for creation and update date of TestCases */
+    /** Number of lines printed before and after the failed code section */
+    private static final int SNIPPET_OFFSET = 5;
+    
+    /** Format for creation and update date of TestCases, guarded by details lock */
     private DateFormat dateFormat = DateFormat.getDateInstance(DateFormat.MEDIUM);
     
     /** Common decimal format for percentage calculation in report */
     private DecimalFormat decFormat = new DecimalFormat("0.0");
     
+    /** Test detail template content, guarded by details lock */
+    private String testDetailTemplate;
+    
+    /** Temporary file holding rendered test detail rows, guarded by details lock */
+    private File detailsFile;
+    
+    /** Writer appending test detail rows, guarded by details lock */
+    private Writer detailsWriter;
+    
+    /** Monitor for concurrent test completion */
+    private final Object detailsLock = new Object();
+    
     /**
      * Default constructor.
      */
@@ -85,36 +103,12 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
      * @see com.consol.citrus.report.TestReporter#generateTestResults()
      */
     public void generateTestResults() {
-        String report = "";
-        StringBuilder reportDetails = new StringBuilder();
-        
         log.info("Generating HTML test report ...");
         
+        copyResources();
+        
+        Writer reportWriter = null;
         try {
-            String testDetails = FileUtils.readToString(TEST_DETAIL_TEMPLATE);
-            String unknown = "N/A";
-            
-            for (TestResult result : testResults) {
-                ResultDetail detail = details.get(result.getTestName());
-                
-                Properties detailProps = new Properties();
-                detailProps.put("test.style.class", result.getResult().toString().toLowerCase());
-                detailProps.put("test.case.name", result.getTestName());
-                detailProps.put("test.author", !StringUtils.hasText(detail.getMetaInfo().getAuthor()) ? unknown : detail.getMetaInfo().getAuthor());
-                detailProps.put("test.status", detail.getMetaInfo().getStatus().toString());
-                detailProps.put("test.creation.date", detail.getMetaInfo().getCreationDate() == null ? unknown : dateFormat.format(detail.getMetaInfo().getCreationDate()));
-                detailProps.put("test.updater", !StringUtils.hasText(detail.getMetaInfo().getLastUpdatedBy()) ? unknown : detail.getMetaInfo().getLastUpdatedBy());
-                detailProps.put("test.update.date", detail.getMetaInfo().getLastUpdatedOn() == null ? unknown : dateFormat.format(detail.getMetaInfo().getLastUpdatedOn()));
-                detailProps.put("test.description", !StringUtils.hasText(detail.getDescription()) ? unknown : detail.getDescription());
-                detailProps.put("test.result", result.getResult().toString().toUpperCase());
-                
-                reportDetails.append(PropertyUtils.replacePropertiesInString(testDetails, detailProps));
-                
-                if (result.getResult().equals(RESULT.FAILURE) && result.getCause() != null) {
-                    reportDetails.append(getStackTraceHtml(result.getCause()));
-                }
-            }
-
             Properties reportProps = new Properties();
             reportProps.put("test.cnt", Integer.toString(testResults.size()));
             reportProps.put("skipped.test.cnt", Integer.toString(testResults.getSkipped()));
@@ -123,19 +117,117 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
             reportProps.put("failed.test.pct", decFormat.format((double)testResults.getFailed() / testResults.size()*100));
             reportProps.put("success.test.cnt", Integer.toString(testResults.getSuccess()));
             reportProps.put("success.test.pct", decFormat.format((double)testResults.getSuccess() / testResults.size()*100));
-            reportProps.put("test.details", reportDetails.toString());
-            report = PropertyUtils.replacePropertiesInString(FileUtils.readToString(REPORT_TEMPLATE), reportProps);
             
-            copyResources();
-            createReportFile(report);
+            String template = FileUtils.readTemplateToString(REPORT_TEMPLATE);
+            int detailsIndex = template.indexOf(TEST_DETAILS_PLACEHOLDER);
+            
+            reportWriter = new BufferedWriter(new FileWriter(OUTPUT_DIRECTORY + "/" + REPORT_FILE_NAME));
+            
+            if (detailsIndex < 0) {
+                reportWriter.write(PropertyUtils.replacePropertiesInString(template, reportProps));
+            } else {
+                reportWriter.write(PropertyUtils.replacePropertiesInString(template.substring(0, detailsIndex), reportProps));
+                writeTestDetails(reportWriter);
+                reportWriter.write(PropertyUtils.replacePropertiesInString(
+                        template.substring(detailsIndex + TEST_DETAILS_PLACEHOLDER.length()), reportProps));
+            }
+            
+            reportWriter.flush();
         } catch (IOException e) {
             throw new CitrusRuntimeException("Failed to generate HTML test report", e);
+        } finally {
+            if (reportWriter != null) {
+                try { 
+                    reportWriter.close(); 
+                } catch (IOException e) { 
+                    log.error("Error closing HTML report file", e); 
+                } 
+            }
+        }
+    }
+    
+    /**
+     * Copies all test detail rows rendered so far to the report writer.
+     * @param reportWriter
+     * @throws IOException
+     */
+    private void writeTestDetails(Writer reportWriter) throws IOException {
+        synchronized (detailsLock) {
+            if (detailsWriter == null) {
+                return;
+            }
+            
+            detailsWriter.flush();
+            
+            Reader reader = new BufferedReader(new FileReader(detailsFile));
+            try {
+                char[] buffer = new char[8192];
+                int len;
+                while ((len = reader.read(buffer)) != -1) {
+                    reportWriter.write(buffer, 0, len);
+                }
+            } finally {
+                reader.close();
+            }
+        }
+    }
+    
+    /**
+     * Renders test detail row and appends it to the temporary details file.
+     * @param test the finished test case.
+     * @param result the test result.
+     */
+    private void addTestDetail(TestCase test, TestResult result) {
+        String stackTrace = "";
+        if (result.getResult().equals(RESULT.FAILURE) && result.getCause() != null) {
+            stackTrace = getStackTraceHtml(result.getCause());
+        }
+        
+        synchronized (detailsLock) {
+            try {
+                if (detailsWriter == null) {
+                    testDetailTemplate = FileUtils.readTemplateToString(TEST_DETAIL_TEMPLATE);
+                    
+                    detailsFile = File.createTempFile("citrus-test-details", ".html");
+                    detailsFile.deleteOnExit();
+                    detailsWriter = new BufferedWriter(new FileWriter(detailsFile));
+                }
+                
+                detailsWriter.write(PropertyUtils.replacePropertiesInString(testDetailTemplate, getTestDetailProperties(test, result)));
+                detailsWriter.write(stackTrace);
+            } catch (IOException e) {
+                throw new CitrusRuntimeException("Failed to write HTML test report details", e);
+            }
         }
     }
+    
+    /**
+     * Builds test detail template properties. Callers must hold the details lock as
+     * date format is not thread safe.
+     * @param test
+     * @param result
+     * @return
+     */
+    private Properties getTestDetailProperties(TestCase test, TestResult result) {
+        String unknown = "N/A";
+        
+        Properties detailProps = new Properties();
+        detailProps.put("test.style.class", result.getResult().toString().toLowerCase());
+        detailProps.put("test.case.name", result.getTestName());
+        detailProps.put("test.author", !StringUtils.hasText(test.getMetaInfo().getAuthor()) ? unknown : test.getMetaInfo().getAuthor());
+        detailProps.put("test.status", test.getMetaInfo().getStatus().toString());
+        detailProps.put("test.creation.date", test.getMetaInfo().getCreationDate() == null ? unknown : dateFormat.format(test.getMetaInfo().getCreationDate()));
+        detailProps.put("test.updater", !StringUtils.hasText(test.getMetaInfo().getLastUpdatedBy()) ? unknown : test.getMetaInfo().getLastUpdatedBy());
+        detailProps.put("test.update.date", test.getMetaInfo().getLastUpdatedOn() == null ? unknown : dateFormat.format(test.getMetaInfo().getLastUpdatedOn()));
+        detailProps.put("test.description", !StringUtils.hasText(test.getDescription()) ? unknown : test.getDescription());
+        detailProps.put("test.result", result.getResult().toString().toUpperCase());
+        
+        return detailProps;
+    }
 
     /**
      * Gets the code section from test case XML which is responsible for the
-     * error.
+     * error. Only reads the test file up to the end of the snippet window.
      * @param cause the error cause.
      * @return
      */
@@ -149,24 +241,23 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
                 if (!ex.getFailureStack().isEmpty()) {
                     FailureStackElement stackElement = ex.getFailureStack().pop();
                     if (stackElement.getLineNumberStart() > 0) {
-                        reader = new BufferedReader(new FileReader(
-                                new ClassPathResource(stackElement.getTestFilePath() + ".xml").getFile()));
+                        long lineNumberStart = stackElement.getLineNumberStart();
+                        long lineNumberEnd = stackElement.getLineNumberEnd() != null ? stackElement.getLineNumberEnd() : lineNumberStart;
+                        
+                        reader = new BufferedReader(new InputStreamReader(
+                                new ClassPathResource(stackElement.getTestFilePath() + ".xml").getInputStream()));
                         
                         codeSnippet.append("<div class=\"code-snippet\">");
                         codeSnippet.append("<h2 class=\"code-title\">" + stackElement.getTestFilePath() + ".xml</h2>");
                         
                         String line;
                         String codeStyle;
-                        int lineIndex = 1;
-                        int snippetOffset = 5;
-                        while ((line = reader.readLine()) != null) {
-                            if (lineIndex >= stackElement.getLineNumberStart() - snippetOffset && 
-                                    lineIndex < stackElement.getLineNumberStart() || 
-                                    lineIndex > stackElement.getLineNumberEnd() && 
-                                    lineIndex <= stackElement.getLineNumberEnd() + snippetOffset) {
+                        long lineIndex = 1;
+                        while (lineIndex <= lineNumberEnd + SNIPPET_OFFSET && (line = reader.readLine()) != null) {
+                            if (lineIndex >= lineNumberStart - SNIPPET_OFFSET && lineIndex < lineNumberStart || 
+                                    lineIndex > lineNumberEnd) {
                                 codeStyle = "code";
-                            } else if (lineIndex >= stackElement.getLineNumberStart() && 
-                                    lineIndex <= stackElement.getLineNumberEnd()) {
+                            } else if (lineIndex >= lineNumberStart) {
                                 codeStyle = "code-failed";
                             } else {
                                 codeStyle = "";
@@ -178,7 +269,6 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
                             }
                             
                             lineIndex++;
-                            
                         }
                         
                         codeSnippet.append("</div>");
@@ -266,111 +356,33 @@ public class HtmlReporter extends AbstractTestListener implements TestReporter {
             }
         }
     }
-    
-    
-    /**
-     * Creates the HTML report file
-     * @param content The String content of the report file
-     * @param targetPath The directory where the report file is created
-     * @param reportFileName The name of the report file
-     */
-    private void createReportFile(String content) {
-        Writer fileWriter = null;
-        try {
-            fileWriter = new FileWriter(OUTPUT_DIRECTORY + "/" + REPORT_FILE_NAME);
-            fileWriter.append(content);
-            fileWriter.flush();
-        } catch (IOException e) {
-            log.error("Failed to save HTML test report", e);
-        } finally {
-            if (fileWriter != null) {
-                try { 
-                    fileWriter.close(); 
-                } catch (IOException e) { 
-                    log.error("Error closing HTML report file", e); 
-                } 
-            }
-        }
-    }
 
     @Override
     public void onTestSuccess(TestCase test) {
-        details.put(test.getName(), ResultDetail.build(test));
+        TestResult result = new TestResult(test.getName(), RESULT.SUCCESS, test.getParameters());
         
-        testResults.addResult(new TestResult(test.getName(), RESULT.SUCCESS, test.getParameters()));        
+        addTestDetail(test, result);
+        testResults.addResult(result);
     }
     
     @Override
     public void onTestFailure(TestCase test, Throwable cause) {
-        details.put(test.getName(), ResultDetail.build(test));
-        
+        TestResult result;
         if (cause != null) {
-            testResults.addResult(new TestResult(test.getName(), RESULT.FAILURE, cause, test.getParameters()));
+            result = new TestResult(test.getName(), RESULT.FAILURE, cause, test.getParameters());
         } else {
-            testResults.addResult(new TestResult(test.getName(), RESULT.FAILURE, null, test.getParameters()));
+            result = new TestResult(test.getName(), RESULT.FAILURE, null, test.getParameters());
         }
+        
+        addTestDetail(test, result);
+        testResults.addResult(result);
     }
     
     @Override
     public void onTestSkipped(TestCase test) {
-        details.put(test.getName(), ResultDetail.build(test));
-        
-        testResults.addResult(new TestResult(test.getName(), RESULT.SKIP, test.getParameters()));
-    }
-    
-    /**
-     * Value object holding test specific data for HTML report generation. 
-     */
-    private static class ResultDetail {
-        /** The meta info of the underlying test */
-        private TestCaseMetaInfo metaInfo;
+        TestResult result = new TestResult(test.getName(), RESULT.SKIP, test.getParameters());
         
-        /** Description of the test */
-        private String description;
-        
-        /**
-         * Builds a new result detail from test case.
-         * @param test the test case.
-         * @return the result detail.
-         */
-        public static ResultDetail build(TestCase test) {
-            ResultDetail detail = new ResultDetail();
-            detail.setDescription(test.getDescription());
-            detail.setMetaInfo(test.getMetaInfo());
-            
-            return detail;
-        }
-
-        /**
-         * Gets the test meta information.
-         * @return the metaInfo
-         */
-        public TestCaseMetaInfo getMetaInfo() {
-            return metaInfo;
-        }
-
-        /**
-         * Sets the test meta information.
-         * @param metaInfo the metaInfo to set
-         */
-        public void setMetaInfo(TestCaseMetaInfo metaInfo) {
-            this.metaInfo = metaInfo;
-        }
-
-        /**
-         * Gets the test description.
-         * @return the description
-         */
-        public String getDescription() {
-            return description;
-        }
-
-        /**
-         * Sets the test description.
-         * @param description the description to set
-         */
-        public void setDescription(String description) {
-            this.description = description;
-        }
+        addTestDetail(test, result);
+        testResults.addResult(result);
     }
 }
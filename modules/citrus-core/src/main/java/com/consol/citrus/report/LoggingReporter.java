@@ -24,9 +24,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.consol.citrus.TestCase;
+import com.consol.citrus.TestCaseDefinitionCache;
 import com.consol.citrus.container.SequenceAfterSuite;
 import com.consol.citrus.container.SequenceBeforeSuite;
 import com.consol.citrus.report.TestResult.RESULT;
+import com.consol.citrus.util.ResourceContentCache;
 
 /**
  * Simple logging reporter printing test start and ending to the console/logger.
@@ -47,6 +49,12 @@ public class LoggingReporter implements TestSuiteListener, TestListener, TestRep
     @Autowired(required = false)
     private SequenceAfterSuite afterSuite;
     
+    @Autowired(required = false)
+    private TestCaseDefinitionCache testCaseDefinitionCache;
+    
+    @Autowired(required = false)
+    private ResourceContentCache resourceContentCache;
+    
     /**
      * Logger
      */
@@ -82,6 +90,18 @@ public class LoggingReporter implements TestSuiteListener, TestListener, TestRep
         log.info("Skipped:\t" + testResults.getSkipped() + " (" + decFormat.format((double)testResults.getSkipped() / (testResults.size())*100) + "%)");
         log.info("Failed:\t" + testResults.getFailed() + " (" + decFormat.format((double)testResults.getFailed() / (testResults.getFailed() + testResults.getSuccess()) * 100) + "%)");
         log.info("Success:\t" + testResults.getSuccess() + " (" + decFormat.format((double)testResults.getSuccess() / (testResults.getFailed() + testResults.getSuccess()) * 100) + "%)");
+        
+        if (testCaseDefinitionCache != null && testCaseDefinitionCache.getCreatedContexts() > 0) {
+            log.info("");
+            log.info("Test definitions parsed:\t" + testCaseDefinitionCache.getParsedDefinitions() + " (" + testCaseDefinitionCache.getParseTime() + " ms)");
+            log.info("Test contexts created:\t" + testCaseDefinitionCache.getCreatedContexts() + " (" + testCaseDefinitionCache.getContextCreationTime() + " ms, "
+                    + decFormat.format((double)testCaseDefinitionCache.getContextCreationTime() / testCaseDefinitionCache.getCreatedContexts()) + " ms per test)");
+        }
+        
+        if (resourceContentCache != null && resourceContentCache.getHits() + resourceContentCache.getMisses() > 0) {
+            log.info("Resource cache:\t\t" + resourceContentCache.getHits() + " hits, " + resourceContentCache.getMisses() + " misses ("
+                    + decFormat.format(resourceContentCache.getHitRatio() * 100) + "% hit ratio, " + resourceContentCache.getBytesSaved() + " bytes saved)");
+        }
 
         log.info(seperator());
     }
@@ -16,8 +16,9 @@
 
 package com.consol.citrus.script;
 
-import groovy.lang.GroovyClassLoader;
+import groovy.lang.Binding;
 import groovy.lang.GroovyObject;
+import groovy.lang.Script;
 
 import java.io.IOException;
 
@@ -37,6 +38,11 @@ import com.consol.citrus.validation.script.TemplateBasedScriptBuilder;
 /**
  * Action executes groovy scripts either specified inline or from external file resource.
  * 
+ * By default the script code is wrapped with a script template and test variables are replaced in the
+ * script code before compilation. Plain scripts without script template are compiled as written instead,
+ * test variables are available as script variables and the test context is bound as variable "context".
+ * Compiled scripts are cached, so plain scripts executed repeatedly, e.g. inside loops, are compiled only once.
+ * 
  * @author Christoph Deppisch
  * @since 2006
  */
@@ -68,34 +74,43 @@ public class GroovyAction extends AbstractTestAction {
     public void doExecute(TestContext context) {
         try {
             ClassLoader parent = getClass().getClassLoader();
-            GroovyClassLoader loader = new GroovyClassLoader(parent);
             
             String code;
             
             // get the script either from inline data or external file resource
             if (StringUtils.hasText(script)) {
-            	code = context.replaceDynamicContentInString(script.trim());
+            	code = script.trim();
             } else if (fileResource != null) {
-            	code = context.replaceDynamicContentInString(FileUtils.readToString(fileResource)).trim();
+            	code = FileUtils.readTemplateToString(fileResource).trim();
             } else {
                 throw new CitrusRuntimeException("Neither inline script nor " +
                 		"external script resource is defined. Unable to execute groovy script.");
             }
             
-            // load groovy code
-            Class<?> groovyClass = loader.parseClass(code);
-            // Instantiate an object from groovy code
-            GroovyObject groovyObject = (GroovyObject) groovyClass.newInstance();
+            // plain scripts are compiled as written and get test variables through script binding, 
+            // so the same script is compiled only once even if variable values change
+            if (useScriptTemplate) {
+                code = context.replaceDynamicContentInString(code);
+            }
+            
+            // load groovy code from compiled script cache
+            Class<?> groovyClass = GroovyScriptCache.getInstance().parseClass(code, parent);
             
             // only apply default script template in case we have feature enabled and code is not a class, too
-            if (useScriptTemplate && groovyObject.getClass().getSimpleName().startsWith("script")) {
+            if (useScriptTemplate && groovyClass.getSimpleName().startsWith("script")) {
                 // build new script with surrounding template
                 code = TemplateBasedScriptBuilder.fromTemplateResource(scriptTemplateResource)
                                                  .withCode(code)
                                                  .build();
                 
-                groovyClass = loader.parseClass(code);
-                groovyObject = (GroovyObject) groovyClass.newInstance();
+                groovyClass = GroovyScriptCache.getInstance().parseClass(code, parent);
+            }
+            
+            // Instantiate an object from groovy code
+            GroovyObject groovyObject = (GroovyObject) groovyClass.newInstance();
+            
+            if (groovyObject instanceof Script) {
+                ((Script) groovyObject).setBinding(createBinding(context));
             }
             
             if (log.isDebugEnabled()) {
@@ -121,6 +136,18 @@ public class GroovyAction extends AbstractTestAction {
         }
     }
 
+    /**
+     * Creates script binding holding a snapshot of all test variables and the test context
+     * itself as variable named "context".
+     * @param context the current test context.
+     * @return
+     */
+    private Binding createBinding(TestContext context) {
+        Binding binding = new Binding(context.copyVariables());
+        binding.setVariable("context", context);
+        return binding;
+    }
+
     /**
      * Set the groovy script code.
      * @param script the script to set
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.script;
+
+import groovy.lang.GroovyClassLoader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.codehaus.groovy.control.CompilationFailedException;
+
+/**
+ * Bounded cache of compiled Groovy script classes keyed by final script source. Each script is compiled
+ * with its own {@link GroovyClassLoader}, so evicted script classes are unloaded together with their class loader
+ * once no longer referenced.
+ *
+ * Groovy actions, script validators and script message builders share the default instance.
+ *
+ * @author Christoph Deppisch
+ */
+public class GroovyScriptCache {
+    /** Default maximum number of cached script classes */
+    public static final int DEFAULT_MAX_SIZE = 200;
+
+    /** Shared default instance */
+    private static final GroovyScriptCache INSTANCE = new GroovyScriptCache();
+
+    /** Maximum number of cached script classes */
+    private final int maxSize;
+
+    /** Least recently used script map */
+    private final Map<String, CompiledScript> scripts;
+
+    /** Cache statistics */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Default constructor using default maximum size.
+     */
+    public GroovyScriptCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor using maximum cache size.
+     * @param maxSize
+     */
+    public GroovyScriptCache(final int maxSize) {
+        this.maxSize = maxSize;
+
+        scripts = new LinkedHashMap<String, CompiledScript>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, CompiledScript> eldest) {
+                if (size() > maxSize) {
+                    eldest.getValue().loader.clearCache();
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Gets the shared default instance.
+     * @return
+     */
+    public static GroovyScriptCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets compiled script class from cache or compiles the script source in case it is not present yet.
+     * Cached classes compiled with a different parent class loader are recompiled.
+     *
+     * @param source the final script source.
+     * @param parent the parent class loader.
+     * @return the compiled script class.
+     * @throws CompilationFailedException
+     */
+    public Class<?> parseClass(String source, ClassLoader parent) throws CompilationFailedException {
+        CompiledScript compiled;
+        synchronized (scripts) {
+            compiled = scripts.get(source);
+        }
+
+        if (compiled != null && compiled.loader.getParent() == parent) {
+            hits.incrementAndGet();
+            return compiled.scriptClass;
+        }
+
+        misses.incrementAndGet();
+
+        GroovyClassLoader loader = new GroovyClassLoader(parent);
+        compiled = new CompiledScript(loader, loader.parseClass(source));
+
+        synchronized (scripts) {
+            scripts.put(source, compiled);
+        }
+
+        return compiled.scriptClass;
+    }
+
+    /**
+     * Removes all cached scripts.
+     */
+    public void clear() {
+        synchronized (scripts) {
+            for (CompiledScript compiled : scripts.values()) {
+                compiled.loader.clearCache();
+            }
+
+            scripts.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached scripts.
+     * @return
+     */
+    public int size() {
+        synchronized (scripts) {
+            return scripts.size();
+        }
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the maximum number of cached scripts.
+     * @return the maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Compiled script class with its class loader.
+     */
+    private static final class CompiledScript {
+        private final GroovyClassLoader loader;
+        private final Class<?> scriptClass;
+
+        /**
+         * Default constructor.
+         * @param loader
+         * @param scriptClass
+         */
+        private CompiledScript(GroovyClassLoader loader, Class<?> scriptClass) {
+            this.loader = loader;
+            this.scriptClass = scriptClass;
+        }
+    }
+}
@@ -16,10 +16,14 @@
 
 package com.consol.citrus.testng;
 
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.testng.AbstractTestNGSpringContextTests;
@@ -28,7 +32,9 @@ import org.testng.ITestContext;
 import org.testng.Reporter;
 import org.testng.annotations.*;
 
+import com.consol.citrus.ResourceGroupLocks;
 import com.consol.citrus.TestCase;
+import com.consol.citrus.TestCaseDefinitionCache;
 import com.consol.citrus.TestCaseMetaInfo.Status;
 import com.consol.citrus.container.*;
 import com.consol.citrus.context.TestContext;
@@ -72,6 +78,9 @@ public abstract class AbstractTestNGCitrusTest extends AbstractTestNGSpringConte
     @Autowired(required = false)
     private SequenceBeforeTest beforeTest;
     
+    @Autowired(required = false)
+    private TestCaseDefinitionCache testCaseDefinitionCache = new TestCaseDefinitionCache();
+    
     /** Parameter values provided from external logic */
     private Object[][] allParameters;
 
@@ -130,27 +139,39 @@ public abstract class AbstractTestNGCitrusTest extends AbstractTestNGSpringConte
      * @param testContext the test context.
      */
     protected void executeTest(ITestContext testContext) {
-        TestCase testCase = getTestCase();
-
-        if (!testCase.getMetaInfo().getStatus().equals(Status.DISABLED)) {
-            testListener.onTestStart(testCase);
+        ConfigurableApplicationContext ctx = createTestApplicationContext();
+        
+        try {
+            TestCase testCase = getTestCase(ctx);
 
-            try {
-                TestContext ctx = prepareTestContext(createTestContext());
-                handleTestParameters(testCase, ctx);
+            if (!testCase.getMetaInfo().getStatus().equals(Status.DISABLED)) {
+                List<Lock> locks = ResourceGroupLocks.acquire(testCase);
                 
-                testCase.execute(ctx);
-                testListener.onTestSuccess(testCase);
-            } catch (Exception e) {
-                testListener.onTestFailure(testCase, e);
+                try {
+                    testListener.onTestStart(testCase);
+
+                    try {
+                        TestContext context = prepareTestContext(createTestContext());
+                        handleTestParameters(testCase, context);
+                    
+                        testCase.execute(context);
+                        testListener.onTestSuccess(testCase);
+                    } catch (Exception e) {
+                        testListener.onTestFailure(testCase, e);
 
-                throw new TestCaseFailedException(e);
-            } finally {
-                testListener.onTestFinish(testCase);
-                testCase.finish();
+                        throw new TestCaseFailedException(e);
+                    } finally {
+                        testListener.onTestFinish(testCase);
+                        testCase.finish();
+                    }
+                } finally {
+                    ResourceGroupLocks.release(locks);
+                }
+            } else {
+                testListener.onTestSkipped(testCase);
             }
-        } else {
-            testListener.onTestSkipped(testCase);
+        } finally {
+            ctx.close();
         }
     }
 
@@ -208,11 +229,11 @@ public abstract class AbstractTestNGCitrusTest extends AbstractTestNGSpringConte
     }
 
     /**
-     * Gets the test case from application context.
+     * Gets the test case from given test application context.
+     * @param ctx the test application context.
      * @return the new test case.
      */
-    protected TestCase getTestCase() {
-        ClassPathXmlApplicationContext ctx = createApplicationContext();
+    protected TestCase getTestCase(ConfigurableApplicationContext ctx) {
         TestCase testCase = null;
         try {
             testCase = (TestCase) ctx.getBean(this.getClass().getSimpleName(), TestCase.class);
@@ -224,15 +245,41 @@ public abstract class AbstractTestNGCitrusTest extends AbstractTestNGSpringConte
     }
 
     /**
-     * Creates the Spring application context.
+     * Gets the test case from a new test application context.
+     * @return the new test case.
+     * @deprecated test application context is never closed, use {@link #getTestCase(ConfigurableApplicationContext)} 
+     * with {@link #createTestApplicationContext()} instead.
+     */
+    @Deprecated
+    protected TestCase getTestCase() {
+        return getTestCase(createTestApplicationContext());
+    }
+    
+    /**
+     * Creates the Spring application context holding the test case. Test definitions
+     * are parsed once and cached for subsequent test executions.
+     * @return
+     */
+    protected ConfigurableApplicationContext createTestApplicationContext() {
+        try {
+            return testCaseDefinitionCache.createApplicationContext(getClass(), applicationContext);
+        } catch (Exception e) {
+            throw handleError("Failed to load test case", e);
+        }
+    }
+    
+    /**
+     * Creates the Spring application context parsing the test XML file.
      * @return
+     * @deprecated test definitions are parsed on each call, use {@link #createTestApplicationContext()} instead.
      */
+    @Deprecated
     protected ClassPathXmlApplicationContext createApplicationContext() {
         try {
             return new ClassPathXmlApplicationContext(
                     new String[] {
                             this.getClass().getPackage().getName().replace('.', '/')
-                                    + "/" + getClass().getSimpleName() + ".xml",
+                                    + "/" + this.getClass().getSimpleName() + ".xml",
                                     "com/consol/citrus/spring/internal-helper-ctx.xml"},
                     true, applicationContext);
         } catch (Exception e) {
@@ -21,26 +21,28 @@ import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 
 /**
  * Parses boolean expression strings and evaluates to boolean result.
  * 
+ * Expressions are compiled to an immutable expression tree first, so a compiled expression can be
+ * evaluated many times and from several threads. An optional variable name is bound as slot in the
+ * expression tree, e.g. the index variable of iterating test actions.
+ * 
  * @author Christoph Deppisch
  */
 @SuppressWarnings("unchecked")
 public final class BooleanExpressionParser {
-    /** List of operators */
-    private static Stack<String> operators = new Stack<String>();
-    
-    /** List of values */
-    private static Stack<String> values = new Stack<String>();
-
     /** List of known operators for this class */
     private static List<String> knownOperators = new ArrayList<String>(
             CollectionUtils.arrayToList(new String[]{"(", "=", "and", "or", "lt", "lt=", "gt", "gt=", ")"}));
     
+    /** Place holder character for bound variable */
+    private static final char VARIABLE_PLACEHOLDER = '\uFFFF';
+    
     /**
      * Logger
      */
@@ -59,74 +61,95 @@ public final class BooleanExpressionParser {
      * @return
      */
     public static boolean evaluate(String expression) {
-        boolean result = true;
-
+        boolean result = compile(expression, null).evaluate(0);
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Boolean expression " + expression + " evaluates to " + result);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Compiles boolean expression string to expression tree. All occurrences of variable name
+     * in expression are bound to the value given on evaluation.
+     * 
+     * @param expression the expression string.
+     * @param variableName the optional variable name, may be null.
+     * @throws CitrusRuntimeException
+     * @return the compiled expression.
+     */
+    public static CompiledExpression compile(String expression, String variableName) {
+        String expressionString = expression;
+        if (StringUtils.hasLength(variableName) && expressionString.indexOf(variableName) != -1) {
+            expressionString = expressionString.replace(variableName, String.valueOf(VARIABLE_PLACEHOLDER));
+        }
+        
+        Stack<String> operators = new Stack<String>();
+        Stack<Node> values = new Stack<Node>();
+        
         char actChar;
 
         try {
-            for (int i = 0; i < expression.length(); i++) {
-                actChar = expression.charAt(i);
+            for (int i = 0; i < expressionString.length(); i++) {
+                actChar = expressionString.charAt(i);
     
                 if (actChar == '('){
                     operators.push("(");
                 } else if (actChar == ' ') {
                     continue; //ignore
+                } else if (actChar == VARIABLE_PLACEHOLDER) {
+                    values.push(VariableNode.INSTANCE);
                 } else if (actChar == ')') {
                     String operator = operators.pop();
                     while (!(operator).equals("(")) {
-                        values.push(getBooleanResultAsString(operator, values.pop(), values.pop()));
+                        values.push(createOperatorNode(operator, values.pop(), values.pop()));
                         operator = operators.pop();
                     }
                 } else if (!Character.isDigit(actChar)) {
-                    StringBuffer operatorBuffer = new StringBuffer();
+                    StringBuilder operatorBuffer = new StringBuilder();
     
                     int m = i;
                     do {
                         operatorBuffer.append(actChar);
                         m++;
                         
-                        if (m < expression.length()) {
-                            actChar = expression.charAt(m);
+                        if (m < expressionString.length()) {
+                            actChar = expressionString.charAt(m);
                         }
-                    } while (m < expression.length() && !Character.isDigit(actChar) && !(actChar == ' ') && !(actChar == '('));
+                    } while (m < expressionString.length() && !Character.isDigit(actChar) && !(actChar == ' ') 
+                            && !(actChar == '(') && !(actChar == VARIABLE_PLACEHOLDER));
     
                     i = m - 1;
     
                     operators.push(validateOperator(operatorBuffer.toString()));
                 } else if (Character.isDigit(actChar)) {
-                    StringBuffer digitBuffer = new StringBuffer();
+                    StringBuilder digitBuffer = new StringBuilder();
     
                     int m = i;
                     do {
                         digitBuffer.append(actChar);
                         m++;
                         
-                        if (m < expression.length()) {
-                            actChar = expression.charAt(m);
+                        if (m < expressionString.length()) {
+                            actChar = expressionString.charAt(m);
                         }
-                    } while (m < expression.length() && Character.isDigit(actChar));
+                    } while (m < expressionString.length() && Character.isDigit(actChar));
     
                     i = m - 1;
     
-                    values.push(digitBuffer.toString());
+                    values.push(new ValueNode(digitBuffer.toString()));
                 }
             }
     
             while (!operators.isEmpty()) {
-                values.push(getBooleanResultAsString(operators.pop(), values.pop(), values.pop()));
+                values.push(createOperatorNode(operators.pop(), values.pop(), values.pop()));
             }
     
-            String value = values.pop();
-            result = Boolean.valueOf(value).booleanValue();
-    
-            if (log.isDebugEnabled()) {
-                log.debug("Boolean expression " + expression + " evaluates to " + value);
-            }
+            return new CompiledExpression(expression, values.pop());
         } catch(EmptyStackException e) {
             throw new CitrusRuntimeException("Unable to parse boolean expression '" + expression + "'. Maybe expression is incomplete!", e);
         }
-
-        return result;
     }
     
     /**
@@ -143,29 +166,177 @@ public final class BooleanExpressionParser {
     }
 
     /**
-     * Evaluates a boolean expression to a String representation (true/false).
+     * Creates expression tree node for operator.
      * @param operator
-     * @param value1
-     * @param value2
-     * @return true/false as String
+     * @param right the right hand operand, first value taken from stack.
+     * @param left the left hand operand.
+     * @return the operator node.
      */
-    private static String getBooleanResultAsString(String operator, String value1, String value2) {
+    private static Node createOperatorNode(String operator, Node right, Node left) {
         if (operator.equals("lt")) {
-            return Boolean.valueOf(Integer.valueOf(value2).intValue() < Integer.valueOf(value1).intValue()).toString();
+            return new ComparisonNode(ComparisonNode.LT, left, right);
         } else if (operator.equals("lt=")) {
-            return Boolean.valueOf(Integer.valueOf(value2).intValue() <= Integer.valueOf(value1).intValue()).toString();
+            return new ComparisonNode(ComparisonNode.LT_EQ, left, right);
         } else if (operator.equals("gt")) {
-            return Boolean.valueOf(Integer.valueOf(value2).intValue() > Integer.valueOf(value1).intValue()).toString();
+            return new ComparisonNode(ComparisonNode.GT, left, right);
         } else if (operator.equals("gt=")) {
-            return Boolean.valueOf(Integer.valueOf(value2).intValue() >= Integer.valueOf(value1).intValue()).toString();
+            return new ComparisonNode(ComparisonNode.GT_EQ, left, right);
         } else if (operator.equals("=")) {
-            return Boolean.valueOf(Integer.valueOf(value2).intValue() == Integer.valueOf(value1).intValue()).toString();
+            return new ComparisonNode(ComparisonNode.EQ, left, right);
         } else if (operator.equals("and")) {
-            return Boolean.valueOf(Boolean.valueOf(value2).booleanValue() && Boolean.valueOf(value1).booleanValue()).toString();
+            return new LogicalNode(true, left, right);
         } else if (operator.equals("or")) {
-            return Boolean.valueOf(Boolean.valueOf(value2).booleanValue() || Boolean.valueOf(value1).booleanValue()).toString();
+            return new LogicalNode(false, left, right);
         } else {
             throw new CitrusRuntimeException("Unknown operator '" + operator + "'");
         }
     }
+    
+    /**
+     * Compiled boolean expression. Immutable and safe to use from several threads.
+     */
+    public static final class CompiledExpression {
+        /** Original expression string */
+        private final String expression;
+        
+        /** Expression tree root */
+        private final Node root;
+        
+        /**
+         * Default constructor.
+         * @param expression
+         * @param root
+         */
+        private CompiledExpression(String expression, Node root) {
+            this.expression = expression;
+            this.root = root;
+        }
+        
+        /**
+         * Evaluates expression with value for bound variable.
+         * @param variableValue the variable value.
+         * @return the boolean result.
+         */
+        public boolean evaluate(int variableValue) {
+            try {
+                return root.evaluateBoolean(variableValue);
+            } catch (NumberFormatException e) {
+                throw new CitrusRuntimeException("Unable to evaluate boolean expression '" + expression + "'", e);
+            }
+        }
+        
+        /**
+         * Gets the original expression string.
+         * @return the expression
+         */
+        public String getExpression() {
+            return expression;
+        }
+    }
+    
+    /**
+     * Expression tree node.
+     */
+    private interface Node {
+        boolean evaluateBoolean(int variableValue);
+        int evaluateInt(int variableValue);
+    }
+    
+    /**
+     * Numeric literal value.
+     */
+    private static final class ValueNode implements Node {
+        private final String value;
+        
+        private ValueNode(String value) {
+            this.value = value;
+        }
+        
+        public boolean evaluateBoolean(int variableValue) {
+            return Boolean.valueOf(value).booleanValue();
+        }
+        
+        public int evaluateInt(int variableValue) {
+            return Integer.parseInt(value);
+        }
+    }
+    
+    /**
+     * Bound variable slot.
+     */
+    private static final class VariableNode implements Node {
+        private static final VariableNode INSTANCE = new VariableNode();
+        
+        public boolean evaluateBoolean(int variableValue) {
+            return false;
+        }
+        
+        public int evaluateInt(int variableValue) {
+            return variableValue;
+        }
+    }
+    
+    /**
+     * Numeric comparison operator.
+     */
+    private static final class ComparisonNode implements Node {
+        private static final int LT = 0;
+        private static final int LT_EQ = 1;
+        private static final int GT = 2;
+        private static final int GT_EQ = 3;
+        private static final int EQ = 4;
+        
+        private final int operator;
+        private final Node left;
+        private final Node right;
+        
+        private ComparisonNode(int operator, Node left, Node right) {
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+        }
+        
+        public boolean evaluateBoolean(int variableValue) {
+            int leftValue = left.evaluateInt(variableValue);
+            int rightValue = right.evaluateInt(variableValue);
+            
+            switch (operator) {
+                case LT: return leftValue < rightValue;
+                case LT_EQ: return leftValue <= rightValue;
+                case GT: return leftValue > rightValue;
+                case GT_EQ: return leftValue >= rightValue;
+                default: return leftValue == rightValue;
+            }
+        }
+        
+        public int evaluateInt(int variableValue) {
+            throw new NumberFormatException("For input string: \"" + evaluateBoolean(variableValue) + "\"");
+        }
+    }
+    
+    /**
+     * Logical and/or operator.
+     */
+    private static final class LogicalNode implements Node {
+        private final boolean and;
+        private final Node left;
+        private final Node right;
+        
+        private LogicalNode(boolean and, Node left, Node right) {
+            this.and = and;
+            this.left = left;
+            this.right = right;
+        }
+        
+        public boolean evaluateBoolean(int variableValue) {
+            boolean leftValue = left.evaluateBoolean(variableValue);
+            boolean rightValue = right.evaluateBoolean(variableValue);
+            
+            return and ? leftValue && rightValue : leftValue || rightValue;
+        }
+        
+        public int evaluateInt(int variableValue) {
+            throw new NumberFormatException("For input string: \"" + evaluateBoolean(variableValue) + "\"");
+        }
+    }
 }
@@ -76,6 +76,17 @@ public abstract class FileUtils {
         return readToString(resource.getInputStream());
     }
     
+    /**
+     * Read template resource such as payload templates and script files to string value. Template
+     * contents are cached in the shared {@link ResourceContentCache} as long as the resource is not modified.
+     * @param resource
+     * @return
+     * @throws IOException
+     */
+    public static String readTemplateToString(Resource resource) throws IOException {
+        return ResourceContentCache.getInstance().getContent(resource);
+    }
+    
     /**
      * Read file input stream to string value.
      * @param inputStream
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.util;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Shared in-memory cache of resource contents such as payload templates, header templates and script files.
+ * Entries are keyed by resource URI and are valid as long as the resource modification time and content
+ * length do not change. Resources not providing a modification time are never cached. File systems store
+ * modification times with limited granularity, so resources modified shortly before they were cached are
+ * read again and compared to the cached content until the modification is old enough.
+ *
+ * Total size of cached contents is limited, least recently used entries are evicted first. Resource
+ * locations to preload can be set when the cache is configured as Spring bean.
+ *
+ * @author Christoph Deppisch
+ */
+public class ResourceContentCache implements InitializingBean {
+    /** Default maximum number of cached bytes */
+    public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+
+    /** Default file system modification time granularity in milliseconds */
+    public static final long DEFAULT_MODIFICATION_GRANULARITY = 2000L;
+
+    /** Shared default instance */
+    private static final ResourceContentCache INSTANCE = new ResourceContentCache();
+
+    /** Maximum number of cached bytes */
+    private long maxSize = DEFAULT_MAX_SIZE;
+
+    /** Modification time granularity */
+    private long modificationGranularity = DEFAULT_MODIFICATION_GRANULARITY;
+
+    /** Resource location patterns to preload */
+    private String[] preloadLocations;
+
+    /** Least recently used content map */
+    private final Map<String, CachedContent> contents = new LinkedHashMap<String, CachedContent>(16, 0.75f, true);
+
+    /** Number of currently cached bytes, guarded by contents lock */
+    private long cachedBytes = 0L;
+
+    /** Cache statistics */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(ResourceContentCache.class);
+
+    /**
+     * Gets the shared default instance.
+     * @return
+     */
+    public static ResourceContentCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets resource content from cache or reads the resource in case content is not
+     * cached yet or resource was modified.
+     * @param resource the resource.
+     * @return the resource content.
+     * @throws IOException
+     */
+    public String getContent(Resource resource) throws IOException {
+        String key;
+        long lastModified;
+        long contentLength;
+
+        try {
+            key = resource.getURI().toString();
+            lastModified = resource.lastModified();
+            contentLength = resource.contentLength();
+        } catch (IOException e) {
+            misses.incrementAndGet();
+            return FileUtils.readToString(resource.getInputStream());
+        }
+
+        CachedContent cached;
+        synchronized (contents) {
+            cached = contents.get(key);
+        }
+
+        if (cached != null && cached.lastModified == lastModified && cached.contentLength == contentLength &&
+                lastModified < cached.cachedAt - modificationGranularity) {
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(contentLength);
+            return cached.content;
+        }
+
+        misses.incrementAndGet();
+        long cachedAt = System.currentTimeMillis();
+        String content = FileUtils.readToString(resource.getInputStream());
+
+        if (lastModified > 0 && contentLength <= maxSize) {
+            put(key, new CachedContent(content, lastModified, contentLength, cachedAt));
+        }
+
+        return content;
+    }
+
+    /**
+     * Adds content to cache and evicts least recently used entries exceeding maximum size.
+     * @param key
+     * @param content
+     */
+    private void put(String key, CachedContent content) {
+        synchronized (contents) {
+            CachedContent previous = contents.put(key, content);
+            if (previous != null) {
+                cachedBytes -= previous.contentLength;
+            }
+
+            cachedBytes += content.contentLength;
+
+            Iterator<CachedContent> it = contents.values().iterator();
+            while (cachedBytes > maxSize && it.hasNext()) {
+                cachedBytes -= it.next().contentLength;
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Preloads contents of given resources. Preloading does not count as cache miss.
+     * @param resources
+     */
+    public void preload(Resource... resources) {
+        long previousMisses = misses.get();
+
+        for (Resource resource : resources) {
+            try {
+                getContent(resource);
+            } catch (IOException e) {
+                log.warn("Failed to preload resource " + resource.getDescription(), e);
+            }
+        }
+
+        misses.set(previousMisses);
+    }
+
+    /**
+     * Preloads resources matching preload location patterns.
+     */
+    public void afterPropertiesSet() throws Exception {
+        if (preloadLocations != null) {
+            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+
+            for (String location : preloadLocations) {
+                preload(resolver.getResources(location));
+            }
+
+            log.info("Preloaded " + size() + " resources (" + getCachedBytes() + " bytes)");
+        }
+    }
+
+    /**
+     * Removes all cached contents.
+     */
+    public void clear() {
+        synchronized (contents) {
+            contents.clear();
+            cachedBytes = 0L;
+        }
+    }
+
+    /**
+     * Resets hit, miss and bytes saved counters.
+     */
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        bytesSaved.set(0);
+    }
+
+    /**
+     * Gets the number of cached resources.
+     * @return
+     */
+    public int size() {
+        synchronized (contents) {
+            return contents.size();
+        }
+    }
+
+    /**
+     * Gets the number of currently cached bytes.
+     * @return
+     */
+    public long getCachedBytes() {
+        synchronized (contents) {
+            return cachedBytes;
+        }
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the hit ratio between zero and one.
+     * @return
+     */
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total > 0 ? (double) hits.get() / total : 0.0;
+    }
+
+    /**
+     * Gets the number of bytes not read from resources due to cache hits.
+     * @return the bytesSaved
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * Sets the maximum number of cached bytes.
+     * @param maxSize the maxSize to set
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Sets the file system modification time granularity in milliseconds. Resources modified
+     * within this time before being cached are verified by content on each access.
+     * @param modificationGranularity the modificationGranularity to set
+     */
+    public void setModificationGranularity(long modificationGranularity) {
+        this.modificationGranularity = modificationGranularity;
+    }
+
+    /**
+     * Gets the maximum number of cached bytes.
+     * @return the maxSize
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Sets the resource location patterns to preload.
+     * @param preloadLocations the preloadLocations to set
+     */
+    public void setPreloadLocations(String[] preloadLocations) {
+        this.preloadLocations = preloadLocations;
+    }
+
+    /**
+     * Cached resource content with resource modification time, length and time of reading.
+     */
+    private static final class CachedContent {
+        private final String content;
+        private final long lastModified;
+        private final long contentLength;
+        private final long cachedAt;
+
+        /**
+         * Default constructor.
+         */
+        private CachedContent(String content, long lastModified, long contentLength, long cachedAt) {
+            this.content = content;
+            this.lastModified = lastModified;
+            this.contentLength = contentLength;
+            this.cachedAt = cachedAt;
+        }
+    }
+}
@@ -23,7 +23,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
-import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 
 import com.consol.citrus.context.TestContext;
@@ -120,23 +119,14 @@ public class ControlMessageValidator extends AbstractMessageValidator<ControlMes
 
             try {
                 if (actualValue != null) {
-                    Assert.isTrue(expectedValue != null,
-                            "Values not equal for header element '"
-                                + headerName + "', expected '"
-                                + null + "' but was '"
-                                + actualValue + "'");
-
-                    Assert.isTrue(actualValue.equals(expectedValue),
-                            "Values not equal for header element '"
-                                + headerName + "', expected '"
-                                + expectedValue + "' but was '"
-                                + actualValue + "'");
+                    ValidationAssert.isExpected(expectedValue != null,
+                            "Values not equal for header element '%s'", headerName, null, actualValue);
+
+                    ValidationAssert.isExpected(actualValue.equals(expectedValue),
+                            "Values not equal for header element '%s'", headerName, expectedValue, actualValue);
                 } else {
-                    Assert.isTrue(expectedValue == null || expectedValue.length() == 0,
-                            "Values not equal for header element '"
-                                + headerName + "', expected '"
-                                + expectedValue + "' but was '"
-                                + null + "'");
+                    ValidationAssert.isExpected(expectedValue == null || expectedValue.length() == 0,
+                            "Values not equal for header element '%s'", headerName, expectedValue, null);
                 }
             } catch (IllegalArgumentException e) {
                 throw new ValidationException("Validation failed:", e);
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.validation;
+
+/**
+ * Assertion utility used by message validators. Unlike Spring's {@link org.springframework.util.Assert}
+ * the error message is a format pattern that is only filled with its arguments in case the assertion fails.
+ * So validations that pass do not allocate any error message strings.
+ *
+ * Fixed argument overloads avoid varargs array creation for the common cases. Failing assertions
+ * raise {@link IllegalArgumentException} just like Spring's assertions do, so validators keep on
+ * translating those into validation exceptions.
+ *
+ * @author Christoph Deppisch
+ */
+public final class ValidationAssert {
+
+    /** Suffix for messages comparing expected and actual values */
+    private static final String EXPECTED_BUT_WAS = ", expected '%s' but was '%s'";
+
+    /**
+     * Prevent instantiation.
+     */
+    private ValidationAssert() {
+    }
+
+    /**
+     * Asserts expression to be true.
+     * @param expression the boolean expression to check.
+     * @param message the error message.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message) {
+        if (!expression) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Asserts expression to be true. Message pattern is formatted with argument on failure.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern.
+     * @param arg the message argument.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message, Object arg) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message, arg));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. Message pattern is formatted with arguments on failure.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern.
+     * @param arg1 first message argument.
+     * @param arg2 second message argument.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message, Object arg1, Object arg2) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message, arg1, arg2));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. Message pattern is formatted with arguments on failure.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern.
+     * @param arg1 first message argument.
+     * @param arg2 second message argument.
+     * @param arg3 third message argument.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message, Object arg1, Object arg2, Object arg3) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. Message pattern is formatted with arguments on failure.
+     * Primitive overload avoids boxing on successful validation.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern.
+     * @param arg1 first message argument.
+     * @param arg2 second message argument.
+     * @param arg3 third message argument.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message, Object arg1, int arg2, int arg3) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message, arg1, arg2, arg3));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. Message pattern is formatted with arguments on failure.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern.
+     * @param args the message arguments.
+     * @throws IllegalArgumentException
+     */
+    public static void isTrue(boolean expression, String message, Object... args) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message, args));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. On failure the error message is completed with
+     * expected and actual value like "<message>, expected 'foo' but was 'bar'".
+     * @param expression the boolean expression to check.
+     * @param message the error message.
+     * @param expectedValue the expected value.
+     * @param actualValue the actual value.
+     * @throws IllegalArgumentException
+     */
+    public static void isExpected(boolean expression, String message, Object expectedValue, Object actualValue) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(escape(message) + EXPECTED_BUT_WAS, expectedValue, actualValue));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. On failure the error message pattern is formatted with the subject
+     * and completed with expected and actual value like "<message>, expected 'foo' but was 'bar'".
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern holding one placeholder for the subject.
+     * @param subject the subject of this assertion, e.g. element or attribute name.
+     * @param expectedValue the expected value.
+     * @param actualValue the actual value.
+     * @throws IllegalArgumentException
+     */
+    public static void isExpected(boolean expression, String message, Object subject, Object expectedValue, Object actualValue) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message + EXPECTED_BUT_WAS, subject, expectedValue, actualValue));
+        }
+    }
+
+    /**
+     * Asserts expression to be true. On failure the error message pattern is formatted with the subject
+     * and completed with expected and actual number. Primitive overload avoids boxing on successful validation.
+     * @param expression the boolean expression to check.
+     * @param message the error message pattern holding one placeholder for the subject.
+     * @param subject the subject of this assertion, e.g. element or attribute name.
+     * @param expectedValue the expected value.
+     * @param actualValue the actual value.
+     * @throws IllegalArgumentException
+     */
+    public static void isExpected(boolean expression, String message, Object subject, int expectedValue, int actualValue) {
+        if (!expression) {
+            throw new IllegalArgumentException(String.format(message + EXPECTED_BUT_WAS, subject, expectedValue, actualValue));
+        }
+    }
+
+    /**
+     * Escapes format specifiers in plain message.
+     * @param message
+     * @return
+     */
+    private static String escape(String message) {
+        return message.replace("%", "%%");
+    }
+}
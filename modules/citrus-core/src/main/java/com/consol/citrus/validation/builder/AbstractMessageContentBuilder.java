@@ -66,7 +66,7 @@ public abstract class AbstractMessageContentBuilder<T> implements MessageContent
             
             String headerContent = null;
             if (messageHeaderResource != null) {
-                headerContent = context.replaceDynamicContentInString(FileUtils.readToString(messageHeaderResource).trim());
+                headerContent = context.replaceDynamicContentInString(FileUtils.readTemplateToString(messageHeaderResource).trim());
             } else if (messageHeaderData != null){
                 headerContent = context.replaceDynamicContentInString(messageHeaderData.trim());
             }
@@ -50,7 +50,7 @@ public class PayloadTemplateMessageBuilder extends AbstractMessageContentBuilder
             //construct control message payload
             String messagePayload = "";
             if (payloadResource != null) {
-                messagePayload = context.replaceDynamicContentInString(FileUtils.readToString(payloadResource));
+                messagePayload = context.replaceDynamicContentInString(FileUtils.readTemplateToString(payloadResource));
             } else if (payloadData != null){
                 messagePayload = context.replaceDynamicContentInString(payloadData);
             }
@@ -75,6 +75,9 @@ public class XpathMessageConstructionInterceptor implements MessageConstructionI
             throw new CitrusRuntimeException("Not able to set message elements, because no XML ressource defined");
         }
         
+        SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
+        nsContext.setBindings(XMLUtils.lookupNamespaces(messagePayload));
+        
         for (Entry<String, String> entry : xPathExpressions.entrySet()) {
             String pathExpression = entry.getKey();
             String valueExpression = entry.getValue();
@@ -91,8 +94,6 @@ public class XpathMessageConstructionInterceptor implements MessageConstructionI
             
             Node node;
             if (XPathUtils.isXPathExpression(pathExpression)) {
-                SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
-                nsContext.setBindings(XMLUtils.lookupNamespaces(messagePayload));
                 node = XPathUtils.evaluateAsNode(doc, pathExpression, nsContext);
             } else {
                 node = XMLUtils.findNodeByName(doc, pathExpression);
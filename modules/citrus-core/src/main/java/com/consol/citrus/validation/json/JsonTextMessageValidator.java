@@ -24,7 +24,6 @@ import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import org.springframework.integration.Message;
-import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import com.consol.citrus.CitrusConstants;
@@ -33,6 +32,7 @@ import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.ValidationException;
 import com.consol.citrus.message.MessageType;
 import com.consol.citrus.validation.ControlMessageValidator;
+import com.consol.citrus.validation.ValidationAssert;
 import com.consol.citrus.validation.matcher.ValidationMatcherUtils;
 
 /**
@@ -61,11 +61,11 @@ public class JsonTextMessageValidator extends ControlMessageValidator {
         
         try {
             if (!StringUtils.hasText(controlJsonText)) {
-                Assert.isTrue(!StringUtils.hasText(receivedJsonText), "Validation failed - " +
-                		"expected empty message content, but was: " + receivedJsonText);
+                ValidationAssert.isTrue(!StringUtils.hasText(receivedJsonText), "Validation failed - " +
+                		"expected empty message content, but was: %s", receivedJsonText);
                 return; // empty message contents as expected - validation finished
             } else {
-                Assert.isTrue(StringUtils.hasText(receivedJsonText), "Validation failed - " +
+                ValidationAssert.isTrue(StringUtils.hasText(receivedJsonText), "Validation failed - " +
                 		"expected message contents, but received empty message!");
             }
             
@@ -95,21 +95,19 @@ public class JsonTextMessageValidator extends ControlMessageValidator {
      */
     @SuppressWarnings("rawtypes")
     public void validateJson(JSONObject receivedJson, JSONObject controlJson, TestContext context) {
-        Assert.isTrue(controlJson.size() == receivedJson.size(), 
-                "Number of JSON entries not equal, expected '" + controlJson.size() + 
-                "' but was '" + receivedJson.size() + "'");
+        ValidationAssert.isExpected(controlJson.size() == receivedJson.size(), 
+                "Number of JSON entries not equal", controlJson.size(), receivedJson.size());
         
         for (Iterator it = controlJson.entrySet().iterator(); it.hasNext();) {
             Entry controlJsonEntry = (Entry)it.next();
             
-            Assert.isTrue(receivedJson.containsKey(controlJsonEntry.getKey()), 
-                    "Missing JSON entry: + '" + controlJsonEntry.getKey() + "'");
+            ValidationAssert.isTrue(receivedJson.containsKey(controlJsonEntry.getKey()), 
+                    "Missing JSON entry: + '%s'", controlJsonEntry.getKey());
             
             if (controlJsonEntry.getValue() == null) {
-                Assert.isTrue(receivedJson.get(controlJsonEntry.getKey()) == null, 
-                        "Values not equal for entry: '" + controlJsonEntry.getKey() + "'" +
-                                ", expected '" + controlJsonEntry.getValue() + "' " +
-                                "but was '" + receivedJson.get(controlJsonEntry.getKey()) + "'");
+                ValidationAssert.isExpected(receivedJson.get(controlJsonEntry.getKey()) == null, 
+                        "Values not equal for entry: '%s'", controlJsonEntry.getKey(), 
+                        controlJsonEntry.getValue(), receivedJson.get(controlJsonEntry.getKey()));
                 
                 if (log.isDebugEnabled()) {
                     log.debug("Validation successful for JSON entry '" + controlJsonEntry.getKey() + "' (" + controlJsonEntry.getValue() + ")");
@@ -131,16 +129,18 @@ public class JsonTextMessageValidator extends ControlMessageValidator {
                 ValidationMatcherUtils.resolveValidationMatcher(controlJsonEntry.getKey().toString(), receivedJson.get(controlJsonEntry.getKey()).toString(), controlJsonEntry.getValue().toString(), context);
             
             } else if (controlJsonEntry.getValue() instanceof JSONObject) {
-                Assert.isTrue(receivedJson.get(controlJsonEntry.getKey()) instanceof JSONObject, 
-                        "Type mismatch for JSON entry '" + controlJsonEntry.getKey() + "', " + 
-                    "expected '" + JSONObject.class.getSimpleName() + "' but was '" + receivedJson.get(controlJsonEntry.getKey()).getClass().getSimpleName() + "'");
+                if (!(receivedJson.get(controlJsonEntry.getKey()) instanceof JSONObject)) {
+                    ValidationAssert.isExpected(false, "Type mismatch for JSON entry '%s'", controlJsonEntry.getKey(), 
+                        JSONObject.class.getSimpleName(), receivedJson.get(controlJsonEntry.getKey()).getClass().getSimpleName());
+                }
                 
                 validateJson((JSONObject) receivedJson.get(controlJsonEntry.getKey()), 
                              (JSONObject) controlJsonEntry.getValue(), context);
             } else if (controlJsonEntry.getValue() instanceof JSONArray) {
-                Assert.isTrue(receivedJson.get(controlJsonEntry.getKey()) instanceof JSONArray, 
-                    "Type mismatch for JSON entry '" + controlJsonEntry.getKey() + "', " + 
-                    "expected '" + JSONArray.class.getSimpleName() + "' but was '" + receivedJson.get(controlJsonEntry.getKey()).getClass().getSimpleName() + "'");
+                if (!(receivedJson.get(controlJsonEntry.getKey()) instanceof JSONArray)) {
+                    ValidationAssert.isExpected(false, "Type mismatch for JSON entry '%s'", controlJsonEntry.getKey(), 
+                        JSONArray.class.getSimpleName(), receivedJson.get(controlJsonEntry.getKey()).getClass().getSimpleName());
+                }
                 
                 JSONArray jsonArrayControl = (JSONArray) controlJsonEntry.getValue();
                 JSONArray jsonArrayReceived = (JSONArray) receivedJson.get(controlJsonEntry.getKey());
@@ -149,19 +149,18 @@ public class JsonTextMessageValidator extends ControlMessageValidator {
                     log.debug("Validating JSONArray containing " + jsonArrayControl.size() + " entries");
                 }
                 
-                Assert.isTrue(jsonArrayControl.size() == jsonArrayReceived.size(), 
-                        "JSONArray size mismatch for JSON entry '" + controlJsonEntry.getKey() + "', " +
-                        "expected " + jsonArrayControl.size() + " but was " + jsonArrayReceived.size());
+                ValidationAssert.isTrue(jsonArrayControl.size() == jsonArrayReceived.size(), 
+                        "JSONArray size mismatch for JSON entry '%s', expected %s but was %s", 
+                        controlJsonEntry.getKey(), jsonArrayControl.size(), jsonArrayReceived.size());
                 
                 for (int i = 0; i < jsonArrayControl.size(); i++) {
                     validateJson((JSONObject) jsonArrayReceived.get(i), 
                             (JSONObject) jsonArrayControl.get(i), context);
                 }
             } else {
-                Assert.isTrue(controlJsonEntry.getValue().equals(receivedJson.get(controlJsonEntry.getKey())), 
-                        "Values not equal for entry: '" + controlJsonEntry.getKey() + "'" +
-                                ", expected '" + controlJsonEntry.getValue() + "' " +
-                                "but was '" + receivedJson.get(controlJsonEntry.getKey()) + "'");
+                ValidationAssert.isExpected(controlJsonEntry.getValue().equals(receivedJson.get(controlJsonEntry.getKey())), 
+                        "Values not equal for entry: '%s'", controlJsonEntry.getKey(), 
+                        controlJsonEntry.getValue(), receivedJson.get(controlJsonEntry.getKey()));
             }
             
             if (log.isDebugEnabled()) {
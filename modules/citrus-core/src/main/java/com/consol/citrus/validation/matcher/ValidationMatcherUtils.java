@@ -18,7 +18,6 @@ package com.consol.citrus.validation.matcher;
 
 import com.consol.citrus.CitrusConstants;
 import com.consol.citrus.context.TestContext;
-import com.consol.citrus.functions.FunctionUtils;
 import com.consol.citrus.variable.VariableUtils;
 
 /**
@@ -50,8 +49,7 @@ public final class ValidationMatcherUtils {
 
         ValidationMatcherLibrary library = context.getValidationMatcherRegistry().getLibraryForPrefix(prefix);
 
-        controlString = VariableUtils.replaceVariablesInString(controlString, context, false);
-        controlString = FunctionUtils.replaceFunctionsInString(controlString, context);
+        controlString = context.replaceDynamicContentInString(controlString);
         if (controlString.contains("\'")) {
             controlString = controlString.substring(controlString.indexOf('\'') + 1, controlString.lastIndexOf('\''));
         }
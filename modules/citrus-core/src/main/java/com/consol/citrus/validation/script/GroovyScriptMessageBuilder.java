@@ -16,7 +16,6 @@
 
 package com.consol.citrus.validation.script;
 
-import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
 
 import java.io.IOException;
@@ -27,6 +26,7 @@ import org.springframework.core.io.Resource;
 
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.script.GroovyScriptCache;
 import com.consol.citrus.util.FileUtils;
 import com.consol.citrus.validation.builder.AbstractMessageContentBuilder;
 
@@ -55,7 +55,7 @@ public class GroovyScriptMessageBuilder extends AbstractMessageContentBuilder<St
             String messagePayload = "";
             if (scriptResource != null){
                 messagePayload = buildMarkupBuilderScript(context.replaceDynamicContentInString(
-                        FileUtils.readToString(scriptResource)));
+                        FileUtils.readTemplateToString(scriptResource)));
             } else if (scriptData != null){
                 messagePayload = buildMarkupBuilderScript(context.replaceDynamicContentInString(
                         scriptData));
@@ -75,12 +75,11 @@ public class GroovyScriptMessageBuilder extends AbstractMessageContentBuilder<St
      */
     private String buildMarkupBuilderScript(String scriptData) {
         try {
-            ClassLoader parent = GroovyScriptMessageBuilder.class.getClassLoader(); 
-            GroovyClassLoader loader = new GroovyClassLoader(parent);
+            String code = TemplateBasedScriptBuilder.fromTemplateResource(scriptTemplateResource)
+                                                    .withCode(scriptData)
+                                                    .build();
             
-            Class<?> groovyClass = loader.parseClass(TemplateBasedScriptBuilder.fromTemplateResource(scriptTemplateResource)
-                                                            .withCode(scriptData)
-                                                            .build());
+            Class<?> groovyClass = GroovyScriptCache.getInstance().parseClass(code, GroovyScriptMessageBuilder.class.getClassLoader());
             
             if (groovyClass == null) {
                 throw new CitrusRuntimeException("Could not load groovy script!");    
@@ -79,7 +79,7 @@ public class ScriptValidationContext implements ValidationContext {
     public String getValidationScript(TestContext context) {
         try {
             if (validationScriptResource != null) {
-                return context.replaceDynamicContentInString(FileUtils.readToString(validationScriptResource));
+                return context.replaceDynamicContentInString(FileUtils.readTemplateToString(validationScriptResource));
             } else if (validationScript != null) {
                 return context.replaceDynamicContentInString(validationScript);
             } else {
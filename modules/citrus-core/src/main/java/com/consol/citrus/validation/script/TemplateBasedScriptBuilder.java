@@ -115,7 +115,7 @@ public final class TemplateBasedScriptBuilder {
      */
     public static TemplateBasedScriptBuilder fromTemplateResource(Resource scriptTemplateResource) {
         try {
-            return new TemplateBasedScriptBuilder(FileUtils.readToString(scriptTemplateResource.getInputStream()));
+            return new TemplateBasedScriptBuilder(FileUtils.readTemplateToString(scriptTemplateResource));
         } catch (IOException e) {
             throw new CitrusRuntimeException("Error loading script template from file resource", e);
         }
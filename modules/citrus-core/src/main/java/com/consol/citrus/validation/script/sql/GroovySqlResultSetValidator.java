@@ -16,7 +16,6 @@
 
 package com.consol.citrus.validation.script.sql;
 
-import groovy.lang.GroovyClassLoader;
 import groovy.lang.GroovyObject;
 
 import java.util.List;
@@ -32,6 +31,7 @@ import org.springframework.util.StringUtils;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.ValidationException;
+import com.consol.citrus.script.GroovyScriptCache;
 import com.consol.citrus.script.ScriptTypes;
 import com.consol.citrus.validation.script.*;
 
@@ -76,10 +76,11 @@ public class GroovySqlResultSetValidator implements SqlResultSetScriptValidator
                 if (StringUtils.hasText(validationScript)) {
                     log.info("Start groovy SQL result set validation");
                     
-                    GroovyClassLoader loader = new GroovyClassLoader(GroovyScriptMessageValidator.class.getClassLoader());
-                    Class<?> groovyClass = loader.parseClass(TemplateBasedScriptBuilder.fromTemplateResource(scriptTemplateResource)
-                                                                .withCode(validationScript)
-                                                                .build());
+                    String code = TemplateBasedScriptBuilder.fromTemplateResource(scriptTemplateResource)
+                                                              .withCode(validationScript)
+                                                              .build();
+                    
+                    Class<?> groovyClass = GroovyScriptCache.getInstance().parseClass(code, GroovySqlResultSetValidator.class.getClassLoader());
                     
                     if (groovyClass == null) {
                         throw new CitrusRuntimeException("Failed to load groovy validation script resource");
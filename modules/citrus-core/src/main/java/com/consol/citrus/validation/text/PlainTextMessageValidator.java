@@ -17,12 +17,12 @@
 package com.consol.citrus.validation.text;
 
 import org.springframework.integration.Message;
-import org.springframework.util.Assert;
 
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.ValidationException;
 import com.consol.citrus.message.MessageType;
 import com.consol.citrus.validation.ControlMessageValidator;
+import com.consol.citrus.validation.ValidationAssert;
 
 /**
  * Plain text validator using simple String comparison.
@@ -59,9 +59,8 @@ public class PlainTextMessageValidator extends ControlMessageValidator {
      * @param controlMessagePayload
      */
     private void validateText(String receivedMessagePayload, String controlMessagePayload) {
-        Assert.isTrue(receivedMessagePayload.equals(controlMessagePayload),
-                "Plain text values not equal, expected '" + controlMessagePayload + "' " +
-                		"but was '" + receivedMessagePayload + "'");
+        ValidationAssert.isExpected(receivedMessagePayload.equals(controlMessagePayload),
+                "Plain text values not equal", controlMessagePayload, receivedMessagePayload);
     }
 
     @Override
@@ -22,6 +22,7 @@ import java.util.Map.Entry;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.validation.Validator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,10 +31,9 @@ import org.springframework.core.io.Resource;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.util.*;
-import org.springframework.xml.validation.XmlValidator;
-import org.springframework.xml.xsd.XsdSchema;
 import org.w3c.dom.*;
 import org.w3c.dom.ls.LSException;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 
@@ -46,9 +46,11 @@ import com.consol.citrus.message.MessageType;
 import com.consol.citrus.util.XMLUtils;
 import com.consol.citrus.validation.AbstractMessageValidator;
 import com.consol.citrus.validation.ControlMessageValidator;
+import com.consol.citrus.validation.ValidationAssert;
 import com.consol.citrus.validation.context.ValidationContext;
 import com.consol.citrus.validation.matcher.ValidationMatcherUtils;
 import com.consol.citrus.variable.VariableUtils;
+import com.consol.citrus.xml.ParsedXmlMessage;
 import com.consol.citrus.xml.XsdSchemaRepository;
 import com.consol.citrus.xml.namespace.NamespaceContextBuilder;
 import com.consol.citrus.xml.xpath.XPathExpressionResult;
@@ -147,8 +149,9 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         
         log.info("Start XML elements validation");
 
-        Document received = XMLUtils.parseMessagePayload(receivedMessage.getPayload().toString());
+        Document received = ParsedXmlMessage.fromMessage(receivedMessage).getDocument();
         NamespaceContext namespaceContext = namespaceContextBuilder.buildContext(receivedMessage, validationContext.getNamespaces());
+        IgnoredNodeSet ignoredNodes = IgnoredNodeSet.resolve(received, validationContext.getIgnoreExpressions(), namespaceContext);
         
         for (Entry<String, String> entry : validationContext.getPathValidationExpressions().entrySet()) {
             String elementPathExpression = entry.getKey();
@@ -163,11 +166,9 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
 
                 //Give ignore elements the chance to prevent the validation in case result type is node
                 if (resultType.equals(XPathExpressionResult.NODE) &&
-                        isNodeIgnored(XPathUtils.evaluateAsNode(received, 
+                        ignoredNodes.contains(XPathUtils.evaluateAsNode(received, 
                                 elementPathExpression, 
-                                namespaceContext), 
-                                validationContext,
-                                namespaceContext)) {
+                                namespaceContext))) {
                     continue;
                 }
 
@@ -182,7 +183,7 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
                     throw new UnknownElementException("Element ' " + elementPathExpression + "' could not be found in DOM tree");
                 }
 
-                if (isNodeIgnored(node, validationContext, namespaceContext)) {
+                if (ignoredNodes.contains(node)) {
                     continue;
                 }
 
@@ -201,14 +202,14 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
 
             try {
                 if (actualValue != null) {
-                    Assert.isTrue(expectedValue != null,
-                            buildValidationErrorMessage("Values not equal for element '" + elementPathExpression + "'", null, actualValue));
+                    ValidationAssert.isExpected(expectedValue != null,
+                            "Values not equal for element '%s'", elementPathExpression, null, actualValue);
 
-                    Assert.isTrue(actualValue.equals(expectedValue),
-                            buildValidationErrorMessage("Values not equal for element '" + elementPathExpression + "'", expectedValue, actualValue));
+                    ValidationAssert.isExpected(actualValue.equals(expectedValue),
+                            "Values not equal for element '%s'", elementPathExpression, expectedValue, actualValue);
                 } else {
-                    Assert.isTrue(expectedValue == null || expectedValue.length() == 0,
-                            buildValidationErrorMessage("Values not equal for element '" + elementPathExpression + "'", expectedValue, null));
+                    ValidationAssert.isExpected(expectedValue == null || expectedValue.length() == 0,
+                            "Values not equal for element '%s'", elementPathExpression, expectedValue, null);
                 }
             } catch (IllegalArgumentException e) {
                 throw new ValidationException("Validation failed:", e);
@@ -243,7 +244,7 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         }
         
         try {
-            Document doc = XMLUtils.parseMessagePayload(receivedMessage.getPayload().toString());
+            Document doc = ParsedXmlMessage.fromMessage(receivedMessage).getDocument();
 
             if (!StringUtils.hasText(doc.getFirstChild().getNamespaceURI())) {
                 return;
@@ -251,19 +252,31 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
 
             log.info("Starting XML schema validation ...");
 
-            XsdSchema schema = schemaRepository.getSchemaByNamespace(doc.getFirstChild().getNamespaceURI());
+            Validator validator = schemaRepository.getValidator(doc.getFirstChild().getNamespaceURI(), doc.getFirstChild().getLocalName());
 
-            Assert.notNull(schema, "No schema found in schemaRepository for namespace '" + doc.getFirstChild().getNamespaceURI() + "'");
+            Assert.notNull(validator, "No schema found in schemaRepository for namespace '" + doc.getFirstChild().getNamespaceURI() + "'");
 
-            XmlValidator validator = schema.createValidator();
-
-            SAXParseException[] results = validator.validate(new DOMSource(doc));
+            final List<SAXParseException> results = new ArrayList<SAXParseException>();
+            validator.setErrorHandler(new ErrorHandler() {
+                public void warning(SAXParseException exception) {
+                }
+                
+                public void error(SAXParseException exception) {
+                    results.add(exception);
+                }
+                
+                public void fatalError(SAXParseException exception) {
+                    results.add(exception);
+                }
+            });
+            
+            validator.validate(new DOMSource(doc));
 
-            if (results.length == 0) {
+            if (results.isEmpty()) {
                 log.info("Schema of received XML validated OK");
             } else {
                 log.error("Schema validation failed for message:\n" + XMLUtils.prettyPrint(receivedMessage.getPayload().toString()));
-                throw new ValidationException("Schema validation failed:", results[0]);
+                throw new ValidationException("Schema validation failed:", results.get(0));
             }
         } catch (IOException e) {
             throw new CitrusRuntimeException(e);
@@ -289,9 +302,10 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         
         log.info("Start XML namespace validation");
 
-        Document received = XMLUtils.parseMessagePayload(receivedMessage.getPayload().toString());
+        ParsedXmlMessage parsedMessage = ParsedXmlMessage.fromMessage(receivedMessage);
+        Document received = parsedMessage.getDocument();
 
-        Map<String, String> foundNamespaces = XMLUtils.lookupNamespaces(receivedMessage.getPayload().toString());
+        Map<String, String> foundNamespaces = parsedMessage.getNamespaces();
 
         if (foundNamespaces.size() != expectedNamespaces.size()) {
             throw new ValidationException("Number of namespace declarations not equal for node " + XMLUtils.getNodesPathName(received.getFirstChild()) + " found " + foundNamespaces.size() + " expected " + expectedNamespaces.size());
@@ -347,10 +361,9 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
 
         log.info("Start XML tree validation ...");
 
-        Document received = XMLUtils.parseMessagePayload(receivedMessage.getPayload().toString());
+        Document received = ParsedXmlMessage.fromMessage(receivedMessage).getStrippedDocument();
         Document source = XMLUtils.parseMessagePayload(controlMessagePayload);
 
-        XMLUtils.stripWhitespaceNodes(received);
         XMLUtils.stripWhitespaceNodes(source);
 
         if (log.isDebugEnabled()) {
@@ -358,7 +371,10 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
             log.debug("Control message:\n" + XMLUtils.serialize(source));
         }
 
-        validateXmlTree(received, source, validationContext, namespaceContextBuilder.buildContext(receivedMessage, validationContext.getNamespaces()), context);
+        NamespaceContext namespaceContext = namespaceContextBuilder.buildContext(receivedMessage, validationContext.getNamespaces());
+        IgnoredNodeSet ignoredNodes = IgnoredNodeSet.resolve(received, validationContext.getIgnoreExpressions(), namespaceContext);
+
+        validateXmlTree(received, source, ignoredNodes, context);
     }
 
     /**
@@ -366,20 +382,21 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
      *
      * @param received
      * @param source
-     * @param validationContext
+     * @param ignoredNodes
+     * @param context
      */
     private void validateXmlTree(Node received, Node source, 
-            XmlMessageValidationContext validationContext, NamespaceContext namespaceContext, TestContext context) {
+            IgnoredNodeSet ignoredNodes, TestContext context) {
         switch(received.getNodeType()) {
             case Node.DOCUMENT_TYPE_NODE:
-                doDocumentTypeDefinition(received, source, validationContext, namespaceContext, context);
+                doDocumentTypeDefinition(received, source, ignoredNodes, context);
                 break;
             case Node.DOCUMENT_NODE:
                 validateXmlTree(received.getFirstChild(), source.getFirstChild(), 
-                        validationContext, namespaceContext, context);
+                        ignoredNodes, context);
                 break;
             case Node.ELEMENT_NODE:
-                doElement(received, source, validationContext, namespaceContext, context);
+                doElement(received, source, ignoredNodes, context);
                 break;
             case Node.TEXT_NODE: case Node.CDATA_SECTION_NODE:
                 doText(received, source);
@@ -400,12 +417,11 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
      * 
      * @param received
      * @param source
-     * @param validationContext
-     * @param namespaceContext
+     * @param ignoredNodes
+     * @param context
      */
     private void doDocumentTypeDefinition(Node received, Node source,
-            XmlMessageValidationContext validationContext,
-            NamespaceContext namespaceContext, TestContext context) {
+            IgnoredNodeSet ignoredNodes, TestContext context) {
 
         Assert.isTrue(source instanceof DocumentType, "Missing document type definition in expected xml fragment");
         
@@ -417,32 +433,32 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         }
         
         if (!StringUtils.hasText(sourceDTD.getPublicId())) {
-            Assert.isNull(receivedDTD.getPublicId(), 
-                    buildValidationErrorMessage("Document type public id not equal", sourceDTD.getPublicId(), receivedDTD.getPublicId()));
+            ValidationAssert.isExpected(receivedDTD.getPublicId() == null, 
+                    "Document type public id not equal", sourceDTD.getPublicId(), receivedDTD.getPublicId());
         } else if (sourceDTD.getPublicId().trim().equals(CitrusConstants.IGNORE_PLACEHOLDER)) {
             if (log.isDebugEnabled()) {
                 log.debug("Document type public id: '" + receivedDTD.getPublicId() +
                         "' is ignored by placeholder '" + CitrusConstants.IGNORE_PLACEHOLDER + "'");
             }
         } else {
-            Assert.isTrue(StringUtils.hasText(receivedDTD.getPublicId()) && receivedDTD.getPublicId().equals(sourceDTD.getPublicId()), 
-                    buildValidationErrorMessage("Document type public id not equal", sourceDTD.getPublicId(), receivedDTD.getPublicId()));
+            ValidationAssert.isExpected(StringUtils.hasText(receivedDTD.getPublicId()) && receivedDTD.getPublicId().equals(sourceDTD.getPublicId()), 
+                    "Document type public id not equal", sourceDTD.getPublicId(), receivedDTD.getPublicId());
         }
         
         if (!StringUtils.hasText(sourceDTD.getSystemId())) {
-            Assert.isNull(receivedDTD.getSystemId(), 
-                    buildValidationErrorMessage("Document type system id not equal", sourceDTD.getSystemId(), receivedDTD.getSystemId()));
+            ValidationAssert.isExpected(receivedDTD.getSystemId() == null, 
+                    "Document type system id not equal", sourceDTD.getSystemId(), receivedDTD.getSystemId());
         } else if (sourceDTD.getSystemId().trim().equals(CitrusConstants.IGNORE_PLACEHOLDER)) {
             if (log.isDebugEnabled()) {
                 log.debug("Document type system id: '" + receivedDTD.getSystemId() + 
                         "' is ignored by placeholder '" + CitrusConstants.IGNORE_PLACEHOLDER + "'");
             }
         } else {
-            Assert.isTrue(StringUtils.hasText(receivedDTD.getSystemId()) && receivedDTD.getSystemId().equals(sourceDTD.getSystemId()), 
-                    buildValidationErrorMessage("Document type system id not equal", sourceDTD.getSystemId(), receivedDTD.getSystemId()));
+            ValidationAssert.isExpected(StringUtils.hasText(receivedDTD.getSystemId()) && receivedDTD.getSystemId().equals(sourceDTD.getSystemId()), 
+                    "Document type system id not equal", sourceDTD.getSystemId(), receivedDTD.getSystemId());
         }
         
-        validateXmlTree(received.getNextSibling(), source.getNextSibling(), validationContext, namespaceContext, context);
+        validateXmlTree(received.getNextSibling(), source.getNextSibling(), ignoredNodes, context);
     }
 
     /**
@@ -450,17 +466,18 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
      *
      * @param received
      * @param source
-     * @param validationContext
+     * @param ignoredNodes
+     * @param context
      */
     private void doElement(Node received, Node source, 
-            XmlMessageValidationContext validationContext, NamespaceContext namespaceContext, TestContext context) {
+            IgnoredNodeSet ignoredNodes, TestContext context) {
         //validate element name
         if (log.isDebugEnabled()) {
             log.debug("Validating element: " + received.getLocalName() + " (" + received.getNamespaceURI() + ")");
         }
 
-        Assert.isTrue(received.getLocalName().equals(source.getLocalName()),
-                buildValidationErrorMessage("Element names not equal", source.getLocalName(), received.getLocalName()));
+        ValidationAssert.isExpected(received.getLocalName().equals(source.getLocalName()),
+                "Element names not equal", source.getLocalName(), received.getLocalName());
 
         //validate element namespace
         if (log.isDebugEnabled()) {
@@ -468,21 +485,21 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         }
 
         if (received.getNamespaceURI() != null) {
-            Assert.isTrue(source.getNamespaceURI() != null,
-                    buildValidationErrorMessage("Element namespace not equal for element '" + received.getLocalName() + "'", 
-                            null, received.getNamespaceURI()));
+            ValidationAssert.isExpected(source.getNamespaceURI() != null,
+                    "Element namespace not equal for element '%s'", received.getLocalName(), 
+                            null, received.getNamespaceURI());
 
-            Assert.isTrue(received.getNamespaceURI().equals(source.getNamespaceURI()),
-                    buildValidationErrorMessage("Element namespace not equal for element '" + received.getLocalName() + "'", 
-                        source.getNamespaceURI(), received.getNamespaceURI()));
+            ValidationAssert.isExpected(received.getNamespaceURI().equals(source.getNamespaceURI()),
+                    "Element namespace not equal for element '%s'", received.getLocalName(), 
+                        source.getNamespaceURI(), received.getNamespaceURI());
         } else {
-            Assert.isTrue(source.getNamespaceURI() == null,
-                    buildValidationErrorMessage("Element namespace not equal for element '" + received.getLocalName() + "'", 
-                    source.getNamespaceURI(), null));
+            ValidationAssert.isExpected(source.getNamespaceURI() == null,
+                    "Element namespace not equal for element '%s'", received.getLocalName(), 
+                    source.getNamespaceURI(), null);
         }
 
         //check if element is ignored either by xpath or by ignore placeholder in source message
-        if (isNodeIgnored(received, validationContext, namespaceContext)) {
+        if (ignoredNodes.contains(received)) {
             if (log.isDebugEnabled()) {
                 log.debug("Element: '" + received.getLocalName() + "' is on ignore list - skipped validation");
             }
@@ -510,25 +527,25 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         NamedNodeMap receivedAttr = received.getAttributes();
         NamedNodeMap sourceAttr = source.getAttributes();
 
-        Assert.isTrue(countAttributes(receivedAttr) == countAttributes(sourceAttr),
-                buildValidationErrorMessage("Number of attributes not equal for element '" 
-                        + received.getLocalName() + "'", countAttributes(sourceAttr), countAttributes(receivedAttr)));
+        int receivedAttrCount = countAttributes(receivedAttr);
+        int sourceAttrCount = countAttributes(sourceAttr);
+        ValidationAssert.isExpected(receivedAttrCount == sourceAttrCount,
+                "Number of attributes not equal for element '%s'", received.getLocalName(), sourceAttrCount, receivedAttrCount);
 
         for(int i = 0; i<receivedAttr.getLength(); i++) {
-            doAttribute(received, receivedAttr.item(i), sourceAttr, validationContext, namespaceContext, context);
+            doAttribute(received, receivedAttr.item(i), sourceAttr, ignoredNodes, context);
         }
 
         //work on child nodes
         NodeList receivedChilds = received.getChildNodes();
         NodeList sourceChilds = source.getChildNodes();
 
-        Assert.isTrue(receivedChilds.getLength() == sourceChilds.getLength(),
-                buildValidationErrorMessage("Number of child elements not equal for element '"
-                    + received.getLocalName() + "'", sourceChilds.getLength(), receivedChilds.getLength()));
+        ValidationAssert.isExpected(receivedChilds.getLength() == sourceChilds.getLength(),
+                "Number of child elements not equal for element '%s'", received.getLocalName(), sourceChilds.getLength(), receivedChilds.getLength());
 
         for(int i = 0; i<receivedChilds.getLength(); i++) {
             this.validateXmlTree(receivedChilds.item(i), sourceChilds.item(i), 
-                    validationContext, namespaceContext, context);
+                    ignoredNodes, context);
         }
 
         if (log.isDebugEnabled()) {
@@ -548,21 +565,21 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         }
 
         if (received.getNodeValue() != null) {
-            Assert.isTrue(source.getNodeValue() != null,
-                    buildValidationErrorMessage("Node value not equal for element '"
-                            + received.getParentNode().getLocalName() + "'", null, received.getNodeValue().trim()));
+            String receivedValue = received.getNodeValue().trim();
+
+            ValidationAssert.isExpected(source.getNodeValue() != null,
+                    "Node value not equal for element '%s'", received.getParentNode().getLocalName(), null, receivedValue);
 
-            Assert.isTrue(received.getNodeValue().trim().equals(source.getNodeValue().trim()),
-                    buildValidationErrorMessage("Node value not equal for element '"
-                            + received.getParentNode().getLocalName() + "'", source.getNodeValue().trim(), received.getNodeValue().trim()));
+            String sourceValue = source.getNodeValue().trim();
+            ValidationAssert.isExpected(receivedValue.equals(sourceValue),
+                    "Node value not equal for element '%s'", received.getParentNode().getLocalName(), sourceValue, receivedValue);
         } else {
-            Assert.isTrue(source.getNodeValue() == null,
-                    buildValidationErrorMessage("Node value not equal for element '"
-                            + received.getParentNode().getLocalName() + "'", source.getNodeValue().trim(), null));
+            ValidationAssert.isExpected(source.getNodeValue() == null,
+                    "Node value not equal for element '%s'", received.getParentNode().getLocalName(), source.getNodeValue(), null);
         }
 
         if (log.isDebugEnabled()) {
-            log.debug("Node value '" + received.getNodeValue().trim() + "': OK");
+            log.debug("Node value '" + (received.getNodeValue() != null ? received.getNodeValue().trim() : null) + "': OK");
         }
     }
 
@@ -572,10 +589,11 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
      * @param element
      * @param received
      * @param sourceAttributes
-     * @param validationContext
+     * @param ignoredNodes
+     * @param context
      */
     private void doAttribute(Node element, Node received, NamedNodeMap sourceAttributes, 
-            XmlMessageValidationContext validationContext, NamespaceContext namespaceContext, TestContext context) {
+            IgnoredNodeSet ignoredNodes, TestContext context) {
         if (received.getNodeName().startsWith("xmlns")) { return; }
 
         String receivedName = received.getLocalName();
@@ -586,13 +604,12 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
 
         Node source = sourceAttributes.getNamedItemNS(received.getNamespaceURI(), receivedName);
 
-        Assert.isTrue(source != null,
-                "Attribute validation failed for element '"
-                    + element.getLocalName() + "', unknown attribute "
-                    + receivedName + " (" + received.getNamespaceURI() + ")");
+        ValidationAssert.isTrue(source != null,
+                "Attribute validation failed for element '%s', unknown attribute %s (%s)",
+                element.getLocalName(), receivedName, received.getNamespaceURI());
 
         if ((StringUtils.hasText(source.getNodeValue()) && source.getNodeValue().trim().equals(CitrusConstants.IGNORE_PLACEHOLDER)) 
-                || isAttributeIgnored(element, received, validationContext, namespaceContext)) {
+                || ignoredNodes.contains(received)) {
             if (log.isDebugEnabled()) {
                 log.debug("Attribute '" + receivedName + "' is on ignore list - skipped value validation");
             }
@@ -608,9 +625,8 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         String receivedValue = received.getNodeValue();
         String sourceValue = source.getNodeValue();
 
-        Assert.isTrue(receivedValue.equals(sourceValue),
-                buildValidationErrorMessage("Values not equal for attribute '"
-                    + receivedName + "'", sourceValue, receivedValue));
+        ValidationAssert.isExpected(receivedValue.equals(sourceValue),
+                "Values not equal for attribute '%s'", receivedName, sourceValue, receivedValue);
 
         if (log.isDebugEnabled()) {
             log.debug("Attribute '" + receivedName + "'='" + receivedValue + "': OK");
@@ -654,118 +670,6 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         return cntAttributes;
     }
 
-    /**
-     * Checks whether the current attribute is ignored.
-     * @param elementNode
-     * @param attributeNode
-     * @param validationContext
-     * @return
-     */
-    private boolean isAttributeIgnored(Node elementNode, Node attributeNode, 
-            XmlMessageValidationContext validationContext, NamespaceContext namespaceContext) {
-        Set<String> ignoreMessageElements = validationContext.getIgnoreExpressions();
-
-        if (CollectionUtils.isEmpty(ignoreMessageElements)) {
-            return false;
-        }
-        
-        /** This is the faster version, but then the ignoreValue name must be
-         * the full path name like: Numbers.NumberItem.AreaCode
-         */
-        if (ignoreMessageElements.contains(XMLUtils.getNodesPathName(elementNode) + "." + attributeNode.getNodeName())) {
-            return true;
-        }
-
-        /** This is the slower version, but here the ignoreValues can be
-         * the short path name like only: AreaCode
-         *
-         * If there are more nodes with the same short name,
-         * the first one will match, eg. if there are:
-         *      Numbers1.NumberItem.AreaCode
-         *      Numbers2.NumberItem.AreaCode
-         * And ignoreValues contains just: AreaCode
-         * the only first Node: Numbers1.NumberItem.AreaCode will be ignored.
-         */
-        for (String expression : ignoreMessageElements) {
-            Node foundAttributeNode = XMLUtils.findNodeByName(elementNode.getOwnerDocument(), expression);
-
-            if (foundAttributeNode != null && attributeNode.isSameNode(foundAttributeNode)) {
-                return true;
-            }
-        }
-
-        /** This is the XPath version using XPath expressions in
-         * ignoreValues to identify nodes to be ignored
-         */
-        for (String expression : ignoreMessageElements) {
-            if (XPathUtils.isXPathExpression(expression)) {
-                Node foundAttributeNode = XPathUtils.evaluateAsNode(elementNode.getOwnerDocument(), 
-                        expression, 
-                        namespaceContext);
-                if (foundAttributeNode != null && foundAttributeNode.isSameNode(attributeNode)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
-    /**
-     * Checks whether the node is ignored.
-     * @param node
-     * @param validationContext
-     * @return
-     */
-    private boolean isNodeIgnored(final Node node, XmlMessageValidationContext validationContext,
-            NamespaceContext namespaceContext) {
-        Set<String> ignoreMessageElements = validationContext.getIgnoreExpressions();
-
-        if (CollectionUtils.isEmpty(ignoreMessageElements)) {
-            return false;
-        }
-
-        /** This is the faster version, but then the ignoreValue name must be
-         * the full path name like: Numbers.NumberItem.AreaCode
-         */
-        if (ignoreMessageElements.contains(XMLUtils.getNodesPathName(node))) {
-            return true;
-        }
-
-        /** This is the slower version, but here the ignoreValues can be
-         * the short path name like only: AreaCode
-         *
-         * If there are more nodes with the same short name,
-         * the first one will match, eg. if there are:
-         *      Numbers1.NumberItem.AreaCode
-         *      Numbers2.NumberItem.AreaCode
-         * And ignoreValues contains just: AreaCode
-         * the only first Node: Numbers1.NumberItem.AreaCode will be ignored.
-         */
-        for (String expression : ignoreMessageElements) {
-            if (node == XMLUtils.findNodeByName(node.getOwnerDocument(), expression)) {
-                return true;
-            }
-        }
-
-        /** This is the XPath version using XPath expressions in
-         * ignoreValues to identify nodes to be ignored
-         */
-        for (String expression : ignoreMessageElements) {
-            if (XPathUtils.isXPathExpression(expression)) {
-                Node foundNode = XPathUtils.evaluateAsNode(node.getOwnerDocument(), 
-                            expression, 
-                            namespaceContext);
-
-                if (foundNode != null && foundNode.isSameNode(node)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
-    }
-
     /**
      * Returns the needed validation context for this validation mechanism.
      */
@@ -779,17 +683,6 @@ public class DomXmlMessageValidator extends AbstractMessageValidator<XmlMessageV
         return null;
     }
     
-    /**
-     * Constructs proper error message with expected value and actual value.
-     * @param message the base error message.
-     * @param expectedValue the expected value.
-     * @param actualValue the actual value.
-     * @return
-     */
-    private String buildValidationErrorMessage(String message, Object expectedValue, Object actualValue) {
-        return message + ", expected '" + expectedValue + "' but was '" + actualValue + "'";
-    }
-
     /**
      * Checks if the message type is supported.
      */
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.validation.xml;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.namespace.NamespaceContext;
+
+import org.springframework.util.CollectionUtils;
+import org.w3c.dom.*;
+
+import com.consol.citrus.util.XMLUtils;
+import com.consol.citrus.xml.xpath.XPathUtils;
+
+/**
+ * Set of DOM nodes that are ignored during XML validation. All ignore expressions are resolved once
+ * against the received document, so validation only has to do a constant time membership check for
+ * each visited node.
+ *
+ * Nodes are compared by identity, so the set is only valid for the document it has been resolved with.
+ *
+ * @author Christoph Deppisch
+ */
+public final class IgnoredNodeSet {
+    /** Empty set for validations without ignore expressions */
+    public static final IgnoredNodeSet EMPTY = new IgnoredNodeSet();
+
+    /** Ignored nodes identity map */
+    private final Map<Node, Boolean> nodes = new IdentityHashMap<Node, Boolean>();
+
+    /**
+     * Prevent instantiation.
+     */
+    private IgnoredNodeSet() {
+    }
+
+    /**
+     * Resolves all ignore expressions against the given document. Ignore expressions may be
+     * one of the following:
+     *
+     * Full path names like Numbers.NumberItem.AreaCode match all nodes with this path. Attributes are
+     * identified by the element's path name plus the attribute name.
+     *
+     * Short path names like AreaCode only match the first node found with this name. If there are
+     * more nodes with the same short name, eg. Numbers1.NumberItem.AreaCode and Numbers2.NumberItem.AreaCode
+     * only Numbers1.NumberItem.AreaCode will be ignored.
+     *
+     * XPath expressions identify the first node found with the expression.
+     *
+     * @param doc the document to resolve ignore expressions for.
+     * @param ignoreExpressions the ignore expressions.
+     * @param namespaceContext namespace context for XPath expression evaluation.
+     * @return the set of ignored nodes.
+     */
+    public static IgnoredNodeSet resolve(Document doc, Set<String> ignoreExpressions, NamespaceContext namespaceContext) {
+        if (CollectionUtils.isEmpty(ignoreExpressions)) {
+            return EMPTY;
+        }
+
+        IgnoredNodeSet ignoredNodes = new IgnoredNodeSet();
+
+        if (doc.getDocumentElement() != null) {
+            ignoredNodes.addByPathName(doc.getDocumentElement(), getLocalName(doc.getDocumentElement()), ignoreExpressions);
+        }
+
+        for (String expression : ignoreExpressions) {
+            Node node = XMLUtils.findNodeByName(doc, expression);
+
+            if (node != null) {
+                ignoredNodes.nodes.put(node, Boolean.TRUE);
+            }
+        }
+
+        for (String expression : ignoreExpressions) {
+            if (XPathUtils.isXPathExpression(expression)) {
+                ignoredNodes.nodes.put(XPathUtils.evaluateAsNode(doc, expression, namespaceContext), Boolean.TRUE);
+            }
+        }
+
+        return ignoredNodes;
+    }
+
+    /**
+     * Walks the element tree and adds all elements and attributes whose full path name
+     * is in the set of ignore expressions.
+     * @param element
+     * @param pathName
+     * @param ignoreExpressions
+     */
+    private void addByPathName(Node element, String pathName, Set<String> ignoreExpressions) {
+        if (ignoreExpressions.contains(pathName)) {
+            nodes.put(element, Boolean.TRUE);
+        }
+
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            if (ignoreExpressions.contains(pathName + "." + getLocalName(attributes.item(i)))) {
+                nodes.put(attributes.item(i), Boolean.TRUE);
+            }
+        }
+
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                addByPathName(child, pathName + "." + getLocalName(child), ignoreExpressions);
+            }
+        }
+    }
+
+    /**
+     * Gets node name without namespace prefix. Falls back to node name for nodes
+     * created without namespace support.
+     * @param node
+     * @return
+     */
+    private static String getLocalName(Node node) {
+        return node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+    }
+
+    /**
+     * Checks whether the node is ignored.
+     * @param node the element or attribute node.
+     * @return
+     */
+    public boolean contains(Node node) {
+        return nodes.containsKey(node);
+    }
+
+    /**
+     * Gets the number of ignored nodes.
+     * @return
+     */
+    public int size() {
+        return nodes.size();
+    }
+}
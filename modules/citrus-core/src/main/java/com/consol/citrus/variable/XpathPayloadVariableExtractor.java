@@ -34,6 +34,7 @@ import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.UnknownElementException;
 import com.consol.citrus.util.XMLUtils;
+import com.consol.citrus.xml.ParsedXmlMessage;
 import com.consol.citrus.xml.namespace.NamespaceContextBuilder;
 import com.consol.citrus.xml.xpath.XPathExpressionResult;
 import com.consol.citrus.xml.xpath.XPathUtils;
@@ -72,6 +73,7 @@ public class XpathPayloadVariableExtractor implements VariableExtractor {
         }
         
         NamespaceContext nsContext = namespaceContextBuilder.buildContext(message, namespaces);
+        Document doc = ParsedXmlMessage.fromMessage(message).getDocument();
 
         for (Entry<String, String> entry : xPathExpressions.entrySet()) {
             String pathExpression = entry.getKey();
@@ -81,8 +83,6 @@ public class XpathPayloadVariableExtractor implements VariableExtractor {
                 log.debug("Reading element: " + pathExpression);
             }
             
-            Document doc = XMLUtils.parseMessagePayload(message.getPayload().toString());
-            
             if (XPathUtils.isXPathExpression(pathExpression)) {
                 XPathExpressionResult resultType = XPathExpressionResult.fromString(pathExpression, XPathExpressionResult.STRING);
                 pathExpression = XPathExpressionResult.cutOffPrefix(pathExpression);
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.integration.Message;
+import org.w3c.dom.Document;
+
+import com.consol.citrus.util.XMLUtils;
+
+/**
+ * Parsed representation of a received XML message. Holds the DOM document, the namespace
+ * declarations and the whitespace stripped document view so the message payload is parsed
+ * only once per receive step, no matter how many validators and variable extractors work on it.
+ *
+ * All views are built lazily on first access. Callers must treat the DOM documents as read only as they
+ * are shared among all components working on the same message.
+ *
+ * Instances are obtained via {@link #fromMessage(Message)} which caches the last parsed message for the current
+ * thread. Spring integration messages are immutable, so message identity is a safe cache key.
+ *
+ * @author Christoph Deppisch
+ */
+public final class ParsedXmlMessage {
+    /** Last parsed message for current thread */
+    private static final ThreadLocal<ParsedXmlMessage> LAST_PARSED = new ThreadLocal<ParsedXmlMessage>();
+
+    /** The original message */
+    private final Message<?> message;
+
+    /** The payload as String */
+    private final String payload;
+
+    /** Parsed DOM document */
+    private Document document;
+
+    /** Document copy without whitespace text nodes */
+    private Document strippedDocument;
+
+    /** Namespace declarations found in payload */
+    private Map<String, String> namespaces;
+
+    /** Number of times the payload has been parsed */
+    private int parseCount = 0;
+
+    /**
+     * Default constructor using the message.
+     * @param message
+     */
+    public ParsedXmlMessage(Message<?> message) {
+        this.message = message;
+        this.payload = message.getPayload().toString();
+    }
+
+    /**
+     * Gets the parsed message representation for a message. In case the message has been parsed
+     * before on the current thread the cached representation is returned.
+     *
+     * @param message the received message.
+     * @return the parsed message.
+     */
+    public static ParsedXmlMessage fromMessage(Message<?> message) {
+        ParsedXmlMessage parsed = LAST_PARSED.get();
+
+        if (parsed == null || parsed.message != message) {
+            parsed = new ParsedXmlMessage(message);
+            LAST_PARSED.set(parsed);
+        }
+
+        return parsed;
+    }
+
+    /**
+     * Removes the cached parsed message for the current thread.
+     */
+    public static void clear() {
+        LAST_PARSED.remove();
+    }
+
+    /**
+     * Gets the DOM document, parses the payload on first access.
+     * @return the document
+     */
+    public Document getDocument() {
+        if (document == null) {
+            document = XMLUtils.parseMessagePayload(payload);
+            parseCount++;
+        }
+
+        return document;
+    }
+
+    /**
+     * Gets a copy of the DOM document where all whitespace only text nodes are removed.
+     * Copy is created by cloning the parsed document so no additional parsing is needed.
+     * @return the stripped document
+     */
+    public Document getStrippedDocument() {
+        if (strippedDocument == null) {
+            strippedDocument = (Document) getDocument().cloneNode(true);
+            XMLUtils.stripWhitespaceNodes(strippedDocument);
+        }
+
+        return strippedDocument;
+    }
+
+    /**
+     * Gets the namespace declarations in the message payload.
+     * @return the namespaces
+     */
+    public Map<String, String> getNamespaces() {
+        if (namespaces == null) {
+            namespaces = Collections.unmodifiableMap(XMLUtils.lookupNamespaces(payload));
+        }
+
+        return namespaces;
+    }
+
+    /**
+     * Gets the message.
+     * @return the message
+     */
+    public Message<?> getMessage() {
+        return message;
+    }
+
+    /**
+     * Gets the payload.
+     * @return the payload
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Gets the number of times the payload was parsed.
+     * @return the parseCount
+     */
+    public int getParseCount() {
+        return parseCount;
+    }
+}
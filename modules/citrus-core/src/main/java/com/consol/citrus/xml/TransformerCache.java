@@ -0,0 +1,223 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.transform.*;
+
+import org.springframework.xml.transform.StringSource;
+
+/**
+ * Shared XML transformation facility. Uses a single transformer factory, so the factory lookup
+ * is done only once, reusable identity transformers per thread and precompiled {@link Templates} for XSLT
+ * stylesheets keyed by stylesheet content.
+ *
+ * Transformers are not thread safe, so identity transformers must not be handed over to other threads. Templates
+ * are thread safe and create a new transformer for each transformation.
+ *
+ * @author Christoph Deppisch
+ */
+public class TransformerCache {
+    /** Default maximum number of cached stylesheet templates */
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    /** Shared default instance */
+    private static final TransformerCache INSTANCE = new TransformerCache();
+
+    /** Transformer factory, guarded by factory lock as factories are not thread safe */
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    /** Identity transformers per thread */
+    private final ThreadLocal<Transformer> identityTransformers = new ThreadLocal<Transformer>();
+
+    /** Identity transformers with indenting output per thread */
+    private final ThreadLocal<Transformer> indentingTransformers = new ThreadLocal<Transformer>();
+
+    /** Least recently used templates map */
+    private final Map<String, Templates> templates;
+
+    /** Cache statistics */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Default constructor using default maximum size.
+     */
+    public TransformerCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor using maximum number of cached templates.
+     * @param maxSize
+     */
+    public TransformerCache(final int maxSize) {
+        templates = new LinkedHashMap<String, Templates>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Entry<String, Templates> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Gets the shared default instance.
+     * @return
+     */
+    public static TransformerCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Gets the identity transformer for the current thread.
+     * @return
+     * @throws TransformerConfigurationException
+     */
+    public Transformer getIdentityTransformer() throws TransformerConfigurationException {
+        Transformer transformer = identityTransformers.get();
+
+        if (transformer == null) {
+            transformer = newTransformer();
+            identityTransformers.set(transformer);
+        } else {
+            transformer.reset();
+        }
+
+        return transformer;
+    }
+
+    /**
+     * Gets the identity transformer with indenting output and no XML declaration for the current thread.
+     * @return
+     * @throws TransformerConfigurationException
+     */
+    public Transformer getIndentingTransformer() throws TransformerConfigurationException {
+        Transformer transformer = indentingTransformers.get();
+
+        if (transformer == null) {
+            transformer = newTransformer();
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            indentingTransformers.set(transformer);
+        }
+
+        return transformer;
+    }
+
+    /**
+     * Copies source to result with the identity transformer of the current thread.
+     * @param source
+     * @param result
+     * @throws TransformerException
+     */
+    public void transform(Source source, Result result) throws TransformerException {
+        getIdentityTransformer().transform(source, result);
+    }
+
+    /**
+     * Creates new transformer for XSLT stylesheet using precompiled templates.
+     * @param xslt the stylesheet content.
+     * @return
+     * @throws TransformerConfigurationException
+     */
+    public Transformer newTransformer(String xslt) throws TransformerConfigurationException {
+        return getTemplates(xslt).newTransformer();
+    }
+
+    /**
+     * Gets precompiled templates for XSLT stylesheet from cache or compiles the stylesheet
+     * in case it is not present yet.
+     * @param xslt the stylesheet content.
+     * @return
+     * @throws TransformerConfigurationException
+     */
+    public Templates getTemplates(String xslt) throws TransformerConfigurationException {
+        Templates compiled;
+        synchronized (templates) {
+            compiled = templates.get(xslt);
+        }
+
+        if (compiled != null) {
+            hits.incrementAndGet();
+            return compiled;
+        }
+
+        misses.incrementAndGet();
+
+        synchronized (transformerFactory) {
+            compiled = transformerFactory.newTemplates(new StringSource(xslt));
+        }
+
+        synchronized (templates) {
+            templates.put(xslt, compiled);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Creates new identity transformer with shared factory.
+     * @return
+     * @throws TransformerConfigurationException
+     */
+    private Transformer newTransformer() throws TransformerConfigurationException {
+        synchronized (transformerFactory) {
+            return transformerFactory.newTransformer();
+        }
+    }
+
+    /**
+     * Removes all cached templates.
+     */
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    /**
+     * Gets the number of cached templates.
+     * @return
+     */
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
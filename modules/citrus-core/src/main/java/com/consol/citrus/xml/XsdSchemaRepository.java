@@ -17,24 +17,203 @@
 package com.consol.citrus.xml;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.transform.Source;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.validation.*;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.xml.xsd.XsdSchema;
+import org.springframework.xml.xsd.XsdSchemaCollection;
+import org.w3c.dom.*;
 import org.xml.sax.SAXException;
 
 /**
  * Schema repository holding a set of XML schema resources known in the test scope.
  * 
+ * All schemas and schema collections are compiled to {@link Schema} objects once and indexed by 
+ * target namespace and root element name. Validators are created per thread and reused for subsequent 
+ * validations, as validators are not thread safe.
+ * 
  * @author Christoph Deppisch
  */
-public class XsdSchemaRepository {
+public class XsdSchemaRepository implements InitializingBean {
     /** List of schema resources */
     private List<XsdSchema> schemas = new ArrayList<XsdSchema>();
     
+    /** List of schema collections, all schemas of a collection are compiled together */
+    private List<XsdSchemaCollection> schemaCollections = new ArrayList<XsdSchemaCollection>();
+    
     /** Mapping strategy */
     private XsdSchemaMappingStrategy schemaMappingStrategy = new TargetNamespaceSchemaMappingStrategy();
     
+    /** Schema factory, guarded by itself as factories are not thread safe */
+    private final SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+    
+    /** Compiled schemas by schema definition */
+    private final Map<XsdSchema, Schema> compiledSchemas = new ConcurrentHashMap<XsdSchema, Schema>();
+    
+    /** Compiled schemas by target namespace and by root element name */
+    private final Map<String, Schema> namespaceIndex = new ConcurrentHashMap<String, Schema>();
+    private final Map<QName, Schema> rootElementIndex = new ConcurrentHashMap<QName, Schema>();
+    
+    /** Reusable validators per thread */
+    private final ThreadLocal<Map<Schema, Validator>> validators = new ThreadLocal<Map<Schema, Validator>>() {
+        @Override
+        protected Map<Schema, Validator> initialValue() {
+            return new HashMap<Schema, Validator>();
+        }
+    };
+    
+    /** Schemas compiled flag */
+    private volatile boolean initialized = false;
+    
+    /** Time needed to compile all schemas in milliseconds */
+    private long schemaLoadTime = 0L;
+    
+    /**
+     * Logger
+     */
+    private static Logger log = LoggerFactory.getLogger(XsdSchemaRepository.class);
+    
+    /**
+     * Compiles all schemas and schema collections.
+     * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+     */
+    public void afterPropertiesSet() throws SAXException {
+        compileSchemas();
+    }
+    
+    /**
+     * Compiles all known schemas once and builds namespace and root element index.
+     * @throws SAXException
+     */
+    private synchronized void compileSchemas() throws SAXException {
+        if (initialized) {
+            return;
+        }
+        
+        long start = System.currentTimeMillis();
+        int count = 0;
+        
+        for (XsdSchema schema : schemas) {
+            register(schema, compile(schema));
+            count++;
+        }
+        
+        for (XsdSchemaCollection schemaCollection : schemaCollections) {
+            XsdSchema[] collectionSchemas = schemaCollection.getXsdSchemas();
+            Schema compiled = compile(collectionSchemas);
+            
+            for (XsdSchema schema : collectionSchemas) {
+                register(schema, compiled);
+            }
+            
+            count += collectionSchemas.length;
+        }
+        
+        schemaLoadTime = System.currentTimeMillis() - start;
+        initialized = true;
+        
+        log.info("Loaded " + count + " XML schemas in " + schemaLoadTime + " ms");
+    }
+    
+    /**
+     * Adds compiled schema to namespace and root element index. First schema 
+     * registered for a namespace or root element wins.
+     * @param schema
+     * @param compiled
+     */
+    private void register(XsdSchema schema, Schema compiled) {
+        compiledSchemas.put(schema, compiled);
+        
+        if (!namespaceIndex.containsKey(schema.getTargetNamespace())) {
+            namespaceIndex.put(schema.getTargetNamespace(), compiled);
+        }
+        
+        for (QName rootElement : getRootElements(schema)) {
+            if (!rootElementIndex.containsKey(rootElement)) {
+                rootElementIndex.put(rootElement, compiled);
+            }
+        }
+    }
+    
+    /**
+     * Compiles schema definitions with shared schema factory.
+     * @param schemas
+     * @return
+     * @throws SAXException
+     */
+    private Schema compile(XsdSchema... schemas) throws SAXException {
+        Source[] sources = new Source[schemas.length];
+        for (int i = 0; i < schemas.length; i++) {
+            sources[i] = getSchemaSource(schemas[i]);
+        }
+        
+        synchronized (schemaFactory) {
+            return schemaFactory.newSchema(sources);
+        }
+    }
+    
+    /**
+     * Gets schema source with system id set to the schema document location, so 
+     * relative imports and includes can be resolved.
+     * @param schema
+     * @return
+     */
+    private Source getSchemaSource(XsdSchema schema) {
+        Source source = schema.getSource();
+        
+        if (source.getSystemId() == null && source instanceof DOMSource) {
+            Node node = ((DOMSource) source).getNode();
+            Document document = node instanceof Document ? (Document) node : node.getOwnerDocument();
+            
+            if (document != null) {
+                source.setSystemId(document.getDocumentURI());
+            }
+        }
+        
+        return source;
+    }
+    
+    /**
+     * Gets names of global element declarations in schema.
+     * @param schema
+     * @return
+     */
+    private List<QName> getRootElements(XsdSchema schema) {
+        List<QName> rootElements = new ArrayList<QName>();
+        
+        Source source = schema.getSource();
+        if (!(source instanceof DOMSource)) {
+            return rootElements;
+        }
+        
+        Node node = ((DOMSource) source).getNode();
+        if (node instanceof Document) {
+            node = ((Document) node).getDocumentElement();
+        }
+        
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            Node child = children.item(i);
+            
+            if (child.getNodeType() == Node.ELEMENT_NODE && 
+                    XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(child.getNamespaceURI()) && 
+                    "element".equals(child.getLocalName())) {
+                rootElements.add(new QName(schema.getTargetNamespace(), ((Element) child).getAttribute("name")));
+            }
+        }
+        
+        return rootElements;
+    }
+    
     /**
      * Retrieve the schema for a given namespace.
      * 
@@ -46,6 +225,78 @@ public class XsdSchemaRepository {
     public XsdSchema getSchemaByNamespace(String namespace) throws IOException, SAXException {
         return schemaMappingStrategy.getSchema(schemas, namespace);
     }
+    
+    /**
+     * Gets compiled schema for root element. Looks up root element index first, then 
+     * target namespace index. Custom mapping strategies are asked for the schema definition instead. 
+     * Schemas added after initialization are compiled on first access.
+     * 
+     * @param namespace the root element namespace.
+     * @param localName the root element local name.
+     * @return the compiled schema or null if no schema is available.
+     * @throws IOException
+     * @throws SAXException
+     */
+    public Schema getCompiledSchema(String namespace, String localName) throws IOException, SAXException {
+        if (!initialized) {
+            compileSchemas();
+        }
+        
+        if (schemaMappingStrategy instanceof TargetNamespaceSchemaMappingStrategy) {
+            Schema compiled = rootElementIndex.get(new QName(namespace, localName));
+            
+            if (compiled == null) {
+                compiled = namespaceIndex.get(namespace);
+            }
+            
+            if (compiled != null) {
+                return compiled;
+            }
+        }
+        
+        XsdSchema schema = getSchemaByNamespace(namespace);
+        if (schema == null) {
+            return null;
+        }
+        
+        Schema compiled = compiledSchemas.get(schema);
+        if (compiled == null) {
+            compiled = compile(schema);
+            register(schema, compiled);
+        }
+        
+        return compiled;
+    }
+    
+    /**
+     * Gets validator for root element. Validators are reused per thread and reset before 
+     * they are handed out, so callers must not share validators with other threads.
+     * 
+     * @param namespace the root element namespace.
+     * @param localName the root element local name.
+     * @return the validator or null if no schema is available.
+     * @throws IOException
+     * @throws SAXException
+     */
+    public Validator getValidator(String namespace, String localName) throws IOException, SAXException {
+        Schema schema = getCompiledSchema(namespace, localName);
+        
+        if (schema == null) {
+            return null;
+        }
+        
+        Map<Schema, Validator> threadValidators = validators.get();
+        Validator validator = threadValidators.get(schema);
+        
+        if (validator == null) {
+            validator = schema.newValidator();
+            threadValidators.put(schema, validator);
+        } else {
+            validator.reset();
+        }
+        
+        return validator;
+    }
 
     /**
      * Get the list of known schemas.
@@ -63,6 +314,22 @@ public class XsdSchemaRepository {
         this.schemas = schemas;
     }
 
+    /**
+     * Get the list of known schema collections.
+     * @return the schemaCollections
+     */
+    public List<XsdSchemaCollection> getSchemaCollections() {
+        return schemaCollections;
+    }
+
+    /**
+     * Set the list of known schema collections.
+     * @param schemaCollections the schemaCollections to set
+     */
+    public void setSchemaCollections(List<XsdSchemaCollection> schemaCollections) {
+        this.schemaCollections = schemaCollections;
+    }
+
     /**
      * Set the schema mapping strategy.
      * @param schemaMappingStrategy the schemaMappingStrategy to set
@@ -70,4 +337,12 @@ public class XsdSchemaRepository {
     public void setSchemaMappingStrategy(XsdSchemaMappingStrategy schemaMappingStrategy) {
         this.schemaMappingStrategy = schemaMappingStrategy;
     }
+
+    /**
+     * Gets the time needed to compile all schemas in milliseconds.
+     * @return the schemaLoadTime
+     */
+    public long getSchemaLoadTime() {
+        return schemaLoadTime;
+    }
 }
@@ -26,7 +26,7 @@ import org.springframework.integration.Message;
 import org.springframework.util.CollectionUtils;
 import org.springframework.xml.namespace.SimpleNamespaceContext;
 
-import com.consol.citrus.util.XMLUtils;
+import com.consol.citrus.xml.ParsedXmlMessage;
 
 /**
  * Builds a namespace context for XPath expression evaluations. Builder supports default mappings 
@@ -59,7 +59,7 @@ public class NamespaceContextBuilder {
             simpleNamespaceContext.setBindings(namespaceMappings);
         }
         
-        Map<String, String> dynamicBindings = XMLUtils.lookupNamespaces(receivedMessage.getPayload().toString());
+        Map<String, String> dynamicBindings = ParsedXmlMessage.fromMessage(receivedMessage).getNamespaces();
         if (!CollectionUtils.isEmpty(namespaces)) {
             //dynamic binding of namespaces declarations in root element of received message
             for (Entry<String, String> binding : dynamicBindings.entrySet()) {
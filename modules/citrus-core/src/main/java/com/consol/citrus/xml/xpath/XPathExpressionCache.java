@@ -0,0 +1,196 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml.xpath;
+
+import java.util.*;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.*;
+
+import org.springframework.xml.namespace.SimpleNamespaceContext;
+
+/**
+ * Bounded cache of compiled XPath expressions keyed by expression string and namespace bindings.
+ *
+ * Compiled {@link XPathExpression} instances are not thread safe, so each thread holds its own
+ * least recently used expression map. Hit and miss counters are shared among all threads.
+ *
+ * Namespace bindings are only known for {@link SimpleNamespaceContext} instances. Expressions using
+ * some other namespace context implementation are compiled on each call and never cached.
+ *
+ * @author Christoph Deppisch
+ */
+public class XPathExpressionCache {
+    /** Default maximum number of cached expressions per thread */
+    public static final int DEFAULT_MAX_SIZE = 500;
+
+    /** XPath factory used for expression compilation */
+    private final XPathFactory xPathFactory;
+
+    /** Maximum number of cached expressions per thread */
+    private final int maxSize;
+
+    /** Per thread expression cache */
+    private final ThreadLocal<Map<String, XPathExpression>> expressions = new ThreadLocal<Map<String, XPathExpression>>() {
+        @Override
+        protected Map<String, XPathExpression> initialValue() {
+            return new LinkedHashMap<String, XPathExpression>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Entry<String, XPathExpression> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+    };
+
+    /** Cache statistics */
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Default constructor using default maximum size.
+     * @param xPathFactory
+     */
+    public XPathExpressionCache(XPathFactory xPathFactory) {
+        this(xPathFactory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructor using XPath factory and maximum cache size per thread.
+     * @param xPathFactory
+     * @param maxSize
+     */
+    public XPathExpressionCache(XPathFactory xPathFactory, int maxSize) {
+        this.xPathFactory = xPathFactory;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Gets the compiled expression from cache or compiles the expression in case
+     * it is not present yet.
+     *
+     * @param xPathExpression the expression string.
+     * @param nsContext the namespace context to use.
+     * @return the compiled expression.
+     * @throws XPathExpressionException
+     */
+    public XPathExpression getExpression(String xPathExpression, NamespaceContext nsContext)
+            throws XPathExpressionException {
+        if (!(nsContext instanceof SimpleNamespaceContext)) {
+            misses.incrementAndGet();
+            return compile(xPathExpression, nsContext);
+        }
+
+        String key = buildKey(xPathExpression, (SimpleNamespaceContext) nsContext);
+        Map<String, XPathExpression> cache = expressions.get();
+
+        XPathExpression expression = cache.get(key);
+        if (expression != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            expression = compile(xPathExpression, nsContext);
+            cache.put(key, expression);
+        }
+
+        return expression;
+    }
+
+    /**
+     * Compiles the expression with given namespace context.
+     * @param xPathExpression
+     * @param nsContext
+     * @return
+     * @throws XPathExpressionException
+     */
+    private XPathExpression compile(String xPathExpression, NamespaceContext nsContext)
+            throws XPathExpressionException {
+        XPath xpath;
+        synchronized (xPathFactory) {
+            xpath = xPathFactory.newXPath();
+        }
+
+        if (nsContext != null) {
+            xpath.setNamespaceContext(nsContext);
+        }
+
+        return xpath.compile(xPathExpression);
+    }
+
+    /**
+     * Builds the cache key from expression string and sorted namespace bindings.
+     * @param xPathExpression
+     * @param nsContext
+     * @return
+     */
+    private String buildKey(String xPathExpression, SimpleNamespaceContext nsContext) {
+        SortedSet<String> prefixes = new TreeSet<String>();
+        for (Iterator<String> it = nsContext.getBoundPrefixes(); it.hasNext();) {
+            prefixes.add(it.next());
+        }
+
+        StringBuffer key = new StringBuffer(xPathExpression);
+        for (String prefix : prefixes) {
+            key.append('|').append(prefix).append('=').append(nsContext.getNamespaceURI(prefix));
+        }
+
+        return key.toString();
+    }
+
+    /**
+     * Removes all cached expressions for the current thread.
+     */
+    public void clear() {
+        expressions.get().clear();
+    }
+
+    /**
+     * Resets hit and miss counters.
+     */
+    public void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /**
+     * Gets the number of cache hits.
+     * @return the hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of cache misses.
+     * @return the misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the maximum number of cached expressions per thread.
+     * @return the maxSize
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
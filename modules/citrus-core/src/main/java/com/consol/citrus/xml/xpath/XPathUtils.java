@@ -40,8 +40,12 @@ public abstract class XPathUtils {
     /** XPath expression factory */
     private static XPathFactory xPathFactory;
 
+    /** Cache of compiled XPath expressions */
+    private static XPathExpressionCache expressionCache;
+
     static {
         xPathFactory = XPathFactory.newInstance();
+        expressionCache = new XPathExpressionCache(xPathFactory);
     }
     
     /**
@@ -158,7 +162,7 @@ public abstract class XPathUtils {
     /**
      * Construct a xPath expression insdtance with given expression string and namespace context.
      * If namespace context is not specified a default context is built from the XML node
-     * that is evaluated against.
+     * that is evaluated against. Compiled expressions are taken from the expression cache.
      * @param node
      * @param xPathExpression
      * @param nsContext
@@ -167,15 +171,19 @@ public abstract class XPathUtils {
      */
     private static XPathExpression buildExpression(Node node, String xPathExpression, NamespaceContext nsContext)
             throws XPathExpressionException {
-        XPath xpath = xPathFactory.newXPath();
-
         if (nsContext != null) {
-            xpath.setNamespaceContext(nsContext);
+            return expressionCache.getExpression(xPathExpression, nsContext);
         } else {
-            xpath.setNamespaceContext(buildNamespaceContext(node));
+            return expressionCache.getExpression(xPathExpression, buildNamespaceContext(node));
         }
+    }
 
-        return xpath.compile(xPathExpression);
+    /**
+     * Gets the compiled XPath expression cache holding hit and miss statistics.
+     * @return the expression cache.
+     */
+    public static XPathExpressionCache getExpressionCache() {
+        return expressionCache;
     }
 
     /**
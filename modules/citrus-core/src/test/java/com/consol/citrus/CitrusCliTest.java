@@ -120,6 +120,51 @@ public class CitrusCliTest extends AbstractTestNGUnitTest {
         verify(testngMock);
     }
     
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testParallelTests() throws ParseException {
+        reset(testngMock);
+
+        testngMock.setXmlSuites((List<XmlSuite>)anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            public Object answer() throws Throwable {
+                List<XmlSuite> suites = (List<XmlSuite>)getCurrentArguments()[0];
+                Assert.assertEquals(suites.size(), 1);
+                Assert.assertEquals(suites.get(0).getParallel(), XmlSuite.PARALLEL_CLASSES);
+                Assert.assertEquals(suites.get(0).getThreadCount(), 4);
+                Assert.assertEquals(suites.get(0).getTests().size(), 1);
+                Assert.assertEquals(suites.get(0).getTests().get(0).getName(), "citrus-test-suite");
+                Assert.assertEquals(suites.get(0).getTests().get(0).getXmlClasses().size(), 2);
+                Assert.assertEquals(suites.get(0).getTests().get(0).getXmlPackages().size(), 1);
+                Assert.assertEquals(suites.get(0).getTests().get(0).getXmlPackages().get(0).getName(), "com.consol.citrus.aop");
+                return null;
+            }
+        }).once();
+        
+        testngMock.run();
+        expectLastCall().once();
+        
+        expect(testngMock.hasFailure()).andReturn(false).once();
+        
+        replay(testngMock);
+        
+        Citrus citrus = new Citrus(new GnuParser().parse(new CitrusCliOptions(), 
+                new String[] {"-test", "SampleTest", "SampleTest", "-package", "com.consol.citrus.aop", 
+                        "-threads", "4", "-testdir", "../src/citrus/tests"}));
+        citrus.setTestNG(testngMock);
+        citrus.run();
+        
+        verify(testngMock);
+    }
+    
+    @Test(expectedExceptions = CitrusRuntimeException.class)
+    public void testInvalidThreadCount() throws ParseException {
+        Citrus citrus = new Citrus(new GnuParser().parse(new CitrusCliOptions(), 
+                new String[] {"-test", "SampleTest", "-threads", "many", "-testdir", "../src/citrus/tests"}));
+        citrus.setTestNG(testngMock);
+        citrus.run();
+    }
+    
     @Test
     @SuppressWarnings("unchecked")
     public void testCustomSuiteNameTest() throws ParseException {
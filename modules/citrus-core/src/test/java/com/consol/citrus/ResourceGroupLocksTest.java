@@ -0,0 +1,68 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class ResourceGroupLocksTest {
+
+    @Test
+    public void testNoResourceGroups() {
+        Assert.assertTrue(ResourceGroupLocks.acquire(new TestCase()).isEmpty());
+    }
+    
+    @Test
+    public void testSharedResourceGroup() throws InterruptedException {
+        TestCase first = new TestCase();
+        first.setName("first");
+        first.setResourceGroups(Arrays.asList("jmsQueue", "database"));
+        
+        final TestCase second = new TestCase();
+        second.setName("second");
+        second.setResourceGroups(Arrays.asList("database"));
+        
+        List<Lock> locks = ResourceGroupLocks.acquire(first);
+        Assert.assertEquals(locks.size(), 2);
+        
+        final CountDownLatch acquired = new CountDownLatch(1);
+        Thread worker = new Thread(new Runnable() {
+            public void run() {
+                List<Lock> workerLocks = ResourceGroupLocks.acquire(second);
+                acquired.countDown();
+                ResourceGroupLocks.release(workerLocks);
+            }
+        });
+        worker.start();
+        
+        Assert.assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        
+        ResourceGroupLocks.release(locks);
+        
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        worker.join();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.config.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.StringValueResolver;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.actions.EchoAction;
+import com.consol.citrus.testng.AbstractTestNGUnitTest;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class TestCaseDefinitionCacheTest extends AbstractTestNGUnitTest {
+
+    @Test
+    public void testCachedDefinitions() {
+        TestCaseDefinitionCache cache = new TestCaseDefinitionCache();
+
+        ConfigurableApplicationContext ctx = cache.createApplicationContext(getClass(), applicationContext);
+        TestCase testCase = ctx.getBean(getClass().getSimpleName(), TestCase.class);
+        ctx.close();
+
+        Assert.assertFalse(ctx.isActive());
+        Assert.assertEquals(testCase.getActions().size(), 2);
+        Assert.assertEquals(testCase.getActions().get(0).getClass(), EchoAction.class);
+        Assert.assertEquals(((EchoAction) testCase.getActions().get(0)).getMessage(), "Hello Citrus!");
+
+        ConfigurableApplicationContext secondCtx = cache.createApplicationContext(getClass(), applicationContext);
+        TestCase secondTestCase = secondCtx.getBean(getClass().getSimpleName(), TestCase.class);
+        secondCtx.close();
+
+        Assert.assertNotSame(secondTestCase, testCase);
+        Assert.assertNotSame(secondTestCase.getActions().get(0), testCase.getActions().get(0));
+        Assert.assertEquals(secondTestCase.getActions().size(), 2);
+        
+        // post processor of first execution must not have modified cached nested definitions
+        Assert.assertEquals(((EchoAction) secondTestCase.getActions().get(0)).getMessage(), "Hello Citrus!");
+
+        Assert.assertEquals(cache.getParsedDefinitions(), 1L);
+        Assert.assertEquals(cache.getCreatedContexts(), 2L);
+
+        cache.clear();
+        cache.createApplicationContext(getClass(), applicationContext).close();
+        Assert.assertEquals(cache.getParsedDefinitions(), 2L);
+    }
+
+    @Test(expectedExceptions = BeanDefinitionStoreException.class)
+    public void testMissingDefinition() {
+        new TestCaseDefinitionCache().createApplicationContext(TestCase.class, applicationContext);
+    }
+    
+    /**
+     * Post processor modifying nested test action definitions in place.
+     */
+    public static class MessageSuffixPostProcessor implements BeanFactoryPostProcessor {
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            BeanDefinitionVisitor visitor = new BeanDefinitionVisitor(new StringValueResolver() {
+                public String resolveStringValue(String strVal) {
+                    return strVal.startsWith("Hello Citrus") ? strVal + "!" : strVal;
+                }
+            });
+            
+            for (String beanName : beanFactory.getBeanDefinitionNames()) {
+                visitor.visitBeanDefinition(beanFactory.getBeanDefinition(beanName));
+            }
+        }
+    }
+}
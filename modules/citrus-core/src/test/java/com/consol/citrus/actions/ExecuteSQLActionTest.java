@@ -28,11 +28,13 @@ import org.easymock.EasyMock;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.testng.AbstractTestNGUnitTest;
+import com.consol.citrus.util.ResourceContentCache;
 
 /**
  * @author Christoph Deppisch
@@ -84,8 +86,14 @@ public class ExecuteSQLActionTest extends AbstractTestNGUnitTest {
         
         replay(jdbcTemplate);
         
+        ResourceContentCache contentCache = ResourceContentCache.getInstance();
+        long lookups = contentCache.getHits() + contentCache.getMisses();
+        
         executeSQLAction.execute(context);
         
+        // SQL file is read through the resource content cache
+        Assert.assertEquals(contentCache.getHits() + contentCache.getMisses(), lookups + 1);
+        
         verify(jdbcTemplate);
     }
 	
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.aop;
+
+import java.io.File;
+
+import org.springframework.integration.support.MessageBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.aop.MessageJournal.OverflowPolicy;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class MessageJournalTest {
+
+    @Test
+    public void testRollingJournal() {
+        File directory = new File("target/message-journal/rolling");
+        MessageJournal journal = new MessageJournal(directory, 100, OverflowPolicy.BLOCK, 5000L, 1024L);
+        
+        try {
+            for (int i = 1; i <= 500; i++) {
+                Assert.assertTrue(journal.append("testRollingJournal", 1, i, 
+                        MessageBuilder.withPayload("<message>Hello " + i + "</message>").setHeader("index", i).build()));
+            }
+            
+            Assert.assertTrue(journal.flush(5000L));
+        } finally {
+            journal.close(5000L);
+        }
+        
+        Assert.assertEquals(journal.getWritten(), 500L);
+        Assert.assertEquals(journal.getDropped(), 0L);
+        Assert.assertTrue(new File(directory, MessageJournal.JOURNAL_FILE_PREFIX + "2" + MessageJournal.JOURNAL_FILE_SUFFIX).exists());
+        
+        MessageJournalReader reader = new MessageJournalReader(directory);
+        for (int i = 1; i <= 500; i += 49) {
+            String record = reader.readMessage("testRollingJournal", i);
+            Assert.assertTrue(record.contains("index=" + i + "\n"));
+            Assert.assertTrue(record.endsWith("\n\n<message>Hello " + i + "</message>\n"));
+        }
+        
+        Assert.assertNull(reader.readMessage("testRollingJournal", 501));
+        Assert.assertNull(reader.readMessage("unknown", 1));
+    }
+    
+    @Test
+    public void testDropNewest() {
+        File directory = new File("target/message-journal/drop");
+        MessageJournal journal = new MessageJournal(directory, 1, OverflowPolicy.DROP_NEWEST, 0L, MessageJournal.DEFAULT_MAX_FILE_SIZE);
+        
+        int accepted = 0;
+        try {
+            for (int i = 1; i <= 1000; i++) {
+                if (journal.append("testDropNewest", 1, i, MessageBuilder.withPayload("<message>Hello " + i + "</message>").build())) {
+                    accepted++;
+                }
+            }
+            
+            Assert.assertTrue(journal.flush(5000L));
+        } finally {
+            journal.close(5000L);
+        }
+        
+        Assert.assertEquals(journal.getWritten(), (long) accepted);
+        Assert.assertEquals(journal.getWritten() + journal.getDropped(), 1000L);
+        Assert.assertNotNull(new MessageJournalReader(directory).readMessage("testDropNewest", 1));
+    }
+    
+    @Test
+    public void testDropOldest() {
+        File directory = new File("target/message-journal/drop-oldest");
+        MessageJournal journal = new MessageJournal(directory, 1, OverflowPolicy.DROP_OLDEST, 0L, MessageJournal.DEFAULT_MAX_FILE_SIZE);
+        
+        try {
+            for (int i = 1; i <= 1000; i++) {
+                Assert.assertTrue(journal.append("testDropOldest", 1, i, MessageBuilder.withPayload("<message>Hello " + i + "</message>").build()));
+            }
+            
+            Assert.assertTrue(journal.flush(5000L));
+        } finally {
+            journal.close(5000L);
+        }
+        
+        Assert.assertEquals(journal.getWritten() + journal.getDropped(), 1000L);
+        Assert.assertNotNull(new MessageJournalReader(directory).readMessage("testDropOldest", 1000));
+    }
+    
+    @Test
+    public void testUnrenderableMessage() {
+        File directory = new File("target/message-journal/unrenderable");
+        MessageJournal journal = new MessageJournal(directory, 100, OverflowPolicy.BLOCK, 5000L, MessageJournal.DEFAULT_MAX_FILE_SIZE);
+        
+        try {
+            Assert.assertTrue(journal.append("testUnrenderableMessage", 1, 1, MessageBuilder.withPayload("<message>Hello 1</message>").build()));
+            Assert.assertTrue(journal.append("testUnrenderableMessage", 1, 2, MessageBuilder.withPayload(new Object() {
+                @Override
+                public String toString() {
+                    throw new IllegalStateException("Payload can not be rendered");
+                }
+            }).build()));
+            Assert.assertTrue(journal.flush(5000L));
+            
+            // writer thread is still alive after failing message
+            Assert.assertTrue(journal.append("testUnrenderableMessage", 1, 3, MessageBuilder.withPayload("<message>Hello 3</message>").build()));
+            Assert.assertTrue(journal.flush(5000L));
+        } finally {
+            journal.close(5000L);
+        }
+        
+        Assert.assertEquals(journal.getWritten(), 2L);
+        Assert.assertEquals(journal.getDropped(), 1L);
+        
+        MessageJournalReader reader = new MessageJournalReader(directory);
+        Assert.assertTrue(reader.readMessage("testUnrenderableMessage", 1).endsWith("<message>Hello 1</message>\n"));
+        Assert.assertNull(reader.readMessage("testUnrenderableMessage", 2));
+        Assert.assertTrue(reader.readMessage("testUnrenderableMessage", 3).endsWith("<message>Hello 3</message>\n"));
+    }
+}
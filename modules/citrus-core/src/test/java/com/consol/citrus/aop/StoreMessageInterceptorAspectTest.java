@@ -16,6 +16,9 @@
 
 package com.consol.citrus.aop;
 
+import java.io.IOException;
+import java.util.concurrent.*;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.integration.Message;
@@ -24,6 +27,7 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.consol.citrus.TestCase;
 import com.consol.citrus.testng.AbstractTestNGUnitTest;
 
 /**
@@ -33,43 +37,102 @@ public class StoreMessageInterceptorAspectTest extends AbstractTestNGUnitTest {
     @Autowired
     StoreMessageInterceptorAspect storageAspect;
     
+    private TestCase test;
+    
     @Override
     @BeforeMethod
     public void prepareTest() {
         super.prepareTest();
         
-        if (new FileSystemResource("logs/debug/messages/message" + 1 + ".body").exists()) {
-            new FileSystemResource("logs/debug/messages/message" + 1 + ".body").getFile().delete();
-        }
-        
-        if (new FileSystemResource("logs/debug/messages/message" + 1 + ".header").exists()) {
-            new FileSystemResource("logs/debug/messages/message" + 1 + ".header").getFile().delete();
-        }
-        
-        StoreMessageInterceptorAspect.resetFileCounter();
+        test = new TestCase();
+        test.setName("StoreMessageInterceptorAspectTest");
+        storageAspect.onTestStart(test);
     }
     
     @Test
-    public void testStoreMessage() {
+    public void testStoreMessage() throws IOException {
         Message<?> message = MessageBuilder.withPayload("<message>"
                                     + "<text>Hello TestFramework</text>"
                                   + "</message>").setHeader("operation", "greeting").build();
         
         storageAspect.doInterceptMessage(message);
+        storageAspect.doInterceptMessage(MessageBuilder.withPayload("<message>Second</message>").build());
+        storageAspect.onTestFinish(test);
+        
+        Assert.assertTrue(storageAspect.getJournal().flush(5000L));
+        
+        MessageJournalReader reader = new MessageJournalReader(storageAspect.getJournal().getDirectory());
+        String record = reader.readMessage("StoreMessageInterceptorAspectTest", 1);
+        Assert.assertNotNull(record);
+        Assert.assertTrue(record.contains("operation=greeting\n"));
+        Assert.assertTrue(record.endsWith("\n\n<message><text>Hello TestFramework</text></message>\n"));
         
-        Assert.assertTrue(new FileSystemResource("logs/debug/messages/message" + 1 + ".body").exists());
-        Assert.assertTrue(new FileSystemResource("logs/debug/messages/message" + 1 + ".header").exists());
+        record = reader.readMessage("StoreMessageInterceptorAspectTest", 2);
+        Assert.assertNotNull(record);
+        Assert.assertTrue(record.endsWith("\n\n<message>Second</message>\n"));
     }
     
     @Test
-    public void testStoreMessageWithoutHeader() {
+    public void testStoreMessageWithoutHeader() throws IOException {
         Message<?> message = MessageBuilder.withPayload("<message>"
                                     + "<text>Hello TestFramework</text>"
                                   + "</message>").build();
         
         storageAspect.doInterceptMessage(message);
+        storageAspect.onTestFinish(test);
         
-        Assert.assertTrue(new FileSystemResource("logs/debug/messages/message" + 1 + ".body").exists());
-        Assert.assertTrue(new FileSystemResource("logs/debug/messages/message" + 1 + ".header").exists());
+        Assert.assertTrue(storageAspect.getJournal().flush(5000L));
+        
+        String record = new MessageJournalReader(storageAspect.getJournal().getDirectory())
+                .readMessage("StoreMessageInterceptorAspectTest", 1);
+        Assert.assertNotNull(record);
+        Assert.assertTrue(record.endsWith("\n\n<message><text>Hello TestFramework</text></message>\n"));
+    }
+    
+    @Test
+    public void testStoreMessageRepeatedTestRuns() throws Exception {
+        StoreMessageInterceptorAspect aspect = new StoreMessageInterceptorAspect();
+        aspect.setDebugDirectory(new FileSystemResource("target/message-journal/runs/"));
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        final StoreMessageInterceptorAspect interceptor = aspect;
+        
+        try {
+            for (int run = 1; run <= 2; run++) {
+                final TestCase testRun = new TestCase();
+                testRun.setName("testStoreMessageRepeatedTestRuns");
+                aspect.onTestStart(testRun);
+                
+                aspect.doInterceptMessage(MessageBuilder.withPayload("<message>Run " + run + "</message>").build());
+                
+                final int currentRun = run;
+                executor.submit(new Runnable() {
+                    public void run() {
+                        interceptor.doInterceptMessage(MessageBuilder.withPayload("<message>Pooled " + currentRun + "</message>").build());
+                    }
+                }).get(5000L, TimeUnit.MILLISECONDS);
+                
+                aspect.onTestFinish(testRun);
+            }
+            
+            //pooled thread must not keep test run after test has finished
+            executor.submit(new Runnable() {
+                public void run() {
+                    interceptor.doInterceptMessage(MessageBuilder.withPayload("<message>No test</message>").build());
+                }
+            }).get(5000L, TimeUnit.MILLISECONDS);
+            
+            Assert.assertTrue(aspect.getJournal().flush(5000L));
+            
+            MessageJournalReader reader = new MessageJournalReader(aspect.getJournal().getDirectory());
+            Assert.assertTrue(reader.readMessage("testStoreMessageRepeatedTestRuns", 1).endsWith("\n\n<message>Run 2</message>\n"));
+            Assert.assertTrue(reader.readMessage("testStoreMessageRepeatedTestRuns", 2).endsWith("\n\n<message>Pooled 2</message>\n"));
+            Assert.assertTrue(reader.readMessage("testStoreMessageRepeatedTestRuns", 1, 1).endsWith("\n\n<message>Run 1</message>\n"));
+            Assert.assertTrue(reader.readMessage("testStoreMessageRepeatedTestRuns", 1, 2).endsWith("\n\n<message>Pooled 1</message>\n"));
+            Assert.assertTrue(reader.readMessage("unknown", 1).endsWith("\n\n<message>No test</message>\n"));
+        } finally {
+            executor.shutdownNow();
+            aspect.destroy();
+        }
     }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.channel;
+
+import java.util.Collections;
+
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class ChannelMessageBufferTest {
+
+    @Test
+    public void testBufferedMessageOrder() {
+        QueueChannel channel = new QueueChannel();
+        ChannelMessageBuffer buffer = ChannelMessageBuffer.getBuffer(channel);
+        
+        Assert.assertSame(ChannelMessageBuffer.findBuffer(channel), buffer);
+        
+        channel.send(MessageBuilder.withPayload("1").setHeader("type", "a").build());
+        channel.send(MessageBuilder.withPayload("2").setHeader("type", "b").build());
+        channel.send(MessageBuilder.withPayload("3").setHeader("type", "a").build());
+        channel.send(MessageBuilder.withPayload("4").setHeader("type", "c").build());
+        
+        Assert.assertEquals(buffer.receive(channel, Collections.singletonMap("type", "c"), 100L).getPayload(), "4");
+        Assert.assertEquals(buffer.size(), 3);
+        
+        Assert.assertEquals(buffer.poll(Collections.singletonMap("type", "a")).getPayload(), "1");
+        Assert.assertEquals(buffer.poll(Collections.singletonMap("type", "a")).getPayload(), "3");
+        Assert.assertNull(buffer.poll(Collections.singletonMap("type", "a")));
+        Assert.assertEquals(buffer.poll(Collections.<String, String>emptyMap()).getPayload(), "2");
+        Assert.assertEquals(buffer.size(), 0);
+    }
+    
+    @Test
+    public void testTimeToLive() throws InterruptedException {
+        QueueChannel channel = new QueueChannel();
+        ChannelMessageBuffer buffer = ChannelMessageBuffer.getBuffer(channel);
+        buffer.setTimeToLive(50L);
+        
+        channel.send(MessageBuilder.withPayload("1").setHeader("type", "a").build());
+        
+        Assert.assertNull(buffer.receive(channel, Collections.singletonMap("type", "b"), 20L));
+        Assert.assertEquals(buffer.size(), 1);
+        
+        Thread.sleep(100L);
+        
+        Assert.assertNull(buffer.poll(Collections.singletonMap("type", "a")));
+        Assert.assertEquals(buffer.size(), 0);
+    }
+}
@@ -20,9 +20,11 @@ import static org.easymock.EasyMock.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.easymock.EasyMock;
 import org.springframework.integration.Message;
+import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.support.MessageBuilder;
@@ -192,23 +194,77 @@ public class MessageChannelReceiverTest {
         Assert.fail("Missing " + ActionTimeoutException.class + " because no message was received");
     }
     
-    @Test(expectedExceptions = UnsupportedOperationException.class)
+    @Test
     public void testReceiveSelected() {
         MessageChannelReceiver messageChannelReceiver = new MessageChannelReceiver();
-        messageChannelReceiver.setMessagingTemplate(messagingTemplate);
         
-        messageChannelReceiver.setChannel(channel);
+        QueueChannel queueChannel = new QueueChannel();
+        messageChannelReceiver.setChannel(queueChannel);
+        
+        queueChannel.send(MessageBuilder.withPayload("Hello").setHeader("Operation", "sayHello").build());
+        queueChannel.send(MessageBuilder.withPayload("Bye").setHeader("Operation", "sayBye").setHeader("Id", "1").build());
+        queueChannel.send(MessageBuilder.withPayload("Hi").setHeader("Operation", "sayHi").build());
+        
+        Message<?> receivedMessage = messageChannelReceiver.receiveSelected("Operation = 'sayBye' AND Id = '1'");
+        Assert.assertEquals(receivedMessage.getPayload(), "Bye");
+        
+        receivedMessage = messageChannelReceiver.receiveSelected("Operation = 'sayHi'");
+        Assert.assertEquals(receivedMessage.getPayload(), "Hi");
         
-        messageChannelReceiver.receiveSelected("Operation = 'sayHello'");
+        receivedMessage = messageChannelReceiver.receive();
+        Assert.assertEquals(receivedMessage.getPayload(), "Hello");
+        
+        Assert.assertEquals(ChannelMessageBuffer.getBuffer(queueChannel).size(), 0);
     }
     
-    @Test(expectedExceptions = UnsupportedOperationException.class)
+    @Test
     public void testReceiveSelectedWithTimeout() {
         MessageChannelReceiver messageChannelReceiver = new MessageChannelReceiver();
-        messageChannelReceiver.setMessagingTemplate(messagingTemplate);
         
-        messageChannelReceiver.setChannel(channel);
+        QueueChannel queueChannel = new QueueChannel();
+        messageChannelReceiver.setChannel(queueChannel);
+        
+        queueChannel.send(MessageBuilder.withPayload("Hello").setHeader("Operation", "sayHello").build());
+        
+        try {
+            messageChannelReceiver.receiveSelected("Operation = 'sayBye'", 200L);
+            Assert.fail("Missing " + ActionTimeoutException.class + " because no matching message was received");
+        } catch (ActionTimeoutException e) {
+            Assert.assertTrue(e.getMessage().contains("Operation = 'sayBye'"));
+        }
+        
+        Assert.assertEquals(messageChannelReceiver.receive(100L).getPayload(), "Hello");
+    }
+    
+    @Test
+    public void testReceiveSelectedWithWaitingReceivers() throws InterruptedException {
+        final MessageChannelReceiver messageChannelReceiver = new MessageChannelReceiver();
+        
+        final QueueChannel queueChannel = new QueueChannel();
+        messageChannelReceiver.setChannel(queueChannel);
+        
+        final Map<String, Object> received = new ConcurrentHashMap<String, Object>();
+        Thread[] receivers = new Thread[10];
+        for (int i = 0; i < receivers.length; i++) {
+            final String key = String.valueOf(i);
+            receivers[i] = new Thread(new Runnable() {
+                public void run() {
+                    received.put(key, messageChannelReceiver.receiveSelected("Key = '" + key + "'", 5000L).getPayload());
+                }
+            });
+            receivers[i].start();
+        }
+        
+        for (int i = 0; i < 1000; i++) {
+            queueChannel.send(MessageBuilder.withPayload("Message " + (999 - i)).setHeader("Key", String.valueOf(999 - i)).build());
+        }
+        
+        for (Thread receiver : receivers) {
+            receiver.join();
+        }
         
-        messageChannelReceiver.receiveSelected("Operation = 'sayHello'", 10000L);
+        Assert.assertEquals(received.size(), 10);
+        Assert.assertEquals(received.get("3"), "Message 3");
+        Assert.assertEquals(ChannelMessageBuffer.getBuffer(queueChannel).size() + queueChannel.getQueueSize(), 990);
     }
 }
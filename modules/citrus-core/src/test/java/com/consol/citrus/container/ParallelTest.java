@@ -20,12 +20,16 @@ import static org.easymock.EasyMock.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.consol.citrus.TestAction;
 import com.consol.citrus.actions.*;
+import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.testng.AbstractTestNGUnitTest;
 
@@ -159,4 +163,88 @@ public class ParallelTest extends AbstractTestNGUnitTest {
         
         parallelAction.execute(context);
     }
+    
+    @Test
+    public void testPoolSize() {
+        Parallel parallelAction = new Parallel();
+        parallelAction.setPoolSize(2);
+        
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        
+        List<TestAction> actionList = new ArrayList<TestAction>();
+        for (int i = 0; i < 6; i++) {
+            actionList.add(new AbstractTestAction() {
+                @Override
+                public void doExecute(TestContext context) {
+                    int current = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), current));
+                    }
+                    
+                    try {
+                        Thread.sleep(50L);
+                    } catch (InterruptedException e) {
+                        throw new CitrusRuntimeException(e);
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    
+                    context.setVariable("parallel", "value");
+                }
+            });
+        }
+        
+        parallelAction.setActions(actionList);
+        
+        parallelAction.execute(context);
+        
+        Assert.assertTrue(maxRunning.get() <= 2);
+    }
+    
+    @Test
+    public void testExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        
+        try {
+            Parallel parallelAction = new Parallel();
+            parallelAction.setExecutor(executor);
+            
+            List<TestAction> actionList = new ArrayList<TestAction>();
+            actionList.add(new EchoAction());
+            actionList.add(new EchoAction());
+            actionList.add(new EchoAction());
+            
+            parallelAction.setActions(actionList);
+            
+            parallelAction.execute(context);
+            
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testFailFast() {
+        Parallel parallelAction = new Parallel();
+        parallelAction.setFailFast(true);
+        
+        List<TestAction> actionList = new ArrayList<TestAction>();
+        SleepAction sleep = new SleepAction();
+        sleep.setDelay("5");
+        actionList.add(sleep);
+        actionList.add(new FailAction());
+        
+        parallelAction.setActions(actionList);
+        
+        long start = System.currentTimeMillis();
+        try {
+            parallelAction.execute(context);
+            Assert.fail("Missing exception because of failing action");
+        } catch (CitrusRuntimeException e) {
+            Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+            Assert.assertEquals(parallelAction.getLastExecutedAction().getClass(), FailAction.class);
+        }
+    }
 }
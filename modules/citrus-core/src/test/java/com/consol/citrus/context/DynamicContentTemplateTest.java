@@ -0,0 +1,142 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.context;
+
+import java.util.Collections;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.functions.FunctionUtils;
+import com.consol.citrus.functions.core.CurrentDateFunction;
+import com.consol.citrus.testng.AbstractTestNGUnitTest;
+import com.consol.citrus.variable.VariableUtils;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class DynamicContentTemplateTest extends AbstractTestNGUnitTest {
+
+    @Test
+    public void testRenderVariablesAndFunctions() {
+        context.setVariable("greeting", "Hello");
+        context.setVariable("dateFormat", "yyyy-mm-dd");
+
+        DynamicContentTemplate template = DynamicContentTemplate.compile("<text>${greeting} citrus:concat('Test', 'Framework!')</text>"
+                + "<date>citrus:concat(citrus:currentDate('${dateFormat}'), ' ', citrus:concat(${greeting}, ' TestFramework!'))</date>",
+                context.getFunctionRegistry().getFunctionLibraries());
+
+        String currentDate = new CurrentDateFunction().execute(Collections.singletonList("yyyy-mm-dd"));
+        Assert.assertEquals(template.render(context, false), "<text>Hello TestFramework!</text>"
+                + "<date>" + currentDate + " Hello TestFramework!</date>");
+
+        context.setVariable("greeting", "Hi");
+        Assert.assertEquals(template.render(context, false), "<text>Hi TestFramework!</text>"
+                + "<date>" + currentDate + " Hi TestFramework!</date>");
+    }
+
+    @Test
+    public void testRenderWithQuoting() {
+        context.setVariable("id", "123");
+        context.setVariable("name", "foo");
+
+        String statement = "SELECT * FROM ORDERS WHERE ID=${id} AND NAME=citrus:concat(${name}, '_bar')";
+        DynamicContentTemplate template = DynamicContentTemplate.compile(statement, context.getFunctionRegistry().getFunctionLibraries());
+
+        Assert.assertEquals(template.render(context, true), replaceDynamicContent(statement, true));
+        Assert.assertEquals(template.render(context, false), replaceDynamicContent(statement, false));
+    }
+
+    @Test
+    public void testVariableValueWithDynamicContent() {
+        context.setVariable("function", "citrus:upperCase('hello')");
+        context.setVariable("text", "Say ${function}");
+
+        String str = "${function} and ${text}";
+        DynamicContentTemplate template = DynamicContentTemplate.compile(str, context.getFunctionRegistry().getFunctionLibraries());
+
+        Assert.assertEquals(template.render(context, false), replaceDynamicContent(str, false));
+        Assert.assertEquals(template.render(context, false), "HELLO and Say ${function}");
+    }
+
+    @Test
+    public void testLiteralTemplate() {
+        String str = "Hello TestFramework!";
+        DynamicContentTemplate template = DynamicContentTemplate.compile(str, context.getFunctionRegistry().getFunctionLibraries());
+
+        Assert.assertSame(template.render(context, true), str);
+    }
+
+    @Test(expectedExceptions = CitrusRuntimeException.class)
+    public void testUnknownVariable() {
+        DynamicContentTemplate.compile("Hello ${unknown}!", context.getFunctionRegistry().getFunctionLibraries()).render(context, false);
+    }
+
+    @Test
+    public void testTemplateCache() {
+        DynamicContentTemplateCache cache = new DynamicContentTemplateCache(25);
+        context.setVariable("name", "foo");
+
+        DynamicContentTemplate template = cache.getTemplate("Hello ${name}", context.getFunctionRegistry().getFunctionLibraries());
+        Assert.assertSame(cache.getTemplate("Hello ${name}", context.getFunctionRegistry().getFunctionLibraries()), template);
+        Assert.assertEquals(cache.getHits(), 1L);
+        Assert.assertEquals(cache.getMisses(), 1L);
+
+        cache.getTemplate("Static text", context.getFunctionRegistry().getFunctionLibraries());
+        Assert.assertEquals(cache.size(), 1);
+
+        cache.getTemplate("${name}_1", context.getFunctionRegistry().getFunctionLibraries());
+        cache.getTemplate("${name}_2", context.getFunctionRegistry().getFunctionLibraries());
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNotSame(cache.getTemplate("Hello ${name}", context.getFunctionRegistry().getFunctionLibraries()), template);
+    }
+
+    @Test
+    public void testTemplateCacheSizeLimit() {
+        DynamicContentTemplateCache cache = new DynamicContentTemplateCache(25);
+        context.setVariable("name", "foo");
+
+        cache.getTemplate("${name}_1", context.getFunctionRegistry().getFunctionLibraries());
+        Assert.assertEquals(cache.getCachedCharacters(), 9L);
+        
+        cache.getTemplate("This template is too large for ${name}", context.getFunctionRegistry().getFunctionLibraries());
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getCachedCharacters(), 9L);
+        
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertEquals(cache.getCachedCharacters(), 0L);
+    }
+
+    @Test
+    public void testStaticContentNotCompiled() {
+        String staticText = new String("Static text");
+        
+        context.getTemplateCache().resetStatistics();
+        Assert.assertSame(context.replaceDynamicContentInString(staticText), staticText);
+        Assert.assertEquals(context.getTemplateCache().getMisses(), 0L);
+    }
+
+    /**
+     * Replaces dynamic content with string based variable and function utilities.
+     */
+    private String replaceDynamicContent(String str, boolean enableQuoting) {
+        return FunctionUtils.replaceFunctionsInString(
+                VariableUtils.replaceVariablesInString(str, context, enableQuoting), context, enableQuoting);
+    }
+}
@@ -17,6 +17,7 @@
 package com.consol.citrus.context;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.testng.Assert;
@@ -207,4 +208,31 @@ public class TestContextTest extends AbstractTestNGUnitTest {
         Assert.assertEquals(replaceValues.get(1), "123");
         Assert.assertEquals(replaceValues.get(2), "test");
     }
+    
+    @Test
+    public void testCopyVariablesWhileModified() throws Exception {
+        final TestContext testContext = createTestContext();
+        testContext.setVariables(new HashMap<String, Object>());
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        testContext.setVariable("var" + i, String.valueOf(i));
+                    }
+                }
+            });
+            
+            while (!writer.isDone()) {
+                testContext.copyVariables();
+            }
+            
+            writer.get(5000L, TimeUnit.MILLISECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        Assert.assertEquals(testContext.copyVariables().size(), 10000);
+    }
 }
@@ -24,8 +24,10 @@ import java.util.Map;
 import javax.jms.*;
 
 import org.easymock.EasyMock;
+import org.easymock.IMocksControl;
 import org.springframework.integration.Message;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -330,4 +332,194 @@ public class JmsMessageReceiverTest {
         
         verify(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer);
     }
+    
+    @Test
+    public void testWithCachedConsumers() throws Exception {
+        JmsMessageReceiver receiver = new JmsMessageReceiver();
+        receiver.setConnectionFactory(connectionFactory);
+        receiver.setCacheConsumers(true);
+        
+        receiver.setDestination(destination);
+        
+        MessageConsumer selectedConsumer = EasyMock.createMock(MessageConsumer.class);
+        
+        Map<String, String> headers = new HashMap<String, String>();
+        
+        reset(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, selectedConsumer);
+
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        expect(connection.createSession(anyBoolean(), anyInt())).andReturn(session).times(2);
+        
+        expect(session.createConsumer(destination, null)).andReturn(messageConsumer).once();
+        expect(session.createConsumer(destination, "Operation = 'sayHello'")).andReturn(selectedConsumer).once();
+        
+        connection.start();
+        expectLastCall().once();
+        
+        expect(messageConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", headers)).times(3);
+        expect(selectedConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello Selector!</Message></TestRequest>", headers)).once();
+        expect(selectedConsumer.receive(anyLong())).andReturn(null).once();
+        
+        messageConsumer.close();
+        expectLastCall().once();
+        selectedConsumer.close();
+        expectLastCall().once();
+        session.close();
+        expectLastCall().times(2);
+        connection.close();
+        expectLastCall().once();
+        
+        replay(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, selectedConsumer);
+        
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(receiver.receive().getPayload(), "<TestRequest><Message>Hello World!</Message></TestRequest>");
+        }
+        
+        Assert.assertEquals(receiver.receiveSelected("Operation = 'sayHello'", 1000L).getPayload(), 
+                "<TestRequest><Message>Hello Selector!</Message></TestRequest>");
+        
+        try {
+            receiver.receiveSelected("Operation = 'sayHello'", 1000L);
+            Assert.fail("Missing " + ActionTimeoutException.class + " because no message was received");
+        } catch (ActionTimeoutException e) {
+            Assert.assertTrue(e.getMessage().contains("Operation = 'sayHello'"));
+        }
+        
+        JmsConsumerCache consumerCache = receiver.getCachedConsumers();
+        Assert.assertEquals(consumerCache.getCreatedConnections(), 1L);
+        Assert.assertEquals(consumerCache.getCreatedSessions(), 2L);
+        Assert.assertEquals(consumerCache.getCreatedConsumers(), 2L);
+        Assert.assertEquals(consumerCache.getReusedConsumers(), 3L);
+        
+        receiver.destroy();
+        
+        verify(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, selectedConsumer);
+    }
+    
+    @Test
+    public void testCachedConsumersMixedSelectors() throws Exception {
+        JmsMessageReceiver receiver = new JmsMessageReceiver();
+        receiver.setConnectionFactory(connectionFactory);
+        receiver.setCacheConsumers(true);
+        
+        receiver.setDestination(destination);
+        
+        IMocksControl consumerControl = EasyMock.createStrictControl();
+        MessageConsumer plainConsumer = consumerControl.createMock(MessageConsumer.class);
+        MessageConsumer selectedConsumer = consumerControl.createMock(MessageConsumer.class);
+        MessageConsumer nextPlainConsumer = consumerControl.createMock(MessageConsumer.class);
+        
+        Map<String, String> headers = new HashMap<String, String>();
+        
+        reset(jmsTemplate, connectionFactory, destination, connection, session);
+
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        expect(connection.createSession(anyBoolean(), anyInt())).andReturn(session).times(3);
+        
+        expect(session.createConsumer(destination, null)).andReturn(plainConsumer).once().andReturn(nextPlainConsumer).once();
+        expect(session.createConsumer(destination, "Operation = 'sayHello'")).andReturn(selectedConsumer).once();
+        
+        connection.start();
+        expectLastCall().once();
+        
+        //idle plain consumer must be closed before selective receive, so prefetched messages return to the queue
+        expect(plainConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", headers)).once();
+        plainConsumer.close();
+        expectLastCall().once();
+        expect(selectedConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello Selector!</Message></TestRequest>", headers)).once();
+        selectedConsumer.close();
+        expectLastCall().once();
+        expect(nextPlainConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello Again!</Message></TestRequest>", headers)).once();
+        nextPlainConsumer.close();
+        expectLastCall().once();
+        
+        session.close();
+        expectLastCall().times(3);
+        connection.close();
+        expectLastCall().once();
+        
+        replay(jmsTemplate, connectionFactory, destination, connection, session);
+        consumerControl.replay();
+        
+        Assert.assertEquals(receiver.receive().getPayload(), "<TestRequest><Message>Hello World!</Message></TestRequest>");
+        Assert.assertEquals(receiver.receiveSelected("Operation = 'sayHello'", 1000L).getPayload(), 
+                "<TestRequest><Message>Hello Selector!</Message></TestRequest>");
+        Assert.assertEquals(receiver.receive().getPayload(), "<TestRequest><Message>Hello Again!</Message></TestRequest>");
+        
+        Assert.assertEquals(receiver.getCachedConsumers().size(), 1);
+        Assert.assertEquals(receiver.getCachedConsumers().getCreatedConsumers(), 3L);
+        
+        receiver.destroy();
+        
+        verify(jmsTemplate, connectionFactory, destination, connection, session);
+        consumerControl.verify();
+    }
+    
+    @Test
+    public void testCachedConsumersReconnect() throws Exception {
+        JmsMessageReceiver receiver = new JmsMessageReceiver();
+        receiver.setConnectionFactory(connectionFactory);
+        receiver.setCacheConsumers(true);
+        
+        receiver.setDestination(destination);
+        
+        Connection brokenConnection = EasyMock.createMock(Connection.class);
+        
+        Map<String, String> headers = new HashMap<String, String>();
+        
+        reset(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, brokenConnection);
+
+        expect(connectionFactory.createConnection()).andReturn(brokenConnection).once().andReturn(connection).once();
+        
+        brokenConnection.start();
+        expectLastCall().once();
+        expect(brokenConnection.createSession(anyBoolean(), anyInt())).andThrow(new JMSException("Connection lost")).once();
+        brokenConnection.close();
+        expectLastCall().once();
+        
+        connection.start();
+        expectLastCall().once();
+        expect(connection.createSession(anyBoolean(), anyInt())).andReturn(session).once();
+        expect(session.createConsumer(destination, null)).andReturn(messageConsumer).once();
+        expect(messageConsumer.receive(anyLong())).andReturn(new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", headers)).once();
+        
+        messageConsumer.close();
+        expectLastCall().once();
+        session.close();
+        expectLastCall().once();
+        connection.close();
+        expectLastCall().once();
+        
+        replay(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, brokenConnection);
+        
+        try {
+            receiver.receive();
+            Assert.fail("Missing exception because of broken connection");
+        } catch (JmsException e) {
+            Assert.assertTrue(e.getMessage().contains("Connection lost"));
+        }
+        
+        Assert.assertEquals(receiver.receive().getPayload(), "<TestRequest><Message>Hello World!</Message></TestRequest>");
+        Assert.assertEquals(receiver.getCachedConsumers().getCreatedConnections(), 2L);
+        
+        receiver.destroy();
+        
+        verify(jmsTemplate, connectionFactory, destination, connection, session, messageConsumer, brokenConnection);
+    }
+    
+    @Test
+    public void testCachedConsumersOnTopic() {
+        JmsMessageReceiver receiver = new JmsMessageReceiver();
+        receiver.setConnectionFactory(connectionFactory);
+        receiver.setCacheConsumers(true);
+        receiver.setPubSubDomain(true);
+        receiver.setDestination(destination);
+        
+        try {
+            receiver.receive(1000L);
+            Assert.fail("Missing " + CitrusRuntimeException.class + " because of cached consumers on topic");
+        } catch (CitrusRuntimeException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Cached consumers are not supported on topics"));
+        }
+    }
 }
@@ -18,12 +18,17 @@ package com.consol.citrus.jms;
 
 import static org.easymock.EasyMock.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 
 import javax.jms.*;
 
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.springframework.integration.Message;
 import org.springframework.integration.support.MessageBuilder;
 import org.testng.Assert;
@@ -154,26 +159,192 @@ public class JmsSyncMessageSenderTest {
         expect(connection.createSession(anyBoolean(), anyInt())).andReturn(session).once();
 
         expect(session.createTemporaryQueue()).andReturn(tempReplyQueue).once();
+        expect(session.createConsumer(tempReplyQueue)).andReturn(messageConsumer).once();
+        expect(messageConsumer.receive(anyLong())).andReturn(jmsResponse).times(2);
+        
+        expect(session.createProducer(destination)).andReturn(messageProducer).once();
+        messageProducer.send((TextMessage)anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            public Object answer() throws Throwable {
+                Assert.assertEquals(((TextMessage)getCurrentArguments()[0]).getJMSReplyTo(), tempReplyQueue);
+                return null;
+            }
+        }).times(2);
+        
+        expect(session.createTextMessage("<TestRequest><Message>Hello World!</Message></TestRequest>")).andReturn(
+                new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", new HashMap<String, String>())).times(2);
+        
+        replay(connectionFactory, destination, connection, session, messageConsumer, messageProducer, tempReplyQueue);
+        
+        sender.send(message);
+        sender.send(message);
+        
+        Assert.assertEquals(sender.getCreatedSessions(), 1);
+        Assert.assertEquals(sender.getIdleSessions(), 1);
+        Assert.assertEquals(sender.getActiveSessions(), 0);
+        Assert.assertEquals(sender.getInFlightRequests(), 0);
+        
+        verify(connectionFactory, destination, connection, session, messageConsumer, messageProducer, tempReplyQueue);
+    }
+    
+    @Test
+    public void testSendMessageWithTemporaryReplyDestinationTimeout() throws JMSException {
+        JmsSyncMessageSender sender = new JmsSyncMessageSender();
+        sender.setConnectionFactory(connectionFactory);
+        sender.setReplyTimeout(100L);
         
+        sender.setDestination(destination);
+        
+        final Message<String> message = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
+        
+        reset(connectionFactory, destination, connection, session, messageConsumer, messageProducer, tempReplyQueue);
+
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        connection.start();
+        expectLastCall().once();
+        expect(connection.createSession(anyBoolean(), anyInt())).andReturn(session).once();
+
+        expect(session.createTemporaryQueue()).andReturn(tempReplyQueue).once();
         expect(session.createConsumer(tempReplyQueue)).andReturn(messageConsumer).once();
-        expect(messageConsumer.receive(anyLong())).andReturn(jmsResponse).once();
+        expect(messageConsumer.receive(100L)).andReturn(null).once();
         
         expect(session.createProducer(destination)).andReturn(messageProducer).once();
         messageProducer.send((TextMessage)anyObject());
         expectLastCall().once();
         
         expect(session.createTextMessage("<TestRequest><Message>Hello World!</Message></TestRequest>")).andReturn(
-                new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", new HashMap<String, String>()));
+                new TextMessageImpl("<TestRequest><Message>Hello World!</Message></TestRequest>", new HashMap<String, String>())).once();
         
+        // session with timed out request is closed, so late replies are not received by next request 
+        messageConsumer.close();
+        expectLastCall().once();
         tempReplyQueue.delete();
         expectLastCall().once();
+        messageProducer.close();
+        expectLastCall().once();
+        session.close();
+        expectLastCall().once();
         
         replay(connectionFactory, destination, connection, session, messageConsumer, messageProducer, tempReplyQueue);
         
-        sender.send(message);
+        try {
+            sender.send(message);
+        } catch (RuntimeException e) {
+            // missing reply message is not part of this test
+        }
+        
+        Assert.assertEquals(sender.getIdleSessions(), 0);
+        Assert.assertEquals(sender.getInFlightRequests(), 0);
         
         verify(connectionFactory, destination, connection, session, messageConsumer, messageProducer, tempReplyQueue);
     }
+    
+    @Test
+    public void testConcurrentSendWithUncorrelatedReplies() throws Exception {
+        final JmsSyncMessageSender sender = new JmsSyncMessageSender();
+        sender.setConnectionFactory(connectionFactory);
+        sender.setDestination(destination);
+        
+        final ReplyMessageCorrelator correlator = new DefaultReplyMessageCorrelator();
+        sender.setCorrelator(correlator);
+        
+        final Map<String, Object> replies = new ConcurrentHashMap<String, Object>();
+        sender.setReplyMessageHandler(new ReplyMessageHandler() {
+            public void onReplyMessage(Message<?> replyMessage, String correlationKey) {
+                replies.put(correlationKey, replyMessage.getPayload());
+            }
+            
+            public void onReplyMessage(Message<?> replyMessage) {
+                throw new CitrusRuntimeException("Missing correlation key");
+            }
+        });
+        
+        final Map<Destination, BlockingQueue<TextMessage>> replyQueues = new ConcurrentHashMap<Destination, BlockingQueue<TextMessage>>();
+        final CountDownLatch requestsSent = new CountDownLatch(2);
+        
+        reset(connectionFactory, destination, connection);
+        
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        connection.start();
+        expectLastCall().once();
+        expect(connection.createSession(anyBoolean(), anyInt()))
+            .andReturn(createReplyPartnerSession(replyQueues, requestsSent)).once()
+            .andReturn(createReplyPartnerSession(replyQueues, requestsSent)).once();
+        
+        replay(connectionFactory, destination, connection);
+        
+        final Message<String> first = MessageBuilder.withPayload("first").build();
+        final Message<String> second = MessageBuilder.withPayload("second").build();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Object>> results = new ArrayList<Future<Object>>();
+        for (final Message<String> request : Arrays.asList(first, second)) {
+            results.add(executor.submit(new Callable<Object>() {
+                public Object call() throws Exception {
+                    sender.send(request);
+                    return null;
+                }
+            }));
+        }
+        
+        for (Future<Object> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        
+        Assert.assertEquals(replies.get(correlator.getCorrelationKey(first)), "reply:first");
+        Assert.assertEquals(replies.get(correlator.getCorrelationKey(second)), "reply:second");
+        Assert.assertEquals(sender.getCreatedSessions(), 2);
+        Assert.assertEquals(sender.getInFlightRequests(), 0);
+        
+        verify(connectionFactory, destination, connection);
+    }
+    
+    /**
+     * Creates session mock with temporary reply queue. Reply partner answers requests without
+     * correlation id as soon as all concurrent requests are sent.
+     */
+    private Session createReplyPartnerSession(final Map<Destination, BlockingQueue<TextMessage>> replyQueues, 
+            final CountDownLatch requestsSent) throws JMSException {
+        Session replyPartnerSession = EasyMock.createMock(Session.class);
+        final TemporaryQueue replyQueue = EasyMock.createMock(TemporaryQueue.class);
+        MessageConsumer replyConsumer = EasyMock.createMock(MessageConsumer.class);
+        MessageProducer producer = EasyMock.createMock(MessageProducer.class);
+        
+        replyQueues.put(replyQueue, new LinkedBlockingQueue<TextMessage>());
+        
+        expect(replyPartnerSession.createTextMessage((String)anyObject())).andAnswer(new IAnswer<TextMessage>() {
+            public TextMessage answer() throws Throwable {
+                return new TextMessageImpl((String)getCurrentArguments()[0], new HashMap<String, String>());
+            }
+        }).once();
+        expect(replyPartnerSession.createTemporaryQueue()).andReturn(replyQueue).once();
+        expect(replyPartnerSession.createConsumer(replyQueue)).andReturn(replyConsumer).once();
+        expect(replyPartnerSession.createProducer(destination)).andReturn(producer).once();
+        
+        producer.send((TextMessage)anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+            public Object answer() throws Throwable {
+                TextMessage request = (TextMessage)getCurrentArguments()[0];
+                requestsSent.countDown();
+                
+                replyQueues.get(request.getJMSReplyTo()).add(
+                        new TextMessageImpl("reply:" + request.getText(), new HashMap<String, String>()));
+                return null;
+            }
+        }).once();
+        
+        expect(replyConsumer.receive(anyLong())).andAnswer(new IAnswer<javax.jms.Message>() {
+            public javax.jms.Message answer() throws Throwable {
+                Assert.assertTrue(requestsSent.await(5, TimeUnit.SECONDS));
+                return replyQueues.get(replyQueue).poll();
+            }
+        }).once();
+        
+        replay(replyPartnerSession, replyQueue, replyConsumer, producer);
+        
+        return replyPartnerSession;
+    }
 
     @Test
     @SuppressWarnings("rawtypes")
@@ -28,6 +28,8 @@ public class TextMessageImpl implements TextMessage {
     
     private Destination replyDestination = null;
     
+    private String correlationId = null;
+    
     private Map<String, String> headers = new HashMap<String, String>();
     
     public TextMessageImpl(String payload, Map<String, String> headers) {
@@ -49,7 +51,7 @@ public class TextMessageImpl implements TextMessage {
     public void setJMSDestination(Destination destination) throws JMSException {}
     public void setJMSDeliveryMode(int deliveryMode) throws JMSException {}
     public void setJMSCorrelationIDAsBytes(byte[] correlationID) throws JMSException {}
-    public void setJMSCorrelationID(String correlationID) throws JMSException {}
+    public void setJMSCorrelationID(String correlationID) throws JMSException {this.correlationId=correlationID;}
     public void setIntProperty(String name, int value) throws JMSException {}
     public void setFloatProperty(String name, float value) throws JMSException {}
     public void setDoubleProperty(String name, double value) throws JMSException {}
@@ -72,7 +74,7 @@ public class TextMessageImpl implements TextMessage {
     public Destination getJMSDestination() throws JMSException {return null;}
     public int getJMSDeliveryMode() throws JMSException {return 0;}
     public byte[] getJMSCorrelationIDAsBytes() throws JMSException {return null;}
-    public String getJMSCorrelationID() throws JMSException {return null;}
+    public String getJMSCorrelationID() throws JMSException {return correlationId;}
     public int getIntProperty(String name) throws JMSException {return 0;}
     public float getFloatProperty(String name) throws JMSException {return 0;}
     public double getDoubleProperty(String name) throws JMSException {return 0;}
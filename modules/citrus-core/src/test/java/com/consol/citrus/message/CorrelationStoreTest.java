@@ -0,0 +1,87 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.message;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.jms.JmsReplyMessageReceiver;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class CorrelationStoreTest {
+
+    @Test
+    public void testPutAndPoll() {
+        CorrelationStore<String> store = new CorrelationStore<String>();
+        
+        Assert.assertNull(store.poll("key"));
+        Assert.assertNull(store.poll("key", 10L));
+        Assert.assertEquals(store.size(), 0);
+        
+        store.put("key", "first");
+        store.put("key", "second");
+        store.put("other", "third");
+        
+        Assert.assertEquals(store.poll("key"), "second");
+        Assert.assertNull(store.poll("key"));
+        Assert.assertEquals(store.poll("other", 10L), "third");
+        Assert.assertEquals(store.size(), 0);
+    }
+    
+    @Test
+    public void testWaitingConsumerIsWokenUp() throws InterruptedException {
+        final JmsReplyMessageReceiver replyMessageReceiver = new JmsReplyMessageReceiver();
+        final Message<String> message = MessageBuilder.withPayload("<TestResponse>Hello World!</TestResponse>").build();
+        
+        Thread replySender = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    Thread.sleep(100L);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                
+                replyMessageReceiver.onReplyMessage(message, "correlationKey");
+            }
+        });
+        
+        long start = System.currentTimeMillis();
+        replySender.start();
+        
+        Assert.assertEquals(replyMessageReceiver.receiveSelected("correlationKey", 10000L), message);
+        Assert.assertTrue(System.currentTimeMillis() - start < 5000L);
+        
+        replySender.join();
+    }
+    
+    @Test
+    public void testExpiredObjectsAreDiscarded() throws InterruptedException {
+        CorrelationStore<String> store = new CorrelationStore<String>();
+        store.setTimeToLive(50L);
+        
+        store.put("orphan", "orphan");
+        Thread.sleep(100L);
+        store.put("key", "value");
+        
+        Assert.assertNull(store.poll("orphan"));
+        Assert.assertEquals(store.poll("key"), "value");
+    }
+}
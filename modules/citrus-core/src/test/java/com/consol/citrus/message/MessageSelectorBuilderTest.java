@@ -0,0 +1,60 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.message;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class MessageSelectorBuilderTest {
+
+    @Test
+    public void testToKeyValueMap() {
+        Map<String, String> valueMap = MessageSelectorBuilder.withString("operation = 'sayHello'").toKeyValueMap();
+        
+        Assert.assertEquals(valueMap.size(), 1);
+        Assert.assertEquals(valueMap.get("operation"), "sayHello");
+        
+        valueMap = MessageSelectorBuilder.withString("operation = 'sayHello' AND id='1' and name = 'foo bar'").toKeyValueMap();
+        
+        Assert.assertEquals(valueMap.size(), 3);
+        Assert.assertEquals(valueMap.get("operation"), "sayHello");
+        Assert.assertEquals(valueMap.get("id"), "1");
+        Assert.assertEquals(valueMap.get("name"), "foo bar");
+        
+        Assert.assertTrue(MessageSelectorBuilder.withString("").toKeyValueMap().isEmpty());
+    }
+    
+    @Test
+    public void testFromKeyValueMapRoundTrip() {
+        Map<String, Object> valueMap = Collections.<String, Object>singletonMap("operation", "sayHello");
+        
+        Assert.assertEquals(MessageSelectorBuilder.fromKeyValueMap(valueMap).toKeyValueMap().get("operation"), "sayHello");
+    }
+    
+    @Test(expectedExceptions = CitrusRuntimeException.class)
+    public void testUnsupportedSelector() {
+        MessageSelectorBuilder.withString("operation = 'sayHello' OR id = '1'").toKeyValueMap();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.report;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+import org.springframework.core.io.FileSystemResource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.TestCase;
+import com.consol.citrus.exceptions.CitrusRuntimeException;
+import com.consol.citrus.util.FileUtils;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class HtmlReporterTest {
+
+    @Test
+    public void testGenerateReport() throws Exception {
+        final HtmlReporter reporter = new HtmlReporter();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 100; i++) {
+                final int index = i;
+                executor.submit(new Runnable() {
+                    public void run() {
+                        TestCase test = new TestCase();
+                        test.setName("HtmlReporterTest" + index);
+                        
+                        if (index % 10 == 0) {
+                            reporter.onTestFailure(test, new CitrusRuntimeException("Failed " + index));
+                        } else {
+                            reporter.onTestSuccess(test);
+                        }
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+        }
+        
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        reporter.generateTestResults();
+        
+        String report = readReport();
+        Assert.assertTrue(report.contains("Tests results (100 Tests)"));
+        Assert.assertFalse(report.contains("@test.details@"));
+        
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(report.contains("<th>HtmlReporterTest" + i + "\n"), "Missing test detail for test " + i);
+        }
+        
+        Assert.assertEquals(report.split("class=\"error-detail\"").length - 1, 10);
+    }
+    
+    @Test
+    public void testGenerateEmptyReport() throws IOException {
+        new HtmlReporter().generateTestResults();
+        
+        Assert.assertTrue(readReport().contains("Tests results (0 Tests)"));
+    }
+    
+    /**
+     * Reads generated report file content.
+     * @return
+     * @throws IOException
+     */
+    private String readReport() throws IOException {
+        return FileUtils.readToString(new FileSystemResource("test-output/citrus-reports/citrus-test-results.html"));
+    }
+}
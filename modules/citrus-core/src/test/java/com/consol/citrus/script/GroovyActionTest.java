@@ -16,11 +16,15 @@
 
 package com.consol.citrus.script;
 
+import java.util.Collections;
+
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.consol.citrus.TestAction;
+import com.consol.citrus.container.Iterate;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.testng.AbstractTestNGUnitTest;
 
@@ -100,6 +104,39 @@ public class GroovyActionTest extends AbstractTestNGUnitTest {
         bean.execute(context);
     }
     
+    @Test
+    public void testNoScriptTemplateVariableBinding() {
+        GroovyAction bean = new GroovyAction();
+        bean.setUseScriptTemplate(false);
+        
+        context.setVariable("greeting", "Hello");
+        
+        bean.setScript("context.setVariable('bindingResult', \"${greeting} Citrus!\")");
+        bean.execute(context);
+        
+        Assert.assertEquals(context.getVariable("bindingResult"), "Hello Citrus!");
+    }
+    
+    @Test
+    public void testNoScriptTemplateInsideLoop() {
+        GroovyAction bean = new GroovyAction();
+        bean.setUseScriptTemplate(false);
+        bean.setScript("context.setVariable('loopSum', (loopSum as int) + (loopIndex as int))");
+        
+        Iterate iterate = new Iterate();
+        iterate.setActions(Collections.<TestAction>singletonList(bean));
+        iterate.setCondition("loopIndex lt= 10");
+        iterate.setIndexName("loopIndex");
+        
+        context.setVariable("loopSum", "0");
+        
+        long misses = GroovyScriptCache.getInstance().getMisses();
+        iterate.execute(context);
+        
+        Assert.assertEquals(context.getVariable("loopSum"), "55");
+        Assert.assertEquals(GroovyScriptCache.getInstance().getMisses() - misses, 1L);
+    }
+    
     @Test
     public void testAutomaticScriptExecutorWrapper() {
         GroovyAction bean = new GroovyAction();
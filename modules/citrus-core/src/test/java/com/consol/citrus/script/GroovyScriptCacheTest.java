@@ -0,0 +1,48 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.script;
+
+import groovy.lang.GroovyObject;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class GroovyScriptCacheTest {
+
+    @Test
+    public void testCompiledScriptCache() throws Exception {
+        GroovyScriptCache cache = new GroovyScriptCache(2);
+        ClassLoader parent = getClass().getClassLoader();
+        
+        Class<?> scriptClass = cache.parseClass("return 'Hello'", parent);
+        Assert.assertSame(cache.parseClass("return 'Hello'", parent), scriptClass);
+        Assert.assertEquals(cache.getHits(), 1L);
+        Assert.assertEquals(cache.getMisses(), 1L);
+        Assert.assertEquals(((GroovyObject) scriptClass.newInstance()).invokeMethod("run", new Object[] {}), "Hello");
+        
+        cache.parseClass("return 'Hello 1'", parent);
+        cache.parseClass("return 'Hello 2'", parent);
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertNotSame(cache.parseClass("return 'Hello'", parent), scriptClass);
+        
+        cache.clear();
+        Assert.assertEquals(cache.size(), 0);
+    }
+}
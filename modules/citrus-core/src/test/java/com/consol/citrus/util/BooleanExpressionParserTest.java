@@ -16,6 +16,8 @@
 
 package com.consol.citrus.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -73,4 +75,61 @@ public class BooleanExpressionParserTest {
         
         Assert.fail("Missing " + CitrusRuntimeException.class + " because of broken expression");
     }
+    
+    @Test
+    public void testCompiledExpressionWithVariable() {
+        BooleanExpressionParser.CompiledExpression expression = BooleanExpressionParser.compile("(i lt 5) and (i gt= 2)", "i");
+        
+        Assert.assertFalse(expression.evaluate(1));
+        Assert.assertTrue(expression.evaluate(2));
+        Assert.assertTrue(expression.evaluate(4));
+        Assert.assertFalse(expression.evaluate(5));
+        
+        expression = BooleanExpressionParser.compile("index = 10", "index");
+        Assert.assertTrue(expression.evaluate(10));
+        Assert.assertFalse(expression.evaluate(1));
+    }
+    
+    @Test
+    public void testCompiledExpressionLoop() {
+        BooleanExpressionParser.CompiledExpression expression = BooleanExpressionParser.compile("i gt= 1000000", "i");
+        
+        int index = 1;
+        while (!expression.evaluate(index)) {
+            index++;
+        }
+        
+        Assert.assertEquals(index, 1000000);
+    }
+    
+    @Test
+    public void testCompiledExpressionConcurrentEvaluation() throws InterruptedException {
+        final BooleanExpressionParser.CompiledExpression expression = BooleanExpressionParser.compile("(i lt 500) or (i = 1000)", "i");
+        final AtomicInteger failures = new AtomicInteger();
+        
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                public void run() {
+                    for (int i = 0; i < 100000; i++) {
+                        int value = i % 1001;
+                        if (expression.evaluate(value) != (value < 500 || value == 1000)) {
+                            failures.incrementAndGet();
+                        }
+                        
+                        if (BooleanExpressionParser.evaluate(value + " lt 500") != (value < 500)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        Assert.assertEquals(failures.get(), 0);
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.util;
+
+import java.io.*;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class ResourceContentCacheTest {
+
+    @Test
+    public void testCachedContent() throws IOException {
+        File file = File.createTempFile("citrus", ".xml");
+        file.deleteOnExit();
+        write(file, "<TestMessage>Hello</TestMessage>");
+        file.setLastModified(System.currentTimeMillis() - 10000L);
+        
+        ResourceContentCache cache = new ResourceContentCache();
+        Resource resource = new FileSystemResource(file);
+        
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hello</TestMessage>");
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hello</TestMessage>");
+        Assert.assertEquals(cache.getHits(), 1L);
+        Assert.assertEquals(cache.getMisses(), 1L);
+        Assert.assertEquals(cache.getBytesSaved(), file.length());
+        Assert.assertEquals(cache.getHitRatio(), 0.5);
+        
+        write(file, "<TestMessage>Hello World</TestMessage>");
+        
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hello World</TestMessage>");
+        Assert.assertEquals(cache.getMisses(), 2L);
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getCachedBytes(), file.length());
+    }
+    
+    @Test
+    public void testRecentlyModifiedContent() throws IOException {
+        File file = File.createTempFile("citrus", ".xml");
+        file.deleteOnExit();
+        write(file, "<TestMessage>Hello</TestMessage>");
+        long lastModified = file.lastModified();
+        
+        ResourceContentCache cache = new ResourceContentCache();
+        Resource resource = new FileSystemResource(file);
+        
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hello</TestMessage>");
+        
+        //modification within same time stamp and same length
+        write(file, "<TestMessage>Hallo</TestMessage>");
+        file.setLastModified(lastModified);
+        
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hallo</TestMessage>");
+        Assert.assertEquals(cache.getHits(), 0L);
+        Assert.assertEquals(cache.getMisses(), 2L);
+        
+        cache.setModificationGranularity(-10000L);
+        Assert.assertEquals(cache.getContent(resource), "<TestMessage>Hallo</TestMessage>");
+        Assert.assertEquals(cache.getHits(), 1L);
+    }
+    
+    @Test
+    public void testMaxSize() throws IOException {
+        File first = File.createTempFile("citrus", ".txt");
+        first.deleteOnExit();
+        write(first, "0123456789");
+        
+        File second = File.createTempFile("citrus", ".txt");
+        second.deleteOnExit();
+        write(second, "9876543210");
+        
+        ResourceContentCache cache = new ResourceContentCache();
+        cache.setMaxSize(15L);
+        
+        cache.preload(new FileSystemResource(first));
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getMisses(), 0L);
+        
+        cache.getContent(new FileSystemResource(second));
+        Assert.assertEquals(cache.size(), 1);
+        Assert.assertEquals(cache.getCachedBytes(), 10L);
+        
+        cache.getContent(new FileSystemResource(first));
+        Assert.assertEquals(cache.getHits(), 0L);
+    }
+    
+    /**
+     * Writes content to file.
+     */
+    private void write(File file, String content) throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+}
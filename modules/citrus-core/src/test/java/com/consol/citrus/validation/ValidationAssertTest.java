@@ -0,0 +1,72 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.validation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class ValidationAssertTest {
+
+    @Test
+    public void testIsTrue() {
+        ValidationAssert.isTrue(true, "Never formatted %s %s");
+        ValidationAssert.isTrue(true, "Never formatted %s", "foo");
+
+        try {
+            ValidationAssert.isTrue(false, "Unknown attribute %s (%s)", "id", null);
+            Assert.fail("Missing exception due to failed assertion");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Unknown attribute id (null)");
+        }
+        
+        try {
+            ValidationAssert.isTrue(false, "Size mismatch for '%s', expected %s but was %s", "foo", 3, 2);
+            Assert.fail("Missing exception due to failed assertion");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Size mismatch for 'foo', expected 3 but was 2");
+        }
+    }
+
+    @Test
+    public void testIsExpected() {
+        ValidationAssert.isExpected(true, "Values not equal for element '%s'", "foo", "bar", "bar");
+
+        try {
+            ValidationAssert.isExpected(false, "Values not equal for element '%s'", "foo", "bar", "wrong");
+            Assert.fail("Missing exception due to failed assertion");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Values not equal for element 'foo', expected 'bar' but was 'wrong'");
+        }
+
+        try {
+            ValidationAssert.isExpected(false, "Number of child elements not equal for element '%s'", "foo", 3, 2);
+            Assert.fail("Missing exception due to failed assertion");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Number of child elements not equal for element 'foo', expected '3' but was '2'");
+        }
+
+        try {
+            ValidationAssert.isExpected(false, "Plain text with 100% match not equal", "foo", null);
+            Assert.fail("Missing exception due to failed assertion");
+        } catch (IllegalArgumentException e) {
+            Assert.assertEquals(e.getMessage(), "Plain text with 100% match not equal, expected 'foo' but was 'null'");
+        }
+    }
+}
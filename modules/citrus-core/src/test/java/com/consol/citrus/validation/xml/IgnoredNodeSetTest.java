@@ -0,0 +1,148 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.validation.xml;
+
+import java.util.*;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.xml.namespace.SimpleNamespaceContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import com.consol.citrus.testng.AbstractTestNGUnitTest;
+import com.consol.citrus.util.XMLUtils;
+import com.consol.citrus.validation.builder.PayloadTemplateMessageBuilder;
+import com.consol.citrus.validation.context.ValidationContext;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class IgnoredNodeSetTest extends AbstractTestNGUnitTest {
+
+    @Test
+    public void testResolveIgnoreExpressions() {
+        Document doc = XMLUtils.parseMessagePayload("<root>"
+                        + "<element attributeA='attribute-value' attributeB='attribute-value'>"
+                            + "<sub-elementA attribute='A'>text-value</sub-elementA>"
+                            + "<sub-elementB attribute='B'>text-value</sub-elementB>"
+                            + "<sub-elementC attribute='C'>text-value</sub-elementC>"
+                        + "</element>"
+                    + "</root>");
+
+        Element element = (Element) doc.getDocumentElement().getFirstChild();
+        Element subElementA = (Element) element.getChildNodes().item(0);
+        Element subElementB = (Element) element.getChildNodes().item(1);
+        Element subElementC = (Element) element.getChildNodes().item(2);
+
+        Set<String> ignoreExpressions = new HashSet<String>();
+        ignoreExpressions.add("root.element.attributeA");
+        ignoreExpressions.add("sub-elementA");
+        ignoreExpressions.add("//root/element/sub-elementB/@attribute");
+
+        IgnoredNodeSet ignoredNodes = IgnoredNodeSet.resolve(doc, ignoreExpressions, new SimpleNamespaceContext());
+
+        Assert.assertEquals(ignoredNodes.size(), 3);
+        Assert.assertTrue(ignoredNodes.contains(element.getAttributeNode("attributeA")));
+        Assert.assertFalse(ignoredNodes.contains(element.getAttributeNode("attributeB")));
+        Assert.assertTrue(ignoredNodes.contains(subElementA));
+        Assert.assertFalse(ignoredNodes.contains(subElementB));
+        Assert.assertTrue(ignoredNodes.contains(subElementB.getAttributeNode("attribute")));
+        Assert.assertFalse(ignoredNodes.contains(subElementC));
+    }
+
+    @Test
+    public void testResolveFullPathNames() {
+        Document doc = XMLUtils.parseMessagePayload("<root>"
+                        + "<element><item>1</item></element>"
+                        + "<element><item>2</item></element>"
+                    + "</root>");
+
+        Set<String> ignoreExpressions = Collections.singleton("root.element.item");
+
+        IgnoredNodeSet ignoredNodes = IgnoredNodeSet.resolve(doc, ignoreExpressions, new SimpleNamespaceContext());
+
+        Assert.assertEquals(ignoredNodes.size(), 2);
+        Assert.assertTrue(ignoredNodes.contains(doc.getDocumentElement().getFirstChild().getFirstChild()));
+        Assert.assertTrue(ignoredNodes.contains(doc.getDocumentElement().getLastChild().getFirstChild()));
+    }
+
+    @Test
+    public void testResolveNamespacePrefixedAttribute() {
+        Document doc = XMLUtils.parseMessagePayload("<ns0:root xmlns:ns0='http://citrus' xmlns:ns1='http://citrus/attributes'>"
+                        + "<ns0:element ns1:attributeA='attribute-value' attributeB='attribute-value'/>"
+                    + "</ns0:root>");
+
+        Element element = (Element) doc.getDocumentElement().getFirstChild();
+
+        Set<String> ignoreExpressions = new HashSet<String>();
+        ignoreExpressions.add("root.element.attributeA");
+        ignoreExpressions.add("root.element.attributeB");
+
+        IgnoredNodeSet ignoredNodes = IgnoredNodeSet.resolve(doc, ignoreExpressions, new SimpleNamespaceContext());
+
+        Assert.assertTrue(ignoredNodes.contains(element.getAttributeNodeNS("http://citrus/attributes", "attributeA")));
+        Assert.assertTrue(ignoredNodes.contains(element.getAttributeNode("attributeB")));
+    }
+
+    @Test
+    public void testEmptyIgnoreExpressions() {
+        Document doc = XMLUtils.parseMessagePayload("<root><element>text</element></root>");
+
+        Assert.assertSame(IgnoredNodeSet.resolve(doc, null, new SimpleNamespaceContext()), IgnoredNodeSet.EMPTY);
+        Assert.assertSame(IgnoredNodeSet.resolve(doc, new HashSet<String>(), new SimpleNamespaceContext()), IgnoredNodeSet.EMPTY);
+        Assert.assertFalse(IgnoredNodeSet.EMPTY.contains(doc.getDocumentElement()));
+    }
+
+    @Test
+    public void testValidateLargeDocumentWithIgnores() {
+        StringBuffer received = new StringBuffer("<root>");
+        StringBuffer control = new StringBuffer("<root>");
+        for (int i = 0; i < 2500; i++) {
+            received.append("<item id='" + i + "'><name>name" + i + "</name><value>" + i + "</value><timestamp>" + System.nanoTime() + "</timestamp></item>");
+            control.append("<item id='" + i + "'><name>name" + i + "</name><value>" + i + "</value><timestamp>ignored</timestamp></item>");
+        }
+        received.append("<trailer><count>2500</count><checksum>4711</checksum></trailer></root>");
+        control.append("<trailer><count>2500</count><checksum>0</checksum></trailer></root>");
+
+        Set<String> ignoreExpressions = new HashSet<String>();
+        ignoreExpressions.add("root.item.timestamp");
+        ignoreExpressions.add("checksum");
+        for (int i = 0; i < 10; i++) {
+            ignoreExpressions.add("//item[@id='" + (i * 250) + "']/@id");
+        }
+
+        PayloadTemplateMessageBuilder controlMessageBuilder = new PayloadTemplateMessageBuilder();
+        controlMessageBuilder.setPayloadData(control.toString());
+
+        XmlMessageValidationContext validationContext = new XmlMessageValidationContext();
+        validationContext.setMessageBuilder(controlMessageBuilder);
+        validationContext.setSchemaValidation(false);
+        validationContext.setIgnoreExpressions(ignoreExpressions);
+
+        List<ValidationContext> validationContexts = new ArrayList<ValidationContext>();
+        validationContexts.add(validationContext);
+
+        Message<?> message = MessageBuilder.withPayload(received.toString()).build();
+
+        DomXmlMessageValidator validator = new DomXmlMessageValidator();
+        validator.setFunctionRegistry(context.getFunctionRegistry());
+        validator.validateMessage(message, context, validationContexts);
+    }
+}
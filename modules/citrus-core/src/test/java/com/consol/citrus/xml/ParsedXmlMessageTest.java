@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml;
+
+import java.util.*;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.consol.citrus.testng.AbstractTestNGUnitTest;
+import com.consol.citrus.validation.builder.PayloadTemplateMessageBuilder;
+import com.consol.citrus.validation.context.ValidationContext;
+import com.consol.citrus.validation.xml.DomXmlMessageValidator;
+import com.consol.citrus.validation.xml.XmlMessageValidationContext;
+import com.consol.citrus.variable.XpathPayloadVariableExtractor;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class ParsedXmlMessageTest extends AbstractTestNGUnitTest {
+
+    private static final String PAYLOAD = "<ns0:message xmlns:ns0='http://citrus'>\n"
+                        + "  <ns0:correlationId>Kx1R123456789</ns0:correlationId>\n"
+                        + "  <ns0:bookingId>Bx1G987654321</ns0:bookingId>\n"
+                        + "  <ns0:test>Hello TestFramework</ns0:test>\n"
+                    + "</ns0:message>";
+
+    @Test
+    public void testLazyParsing() {
+        Message<?> message = MessageBuilder.withPayload(PAYLOAD).build();
+
+        ParsedXmlMessage parsedMessage = ParsedXmlMessage.fromMessage(message);
+        Assert.assertEquals(parsedMessage.getParseCount(), 0);
+        Assert.assertEquals(parsedMessage.getNamespaces().size(), 1);
+        Assert.assertEquals(parsedMessage.getNamespaces().get("ns0"), "http://citrus");
+        Assert.assertEquals(parsedMessage.getParseCount(), 0);
+
+        Assert.assertSame(parsedMessage.getDocument(), parsedMessage.getDocument());
+        Assert.assertEquals(parsedMessage.getParseCount(), 1);
+
+        Assert.assertSame(ParsedXmlMessage.fromMessage(message), parsedMessage);
+
+        ParsedXmlMessage.clear();
+        Assert.assertNotSame(ParsedXmlMessage.fromMessage(message), parsedMessage);
+    }
+
+    @Test
+    public void testStrippedDocument() {
+        Message<?> message = MessageBuilder.withPayload(PAYLOAD).build();
+
+        ParsedXmlMessage parsedMessage = new ParsedXmlMessage(message);
+
+        Assert.assertEquals(parsedMessage.getStrippedDocument().getFirstChild().getChildNodes().getLength(), 3);
+        Assert.assertEquals(parsedMessage.getDocument().getFirstChild().getChildNodes().getLength(), 7);
+        Assert.assertEquals(parsedMessage.getParseCount(), 1);
+    }
+
+    @Test
+    public void testSingleParsePerReceive() throws Exception {
+        Message<?> message = MessageBuilder.withPayload(PAYLOAD).build();
+
+        XpathPayloadVariableExtractor variableExtractor = new XpathPayloadVariableExtractor();
+        Map<String, String> extractExpressions = new HashMap<String, String>();
+        extractExpressions.put("//ns0:correlationId", "correlationId");
+        extractExpressions.put("//ns0:bookingId", "bookingId");
+        extractExpressions.put("message.test", "text");
+        variableExtractor.setxPathExpressions(extractExpressions);
+
+        Map<String, String> expectedNamespaces = new HashMap<String, String>();
+        expectedNamespaces.put("ns0", "http://citrus");
+
+        Map<String, String> validateExpressions = new HashMap<String, String>();
+        validateExpressions.put("//ns0:correlationId", "Kx1R123456789");
+
+        PayloadTemplateMessageBuilder controlMessageBuilder = new PayloadTemplateMessageBuilder();
+        controlMessageBuilder.setPayloadData(PAYLOAD);
+
+        XmlMessageValidationContext validationContext = new XmlMessageValidationContext();
+        validationContext.setMessageBuilder(controlMessageBuilder);
+        validationContext.setControlNamespaces(expectedNamespaces);
+        validationContext.setPathValidationExpressions(validateExpressions);
+
+        List<ValidationContext> validationContexts = new ArrayList<ValidationContext>();
+        validationContexts.add(validationContext);
+
+        XsdSchemaRepository schemaRepository = new XsdSchemaRepository();
+        SimpleXsdSchema schema = new SimpleXsdSchema(new ClassPathResource("com/consol/citrus/validation/test.xsd"));
+        schema.afterPropertiesSet();
+        schemaRepository.getSchemas().add(schema);
+
+        DomXmlMessageValidator validator = new DomXmlMessageValidator();
+        validator.setSchemaRepository(schemaRepository);
+        validator.setFunctionRegistry(context.getFunctionRegistry());
+
+        variableExtractor.extractVariables(message, context);
+        validator.validateMessage(message, context, validationContexts);
+
+        Assert.assertEquals(context.getVariable("correlationId"), "Kx1R123456789");
+        Assert.assertEquals(context.getVariable("text"), "Hello TestFramework");
+        Assert.assertEquals(ParsedXmlMessage.fromMessage(message).getParseCount(), 1);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml;
+
+import java.util.concurrent.*;
+
+import javax.xml.transform.*;
+
+import org.springframework.xml.transform.StringResult;
+import org.springframework.xml.transform.StringSource;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class TransformerCacheTest {
+
+    private static final String XSLT = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">" +
+            "<xsl:output method=\"text\"/>" +
+            "<xsl:template match=\"/\">Hello <xsl:value-of select=\"/Message/Text\"/></xsl:template>" +
+        "</xsl:stylesheet>";
+
+    @Test
+    public void testIdentityTransformer() throws TransformerException {
+        TransformerCache cache = new TransformerCache();
+
+        Transformer transformer = cache.getIdentityTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+
+        Assert.assertSame(cache.getIdentityTransformer(), transformer);
+
+        StringResult result = new StringResult();
+        cache.transform(new StringSource("<Message><Text>Citrus</Text></Message>"), result);
+
+        Assert.assertTrue(result.toString().startsWith("<?xml"));
+        Assert.assertTrue(result.toString().endsWith("<Message><Text>Citrus</Text></Message>"));
+    }
+
+    @Test
+    public void testIdentityTransformerPerThread() throws Exception {
+        final TransformerCache cache = new TransformerCache();
+
+        Transformer transformer = cache.getIdentityTransformer();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Transformer other = executor.submit(new Callable<Transformer>() {
+                public Transformer call() throws Exception {
+                    return cache.getIdentityTransformer();
+                }
+            }).get();
+
+            Assert.assertNotSame(other, transformer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTemplates() throws TransformerException {
+        TransformerCache cache = new TransformerCache(1);
+
+        StringResult result = new StringResult();
+        cache.newTransformer(XSLT).transform(new StringSource("<Message><Text>Citrus</Text></Message>"), result);
+        Assert.assertEquals(result.toString(), "Hello Citrus");
+
+        Assert.assertSame(cache.getTemplates(XSLT), cache.getTemplates(XSLT));
+        Assert.assertEquals(cache.getMisses(), 1L);
+        Assert.assertEquals(cache.getHits(), 2L);
+
+        cache.getTemplates(XSLT.replace("Hello", "Hi"));
+        Assert.assertEquals(cache.size(), 1);
+
+        cache.getTemplates(XSLT);
+        Assert.assertEquals(cache.getMisses(), 3L);
+    }
+
+    @Test
+    public void testReuseIdentityTransformer() throws TransformerException {
+        TransformerCache cache = new TransformerCache();
+
+        for (int size : new int[] { 1024, 64 * 1024 }) {
+            String envelope = buildEnvelope(size);
+
+            StringResult expected = new StringResult();
+            TransformerFactory.newInstance().newTransformer().transform(new StringSource(envelope), expected);
+
+            for (int i = 0; i < 3; i++) {
+                StringResult result = new StringResult();
+                cache.transform(new StringSource(envelope), result);
+                Assert.assertEquals(result.toString(), expected.toString());
+            }
+        }
+    }
+
+    /**
+     * Builds SOAP envelope with given approximate size.
+     * @param size
+     * @return
+     */
+    private String buildEnvelope(int size) {
+        StringBuilder envelope = new StringBuilder();
+        envelope.append("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body><Items>");
+
+        while (envelope.length() < size - 40) {
+            envelope.append("<Item>citrus</Item>");
+        }
+
+        envelope.append("</Items></soap:Body></soap:Envelope>");
+        return envelope.toString();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml;
+
+import java.util.concurrent.*;
+
+import javax.xml.validation.Validator;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.xml.xsd.SimpleXsdSchema;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class XsdSchemaRepositoryTest {
+
+    @Test
+    public void testCompiledSchemas() throws Exception {
+        final XsdSchemaRepository schemaRepository = new XsdSchemaRepository();
+        
+        SimpleXsdSchema schema = new SimpleXsdSchema(new ClassPathResource("com/consol/citrus/validation/test.xsd"));
+        schema.afterPropertiesSet();
+        schemaRepository.getSchemas().add(schema);
+        
+        schemaRepository.afterPropertiesSet();
+        Assert.assertTrue(schemaRepository.getSchemaLoadTime() >= 0L);
+        
+        Assert.assertNotNull(schemaRepository.getCompiledSchema("http://citrus", "message"));
+        Assert.assertSame(schemaRepository.getCompiledSchema("http://citrus", "message"), 
+                schemaRepository.getCompiledSchema("http://citrus", "unknown"));
+        Assert.assertNull(schemaRepository.getCompiledSchema("http://unknown", "message"));
+        
+        Validator validator = schemaRepository.getValidator("http://citrus", "message");
+        Assert.assertSame(schemaRepository.getValidator("http://citrus", "message"), validator);
+        
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Validator other = executor.submit(new Callable<Validator>() {
+                public Validator call() throws Exception {
+                    return schemaRepository.getValidator("http://citrus", "message");
+                }
+            }).get();
+            
+            Assert.assertNotSame(other, validator);
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testLazyCompilation() throws Exception {
+        XsdSchemaRepository schemaRepository = new XsdSchemaRepository();
+        
+        SimpleXsdSchema schema = new SimpleXsdSchema(new ClassPathResource("com/consol/citrus/validation/test.xsd"));
+        schema.afterPropertiesSet();
+        schemaRepository.getSchemas().add(schema);
+        
+        Assert.assertNotNull(schemaRepository.getValidator("http://citrus", "message"));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.xml.xpath;
+
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathFactory;
+
+import org.springframework.xml.namespace.SimpleNamespaceContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.w3c.dom.Document;
+
+import com.consol.citrus.util.XMLUtils;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class XPathExpressionCacheTest {
+
+    @Test
+    public void testCacheHits() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache(XPathFactory.newInstance());
+
+        SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
+        nsContext.bindNamespaceUri("ns0", "http://citrus/ns0");
+
+        XPathExpression expression = cache.getExpression("//ns0:message", nsContext);
+        Assert.assertEquals(cache.getMisses(), 1L);
+        Assert.assertEquals(cache.getHits(), 0L);
+
+        SimpleNamespaceContext sameBindings = new SimpleNamespaceContext();
+        sameBindings.bindNamespaceUri("ns0", "http://citrus/ns0");
+
+        Assert.assertSame(cache.getExpression("//ns0:message", sameBindings), expression);
+        Assert.assertEquals(cache.getMisses(), 1L);
+        Assert.assertEquals(cache.getHits(), 1L);
+
+        SimpleNamespaceContext otherBindings = new SimpleNamespaceContext();
+        otherBindings.bindNamespaceUri("ns0", "http://citrus/other");
+
+        Assert.assertNotSame(cache.getExpression("//ns0:message", otherBindings), expression);
+        Assert.assertEquals(cache.getMisses(), 2L);
+
+        cache.resetStatistics();
+        Assert.assertEquals(cache.getMisses(), 0L);
+        Assert.assertEquals(cache.getHits(), 0L);
+    }
+
+    @Test
+    public void testCacheEviction() throws Exception {
+        XPathExpressionCache cache = new XPathExpressionCache(XPathFactory.newInstance(), 2);
+        SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
+
+        XPathExpression expression = cache.getExpression("/a", nsContext);
+        cache.getExpression("/b", nsContext);
+        cache.getExpression("/c", nsContext);
+
+        Assert.assertNotSame(cache.getExpression("/a", nsContext), expression);
+        Assert.assertEquals(cache.getMisses(), 4L);
+        Assert.assertEquals(cache.getHits(), 0L);
+    }
+
+    @Test
+    public void testCachedEvaluation() {
+        Document doc = XMLUtils.parseMessagePayload("<ns0:message xmlns:ns0='http://citrus/ns0'><ns0:text>Hello</ns0:text></ns0:message>");
+        SimpleNamespaceContext nsContext = new SimpleNamespaceContext();
+        nsContext.bindNamespaceUri("ns0", "http://citrus/ns0");
+
+        long hits = XPathUtils.getExpressionCache().getHits();
+
+        Assert.assertEquals(XPathUtils.evaluateAsString(doc, "/ns0:message/ns0:text", nsContext), "Hello");
+        Assert.assertEquals(XPathUtils.evaluateAsString(doc, "/ns0:message/ns0:text", nsContext), "Hello");
+
+        Assert.assertTrue(XPathUtils.getExpressionCache().getHits() > hits);
+    }
+}
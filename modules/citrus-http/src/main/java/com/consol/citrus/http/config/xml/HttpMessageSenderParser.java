@@ -75,6 +75,16 @@ public class HttpMessageSenderParser extends AbstractBeanDefinitionParser {
                     ErrorHandlingStrategy.fromName(element.getAttribute("error-strategy")));
         }
         
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("max-connections-per-route"), "maxConnectionsPerRoute");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("max-total-connections"), "maxTotalConnections");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("async"), "async");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("max-in-flight-requests"), "maxInFlightRequests");
+        
+        BeanDefinitionParserUtils.setPropertyReference(builder, element.getAttribute("executor"), "executor");
+        
         return builder.getBeanDefinition();
     }
 }
@@ -19,9 +19,15 @@ package com.consol.citrus.http.message;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.http.*;
 import org.springframework.http.client.*;
 import org.springframework.integration.Message;
@@ -43,9 +49,17 @@ import com.consol.citrus.util.MessageUtils;
  * Note: Message sender is only using POST request method to publish
  * messages to the service endpoint.
  * 
+ * The default request factory uses a pool of keep-alive connections. Pool limits are configurable,
+ * pool utilization and request latency statistics are available for load tests sending from parallel containers.
+ * 
+ * In async mode send operations return immediately and responses are passed to the reply message handler
+ * with respective correlation key as soon as they arrive. The number of outstanding requests is limited.
+ * Failed async requests are passed to a {@link HttpReplyMessageReceiver} as reply failure, so the receiving
+ * action fails. With other reply message handlers the failure is raised on the next send operation.
+ * 
  * @author Christoph Deppisch
  */
-public class HttpMessageSender implements MessageSender {
+public class HttpMessageSender implements MessageSender, DisposableBean {
 
     /** Http url as service destination */
     private String requestUrl;
@@ -77,6 +91,37 @@ public class HttpMessageSender implements MessageSender {
     /** Should http errors be handled with reply message handler or simply throw exception */
     private ErrorHandlingStrategy errorHandlingStrategy = ErrorHandlingStrategy.PROPAGATE;
     
+    /** Pooled connection manager of default request factory, null for custom request factories */
+    private MultiThreadedHttpConnectionManager connectionManager;
+    
+    /** Request latency statistics */
+    private final HttpRequestStatistics requestStatistics = new HttpRequestStatistics();
+    
+    /** Send requests asynchronously without waiting for the response */
+    private boolean async = false;
+    
+    /** Maximum number of outstanding async requests */
+    private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+    
+    /** Permits for outstanding async requests */
+    private volatile Semaphore inFlightPermits = new Semaphore(DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    
+    /** Optional custom executor for async requests */
+    private ExecutorService executor;
+    
+    /** Default executor for async requests, created on first use */
+    private ExecutorService asyncExecutor;
+    
+    /** First failed async request not yet reported */
+    private final AtomicReference<CitrusRuntimeException> asyncFailure = new AtomicReference<CitrusRuntimeException>();
+    
+    /** Default maximum number of outstanding async requests */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 500;
+    
+    /** Default connection pool limits */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_MAX_TOTAL_CONNECTIONS = 100;
+    
     /**
      * Logger
      */
@@ -86,8 +131,13 @@ public class HttpMessageSender implements MessageSender {
      * Default constructor.
      */
     public HttpMessageSender() {
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        connectionManager.getParams().setDefaultMaxConnectionsPerHost(DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        connectionManager.getParams().setMaxTotalConnections(DEFAULT_MAX_TOTAL_CONNECTIONS);
+        
         restTemplate = new RestTemplate();
-        restTemplate.setRequestFactory(new CommonsClientHttpRequestFactory());
+        restTemplate.setRequestFactory(new CommonsClientHttpRequestFactory(new HttpClient(connectionManager)));
+        restTemplate.setErrorHandler(new InternalResponseErrorHandler());
     }
     
     /**
@@ -97,6 +147,7 @@ public class HttpMessageSender implements MessageSender {
     public HttpMessageSender(ClientHttpRequestFactory requestFactory) {
         restTemplate = new RestTemplate();
         restTemplate.setRequestFactory(requestFactory);
+        restTemplate.setErrorHandler(new InternalResponseErrorHandler());
     }
     
     /**
@@ -104,7 +155,7 @@ public class HttpMessageSender implements MessageSender {
      * @param restTemplate the custom rest template.
      */
     public HttpMessageSender(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        setRestTemplate(restTemplate);
     }
     
     /**
@@ -112,6 +163,11 @@ public class HttpMessageSender implements MessageSender {
      * @throws CitrusRuntimeException
      */
     public void send(Message<?> message) {
+        CitrusRuntimeException failure = asyncFailure.getAndSet(null);
+        if (failure != null) {
+            throw failure;
+        }
+        
         String endpointUri;
         if (endpointUriResolver != null) {
             endpointUri = endpointUriResolver.resolveEndpointUri(message, getRequestUrl());
@@ -132,8 +188,30 @@ public class HttpMessageSender implements MessageSender {
             method = HttpMethod.valueOf((String)message.getHeaders().get(CitrusHttpMessageHeaders.HTTP_REQUEST_METHOD));
         }
         
-        restTemplate.setErrorHandler(new InternalResponseErrorHandler(message));
-        ResponseEntity<?> response = restTemplate.exchange(endpointUri, method, requestEntity, String.class);
+        if (async) {
+            sendAsync(endpointUri, method, requestEntity, message);
+        } else {
+            exchange(endpointUri, method, requestEntity, message);
+        }
+    }
+    
+    /**
+     * Performs the HTTP exchange and informs reply message handler with the response.
+     * @param endpointUri
+     * @param method
+     * @param requestEntity
+     * @param message
+     */
+    private void exchange(String endpointUri, HttpMethod method, HttpEntity<?> requestEntity, Message<?> message) {
+        ResponseEntity<?> response;
+        long start = System.currentTimeMillis();
+        boolean error = true;
+        try {
+            response = restTemplate.exchange(endpointUri, method, requestEntity, String.class);
+            error = isErrorStatus(response.getStatusCode());
+        } finally {
+            requestStatistics.record(System.currentTimeMillis() - start, error);
+        }
         
         log.info("HTTP message was successfully sent to endpoint: '" + endpointUri + "'");
         
@@ -142,6 +220,88 @@ public class HttpMessageSender implements MessageSender {
                                                        response.getStatusCode()), message);
     }
     
+    /**
+     * Hands the HTTP exchange over to the async executor and returns immediately. Blocks
+     * only in case maximum number of in flight requests is reached. Responses are passed to the
+     * reply message handler as soon as they arrive, failed requests are reported as reply failure.
+     * 
+     * @param endpointUri
+     * @param method
+     * @param requestEntity
+     * @param message
+     */
+    private void sendAsync(final String endpointUri, final HttpMethod method, final HttpEntity<?> requestEntity, final Message<?> message) {
+        final Semaphore permits = inFlightPermits;
+        
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CitrusRuntimeException("Interrupted while waiting for in flight HTTP requests to complete", e);
+        }
+        
+        try {
+            getAsyncExecutor().execute(new Runnable() {
+                public void run() {
+                    try {
+                        exchange(endpointUri, method, requestEntity, message);
+                    } catch (RuntimeException e) {
+                        informReplyFailure(new CitrusRuntimeException("Asynchronous HTTP request to endpoint '" + endpointUri + "' failed", e), message);
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw new CitrusRuntimeException("Failed to send asynchronous HTTP request to endpoint '" + endpointUri + "'", e);
+        }
+    }
+    
+    /**
+     * Gets the executor for async requests, creates default executor on first use. Default executor
+     * uses as many threads as there are pooled connections, further requests wait in the executor queue.
+     * @return
+     */
+    private synchronized ExecutorService getAsyncExecutor() {
+        if (executor != null) {
+            return executor;
+        }
+        
+        if (asyncExecutor == null) {
+            int threads = connectionManager != null ? connectionManager.getParams().getMaxTotalConnections() : DEFAULT_MAX_TOTAL_CONNECTIONS;
+            
+            asyncExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+                
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "HttpMessageSender-async-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        
+        return asyncExecutor;
+    }
+    
+    /**
+     * Stops the default async executor and closes pooled connections.
+     */
+    public void destroy() {
+        synchronized (this) {
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdownNow();
+                asyncExecutor = null;
+            }
+        }
+        
+        if (connectionManager != null) {
+            log.info("HTTP request statistics: " + requestStatistics);
+            connectionManager.shutdown();
+        }
+    }
+    
     /**
      * Informs reply message handler for further processing 
      * of reply message.
@@ -160,6 +320,29 @@ public class HttpMessageSender implements MessageSender {
         }
     }
     
+    /**
+     * Reports failed async request. Failure is passed to HTTP reply message receiver with
+     * the request's correlation key, other reply message handlers can not handle failures so the
+     * failure is raised on next send operation.
+     * @param failure the request failure.
+     * @param requestMessage the initial request message.
+     */
+    private void informReplyFailure(CitrusRuntimeException failure, Message<?> requestMessage) {
+        log.error(failure.getMessage(), failure.getCause());
+        
+        if (replyMessageHandler instanceof HttpReplyMessageReceiver) {
+            HttpReplyMessageReceiver replyMessageReceiver = (HttpReplyMessageReceiver) replyMessageHandler;
+            
+            if (correlator != null) {
+                replyMessageReceiver.onReplyFailure(failure, correlator.getCorrelationKey(requestMessage));
+            } else {
+                replyMessageReceiver.onReplyFailure(failure, "");
+            }
+        } else {
+            asyncFailure.compareAndSet(null, failure);
+        }
+    }
+    
     /**
      * Builds the actual integration message from HTTP response entity.
      * @param response the HTTP response entity.
@@ -231,41 +414,43 @@ public class HttpMessageSender implements MessageSender {
     }
     
     /**
-     * Handles error response messages constructing a proper response message
-     * which will be propagated to the respective reply message handler for 
-     * further processing.
+     * Checks for client or server error status code.
+     * @param statusCode
+     * @return
+     */
+    private boolean isErrorStatus(HttpStatus statusCode) {
+        return statusCode.series() == HttpStatus.Series.CLIENT_ERROR || statusCode.series() == HttpStatus.Series.SERVER_ERROR;
+    }
+    
+    /**
+     * Handles error response messages according to error handling strategy. With propagate strategy
+     * error responses are not treated as errors, so the response is returned to the caller and
+     * propagated to the respective reply message handler like any other response. The handler holds no
+     * request related state, so it is safe to share between concurrent requests.
      */
     private class InternalResponseErrorHandler implements ResponseErrorHandler {
 
-        /** Request message associated with this response error handler */
-        private Message<?> requestMessage;
-        
-        /**
-         * Default constructor provided with request message 
-         * associated with this error handler.
-         */
-        public InternalResponseErrorHandler(Message<?> requestMessage) {
-            this.requestMessage = requestMessage;
-        }
+        /** Default Spring error handler */
+        private final ResponseErrorHandler defaultErrorHandler = new DefaultResponseErrorHandler();
         
         /**
          * Check for error HTTP status code in response message. 
          * Delegates to default Spring implementation.
          */
         public boolean hasError(ClientHttpResponse response) throws IOException {
-            return new DefaultResponseErrorHandler().hasError(response);
+            if (errorHandlingStrategy.equals(ErrorHandlingStrategy.PROPAGATE)) {
+                return false;
+            }
+            
+            return defaultErrorHandler.hasError(response);
         }
 
         /**
          * Handle error response message according to error strategy.
          */
         public void handleError(ClientHttpResponse response) throws IOException {
-            if (errorHandlingStrategy.equals(ErrorHandlingStrategy.PROPAGATE)) {
-                informReplyMessageHandler(buildResponseMessage(response.getHeaders(), 
-                                                           response.getBody(), 
-                                                           response.getStatusCode()), requestMessage);
-            } else if (errorHandlingStrategy.equals(ErrorHandlingStrategy.THROWS_EXCEPTION)) {
-                new DefaultResponseErrorHandler().handleError(response);
+            if (errorHandlingStrategy.equals(ErrorHandlingStrategy.THROWS_EXCEPTION)) {
+                defaultErrorHandler.handleError(response);
             } else {
                 throw new CitrusRuntimeException("Unsupported error strategy: " + errorHandlingStrategy);
             }
@@ -319,6 +504,8 @@ public class HttpMessageSender implements MessageSender {
      */
     public void setRestTemplate(RestTemplate restTemplate) {
         this.restTemplate = restTemplate;
+        this.restTemplate.setErrorHandler(new InternalResponseErrorHandler());
+        this.connectionManager = null;
     }
 
     /**
@@ -433,4 +620,114 @@ public class HttpMessageSender implements MessageSender {
         return headerMapper;
     }
 
+    /**
+     * Sets the maximum number of pooled connections per host. Only applies to the default request factory.
+     * @param maxConnectionsPerRoute the maxConnectionsPerRoute to set
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        if (connectionManager != null) {
+            connectionManager.getParams().setDefaultMaxConnectionsPerHost(maxConnectionsPerRoute);
+        } else {
+            log.warn("Ignoring max connections per route setting for custom request factory");
+        }
+    }
+
+    /**
+     * Sets the maximum number of pooled connections. Only applies to the default request factory.
+     * @param maxTotalConnections the maxTotalConnections to set
+     */
+    public void setMaxTotalConnections(int maxTotalConnections) {
+        if (connectionManager != null) {
+            connectionManager.getParams().setMaxTotalConnections(maxTotalConnections);
+        } else {
+            log.warn("Ignoring max total connections setting for custom request factory");
+        }
+    }
+
+    /**
+     * Gets the number of open pooled connections, -1 for custom request factories.
+     * @return
+     */
+    public int getConnectionsInPool() {
+        return connectionManager != null ? connectionManager.getConnectionsInPool() : -1;
+    }
+
+    /**
+     * Gets the pool utilization as ratio of open connections and maximum total connections,
+     * -1 for custom request factories.
+     * @return
+     */
+    public double getConnectionPoolUtilization() {
+        if (connectionManager == null) {
+            return -1.0;
+        }
+        
+        return (double) connectionManager.getConnectionsInPool() / connectionManager.getParams().getMaxTotalConnections();
+    }
+
+    /**
+     * Gets the request latency statistics.
+     * @return the requestStatistics
+     */
+    public HttpRequestStatistics getRequestStatistics() {
+        return requestStatistics;
+    }
+
+    /**
+     * Enables async mode.
+     * @param async the async to set
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    /**
+     * Is async mode enabled.
+     * @return the async
+     */
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Sets the maximum number of outstanding async requests.
+     * @param maxInFlightRequests the maxInFlightRequests to set
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.inFlightPermits = new Semaphore(maxInFlightRequests);
+    }
+
+    /**
+     * Gets the maximum number of outstanding async requests.
+     * @return the maxInFlightRequests
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * Gets the number of currently outstanding async requests.
+     * @return
+     */
+    public int getInFlightRequests() {
+        return maxInFlightRequests - inFlightPermits.availablePermits();
+    }
+
+    /**
+     * Sets custom executor for async requests.
+     * @param executor the executor to set
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Gets the custom executor for async requests.
+     * @return the executor
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
 }
@@ -16,13 +16,55 @@
 
 package com.consol.citrus.http.message;
 
+import org.springframework.integration.Message;
+import org.springframework.integration.support.MessageBuilder;
+
+import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.AbstractReplyMessageReceiver;
 
 /**
- * Message receiver handling Http reply responses.
+ * Message receiver handling Http reply responses. Failed asynchronous requests are stored
+ * as reply failure, receiving the reply raises the failure.
  * 
  * @author Christoph Deppisch
  */
 public class HttpReplyMessageReceiver extends AbstractReplyMessageReceiver {
     
-}
\ No newline at end of file
+    /**
+     * Stores failure of asynchronous request instead of reply message.
+     * @param failure the request failure.
+     * @param correlationKey the request correlation key.
+     */
+    public void onReplyFailure(CitrusRuntimeException failure, String correlationKey) {
+        onReplyMessage(MessageBuilder.withPayload(failure).build(), correlationKey);
+    }
+    
+    /**
+     * @see com.consol.citrus.message.AbstractReplyMessageReceiver#receiveSelected(java.lang.String, long)
+     */
+    @Override
+    public Message<?> receiveSelected(String selector, long timeout) {
+        return checkReplyFailure(super.receiveSelected(selector, timeout));
+    }
+    
+    /**
+     * @see com.consol.citrus.message.AbstractReplyMessageReceiver#getReplyMessage(java.lang.String)
+     */
+    @Override
+    public Message<?> getReplyMessage(String correlationKey) {
+        return checkReplyFailure(super.getReplyMessage(correlationKey));
+    }
+    
+    /**
+     * Raises stored reply failure.
+     * @param replyMessage
+     * @return the reply message.
+     */
+    private Message<?> checkReplyFailure(Message<?> replyMessage) {
+        if (replyMessage != null && replyMessage.getPayload() instanceof CitrusRuntimeException) {
+            throw (CitrusRuntimeException) replyMessage.getPayload();
+        }
+        
+        return replyMessage;
+    }
+}
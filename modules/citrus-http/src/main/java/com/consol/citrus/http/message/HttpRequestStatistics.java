@@ -0,0 +1,137 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.http.message;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Request latency histogram with fixed millisecond buckets. Recording is lock free, so
+ * statistics can be shared by concurrent requests.
+ *
+ * @author Christoph Deppisch
+ */
+public class HttpRequestStatistics {
+    /** Upper bounds of histogram buckets in milliseconds, last bucket is unbounded */
+    private static final long[] BUCKET_LIMITS = new long[] { 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000 };
+
+    /** Requests per bucket */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_LIMITS.length + 1);
+
+    /** Request counters */
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalTime = new AtomicLong();
+    private final AtomicLong maxTime = new AtomicLong();
+
+    /**
+     * Records request latency.
+     * @param millis the request duration in milliseconds.
+     * @param error request failed or returned error status.
+     */
+    public void record(long millis, boolean error) {
+        requests.incrementAndGet();
+        totalTime.addAndGet(millis);
+
+        if (error) {
+            errors.incrementAndGet();
+        }
+
+        long max = maxTime.get();
+        while (millis > max && !maxTime.compareAndSet(max, millis)) {
+            max = maxTime.get();
+        }
+
+        int bucket = 0;
+        while (bucket < BUCKET_LIMITS.length && millis > BUCKET_LIMITS[bucket]) {
+            bucket++;
+        }
+
+        buckets.incrementAndGet(bucket);
+    }
+
+    /**
+     * Gets the latency histogram. Keys are bucket labels like "<= 10ms", values are request counts.
+     * @return
+     */
+    public Map<String, Long> getHistogram() {
+        Map<String, Long> histogram = new LinkedHashMap<String, Long>();
+
+        for (int i = 0; i < BUCKET_LIMITS.length; i++) {
+            histogram.put("<= " + BUCKET_LIMITS[i] + "ms", buckets.get(i));
+        }
+
+        histogram.put("> " + BUCKET_LIMITS[BUCKET_LIMITS.length - 1] + "ms", buckets.get(BUCKET_LIMITS.length));
+
+        return histogram;
+    }
+
+    /**
+     * Gets the number of recorded requests.
+     * @return
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Gets the number of failed requests.
+     * @return
+     */
+    public long getErrors() {
+        return errors.get();
+    }
+
+    /**
+     * Gets the average request latency in milliseconds.
+     * @return
+     */
+    public double getAverageTime() {
+        long count = requests.get();
+        return count > 0 ? (double) totalTime.get() / count : 0.0;
+    }
+
+    /**
+     * Gets the maximum request latency in milliseconds.
+     * @return
+     */
+    public long getMaxTime() {
+        return maxTime.get();
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, 0L);
+        }
+
+        requests.set(0L);
+        errors.set(0L);
+        totalTime.set(0L);
+        maxTime.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return "requests: " + getRequests() + ", errors: " + getErrors() + ", avg: " + getAverageTime() +
+            "ms, max: " + getMaxTime() + "ms, histogram: " + getHistogram();
+    }
+}
@@ -44,6 +44,7 @@ public class HttpMessageSenderParserTest extends AbstractBeanDefinitionParserTes
         Assert.assertTrue(messageSender.getRestTemplate().getRequestFactory() instanceof CommonsClientHttpRequestFactory);
         Assert.assertEquals(messageSender.getRequestMethod(), HttpMethod.POST);
         Assert.assertNull(messageSender.getCorrelator());
+        Assert.assertEquals(messageSender.getConnectionsInPool(), 0);
         
         // 2nd message sender
         messageSender = messageSenders.get("httpMessageSender2");
@@ -63,5 +64,7 @@ public class HttpMessageSenderParserTest extends AbstractBeanDefinitionParserTes
         Assert.assertEquals(messageSender.getRequestUrl(), "http://localhost:8080/test");
         Assert.assertNotNull(messageSender.getCorrelator());
         Assert.assertEquals(messageSender.getCorrelator(), beanDefinitionContext.getBean("replyMessageCorrelator"));
+        Assert.assertTrue(messageSender.isAsync());
+        Assert.assertEquals(messageSender.getMaxInFlightRequests(), 50);
     }
 }
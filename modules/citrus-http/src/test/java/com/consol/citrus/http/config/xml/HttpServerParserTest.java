@@ -58,6 +58,8 @@ public class HttpServerParserTest extends AbstractBeanDefinitionParserTest {
         Assert.assertEquals(server.getResourceBase(), "src/citrus/resources");
         Assert.assertFalse(server.isAutoStart());
         Assert.assertTrue(server.isUseRootContextAsParent());
+        Assert.assertEquals(server.getMaxThreads(), 0);
+        Assert.assertTrue(server.isRequestLog());
         
         // 3rd message sender
         server = servers.get("httpServer3");
@@ -70,5 +72,12 @@ public class HttpServerParserTest extends AbstractBeanDefinitionParserTest {
         Assert.assertEquals(server.getResourceBase(), "src/main/resources");
         Assert.assertFalse(server.isAutoStart());
         Assert.assertFalse(server.isUseRootContextAsParent());
+        Assert.assertEquals(server.getAcceptors(), 4);
+        Assert.assertEquals(server.getMaxIdleTime(), 30000);
+        Assert.assertEquals(server.getAcceptQueueSize(), 500);
+        Assert.assertEquals(server.getMinThreads(), 10);
+        Assert.assertEquals(server.getMaxThreads(), 200);
+        Assert.assertEquals(server.getThreadIdleTimeout(), 60000);
+        Assert.assertFalse(server.isRequestLog());
     }
 }
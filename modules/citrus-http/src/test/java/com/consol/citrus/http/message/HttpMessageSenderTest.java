@@ -18,6 +18,9 @@ package com.consol.citrus.http.message;
 
 import static org.easymock.EasyMock.*;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.springframework.http.*;
@@ -28,6 +31,7 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.consol.citrus.adapter.common.endpoint.EndpointUriResolver;
+import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.MessageSender.ErrorHandlingStrategy;
 import com.consol.citrus.message.*;
 
@@ -53,8 +57,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -79,9 +81,14 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
+        
+        Assert.assertEquals(messageSender.getRequestStatistics().getRequests(), 1L);
+        Assert.assertEquals(messageSender.getRequestStatistics().getErrors(), 0L);
     }
     
     @Test
@@ -102,8 +109,6 @@ public class HttpMessageSenderTest {
                                                   .setHeader("Operation", "foo")
                                                   .build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -129,6 +134,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -153,8 +160,6 @@ public class HttpMessageSenderTest {
                                                   .setHeader("Accept", "application/xml")
                                                   .build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -180,6 +185,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -201,8 +208,6 @@ public class HttpMessageSenderTest {
                                                   .setHeader(CitrusHttpMessageHeaders.HTTP_REQUEST_METHOD, "GET")
                                                   .build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -227,6 +232,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -246,8 +253,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -272,6 +277,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -291,8 +298,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -317,6 +322,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -339,8 +346,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler, correlator);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -356,6 +361,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler, correlator);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler, correlator);
@@ -378,8 +385,6 @@ public class HttpMessageSenderTest {
         EndpointUriResolver endpointUriResolver = EasyMock.createMock(EndpointUriResolver.class);
         messageSender.setEndpointUriResolver(endpointUriResolver);
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler, endpointUriResolver);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -395,6 +400,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler, endpointUriResolver);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler, endpointUriResolver);
@@ -416,8 +423,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -439,6 +444,8 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         messageSender.send(requestMessage);
         
         verify(restTemplate, replyMessageHandler);
@@ -458,8 +465,6 @@ public class HttpMessageSenderTest {
         
         Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
         
-        messageSender.setRestTemplate(restTemplate);
-        
         reset(restTemplate, replyMessageHandler);
         
         restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
@@ -470,14 +475,198 @@ public class HttpMessageSenderTest {
         
         replay(restTemplate, replyMessageHandler);
         
+        messageSender.setRestTemplate(restTemplate);
+        
         try {
             messageSender.send(requestMessage);
             
             Assert.fail("Missing exception due to http error status code");
         } catch (HttpClientErrorException e) {
             Assert.assertEquals(e.getMessage(), "403 FORBIDDEN");
+            Assert.assertEquals(messageSender.getRequestStatistics().getRequests(), 1L);
+            Assert.assertEquals(messageSender.getRequestStatistics().getErrors(), 1L);
             
             verify(restTemplate, replyMessageHandler);
         }
     }
+    
+    @Test
+    public void testConnectionPoolSettings() {
+        HttpMessageSender messageSender = new HttpMessageSender();
+        
+        messageSender.setMaxConnectionsPerRoute(5);
+        messageSender.setMaxTotalConnections(10);
+        
+        Assert.assertEquals(messageSender.getConnectionsInPool(), 0);
+        Assert.assertEquals(messageSender.getConnectionPoolUtilization(), 0.0);
+        
+        reset(restTemplate);
+        
+        restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
+        expectLastCall().once();
+        
+        replay(restTemplate);
+        
+        messageSender.setRestTemplate(restTemplate);
+        
+        Assert.assertEquals(messageSender.getConnectionsInPool(), -1);
+        
+        verify(restTemplate);
+    }
+    
+    @Test
+    public void testAsyncRequests() {
+        HttpMessageSender messageSender = new HttpMessageSender();
+        String requestUrl = "http://localhost:8088/test";
+        
+        HttpReplyMessageReceiver replyMessageReceiver = new HttpReplyMessageReceiver();
+        messageSender.setReplyMessageHandler(replyMessageReceiver);
+        
+        ReplyMessageCorrelator correlator = EasyMock.createMock(ReplyMessageCorrelator.class);
+        messageSender.setCorrelator(correlator);
+
+        messageSender.setRequestMethod(HttpMethod.POST);
+        messageSender.setRequestUrl(requestUrl);
+        messageSender.setAsync(true);
+        messageSender.setMaxInFlightRequests(2);
+        
+        final CountDownLatch responseLatch = new CountDownLatch(1);
+        
+        Message<?> requestMessage1 = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
+        Message<?> requestMessage2 = MessageBuilder.withPayload("<TestRequest><Message>Hello Citrus!</Message></TestRequest>").build();
+        
+        reset(restTemplate, correlator);
+        
+        restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
+        expectLastCall().once();
+        
+        expect(restTemplate.exchange(eq(requestUrl), eq(HttpMethod.POST), anyObject(HttpEntity.class), eq(String.class)))
+                           .andAnswer(new IAnswer<ResponseEntity<String>>() {
+                                public ResponseEntity<String> answer() throws Throwable {
+                                    HttpEntity<?> httpRequest = (HttpEntity<?>)getCurrentArguments()[2];
+                                    
+                                    responseLatch.await(5, TimeUnit.SECONDS);
+                                    
+                                    return new ResponseEntity<String>(httpRequest.getBody().toString().replace("Request", "Response"), HttpStatus.OK);
+                                }
+                        }).times(2);
+        
+        expect(correlator.getCorrelationKey(requestMessage1)).andReturn("correlationKey1").once();
+        expect(correlator.getCorrelationKey(requestMessage2)).andReturn("correlationKey2").once();
+        
+        replay(restTemplate, correlator);
+        
+        messageSender.setRestTemplate(restTemplate);
+        
+        messageSender.send(requestMessage1);
+        messageSender.send(requestMessage2);
+        
+        Assert.assertEquals(messageSender.getInFlightRequests(), 2);
+        Assert.assertNull(replyMessageReceiver.receiveSelected("correlationKey1", 100L));
+        
+        responseLatch.countDown();
+        
+        Message<?> responseMessage = replyMessageReceiver.receiveSelected("correlationKey2", 5000L);
+        Assert.assertNotNull(responseMessage);
+        Assert.assertEquals(responseMessage.getPayload(), "<TestResponse><Message>Hello Citrus!</Message></TestResponse>");
+        
+        responseMessage = replyMessageReceiver.receiveSelected("correlationKey1", 5000L);
+        Assert.assertNotNull(responseMessage);
+        Assert.assertEquals(responseMessage.getPayload(), "<TestResponse><Message>Hello World!</Message></TestResponse>");
+        
+        messageSender.destroy();
+        
+        verify(restTemplate, correlator);
+        
+        Assert.assertEquals(messageSender.getRequestStatistics().getRequests(), 2L);
+    }
+    
+    @Test
+    public void testAsyncRequestFailure() {
+        HttpMessageSender messageSender = new HttpMessageSender();
+        String requestUrl = "http://localhost:8088/test";
+        
+        HttpReplyMessageReceiver replyMessageReceiver = new HttpReplyMessageReceiver();
+        messageSender.setReplyMessageHandler(replyMessageReceiver);
+        
+        ReplyMessageCorrelator correlator = EasyMock.createMock(ReplyMessageCorrelator.class);
+        messageSender.setCorrelator(correlator);
+
+        messageSender.setRequestMethod(HttpMethod.POST);
+        messageSender.setRequestUrl(requestUrl);
+        messageSender.setAsync(true);
+        
+        Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
+        
+        reset(restTemplate, correlator);
+        
+        restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
+        expectLastCall().once();
+        
+        expect(restTemplate.exchange(eq(requestUrl), eq(HttpMethod.POST), anyObject(HttpEntity.class), eq(String.class)))
+                           .andThrow(new ResourceAccessException("Connection refused")).once();
+        
+        expect(correlator.getCorrelationKey(requestMessage)).andReturn("correlationKey").once();
+        
+        replay(restTemplate, correlator);
+        
+        messageSender.setRestTemplate(restTemplate);
+        
+        messageSender.send(requestMessage);
+        
+        try {
+            replyMessageReceiver.receiveSelected("correlationKey", 5000L);
+            Assert.fail("Missing " + CitrusRuntimeException.class + " because of failed async request");
+        } catch (CitrusRuntimeException e) {
+            Assert.assertEquals(e.getMessage(), "Asynchronous HTTP request to endpoint '" + requestUrl + "' failed");
+            Assert.assertTrue(e.getCause() instanceof ResourceAccessException);
+        }
+        
+        messageSender.destroy();
+        
+        verify(restTemplate, correlator);
+    }
+    
+    @Test
+    public void testAsyncRequestFailureOnNextSend() throws InterruptedException {
+        HttpMessageSender messageSender = new HttpMessageSender();
+        String requestUrl = "http://localhost:8088/test";
+        
+        messageSender.setReplyMessageHandler(replyMessageHandler);
+
+        messageSender.setRequestMethod(HttpMethod.POST);
+        messageSender.setRequestUrl(requestUrl);
+        messageSender.setAsync(true);
+        
+        Message<?> requestMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>").build();
+        
+        reset(restTemplate, replyMessageHandler);
+        
+        restTemplate.setErrorHandler(anyObject(ResponseErrorHandler.class));
+        expectLastCall().once();
+        
+        expect(restTemplate.exchange(eq(requestUrl), eq(HttpMethod.POST), anyObject(HttpEntity.class), eq(String.class)))
+                           .andThrow(new ResourceAccessException("Connection refused")).once();
+        
+        replay(restTemplate, replyMessageHandler);
+        
+        messageSender.setRestTemplate(restTemplate);
+        
+        messageSender.send(requestMessage);
+        
+        for (int i = 0; i < 50 && messageSender.getInFlightRequests() > 0; i++) {
+            Thread.sleep(100L);
+        }
+        
+        try {
+            messageSender.send(requestMessage);
+            Assert.fail("Missing " + CitrusRuntimeException.class + " because of failed async request");
+        } catch (CitrusRuntimeException e) {
+            Assert.assertEquals(e.getMessage(), "Asynchronous HTTP request to endpoint '" + requestUrl + "' failed");
+        }
+        
+        messageSender.destroy();
+        
+        verify(restTemplate, replyMessageHandler);
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2006-2011 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.consol.citrus.http.message;
+
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * @author Christoph Deppisch
+ */
+public class HttpRequestStatisticsTest {
+
+    @Test
+    public void testRecord() {
+        HttpRequestStatistics statistics = new HttpRequestStatistics();
+        
+        statistics.record(0L, false);
+        statistics.record(7L, false);
+        statistics.record(10L, true);
+        statistics.record(15000L, true);
+        
+        Assert.assertEquals(statistics.getRequests(), 4L);
+        Assert.assertEquals(statistics.getErrors(), 2L);
+        Assert.assertEquals(statistics.getMaxTime(), 15000L);
+        Assert.assertEquals(statistics.getAverageTime(), 15017.0 / 4);
+        
+        Map<String, Long> histogram = statistics.getHistogram();
+        Assert.assertEquals(histogram.size(), 14);
+        Assert.assertEquals(histogram.get("<= 1ms"), Long.valueOf(1L));
+        Assert.assertEquals(histogram.get("<= 10ms"), Long.valueOf(2L));
+        Assert.assertEquals(histogram.get("> 10000ms"), Long.valueOf(1L));
+        
+        statistics.reset();
+        
+        Assert.assertEquals(statistics.getRequests(), 0L);
+        Assert.assertEquals(statistics.getAverageTime(), 0.0);
+        Assert.assertEquals(statistics.getHistogram().get("<= 10ms"), Long.valueOf(0L));
+    }
+    
+    @Test
+    public void testConcurrentRecord() throws InterruptedException {
+        final HttpRequestStatistics statistics = new HttpRequestStatistics();
+        
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < 1000; j++) {
+                        statistics.record(j % 100, j % 10 == 0);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        
+        Assert.assertEquals(statistics.getRequests(), 8000L);
+        Assert.assertEquals(statistics.getErrors(), 800L);
+        Assert.assertEquals(statistics.getMaxTime(), 99L);
+        
+        long total = 0L;
+        for (Long count : statistics.getHistogram().values()) {
+            total += count;
+        }
+        Assert.assertEquals(total, 8000L);
+    }
+}
@@ -25,7 +25,9 @@ import javax.servlet.ServletContext;
 import org.mortbay.jetty.Connector;
 import org.mortbay.jetty.Server;
 import org.mortbay.jetty.handler.*;
+import org.mortbay.jetty.nio.SelectChannelConnector;
 import org.mortbay.jetty.servlet.*;
+import org.mortbay.thread.QueuedThreadPool;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
@@ -73,6 +75,31 @@ public class JettyServer extends AbstractServer implements ApplicationContextAwa
     /** Set list of custom connectors with custom configuration options */
     private Connector[] connectors;
     
+    /** Number of acceptor threads, equals the number of selector sets on the default NIO connector, 0 uses Jetty default */
+    private int acceptors = 0;
+    
+    /** Connection idle timeout in milliseconds on default connector, 0 uses Jetty default */
+    private int maxIdleTime = 0;
+    
+    /** Accept queue size on default connector, 0 uses Jetty default */
+    private int acceptQueueSize = 0;
+    
+    /** Thread pool limits, 0 uses Jetty default */
+    private int minThreads = 0;
+    private int maxThreads = 0;
+    
+    /** Thread idle timeout in milliseconds, 0 uses Jetty default */
+    private int threadIdleTimeout = 0;
+    
+    /** Add request log handler */
+    private boolean requestLog = true;
+    
+    /** Server thread pool */
+    private QueuedThreadPool threadPool;
+    
+    /** Request statistics */
+    private StatisticsHandler statisticsHandler;
+    
     @Override
     protected void shutdown() {
         if (jettyServer != null) {
@@ -96,9 +123,13 @@ public class JettyServer extends AbstractServer implements ApplicationContextAwa
                 jettyServer = new Server();
                 jettyServer.addConnector(connector);
             } else {
-                jettyServer = new Server(port);
+                jettyServer = new Server();
+                jettyServer.addConnector(createDefaultConnector());
             }
             
+            threadPool = createThreadPool();
+            jettyServer.setThreadPool(threadPool);
+            
             HandlerCollection handlers = new HandlerCollection();
             
             ContextHandlerCollection contexts = new ContextHandlerCollection();
@@ -134,9 +165,15 @@ public class JettyServer extends AbstractServer implements ApplicationContextAwa
             handlers.addHandler(contexts);
             
             handlers.addHandler(new DefaultHandler());
-            handlers.addHandler(new RequestLogHandler());
             
-            jettyServer.setHandler(handlers);
+            if (requestLog) {
+                handlers.addHandler(new RequestLogHandler());
+            }
+            
+            statisticsHandler = new StatisticsHandler();
+            statisticsHandler.setHandler(handlers);
+            
+            jettyServer.setHandler(statisticsHandler);
             
             try {
                 jettyServer.start();
@@ -146,6 +183,96 @@ public class JettyServer extends AbstractServer implements ApplicationContextAwa
         }
     }
 
+    /**
+     * Creates the default selector based NIO connector on server port.
+     * @return
+     */
+    private Connector createDefaultConnector() {
+        SelectChannelConnector defaultConnector = new SelectChannelConnector();
+        defaultConnector.setPort(port);
+        
+        if (acceptors > 0) {
+            defaultConnector.setAcceptors(acceptors);
+        }
+        
+        if (maxIdleTime > 0) {
+            defaultConnector.setMaxIdleTime(maxIdleTime);
+        }
+        
+        if (acceptQueueSize > 0) {
+            defaultConnector.setAcceptQueueSize(acceptQueueSize);
+        }
+        
+        return defaultConnector;
+    }
+    
+    /**
+     * Creates the bounded server thread pool.
+     * @return
+     */
+    private QueuedThreadPool createThreadPool() {
+        QueuedThreadPool pool = new QueuedThreadPool();
+        pool.setName(getName());
+        
+        if (maxThreads > 0) {
+            pool.setMaxThreads(maxThreads);
+        }
+        
+        if (minThreads > 0) {
+            pool.setMinThreads(minThreads);
+        }
+        
+        if (threadIdleTimeout > 0) {
+            pool.setMaxIdleTimeMs(threadIdleTimeout);
+        }
+        
+        return pool;
+    }
+    
+    /**
+     * Gets the number of server threads currently processing requests.
+     * @return
+     */
+    public int getActiveThreads() {
+        return threadPool != null ? threadPool.getThreads() - threadPool.getIdleThreads() : 0;
+    }
+    
+    /**
+     * Gets the number of jobs waiting for a free server thread.
+     * @return
+     */
+    public int getQueueSize() {
+        return threadPool != null ? threadPool.getQueueSize() : 0;
+    }
+    
+    /**
+     * Gets the number of handled requests since server start.
+     * @return
+     */
+    public int getRequests() {
+        return statisticsHandler != null ? statisticsHandler.getRequests() : 0;
+    }
+    
+    /**
+     * Gets the number of requests currently processed.
+     * @return
+     */
+    public int getRequestsActive() {
+        return statisticsHandler != null ? statisticsHandler.getRequestsActive() : 0;
+    }
+    
+    /**
+     * Gets the average number of requests per second since server start.
+     * @return
+     */
+    public double getRequestRate() {
+        if (statisticsHandler == null || statisticsHandler.getStatsOnMs() <= 0) {
+            return 0.0;
+        }
+        
+        return statisticsHandler.getRequests() * 1000.0 / statisticsHandler.getStatsOnMs();
+    }
+
     /**
      * Get the server port.
      * @return the port
@@ -333,4 +460,116 @@ public class JettyServer extends AbstractServer implements ApplicationContextAwa
     public void setConnectors(Connector[] connectors) {
         this.connectors = Arrays.copyOf(connectors, connectors.length);
     }
+
+    /**
+     * Sets the number of acceptors on default connector.
+     * @param acceptors the acceptors to set
+     */
+    public void setAcceptors(int acceptors) {
+        this.acceptors = acceptors;
+    }
+
+    /**
+     * Gets the acceptors.
+     * @return the acceptors
+     */
+    public int getAcceptors() {
+        return acceptors;
+    }
+
+    /**
+     * Sets the connection idle timeout on default connector.
+     * @param maxIdleTime the maxIdleTime to set
+     */
+    public void setMaxIdleTime(int maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Gets the maxIdleTime.
+     * @return the maxIdleTime
+     */
+    public int getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * Sets the accept queue size on default connector.
+     * @param acceptQueueSize the acceptQueueSize to set
+     */
+    public void setAcceptQueueSize(int acceptQueueSize) {
+        this.acceptQueueSize = acceptQueueSize;
+    }
+
+    /**
+     * Gets the acceptQueueSize.
+     * @return the acceptQueueSize
+     */
+    public int getAcceptQueueSize() {
+        return acceptQueueSize;
+    }
+
+    /**
+     * Sets the minimum number of server threads.
+     * @param minThreads the minThreads to set
+     */
+    public void setMinThreads(int minThreads) {
+        this.minThreads = minThreads;
+    }
+
+    /**
+     * Gets the minThreads.
+     * @return the minThreads
+     */
+    public int getMinThreads() {
+        return minThreads;
+    }
+
+    /**
+     * Sets the maximum number of server threads.
+     * @param maxThreads the maxThreads to set
+     */
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    /**
+     * Gets the maxThreads.
+     * @return the maxThreads
+     */
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * Sets the idle timeout for server threads.
+     * @param threadIdleTimeout the threadIdleTimeout to set
+     */
+    public void setThreadIdleTimeout(int threadIdleTimeout) {
+        this.threadIdleTimeout = threadIdleTimeout;
+    }
+
+    /**
+     * Gets the threadIdleTimeout.
+     * @return the threadIdleTimeout
+     */
+    public int getThreadIdleTimeout() {
+        return threadIdleTimeout;
+    }
+
+    /**
+     * Enables/disables request logging.
+     * @param requestLog the requestLog to set
+     */
+    public void setRequestLog(boolean requestLog) {
+        this.requestLog = requestLog;
+    }
+
+    /**
+     * Is request logging enabled.
+     * @return the requestLog
+     */
+    public boolean isRequestLog() {
+        return requestLog;
+    }
 }
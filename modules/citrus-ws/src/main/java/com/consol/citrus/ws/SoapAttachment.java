@@ -17,23 +17,54 @@
 package com.consol.citrus.ws;
 
 import java.io.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.activation.DataHandler;
 import javax.activation.DataSource;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.ws.mime.Attachment;
 
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 
 /**
- * Citrus SOAP attachment implementation.
+ * Citrus SOAP attachment implementation. Content body is either a string or binary data. Binary data
+ * is kept in memory, streamed from a resource or, for received attachments exceeding a size threshold,
+ * buffered in a temporary file, so large binary attachments are neither held in heap nor modified
+ * by charset conversion.
  * 
  * @author Christoph Deppisch
  */
 public class SoapAttachment implements Attachment {
+    /** Logger */
+    private static Logger log = LoggerFactory.getLogger(SoapAttachment.class);
+    
+    /** Default size threshold in bytes for buffering received attachments in memory */
+    public static final long DEFAULT_MEMORY_THRESHOLD = 1024 * 1024;
+    
+    /** Temporary files of attachments not disposed yet, deleted on JVM shutdown */
+    private static final Map<File, Boolean> undisposedFiles = new ConcurrentHashMap<File, Boolean>();
+    
+    /** Shutdown hook deleting undisposed temporary files registered on first use */
+    private static final AtomicBoolean shutdownHookRegistered = new AtomicBoolean(false);
+    
     /** Content body as string */
     private String content;
     
+    /** Binary content body in memory */
+    private byte[] data;
+    
+    /** Binary content body buffered in temporary file */
+    private File dataFile;
+    
+    /** Binary content body as resource */
+    private Resource contentResource;
+    
     /** Content type */
     private String contentType = "text/plain";
     
@@ -57,6 +88,61 @@ public class SoapAttachment implements Attachment {
         this.content = content;
     }
     
+    /**
+     * Creates attachment copy with binary content body. Content is read from the attachment
+     * input stream exactly once, content exceeding the memory threshold is written to a temporary file.
+     * 
+     * @param attachment the attachment to copy.
+     * @param memoryThreshold maximum number of bytes kept in memory.
+     * @return
+     * @throws IOException
+     */
+    public static SoapAttachment from(Attachment attachment, long memoryThreshold) throws IOException {
+        SoapAttachment soapAttachment = new SoapAttachment();
+        soapAttachment.setContentId(attachment.getContentId());
+        soapAttachment.setContentType(attachment.getContentType());
+        
+        InputStream inputStream = attachment.getInputStream();
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int bytesRead;
+            
+            while ((bytesRead = inputStream.read(chunk)) != -1) {
+                buffer.write(chunk, 0, bytesRead);
+                
+                if (buffer.size() > memoryThreshold) {
+                    soapAttachment.dataFile = createTempFile();
+                    
+                    try {
+                        OutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(soapAttachment.dataFile));
+                        try {
+                            buffer.writeTo(fileOutputStream);
+                            buffer = null;
+                            
+                            while ((bytesRead = inputStream.read(chunk)) != -1) {
+                                fileOutputStream.write(chunk, 0, bytesRead);
+                            }
+                        } finally {
+                            fileOutputStream.close();
+                        }
+                    } catch (IOException e) {
+                        soapAttachment.dispose();
+                        throw e;
+                    }
+                    
+                    return soapAttachment;
+                }
+            }
+            
+            soapAttachment.data = buffer.toByteArray();
+        } finally {
+            inputStream.close();
+        }
+        
+        return soapAttachment;
+    }
+    
     /**
      * @see org.springframework.ws.mime.Attachment#getContentId()
      */
@@ -85,7 +171,7 @@ public class SoapAttachment implements Attachment {
             }
             
             public InputStream getInputStream() throws IOException {
-                return new ByteArrayInputStream(content.getBytes(charsetName));
+                return SoapAttachment.this.getInputStream();
             }
             
             public String getContentType() {
@@ -98,7 +184,17 @@ public class SoapAttachment implements Attachment {
      * @see org.springframework.ws.mime.Attachment#getInputStream()
      */
     public InputStream getInputStream() throws IOException {
-        return new ByteArrayInputStream(content.getBytes(charsetName));
+        if (content != null) {
+            return new ByteArrayInputStream(content.getBytes(charsetName));
+        } else if (data != null) {
+            return new ByteArrayInputStream(data);
+        } else if (dataFile != null) {
+            return new BufferedInputStream(new FileInputStream(dataFile));
+        } else if (contentResource != null) {
+            return contentResource.getInputStream();
+        }
+        
+        return new ByteArrayInputStream(new byte[] {});
     }
 
     /**
@@ -106,17 +202,78 @@ public class SoapAttachment implements Attachment {
      */
     public long getSize() {
         try {
-            return content.getBytes(charsetName).length;
-        } catch (UnsupportedEncodingException e) {
+            if (content != null) {
+                return content.getBytes(charsetName).length;
+            } else if (data != null) {
+                return data.length;
+            } else if (dataFile != null) {
+                return dataFile.length();
+            } else if (contentResource != null) {
+                return getResourceSize();
+            }
+            
+            return 0L;
+        } catch (IOException e) {
             throw new CitrusRuntimeException(e);
         }
     }
+    
+    /**
+     * Gets content resource size. Resources not resolvable to a file (e.g. inside jar archives) 
+     * are measured by reading the content stream.
+     * @return
+     * @throws IOException
+     */
+    private long getResourceSize() throws IOException {
+        try {
+            return contentResource.getFile().length();
+        } catch (IOException e) {
+            InputStream inputStream = contentResource.getInputStream();
+            try {
+                byte[] chunk = new byte[8192];
+                long size = 0L;
+                int bytesRead;
+                
+                while ((bytesRead = inputStream.read(chunk)) != -1) {
+                    size += bytesRead;
+                }
+                
+                return size;
+            } finally {
+                inputStream.close();
+            }
+        }
+    }
+    
+    /**
+     * Checks for binary content body, either in memory, in a temporary file or as resource.
+     * @return
+     */
+    public boolean isBinary() {
+        return content == null && (data != null || dataFile != null || contentResource != null);
+    }
+    
+    /**
+     * Checks content type for textual content, which is any text or XML content type.
+     * @return
+     */
+    public boolean isTextContent() {
+        return contentType == null || contentType.startsWith("text/") || contentType.contains("xml");
+    }
 
     /**
-     * Get the content body.
+     * Get the content body. Binary content is decoded using the charset.
      * @return the content
      */
     public String getContent() {
+        if (content == null && isBinary()) {
+            try {
+                return new String(FileCopyUtils.copyToByteArray(getInputStream()), charsetName);
+            } catch (IOException e) {
+                throw new CitrusRuntimeException("Failed to read attachment content", e);
+            }
+        }
+        
         return content;
     }
 
@@ -127,6 +284,63 @@ public class SoapAttachment implements Attachment {
     public void setContent(String content) {
         this.content = content;
     }
+    
+    /**
+     * Set the binary content body as resource. Content is streamed from the resource on each read.
+     * @param contentResource the contentResource to set
+     */
+    public void setContentResource(Resource contentResource) {
+        this.content = null;
+        this.contentResource = contentResource;
+    }
+    
+    /**
+     * Deletes temporary file buffering the content body if any. Should be called once the received
+     * attachment has been processed, temporary files of attachments never disposed are deleted on JVM shutdown.
+     */
+    public void dispose() {
+        if (dataFile != null) {
+            undisposedFiles.remove(dataFile);
+            
+            if (!dataFile.delete() && dataFile.exists()) {
+                log.warn("Failed to delete temporary attachment file " + dataFile.getAbsolutePath());
+            }
+            
+            dataFile = null;
+        }
+    }
+    
+    /**
+     * Creates temporary file for buffering attachment content. File is tracked until disposed, so 
+     * attachments that are never disposed, e.g. consumed by plain message receivers or parked in reply 
+     * handlers, do not leave temporary files behind after JVM shutdown.
+     * @return
+     * @throws IOException
+     */
+    private static File createTempFile() throws IOException {
+        if (shutdownHookRegistered.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread("citrus-attachment-cleanup") {
+                @Override
+                public void run() {
+                    for (File file : undisposedFiles.keySet()) {
+                        file.delete();
+                    }
+                }
+            });
+        }
+        
+        File file = File.createTempFile("citrus-attachment", ".tmp");
+        undisposedFiles.put(file, Boolean.TRUE);
+        return file;
+    }
+    
+    /**
+     * Gets the number of temporary attachment files that have not been disposed yet.
+     * @return
+     */
+    public static int getUndisposedFiles() {
+        return undisposedFiles.size();
+    }
 
     /**
      * Get the charset name.
@@ -49,6 +49,7 @@ import com.consol.citrus.message.MessageHandler;
 import com.consol.citrus.util.MessageUtils;
 import com.consol.citrus.ws.message.CitrusSoapMessageHeaders;
 import com.consol.citrus.ws.message.converter.SoapMessageConverter;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * SpringWS {@link MessageEndpoint} implementation. Endpoint will delegate message processing to 
@@ -70,6 +71,9 @@ public class WebServiceEndpoint implements MessageEndpoint {
     /** Include mime headers (HTTP headers) into request which is passed to the message handler */
     private boolean handleMimeHeaders = false;
     
+    /** Send responses as MTOM/XOP packages */
+    private boolean mtomEnabled = false;
+    
     /** Logger */
     private static Logger log = LoggerFactory.getLogger(WebServiceEndpoint.class);
     
@@ -97,6 +101,10 @@ public class WebServiceEndpoint implements MessageEndpoint {
             
             SoapMessage response = (SoapMessage)messageContext.getResponse();
             
+            if (mtomEnabled && !response.convertToXopPackage()) {
+                log.warn("Unable to convert SOAP response to MTOM/XOP package");
+            }
+            
             //add soap fault or normal soap body to response
             if (replyMessage.getHeaders().containsKey(CitrusSoapMessageHeaders.SOAP_FAULT)) {
                 addSoapFault(response, replyMessage);
@@ -144,8 +152,7 @@ public class WebServiceEndpoint implements MessageEndpoint {
     private void addSoapBody(SoapMessage response, Message<?> replyMessage) throws TransformerException {
         Source responseSource = getPayloadAsSource(replyMessage.getPayload());
         
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
+        Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
         
         transformer.transform(responseSource, response.getPayloadResult());
     }
@@ -165,8 +172,7 @@ public class WebServiceEndpoint implements MessageEndpoint {
             if (headerEntry.getKey().equalsIgnoreCase(CitrusSoapMessageHeaders.SOAP_ACTION)) {
                 response.setSoapAction(headerEntry.getValue().toString());
             } else if (headerEntry.getKey().equalsIgnoreCase(CitrusMessageHeaders.HEADER_CONTENT)) {
-                TransformerFactory transformerFactory = TransformerFactory.newInstance();
-                Transformer transformer = transformerFactory.newTransformer();
+                Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
                 
                 transformer.transform(new StringSource(headerEntry.getValue().toString()), 
                         response.getSoapHeader().getResult());
@@ -235,8 +241,7 @@ public class WebServiceEndpoint implements MessageEndpoint {
         if (replyMessage.getPayload() instanceof String && 
                 StringUtils.hasText(replyMessage.getPayload().toString())) {
             SoapFaultDetail faultDetail = soapFault.addFaultDetail();
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
+            Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
             
             transformer.transform(getPayloadAsSource(replyMessage.getPayload()), faultDetail.getResult());
         }
@@ -309,4 +314,12 @@ public class WebServiceEndpoint implements MessageEndpoint {
     public void setHandleMimeHeaders(boolean handleMimeHeaders) {
         this.handleMimeHeaders = handleMimeHeaders;
     }
-}
\ No newline at end of file
+
+    /**
+     * Enables MTOM/XOP packaging of SOAP responses.
+     * @param mtomEnabled the mtomEnabled to set
+     */
+    public void setMtomEnabled(boolean mtomEnabled) {
+        this.mtomEnabled = mtomEnabled;
+    }
+}
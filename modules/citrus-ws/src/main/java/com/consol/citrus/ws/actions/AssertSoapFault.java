@@ -43,6 +43,7 @@ import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.ValidationException;
 import com.consol.citrus.util.FileUtils;
 import com.consol.citrus.ws.validation.SoapFaultValidator;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * Asserting SOAP fault exception in embedded test action.
@@ -164,8 +165,7 @@ public class AssertSoapFault extends AbstractActionContainer {
      * @throws TransformerException 
      */
     private void addFaultDetail(SoapFault fault, TestContext context) throws TransformerException, IOException {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
+        Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
         
         if (faultDetailResource != null) {
             transformer.transform(new StringSource(
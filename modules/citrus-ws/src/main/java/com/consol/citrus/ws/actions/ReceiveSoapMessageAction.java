@@ -57,11 +57,7 @@ public class ReceiveSoapMessageAction extends ReceiveMessageAction {
         try {
             super.validateMessage(receivedMessage, context);
             
-            if (attachmentData != null) {
-                controlAttachment.setContent(context.replaceDynamicContentInString(attachmentData));
-            } else if (attachmentResource != null) {
-                controlAttachment.setContent(context.replaceDynamicContentInString(FileUtils.readToString(attachmentResource)));
-            } else {
+            if (attachmentData == null && attachmentResource == null) {
                 return; //no attachment expected, no validation
             }
             
@@ -75,9 +71,33 @@ public class ReceiveSoapMessageAction extends ReceiveMessageAction {
                 controlAttachment.setContentType(context.replaceDynamicContentInString(controlAttachment.getContentType()));
             }
             
+            if (attachmentData != null) {
+                controlAttachment.setContent(context.replaceDynamicContentInString(attachmentData));
+            } else if (!controlAttachment.isTextContent()) {
+                // binary content is streamed from resource without variable replacement
+                controlAttachment.setContentResource(attachmentResource);
+            } else {
+                controlAttachment.setContent(context.replaceDynamicContentInString(FileUtils.readToString(attachmentResource)));
+            }
+            
             attachmentValidator.validateAttachment(receivedMessage, controlAttachment);
         } catch (IOException e) {
             throw new CitrusRuntimeException(e);
+        } finally {
+            disposeAttachments(receivedMessage);
+        }
+    }
+    
+    /**
+     * Releases temporary files buffering received attachment content. Attachments are
+     * not accessed anymore after validation.
+     * @param receivedMessage
+     */
+    private void disposeAttachments(Message<?> receivedMessage) {
+        for (Object header : receivedMessage.getHeaders().values()) {
+            if (header instanceof SoapAttachment) {
+                ((SoapAttachment) header).dispose();
+            }
         }
     }
 
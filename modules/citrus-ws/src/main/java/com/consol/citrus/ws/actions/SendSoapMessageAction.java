@@ -68,25 +68,33 @@ public class SendSoapMessageAction extends SendMessageAction {
             		"'com.consol.citrus.ws.message.WebServiceMessageSender' but was '" + messageSender.getClass().getName() + "'");
         }
         
-        final String attachmentContent;
+        final SoapAttachment soapAttachment;
         try {
             if (StringUtils.hasText(attachmentData)) {
-                attachmentContent = context.replaceDynamicContentInString(attachmentData);
+                soapAttachment = createAttachment();
+                soapAttachment.setContent(context.replaceDynamicContentInString(attachmentData));
             } else if (attachmentResource != null) {
-                attachmentContent = context.replaceDynamicContentInString(FileUtils.readToString(attachmentResource));
+                soapAttachment = createAttachment();
+                
+                if (soapAttachment.isTextContent()) {
+                    soapAttachment.setContent(context.replaceDynamicContentInString(FileUtils.readToString(attachmentResource)));
+                } else {
+                    // binary content is streamed from resource without variable replacement
+                    soapAttachment.setContentResource(attachmentResource);
+                }
             } else {
-                attachmentContent = null;
+                soapAttachment = null;
             }
         
             if (forkMode) {
                 SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor();
                 taskExecutor.execute(new Runnable() {
                     public void run() {
-                        sendSoapMessage(message, attachmentContent);
+                        sendSoapMessage(message, soapAttachment);
                     }
                 });
             } else {
-                sendSoapMessage(message, attachmentContent);
+                sendSoapMessage(message, soapAttachment);
             }
         } catch (IOException e) {
             throw new CitrusRuntimeException(e);
@@ -97,19 +105,29 @@ public class SendSoapMessageAction extends SendMessageAction {
      * Sends the SOAP message with the {@link WebServiceMessageSender}.
      * 
      * @param message the message to send.
-     * @param attachmentContent the optional attachmentContent.
+     * @param soapAttachment the optional attachment.
      */
-    private void sendSoapMessage(Message<?> message, String attachmentContent) {
+    private void sendSoapMessage(Message<?> message, SoapAttachment soapAttachment) {
         WebServiceMessageSender webServiceMessageSender = (WebServiceMessageSender) messageSender;
-        if (attachmentContent != null) {
-            attachment.setContent(attachmentContent);
-            
-            webServiceMessageSender.send(message, attachment);
+        if (soapAttachment != null) {
+            webServiceMessageSender.send(message, soapAttachment);
         } else {
             webServiceMessageSender.send(message);
         }
     }
-
+    
+    /**
+     * Creates new attachment for this send operation using configured content id, content type and charset.
+     * @return
+     */
+    private SoapAttachment createAttachment() {
+        SoapAttachment soapAttachment = new SoapAttachment();
+        soapAttachment.setContentId(attachment.getContentId());
+        soapAttachment.setContentType(attachment.getContentType());
+        soapAttachment.setCharsetName(attachment.getCharsetName());
+        return soapAttachment;
+    }
+    
     /**
      * Set the Attachment data file resource.
      * @param attachment the attachment to set
@@ -23,6 +23,8 @@ import org.springframework.beans.factory.xml.ParserContext;
 import org.springframework.util.StringUtils;
 import org.w3c.dom.Element;
 
+import com.consol.citrus.config.util.BeanDefinitionParserUtils;
+
 /**
  * Parser for jetty-server component in Citrus ws namespace.
  * 
@@ -78,6 +80,20 @@ public class JettyServerParser extends AbstractBeanDefinitionParser {
             builder.addPropertyReference(WSParserConstants.CONNECTOR_PROPERTY, connector);
         }
         
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("acceptors"), "acceptors");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("max-idle-time"), "maxIdleTime");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("accept-queue-size"), "acceptQueueSize");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("min-threads"), "minThreads");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("max-threads"), "maxThreads");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("thread-idle-timeout"), "threadIdleTimeout");
+        
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("request-log"), "requestLog");
+        
         return builder.getBeanDefinition();
     }
 }
@@ -108,6 +108,8 @@ public class WebServiceMessageSenderParser extends AbstractBeanDefinitionParser
                     ErrorHandlingStrategy.fromName(element.getAttribute("fault-strategy")));
         }
         
+        BeanDefinitionParserUtils.setPropertyValue(builder, element.getAttribute("mtom-enabled"), "mtomEnabled");
+        
         return builder.getBeanDefinition();
     }
 }
@@ -27,6 +27,7 @@ import org.springframework.ws.WebServiceMessage;
 import org.springframework.xml.transform.TransformerObjectSupport;
 
 import com.consol.citrus.util.XMLUtils;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * @author Christoph Deppisch
@@ -52,7 +53,7 @@ public abstract class LoggingInterceptorSupport extends TransformerObjectSupport
      * @throws TransformerException
      */
     protected void logSoapMessage(String logMessage, Source messageSource) throws TransformerException {
-        Transformer transformer = createIndentingTransformer();
+        Transformer transformer = TransformerCache.getInstance().getIndentingTransformer();
         StringWriter writer = new StringWriter();
         
         transformer.transform(messageSource, new StreamResult(writer));
@@ -85,17 +86,4 @@ public abstract class LoggingInterceptorSupport extends TransformerObjectSupport
     private void logMessage(String message) {
         log.debug(message);
     }
-    
-    /**
-     * Get transformer implementation with output properties set.
-     * 
-     * @return the transformer instance.
-     * @throws TransformerConfigurationException
-     */
-    private Transformer createIndentingTransformer() throws TransformerConfigurationException {
-        Transformer transformer = createTransformer();
-        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
-        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-        return transformer;
-    }
 }
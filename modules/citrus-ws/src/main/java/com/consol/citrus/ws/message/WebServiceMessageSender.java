@@ -38,6 +38,7 @@ import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.message.*;
 import com.consol.citrus.ws.addressing.WsAddressingHeaders;
 import com.consol.citrus.ws.message.callback.*;
+import com.consol.citrus.xml.TransformerCache;
 /**
  * Message sender connection as client to a WebService endpoint. The sender supports
  * SOAP attachments in contrary to the normal message senders.
@@ -61,6 +62,9 @@ public class WebServiceMessageSender extends WebServiceGatewaySupport implements
     /** Should http errors be handled with reply message handler or simply throw exception */
     private ErrorHandlingStrategy errorHandlingStrategy = ErrorHandlingStrategy.THROWS_EXCEPTION;
     
+    /** Send requests as MTOM/XOP packages */
+    private boolean mtomEnabled = false;
+    
     /**
      * Logger
      */
@@ -99,13 +103,14 @@ public class WebServiceMessageSender extends WebServiceGatewaySupport implements
     				"' Currently only 'java.lang.String' is supported as payload type.");
         }
         
-        WebServiceMessageCallback requestCallback;
+        SoapRequestMessageCallback requestCallback;
         if (addressingHeaders == null) {
             requestCallback = new SoapRequestMessageCallback(message, attachment);
         } else {
             requestCallback = new WsAddressingRequestMessageCallback(message, 
                     attachment, addressingHeaders);
         }
+        requestCallback.setMtomEnabled(mtomEnabled);
         
         SoapResponseMessageCallback responseCallback = new SoapResponseMessageCallback();
         getWebServiceTemplate().setFaultMessageResolver(new InternalFaultMessageResolver(message, endpointUri));
@@ -178,8 +183,7 @@ public class WebServiceMessageSender extends WebServiceGatewaySupport implements
                     Message<?> responseMessage = callback.getResponse();
                     
                     if (webServiceResponse instanceof SoapMessage) {
-                        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-                        Transformer transformer = transformerFactory.newTransformer();
+                        Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
                         
                         StringResult faultPayload = new StringResult();
                         transformer.transform(((SoapMessage)webServiceResponse).getSoapBody().getFault().getSource(), faultPayload);
@@ -252,4 +256,20 @@ public class WebServiceMessageSender extends WebServiceGatewaySupport implements
     public void setErrorHandlingStrategy(ErrorHandlingStrategy errorHandlingStrategy) {
         this.errorHandlingStrategy = errorHandlingStrategy;
     }
+
+    /**
+     * Enables MTOM/XOP packaging of SOAP requests.
+     * @param mtomEnabled the mtomEnabled to set
+     */
+    public void setMtomEnabled(boolean mtomEnabled) {
+        this.mtomEnabled = mtomEnabled;
+    }
+
+    /**
+     * Is MTOM/XOP packaging enabled.
+     * @return the mtomEnabled
+     */
+    public boolean isMtomEnabled() {
+        return mtomEnabled;
+    }
 }
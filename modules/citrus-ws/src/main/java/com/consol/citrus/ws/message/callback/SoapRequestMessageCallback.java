@@ -40,6 +40,7 @@ import org.springframework.xml.transform.StringSource;
 import com.consol.citrus.message.CitrusMessageHeaders;
 import com.consol.citrus.util.MessageUtils;
 import com.consol.citrus.ws.message.CitrusSoapMessageHeaders;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * Sender callback invoked by framework with actual web service request before message is sent.
@@ -60,6 +61,9 @@ public class SoapRequestMessageCallback implements WebServiceMessageCallback {
     /** Optional attachment */
     private Attachment attachment = null;
     
+    /** Send message as MTOM/XOP package */
+    private boolean mtomEnabled = false;
+    
     /**
      * Default constructor using fields.
      * @param message
@@ -76,9 +80,12 @@ public class SoapRequestMessageCallback implements WebServiceMessageCallback {
     public void doWithMessage(WebServiceMessage requestMessage) throws IOException, TransformerException {
         SoapMessage soapRequest = ((SoapMessage)requestMessage);
         
+        if (mtomEnabled && !soapRequest.convertToXopPackage()) {
+            log.warn("Unable to convert SOAP request to MTOM/XOP package");
+        }
+        
         // Copy payload into soap-body: 
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
+        Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
         transformer.transform(new StringSource(message.getPayload().toString()), soapRequest.getSoapBody().getPayloadResult());
         
         // Copy headers into soap-header:
@@ -142,6 +149,14 @@ public class SoapRequestMessageCallback implements WebServiceMessageCallback {
         }
     }
 
+    /**
+     * Enables MTOM/XOP packaging of the SOAP request.
+     * @param mtomEnabled the mtomEnabled to set
+     */
+    public void setMtomEnabled(boolean mtomEnabled) {
+        this.mtomEnabled = mtomEnabled;
+    }
+    
     /**
      * Subclasses may use this method in order to manipulate the Soap request before sending.
      * @param soapRequest the request message.
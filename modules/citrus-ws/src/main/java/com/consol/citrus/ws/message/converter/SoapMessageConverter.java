@@ -37,9 +37,10 @@ import org.springframework.ws.soap.axiom.AxiomSoapMessage;
 import org.springframework.ws.soap.saaj.SaajSoapMessage;
 import org.springframework.xml.transform.StringResult;
 
-import com.consol.citrus.util.FileUtils;
+import com.consol.citrus.ws.SoapAttachment;
 import com.consol.citrus.ws.message.CitrusSoapMessageHeaders;
 import com.consol.citrus.ws.message.callback.SoapResponseMessageCallback;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * @author Christoph Deppisch
@@ -52,6 +53,9 @@ public class SoapMessageConverter {
     /** Should handle mime headers */
     private boolean handleMimeHeaders = true;
     
+    /** Maximum attachment size in bytes buffered in memory */
+    private long attachmentMemoryThreshold = SoapAttachment.DEFAULT_MEMORY_THRESHOLD;
+    
     /**
      * Default constructor. 
      */
@@ -77,8 +81,7 @@ public class SoapMessageConverter {
      * @throws TransformerException
      */
     public Message<?> convert(WebServiceMessage message, MessageContext messageContext) throws IOException, TransformerException {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
-        Transformer transformer = transformerFactory.newTransformer();
+        Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
         
         StringResult responsePayload = new StringResult();
         transformer.transform(message.getPayloadSource(), responsePayload);
@@ -207,7 +210,9 @@ public class SoapMessageConverter {
     }
     
     /**
-     * Adds attachments if present in soap web service message.
+     * Adds attachments if present in soap web service message. Textual attachment content is added as
+     * string header, binary or large content is added as {@link SoapAttachment} buffered in memory or in a 
+     * temporary file.
      * 
      * @param soapMessage the web service message.
      * @param messageBuilder the response message builder.
@@ -232,7 +237,14 @@ public class SoapMessageConverter {
                 messageBuilder.setHeader(contentId, attachment);                        
                 messageBuilder.setHeader(CitrusSoapMessageHeaders.CONTENT_ID, contentId);
                 messageBuilder.setHeader(CitrusSoapMessageHeaders.CONTENT_TYPE, attachment.getContentType());
-                messageBuilder.setHeader(CitrusSoapMessageHeaders.CONTENT, FileUtils.readToString(attachment.getInputStream()).trim());
+                
+                SoapAttachment content = SoapAttachment.from(attachment, attachmentMemoryThreshold);
+                if (content.isTextContent() && content.getSize() <= attachmentMemoryThreshold) {
+                    messageBuilder.setHeader(CitrusSoapMessageHeaders.CONTENT, content.getContent().trim());
+                } else {
+                    messageBuilder.setHeader(CitrusSoapMessageHeaders.CONTENT, content);
+                }
+                
                 messageBuilder.setHeader(CitrusSoapMessageHeaders.CHARSET_NAME, "UTF-8"); // TODO map this dynamically
             } else {
                 log.warn("Could not handle SOAP attachment with empty 'contentId'. Attachment is ignored in further processing");
@@ -240,4 +252,13 @@ public class SoapMessageConverter {
         }
     }
 
+    /**
+     * Sets the maximum attachment size in bytes buffered in memory, larger attachments are
+     * buffered in temporary files.
+     * @param attachmentMemoryThreshold the attachmentMemoryThreshold to set
+     */
+    public void setAttachmentMemoryThreshold(long attachmentMemoryThreshold) {
+        this.attachmentMemoryThreshold = attachmentMemoryThreshold;
+    }
+
 }
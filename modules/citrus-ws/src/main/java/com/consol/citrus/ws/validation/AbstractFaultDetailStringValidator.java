@@ -27,6 +27,7 @@ import org.springframework.xml.transform.StringResult;
 import com.consol.citrus.context.TestContext;
 import com.consol.citrus.exceptions.CitrusRuntimeException;
 import com.consol.citrus.exceptions.ValidationException;
+import com.consol.citrus.xml.TransformerCache;
 
 /**
  * Abstract implementation of {@link SoapFaultValidator} converting soap fault detail objects to simple String content for
@@ -54,8 +55,7 @@ public abstract class AbstractFaultDetailStringValidator extends AbstractSoapFau
         
         try {
             if (receivedDetail != null) {
-                TransformerFactory transformerFactory = TransformerFactory.newInstance();
-                Transformer transformer = transformerFactory.newTransformer();
+                Transformer transformer = TransformerCache.getInstance().getIdentityTransformer();
                 
                 StringResult receivedDetailResult = new StringResult();
                 StringResult controlDetailResult = new StringResult();
@@ -16,7 +16,7 @@
 
 package com.consol.citrus.ws.validation;
 
-import java.io.IOException;
+import java.io.*;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +33,8 @@ import com.consol.citrus.ws.message.CitrusSoapMessageHeaders;
  * its attachment contentId, contentType and content body to a control attachment definition. 
  * 
  * Validator will create a {@link SoapAttachment} and automatically handle contentId and 
- * contentType validation. Content body validation is delegated to subclasses.
+ * contentType validation. Binary content bodies are compared byte by byte, textual content body validation
+ * is delegated to subclasses.
  * 
  * @author Christoph Deppisch
  */
@@ -43,6 +44,9 @@ public abstract class AbstractSoapAttachmentValidator implements SoapAttachmentV
      */
     private static Logger log = LoggerFactory.getLogger(AbstractSoapAttachmentValidator.class);
     
+    /** Chunk size for binary content comparison */
+    private static final int BINARY_CHUNK_SIZE = 8192;
+    
     /**
      * Validate contentId and contentType of attachment to meet control attachment.
      * 
@@ -65,10 +69,19 @@ public abstract class AbstractSoapAttachmentValidator implements SoapAttachmentV
                 attachment.setContentType(receivedMessage.getHeaders().get(CitrusSoapMessageHeaders.CONTENT_TYPE).toString());
             }
             
+            SoapAttachment binaryAttachment = null;
             if (receivedMessage.getHeaders().containsKey(CitrusSoapMessageHeaders.CONTENT)) {
                 Object contentObject = receivedMessage.getHeaders().get(CitrusSoapMessageHeaders.CONTENT);
                 
-                if (contentObject instanceof byte[]) {
+                if (contentObject instanceof SoapAttachment) {
+                    binaryAttachment = (SoapAttachment) contentObject;
+                    
+                    if (!controlAttachment.isBinary()) {
+                        binaryAttachment.setCharsetName(controlAttachment.getCharsetName());
+                        attachment.setContent(binaryAttachment.getContent().trim());
+                        binaryAttachment = null;
+                    }
+                } else if (contentObject instanceof byte[]) {
                     String content = new String((byte[])contentObject, controlAttachment.getCharsetName());
                     
                     if (content.contains("<?xml")) {
@@ -81,13 +94,18 @@ public abstract class AbstractSoapAttachmentValidator implements SoapAttachmentV
                     attachment.setContent(contentObject.toString());
                 } else {
                     throw new IllegalArgumentException("Unsupported attachment content object (" + contentObject.getClass() + ")." +
-                    		" Either byte[] or java.lang.String are supported.");
+                    		" Either byte[], java.lang.String or SoapAttachment are supported.");
                 }
             }
             
             validateAttachmentContentId(attachment, controlAttachment);
             validateAttachmentContentType(attachment, controlAttachment);
-            validateAttachmentContent(attachment, controlAttachment);
+            
+            if (binaryAttachment != null) {
+                validateAttachmentBinaryContent(binaryAttachment, controlAttachment);
+            } else {
+                validateAttachmentContent(attachment, controlAttachment);
+            }
             
             log.info("Validation of SOAP attachment finished successfully: All values OK");
         } else {
@@ -153,6 +171,72 @@ public abstract class AbstractSoapAttachmentValidator implements SoapAttachmentV
         }
     }
     
+    /**
+     * Validating binary SOAP attachment content. Compares received and control content streams chunk by chunk, 
+     * so content is neither fully loaded into memory nor converted with some charset.
+     * @param receivedAttachment
+     * @param controlAttachment
+     * @throws IOException 
+     */
+    protected void validateAttachmentBinaryContent(SoapAttachment receivedAttachment, SoapAttachment controlAttachment) throws IOException {
+        InputStream received = new BufferedInputStream(receivedAttachment.getInputStream());
+        InputStream control = new BufferedInputStream(controlAttachment.getInputStream());
+        
+        try {
+            byte[] receivedChunk = new byte[BINARY_CHUNK_SIZE];
+            byte[] controlChunk = new byte[BINARY_CHUNK_SIZE];
+            long offset = 0L;
+            
+            while (true) {
+                int receivedBytes = readChunk(received, receivedChunk);
+                int controlBytes = readChunk(control, controlChunk);
+                
+                for (int i = 0; i < Math.min(receivedBytes, controlBytes); i++) {
+                    if (receivedChunk[i] != controlChunk[i]) {
+                        throw new IllegalArgumentException("Values not equal for binary attachment content, " +
+                        		"first difference at byte offset " + (offset + i));
+                    }
+                }
+                
+                if (receivedBytes != controlBytes) {
+                    throw new IllegalArgumentException(buildValidationErrorMessage("Values not equal for binary attachment content size", 
+                            controlAttachment.getSize(), receivedAttachment.getSize()));
+                }
+                
+                if (receivedBytes < BINARY_CHUNK_SIZE) {
+                    break;
+                }
+                
+                offset += receivedBytes;
+            }
+        } finally {
+            received.close();
+            control.close();
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Validating binary attachment content (" + receivedAttachment.getSize() + " bytes): OK.");
+        }
+    }
+    
+    /**
+     * Reads chunk from input stream until chunk is full or end of stream is reached.
+     * @param inputStream
+     * @param chunk
+     * @return number of bytes read.
+     * @throws IOException
+     */
+    private int readChunk(InputStream inputStream, byte[] chunk) throws IOException {
+        int total = 0;
+        int bytesRead;
+        
+        while (total < chunk.length && (bytesRead = inputStream.read(chunk, total, chunk.length - total)) != -1) {
+            total += bytesRead;
+        }
+        
+        return total;
+    }
+    
     /**
      * Constructs proper error message with expected value and actual value.
      * @param message the base error message.
@@ -361,4 +361,49 @@ public class ReceiveSoapMessageActionTest extends AbstractTestNGUnitTest {
         
         verify(messageReceiver, attachmentValidator);
     }
+    
+    @Test
+    public void testSoapMessageAttachmentDisposedAfterValidation() throws Exception {
+        ReceiveSoapMessageAction soapMessageAction = new ReceiveSoapMessageAction();
+        soapMessageAction.setMessageReceiver(messageReceiver);
+        soapMessageAction.setAttachmentValidator(attachmentValidator);
+        
+        soapMessageAction.setValidator(new DomXmlMessageValidator());
+        PayloadTemplateMessageBuilder controlMessageBuilder = new PayloadTemplateMessageBuilder();
+        XmlMessageValidationContext validationContext = new XmlMessageValidationContext();
+        validationContext.setMessageBuilder(controlMessageBuilder);
+        controlMessageBuilder.setPayloadData("<TestRequest><Message>Hello World!</Message></TestRequest>");
+        
+        soapMessageAction.setAttachmentData("TestAttachment!");
+        
+        final boolean[] disposed = new boolean[] { false };
+        SoapAttachment receivedAttachment = new SoapAttachment("TestAttachment!") {
+            @Override
+            public void dispose() {
+                disposed[0] = true;
+            }
+        };
+        
+        Message controlMessage = MessageBuilder.withPayload("<TestRequest><Message>Hello World!</Message></TestRequest>")
+                                    .setHeader("attachment", receivedAttachment)
+                                    .build();
+        
+        reset(messageReceiver, attachmentValidator);
+        
+        expect(messageReceiver.receive()).andReturn(controlMessage);
+        
+        attachmentValidator.validateAttachment((Message<?>)anyObject(), (SoapAttachment)anyObject());
+        expectLastCall().once();
+        
+        replay(messageReceiver, attachmentValidator);
+        
+        List<ValidationContext> validationContexts = new ArrayList<ValidationContext>();
+        validationContexts.add(validationContext);
+        soapMessageAction.setValidationContexts(validationContexts);
+        soapMessageAction.execute(context);
+        
+        Assert.assertTrue(disposed[0]);
+        
+        verify(messageReceiver, attachmentValidator);
+    }
 }
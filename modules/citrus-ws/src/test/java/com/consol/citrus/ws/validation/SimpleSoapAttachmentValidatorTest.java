@@ -18,8 +18,10 @@ package com.consol.citrus.ws.validation;
 
 import java.io.IOException;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.integration.Message;
 import org.springframework.integration.support.MessageBuilder;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.consol.citrus.ws.SoapAttachment;
@@ -113,4 +115,84 @@ public class SimpleSoapAttachmentValidatorTest {
         SimpleSoapAttachmentValidator validator = new SimpleSoapAttachmentValidator();
         validator.validateAttachment(testMessage, controlAttachment);
     }
+    
+    @Test
+    public void testBinaryValidation() throws IOException {
+        byte[] data = createBinaryContent(100000);
+        
+        int undisposedFiles = SoapAttachment.getUndisposedFiles();
+        
+        SoapAttachment receivedAttachment = SoapAttachment.from(createAttachment(data), 1024L);
+        Assert.assertEquals(receivedAttachment.getSize(), 100000L);
+        Assert.assertEquals(SoapAttachment.getUndisposedFiles(), undisposedFiles + 1);
+        
+        Message<?> testMessage = MessageBuilder.withPayload("Some Payload")
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT, receivedAttachment)
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT_ID, "soapAttachmentId")
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT_TYPE, "application/octet-stream")
+                                    .build();
+        
+        SoapAttachment controlAttachment = new SoapAttachment();
+        controlAttachment.setContentId("soapAttachmentId");
+        controlAttachment.setContentType("application/octet-stream");
+        controlAttachment.setContentResource(new ByteArrayResource(data));
+        
+        try {
+            SimpleSoapAttachmentValidator validator = new SimpleSoapAttachmentValidator();
+            validator.validateAttachment(testMessage, controlAttachment);
+        } finally {
+            receivedAttachment.dispose();
+        }
+        
+        Assert.assertEquals(SoapAttachment.getUndisposedFiles(), undisposedFiles);
+    }
+    
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBinaryValidationError() throws IOException {
+        byte[] data = createBinaryContent(100000);
+        byte[] controlData = createBinaryContent(100000);
+        controlData[50000]++;
+        
+        Message<?> testMessage = MessageBuilder.withPayload("Some Payload")
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT, SoapAttachment.from(createAttachment(data), 1024L * 1024L))
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT_ID, "soapAttachmentId")
+                                    .setHeader(CitrusSoapMessageHeaders.CONTENT_TYPE, "application/octet-stream")
+                                    .build();
+        
+        SoapAttachment controlAttachment = new SoapAttachment();
+        controlAttachment.setContentId("soapAttachmentId");
+        controlAttachment.setContentType("application/octet-stream");
+        controlAttachment.setContentResource(new ByteArrayResource(controlData));
+        
+        SimpleSoapAttachmentValidator validator = new SimpleSoapAttachmentValidator();
+        validator.validateAttachment(testMessage, controlAttachment);
+    }
+    
+    /**
+     * Creates binary attachment content with given size.
+     * @param size
+     * @return
+     */
+    private byte[] createBinaryContent(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i % 251);
+        }
+        
+        return data;
+    }
+    
+    /**
+     * Creates attachment with binary content.
+     * @param data
+     * @return
+     */
+    private SoapAttachment createAttachment(byte[] data) {
+        SoapAttachment attachment = new SoapAttachment();
+        attachment.setContentId("soapAttachmentId");
+        attachment.setContentType("application/octet-stream");
+        attachment.setContentResource(new ByteArrayResource(data));
+        
+        return attachment;
+    }
 }